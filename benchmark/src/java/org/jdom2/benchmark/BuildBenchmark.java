@@ -0,0 +1,146 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.benchmark;
+
+import java.io.CharArrayReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.DOMBuilder;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.StAXStreamBuilder;
+import org.jdom2.input.sax.SAXEngine;
+
+/**
+ * Benchmarks the JDOM builders: SAX, StAX (stream), and DOM.
+ * <p>
+ * The SAX benchmark uses a pre-built {@link SAXEngine} so that it measures
+ * the parse and tree construction rather than the parser lookup, which is
+ * how high-volume callers are expected to use JDOM.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BuildBenchmark {
+
+	private SAXEngine saxengine = null;
+	private final StAXStreamBuilder staxbuilder = new StAXStreamBuilder();
+	private final DOMBuilder dombuilder = new DOMBuilder();
+
+	/**
+	 * Build the reusable SAX engine.
+	 * @throws JDOMException if the engine cannot be created.
+	 */
+	@Setup
+	public void setup() throws JDOMException {
+		saxengine = new SAXBuilder().buildEngine();
+	}
+
+	/**
+	 * Parse the corpus with SAX.
+	 * @param state the corpus to parse
+	 * @return the built Document
+	 * @throws Exception if the parse fails.
+	 */
+	@Benchmark
+	public Document saxBuild(CorpusState state) throws Exception {
+		return saxengine.build(new CharArrayReader(state.chars));
+	}
+
+	/**
+	 * Parse the corpus with a StAX XMLStreamReader.
+	 * @param state the corpus to parse
+	 * @return the built Document
+	 * @throws Exception if the parse fails.
+	 */
+	@Benchmark
+	public Document staxBuild(CorpusState state) throws Exception {
+		final XMLStreamReader reader = state.staxFactory.createXMLStreamReader(
+				new CharArrayReader(state.chars));
+		try {
+			return staxbuilder.build(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Convert a pre-parsed W3C DOM Document to JDOM.
+	 * @param state the corpus to convert
+	 * @return the built Document
+	 */
+	@Benchmark
+	public Document domBuild(CorpusState state) {
+		return dombuilder.build(state.domDocument);
+	}
+
+}
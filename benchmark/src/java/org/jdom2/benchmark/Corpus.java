@@ -0,0 +1,203 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.benchmark;
+
+/**
+ * The set of synthetic XML inputs the benchmarks run against. Each corpus
+ * stresses a different shape of document so that a regression in one hot
+ * path (for example deep recursion, or wide sibling lists) is not hidden by
+ * the averages of another.
+ * <p>
+ * The documents are generated rather than loaded from disk so the benchmarks
+ * are self-contained and reproducible.
+ */
+public enum Corpus {
+
+	/**
+	 * A small document of a few dozen nodes, typical of a request/response
+	 * message. Measures per-document fixed costs.
+	 */
+	SMALL {
+		@Override
+		String generate() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("<?xml version=\"1.0\"?>\n");
+			sb.append("<order xmlns=\"urn:jdom:bench\" xmlns:x=\"urn:jdom:bench:ext\" id=\"o-1\">\n");
+			for (int i = 0; i < 8; i++) {
+				sb.append("  <line id=\"l-").append(i).append("\" x:qty=\"").append(i + 1).append("\">\n");
+				sb.append("    <sku>SKU-").append(i * 37).append("</sku>\n");
+				sb.append("    <price currency=\"USD\">").append(i * 3).append(".99</price>\n");
+				sb.append("  </line>\n");
+			}
+			sb.append("  <!-- end of lines -->\n");
+			sb.append("</order>\n");
+			return sb.toString();
+		}
+	},
+
+	/**
+	 * A root element with many thousands of sibling children. Measures
+	 * ContentList growth and named-child lookup across wide lists.
+	 */
+	WIDE {
+		@Override
+		String generate() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("<?xml version=\"1.0\"?>\n");
+			sb.append("<rows>\n");
+			for (int i = 0; i < 10000; i++) {
+				sb.append("  <row id=\"r").append(i).append("\" kind=\"")
+					.append(KINDS[i % KINDS.length]).append("\"><v>")
+					.append(i).append("</v></row>\n");
+			}
+			sb.append("</rows>\n");
+			return sb.toString();
+		}
+	},
+
+	/**
+	 * A document nested several hundred levels deep. Measures the cost of
+	 * recursion in the builders, iterators and output processors.
+	 */
+	DEEP {
+		@Override
+		String generate() {
+			final int depth = 500;
+			final StringBuilder sb = new StringBuilder();
+			sb.append("<?xml version=\"1.0\"?>\n");
+			for (int i = 0; i < depth; i++) {
+				sb.append("<n d=\"").append(i).append("\">");
+			}
+			sb.append("leaf");
+			for (int i = 0; i < depth; i++) {
+				sb.append("</n>");
+			}
+			sb.append("\n");
+			return sb.toString();
+		}
+	},
+
+	/**
+	 * A document dominated by character data, including values that need
+	 * escaping on output. Measures text accumulation, character
+	 * verification, and escaping.
+	 */
+	TEXT {
+		@Override
+		String generate() {
+			final StringBuilder sb = new StringBuilder();
+			sb.append("<?xml version=\"1.0\"?>\n");
+			sb.append("<book>\n");
+			for (int c = 0; c < 50; c++) {
+				sb.append("  <chapter n=\"").append(c).append("\">\n");
+				for (int p = 0; p < 20; p++) {
+					sb.append("    <para>");
+					for (int w = 0; w < 40; w++) {
+						sb.append(WORDS[(c + p + w) % WORDS.length]).append(' ');
+					}
+					sb.append("&amp; &lt;done&gt;</para>\n");
+				}
+				sb.append("  </chapter>\n");
+			}
+			sb.append("</book>\n");
+			return sb.toString();
+		}
+	};
+
+	private static final String[] KINDS = {"alpha", "beta", "gamma", "delta"};
+
+	private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit",
+		"amet", "consectetur", "adipiscing", "elit", "sed", "do", "eiusmod",
+		"tempor", "incididunt", "ut", "labore", "et", "dolore", "magna"};
+
+	private String xml = null;
+
+	/**
+	 * Create the XML text for this corpus.
+	 * @return the XML document as a String.
+	 */
+	abstract String generate();
+
+	/**
+	 * Get the (cached) XML text of this corpus.
+	 * @return the XML document as a String.
+	 */
+	public synchronized String getXML() {
+		if (xml == null) {
+			xml = generate();
+		}
+		return xml;
+	}
+
+	/**
+	 * A representative XPath query for this corpus that selects a non-trivial
+	 * number of nodes.
+	 * @return the XPath expression.
+	 */
+	public String getQuery() {
+		switch (this) {
+			case SMALL:
+				return "//b:line[@id='l-3']/b:sku";
+			case WIDE:
+				return "/rows/row[@kind='gamma']/v";
+			case DEEP:
+				return "//n[@d='250']";
+			case TEXT:
+				return "//chapter[@n='7']/para";
+		}
+		throw new IllegalStateException("Unknown corpus " + this);
+	}
+
+}
@@ -0,0 +1,140 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.jdom2.Content;
+import org.jdom2.Element;
+import org.jdom2.filter.Filters;
+
+/**
+ * Benchmarks navigation of an already-built tree through the
+ * {@link Element#getChildren()} views and the descendant iterators.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NavigateBenchmark {
+
+	/**
+	 * Visit every Element using (recursive) getChildren() calls.
+	 * @param state the corpus to navigate
+	 * @param bh where to sink the visited Elements
+	 */
+	@Benchmark
+	public void getChildren(CorpusState state, Blackhole bh) {
+		walk(state.document.getRootElement(), bh);
+	}
+
+	private static final void walk(final Element emt, final Blackhole bh) {
+		for (final Element kid : emt.getChildren()) {
+			bh.consume(kid);
+			walk(kid, bh);
+		}
+	}
+
+	/**
+	 * Visit every Element by name using getChildren(String, Namespace) on
+	 * the root element.
+	 * @param state the corpus to navigate
+	 * @param bh where to sink the visited Elements
+	 */
+	@Benchmark
+	public void getNamedChildren(CorpusState state, Blackhole bh) {
+		final Element root = state.document.getRootElement();
+		final Element first = root.getChildren().isEmpty()
+				? root : root.getChildren().get(0);
+		for (final Element kid : root.getChildren(first.getName(), first.getNamespace())) {
+			bh.consume(kid);
+		}
+	}
+
+	/**
+	 * Visit every Content node using the unfiltered descendant iterator.
+	 * @param state the corpus to navigate
+	 * @param bh where to sink the visited Content
+	 */
+	@Benchmark
+	public void getDescendants(CorpusState state, Blackhole bh) {
+		for (final Content c : state.document.getDescendants()) {
+			bh.consume(c);
+		}
+	}
+
+	/**
+	 * Visit every Element using the filtered descendant iterator.
+	 * @param state the corpus to navigate
+	 * @param bh where to sink the visited Elements
+	 */
+	@Benchmark
+	public void getDescendantElements(CorpusState state, Blackhole bh) {
+		for (final Element e : state.document.getDescendants(Filters.element())) {
+			bh.consume(e);
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+/**
+ * Benchmarks {@link XMLOutputter} for each of the standard {@link Format}s,
+ * writing to both a character and a byte sink that discard their input.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class OutputBenchmark {
+
+	/**
+	 * A Writer that discards everything, so the benchmark measures only
+	 * the output processing.
+	 */
+	private static final class NullWriter extends Writer {
+		@Override
+		public void write(char[] cbuf, int off, int len) {
+			// discard
+		}
+
+		@Override
+		public void write(String str, int off, int len) {
+			// discard
+		}
+
+		@Override
+		public void write(int c) {
+			// discard
+		}
+
+		@Override
+		public void flush() {
+			// nothing
+		}
+
+		@Override
+		public void close() {
+			// nothing
+		}
+	}
+
+	/**
+	 * An OutputStream that discards everything, so the benchmark measures
+	 * the output processing and character encoding.
+	 */
+	private static final class NullOutputStream extends OutputStream {
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// discard
+		}
+
+		@Override
+		public void write(int b) {
+			// discard
+		}
+	}
+
+	/** The Format to output with, one JMH parameter value per Format */
+	@Param({"raw", "pretty", "compact"})
+	public String format;
+
+	private final Writer writer = new NullWriter();
+	private final OutputStream stream = new NullOutputStream();
+	private XMLOutputter outputter = null;
+
+	/**
+	 * Create the XMLOutputter for the selected Format.
+	 */
+	@Setup
+	public void setup() {
+		final Format fmt;
+		if ("pretty".equals(format)) {
+			fmt = Format.getPrettyFormat();
+		} else if ("compact".equals(format)) {
+			fmt = Format.getCompactFormat();
+		} else {
+			fmt = Format.getRawFormat();
+		}
+		outputter = new XMLOutputter(fmt);
+	}
+
+	/**
+	 * Output the corpus document to a Writer.
+	 * @param state the corpus to output
+	 * @throws IOException never
+	 */
+	@Benchmark
+	public void outputWriter(CorpusState state) throws IOException {
+		outputter.output(state.document, writer);
+	}
+
+	/**
+	 * Output the corpus document to an OutputStream.
+	 * @param state the corpus to output
+	 * @throws IOException never
+	 */
+	@Benchmark
+	public void outputStream(CorpusState state) throws IOException {
+		outputter.output(state.document, stream);
+	}
+
+}
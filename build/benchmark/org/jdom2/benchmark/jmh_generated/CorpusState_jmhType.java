@@ -0,0 +1,4 @@
+package org.jdom2.benchmark.jmh_generated;
+public class CorpusState_jmhType extends CorpusState_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.jdom2.benchmark.jmh_generated;
+public class NavigateBenchmark_jmhType extends NavigateBenchmark_jmhType_B3 {
+}
+
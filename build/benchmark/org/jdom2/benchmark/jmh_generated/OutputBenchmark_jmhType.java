@@ -0,0 +1,4 @@
+package org.jdom2.benchmark.jmh_generated;
+public class OutputBenchmark_jmhType extends OutputBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.jdom2.benchmark.jmh_generated;
+public class XPathBenchmark_jmhType extends XPathBenchmark_jmhType_B3 {
+}
+
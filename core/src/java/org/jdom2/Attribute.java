@@ -345,6 +345,7 @@ public class Attribute extends CloneBase
 	 *         attribute name.
 	 */
 	public Attribute setName(final String name) {
+		checkFrozen();
 		if (name == null) {
 			throw new NullPointerException(
 					"Can not set a null name for an Attribute.");
@@ -355,9 +356,43 @@ public class Attribute extends CloneBase
 		}
 		this.name = name;
 		specified = true;
+		renamed();
 		return this;
 	}
 
+	/**
+	 * Indicate whether this Attribute belongs to a frozen Element, and cannot
+	 * be modified.
+	 * 
+	 * @return true if this Attribute is frozen.
+	 * @see Element#freeze()
+	 * @since JDOM 2.1.0
+	 */
+	public boolean isFrozen() {
+		return parent != null && parent.isFrozen();
+	}
+
+	/**
+	 * Called by the methods that modify the Attribute.
+	 * 
+	 * @throws UnsupportedOperationException if this Attribute is frozen.
+	 */
+	private final void checkFrozen() {
+		if (isFrozen()) {
+			throw new UnsupportedOperationException("Cannot modify frozen " + this);
+		}
+	}
+
+	/**
+	 * Let the parent Element's attributes know that this Attribute's name or
+	 * Namespace has changed (they may be indexed by name).
+	 */
+	private final void renamed() {
+		if (parent != null && parent.attributes != null) {
+			parent.attributes.attributeRenamed();
+		}
+	}
+
 	/**
 	 * This will retrieve the qualified name of the <code>Attribute</code>.
 	 * For any XML attribute whose name is
@@ -440,6 +475,7 @@ public class Attribute extends CloneBase
 	 *         namespace. Attributes cannot be in a default namespace.
 	 */
 	public Attribute setNamespace(Namespace namespace) {
+		checkFrozen();
 		if (namespace == null) {
 			namespace = Namespace.NO_NAMESPACE;
 		}
@@ -454,6 +490,7 @@ public class Attribute extends CloneBase
 		}
 		this.namespace = namespace;
 		specified = true;
+		renamed();
 		return this;
 	}
 
@@ -478,6 +515,7 @@ public class Attribute extends CloneBase
 	 *         {@link org.jdom2.Verifier#checkCharacterData}).
 	 */
 	public Attribute setValue(final String value) {
+		checkFrozen();
 		if (value == null) {
 			throw new NullPointerException(
 					"Can not set a null value for an Attribute");
@@ -509,6 +547,7 @@ public class Attribute extends CloneBase
 	 *         not one of the supported types.
 	 */
 	public Attribute setAttributeType(final AttributeType type) {
+		checkFrozen();
 		this.type = type == null ? AttributeType.UNDECLARED : type;
 		specified = true;
 		return this;
@@ -525,6 +564,7 @@ public class Attribute extends CloneBase
 	 */
 	@Deprecated
 	public Attribute setAttributeType(final int type) {
+		checkFrozen();
 		setAttributeType(AttributeType.byIndex(type));
 		return this;
 	}
@@ -546,6 +586,7 @@ public class Attribute extends CloneBase
 	 * @since JDOM2
 	 */
 	public void setSpecified(boolean specified) {
+		checkFrozen();
 		this.specified = specified;
 	}
 	
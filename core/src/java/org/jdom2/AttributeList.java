@@ -57,6 +57,7 @@ package org.jdom2;
 import java.util.*;
 
 import org.jdom2.internal.ArrayCopy;
+import org.jdom2.internal.SystemProperty;
 
 /**
  * <code>AttributeList</code> represents legal JDOM
@@ -86,6 +87,43 @@ final class AttributeList extends AbstractList<Attribute>
 
 	/** The parent Element */
 	private final Element parent;
+
+	/**
+	 * Lists with at least this many Attributes use the hash index to look up
+	 * Attributes by name. Smaller lists are simply scanned.
+	 */
+	private static final int HASH_THRESHOLD = 12;
+
+	/**
+	 * Whether the hash index is used at all, see
+	 * {@link JDOMConstants#JDOM2_PROPERTY_ATTRIBUTE_INDEX}.
+	 */
+	private static final boolean HASH_ENABLED = !"false".equalsIgnoreCase(
+			SystemProperty.get(JDOMConstants.JDOM2_PROPERTY_ATTRIBUTE_INDEX, "true"));
+
+	/**
+	 * An open-addressed (linear probing) hash table of the Attribute positions
+	 * (plus one, so 0 is an empty slot), keyed by name and namespace URI. It
+	 * is built when needed, kept up to date when Attributes are appended, and
+	 * discarded by any other change that moves, replaces or renames them.
+	 * Lookups may build it from threads that only read the list, so it is
+	 * volatile: the table is only published once it is completely built, and
+	 * a reader never sees a partly filled table.
+	 */
+	private transient volatile int[] hashindex = null;
+
+	/**
+	 * Set when the parent Element (and the tree it is in) has been frozen.
+	 */
+	private boolean frozen = false;
+
+	/**
+	 * A frozen empty list shared by all frozen Elements with no Attributes.
+	 */
+	static final AttributeList FROZEN_EMPTY = new AttributeList(null);
+	static {
+		FROZEN_EMPTY.frozen = true;
+	}
 	
 	private static final Comparator<Attribute> ATTRIBUTE_NATURAL = new Comparator<Attribute>() {
 
@@ -119,12 +157,126 @@ final class AttributeList extends AbstractList<Attribute>
 	 *        an Attribute to add without any checks
 	 */
 	final void uncheckedAddAttribute(final Attribute a) {
+		checkFrozen();
 		a.parent = parent;
 		ensureCapacity(size + 1);
 		attributeData[size++] = a;
+		hashAppended();
 		modCount++;
 	}
 
+	/**
+	 * The hash slot to start probing at for a name and namespace URI.
+	 */
+	private static final int hashSlot(final String name, final String uri,
+			final int mask) {
+		int h = name.hashCode() * 31 + uri.hashCode();
+		// spread the bits, like HashMap does.
+		h ^= (h >>> 20) ^ (h >>> 12);
+		h ^= (h >>> 7) ^ (h >>> 4);
+		return h & mask;
+	}
+
+	/**
+	 * Put the position of an Attribute in the hash index.
+	 */
+	private final void hashInsert(final int[] table, final int pos) {
+		final int mask = table.length - 1;
+		final Attribute att = attributeData[pos];
+		int slot = hashSlot(att.getName(), att.getNamespaceURI(), mask);
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = pos + 1;
+	}
+
+	/**
+	 * Keep the hash index up to date after adding an Attribute to the end of
+	 * the list.
+	 */
+	private final void hashAppended() {
+		final int[] table = hashindex;
+		if (table != null) {
+			if (size * 2 > table.length) {
+				// too full, rebuild it bigger when it is next needed.
+				hashindex = null;
+			} else {
+				hashInsert(table, size - 1);
+			}
+		}
+	}
+
+	/**
+	 * Called when an Attribute in this list changes its name or Namespace.
+	 */
+	final void attributeRenamed() {
+		checkFrozen();
+		hashindex = null;
+	}
+
+	/**
+	 * Indicate whether this list (and its parent) can no longer be modified.
+	 * @return true if the list is frozen.
+	 */
+	final boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Make this list read-only. The backing array is trimmed, and the hash
+	 * index is built if the list is big enough to use it, so that reading
+	 * the frozen list never needs to change it.
+	 */
+	final void freeze() {
+		if (attributeData != null && attributeData.length != size) {
+			attributeData = ArrayCopy.copyOf(attributeData, size);
+		}
+		if (HASH_ENABLED && size >= HASH_THRESHOLD) {
+			hashIndexOf("", "");
+		}
+		frozen = true;
+	}
+
+	/**
+	 * Every method that modifies the list calls this first.
+	 */
+	private final void checkFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					"Cannot modify the frozen attributes of " + parent);
+		}
+	}
+
+	/**
+	 * Find an Attribute using the hash index (which is built if needed).
+	 */
+	private final int hashIndexOf(final String name, final String uri) {
+		int[] table = hashindex;
+		if (table == null) {
+			int cap = 32;
+			while (cap < size * 4) {
+				cap <<= 1;
+			}
+			table = new int[cap];
+			for (int i = 0; i < size; i++) {
+				hashInsert(table, i);
+			}
+			// publish the complete table.
+			hashindex = table;
+		}
+		final int mask = table.length - 1;
+		int slot = hashSlot(name, uri, mask);
+		int pos = 0;
+		while ((pos = table[slot]) != 0) {
+			final Attribute att = attributeData[pos - 1];
+			if (name.equals(att.getName()) && uri.equals(att.getNamespaceURI())) {
+				return pos - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
 	/**
 	 * Check and add <i>attribute</i> to the end of the list or replace an
 	 * existing <code>Attribute</code> with the same name and
@@ -138,6 +290,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 */
 	@Override
 	public boolean add(final Attribute attribute) {
+		checkFrozen();
 		if (attribute.getParent() != null) {
 			throw new IllegalAddException(
 					"The attribute already has an existing parent \""
@@ -155,6 +308,7 @@ final class AttributeList extends AbstractList<Attribute>
 			attribute.setParent(parent);
 			ensureCapacity(size + 1);
 			attributeData[size++] = attribute;
+			hashAppended();
 			modCount++;
 		} else {
 			final Attribute old = attributeData[duplicate];
@@ -177,6 +331,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 */
 	@Override
 	public void add(final int index, final Attribute attribute) {
+		checkFrozen();
 		if (index < 0 || index > size) {
 			throw new IndexOutOfBoundsException("Index: " + index +
 					" Size: " + size());
@@ -202,11 +357,13 @@ final class AttributeList extends AbstractList<Attribute>
 		ensureCapacity(size + 1);
 		if (index == size) {
 			attributeData[size++] = attribute;
+			hashAppended();
 		} else {
 			System.arraycopy(attributeData, index, attributeData, index + 1, 
 					size - index);
 			attributeData[index] = attribute;
 			size++;
+			hashindex = null;
 		}
 		modCount++;
 	}
@@ -292,6 +449,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 */
 	@Override
 	public void clear() {
+		checkFrozen();
 		if (attributeData != null) {
 			while (size > 0) {
 				size--;
@@ -299,6 +457,7 @@ final class AttributeList extends AbstractList<Attribute>
 				attributeData[size] = null;
 			}
 		}
+		hashindex = null;
 		modCount++;
 	}
 
@@ -311,6 +470,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 *         if validation rules prevent the addAll
 	 */
 	void clearAndSet(final Collection<? extends Attribute> collection) {
+		checkFrozen();
 		if (collection == null || collection.isEmpty()) {
 			clear();
 			return;
@@ -330,6 +490,7 @@ final class AttributeList extends AbstractList<Attribute>
 		}
 		size = 0;
 		attributeData = null;
+		hashindex = null;
 
 		boolean ok = false;
 		try {
@@ -344,6 +505,7 @@ final class AttributeList extends AbstractList<Attribute>
 				while (size < oldSize) {
 					attributeData[size++].setParent(parent);
 				}
+				hashindex = null;
 				modCount = oldModCount;
 			}
 		}
@@ -425,6 +587,9 @@ final class AttributeList extends AbstractList<Attribute>
 				return indexOf(name, Namespace.NO_NAMESPACE);
 			}
 			final String uri = namespace.getURI();
+			if (HASH_ENABLED && size >= HASH_THRESHOLD) {
+				return hashIndexOf(name, uri);
+			}
 			for (int i = 0; i < size; i++) {
 				final Attribute att = attributeData[i];
 				if (uri.equals(att.getNamespaceURI()) &&
@@ -445,6 +610,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 */
 	@Override
 	public Attribute remove(final int index) {
+		checkFrozen();
 		if (index < 0 || index >= size)
 			throw new IndexOutOfBoundsException("Index: " + index +
 					" Size: " + size());
@@ -454,6 +620,7 @@ final class AttributeList extends AbstractList<Attribute>
 		System.arraycopy(attributeData, index + 1, attributeData, index,
 				size - index - 1);
 		attributeData[--size] = null; // Let gc do its work
+		hashindex = null;
 		modCount++;
 		return old;
 	}
@@ -491,6 +658,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 */
 	@Override
 	public Attribute set(final int index, final Attribute attribute) {
+		checkFrozen();
 		if (index < 0 || index >= size)
 			throw new IndexOutOfBoundsException("Index: " + index +
 					" Size: " + size());
@@ -516,6 +684,10 @@ final class AttributeList extends AbstractList<Attribute>
 
 		attributeData[index] = attribute;
 		attribute.setParent(parent);
+		if (duplicate != index) {
+			// the name is different.
+			hashindex = null;
+		}
 		return old;
 	}
 
@@ -607,6 +779,7 @@ final class AttributeList extends AbstractList<Attribute>
 		for (int i = 0; i < indexes.length; i ++) {
 			attributeData[unsorted[i]] = usc[i];
 		}
+		hashindex = null;
 	}
 
 	/**
@@ -620,6 +793,7 @@ final class AttributeList extends AbstractList<Attribute>
 	 * @param comp The Comparator to use for sorting.
 	 */
 	public void sort(Comparator<? super Attribute> comp) {
+		checkFrozen();
 	    if (comp == null) {
 	        comp = ATTRIBUTE_NATURAL;
 	    }
@@ -0,0 +1,216 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2;
+
+/**
+ * A thread-safe, bounded mechanism for storing and reusing unique instances
+ * of Strings. This is the concurrent version of {@link StringBin}, intended to
+ * be shared by all the threads that build JDOM content, so that the names,
+ * and repeated values, are deduplicated across all the documents built in
+ * the JVM. Namespace URIs are not stored here: the Namespace instances are
+ * already canonicalized JVM-wide by {@link Namespace#getNamespace(String,
+ * String)}.
+ * <p>
+ * The Strings are divided between a number of independently locked segments
+ * (lock striping) so that threads using different Strings do not contend for
+ * the same lock. Each segment is a pair of StringBin 'generations'. New
+ * Strings are registered in the current generation, and when the current
+ * generation is full it becomes the old generation, and the previous old
+ * generation is discarded. Strings found in the old generation are moved
+ * (same instance) to the current generation, so frequently used Strings
+ * survive, and rarely used Strings are evicted. A segment never holds more
+ * than twice its share of the capacity.
+ * <p>
+ * Evicting a String does not affect any content that uses it, it just means
+ * that a subsequent equal String will be a different instance.
+ * 
+ * @see StringBin
+ * @since JDOM 2.1.0
+ */
+final class ConcurrentStringBin {
+
+	/** The default maximum number of Strings in each generation */
+	private static final int DEFAULTCAPACITY = 1 << 16;
+	/** The default number of segments (locks) */
+	private static final int DEFAULTCONCURRENCY = 16;
+
+	/**
+	 * A segment of the ConcurrentStringBin. Each segment is its own lock.
+	 */
+	private static final class Segment {
+		/** How many Strings a generation can hold before it is retired. */
+		private final int limit;
+		/** The generation that new Strings are registered in */
+		private StringBin current = new StringBin();
+		/** The number of Strings in the current generation */
+		private int count = 0;
+		/** The retired generation, may be null */
+		private StringBin old = null;
+
+		private Segment(final int limit) {
+			this.limit = limit;
+		}
+
+		private synchronized String reuse(final String value) {
+			String ret = current.lookup(value);
+			if (ret != null) {
+				return ret;
+			}
+			ret = old == null ? null : old.lookup(value);
+			ret = ret == null ? current.reuse(value) : current.keep(ret);
+			if (++count >= limit) {
+				old = current;
+				current = new StringBin();
+				count = 0;
+			}
+			return ret;
+		}
+
+		private synchronized int size() {
+			return current.size() + (old == null ? 0 : old.size());
+		}
+
+		private synchronized void clear() {
+			current = new StringBin();
+			old = null;
+			count = 0;
+		}
+	}
+
+	/** The segments */
+	private final Segment[] segments;
+	/** How far to shift the hash to get the segment */
+	private final int shift;
+
+	/**
+	 * Create a default instance of the ConcurrentStringBin with the default
+	 * capacity and concurrency.
+	 */
+	public ConcurrentStringBin() {
+		this(DEFAULTCAPACITY, DEFAULTCONCURRENCY);
+	}
+
+	/**
+	 * Create a ConcurrentStringBin instance with a specified capacity and
+	 * concurrency.
+	 * @param capacity The approximate number of Strings to keep. Up to twice
+	 * this many may be kept before older Strings are evicted.
+	 * @param concurrency The number of segments (separately locked Strings).
+	 * This is rounded up to a power of 2.
+	 */
+	public ConcurrentStringBin(final int capacity, final int concurrency) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Can not have a negative capacity");
+		}
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be at least 1");
+		}
+		int bits = 0;
+		while ((1 << bits) < concurrency && bits < 16) {
+			bits++;
+		}
+		segments = new Segment[1 << bits];
+		// keep at least a few Strings in each segment.
+		final int limit = Math.max(16, capacity / segments.length);
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(limit);
+		}
+		// the StringBin buckets use the low bits of the hash, we use the high.
+		shift = 32 - bits;
+	}
+
+	/**
+	 * Get a String instance that is equal to the input value. This may or may
+	 * not be the same instance as the input value. Null input values will
+	 * reuse() as null.
+	 * @param value The value to check.
+	 * @return a String that is equals() to the input value, or null if the
+	 * input was null
+	 */
+	public String reuse(final String value) {
+		if (value == null) {
+			return null;
+		}
+		if (segments.length == 1) {
+			return segments[0].reuse(value);
+		}
+		// spread the bits, the multiplier is the 32-bit golden ratio.
+		final int hash = value.hashCode() * 0x9E3779B9;
+		return segments[hash >>> shift].reuse(value);
+	}
+
+	/**
+	 * Discard all the registered Strings.
+	 */
+	public void clear() {
+		for (final Segment s : segments) {
+			s.clear();
+		}
+	}
+
+	/**
+	 * Number of registered Strings. This is only a snapshot if other threads
+	 * are using the ConcurrentStringBin at the same time.
+	 * @return the number of registered String values.
+	 */
+	public int size() {
+		int sum = 0;
+		for (final Segment s : segments) {
+			sum += s.size();
+		}
+		return sum;
+	}
+
+}
@@ -204,6 +204,34 @@ public abstract class Content extends CloneBase
 		return (Element) ((pnt instanceof Element) ? pnt : null);
 	}
 
+	/**
+	 * Indicate whether this Content is part of a frozen Document or Element,
+	 * and cannot be modified.
+	 * 
+	 * @return true if this Content is frozen.
+	 * @see Document#freeze()
+	 * @see Element#freeze()
+	 * @since JDOM 2.1.0
+	 */
+	public boolean isFrozen() {
+		final Parent pnt = getParent();
+		if (pnt instanceof Element) {
+			return ((Element)pnt).isFrozen();
+		}
+		return pnt instanceof Document && ((Document)pnt).isFrozen();
+	}
+
+	/**
+	 * Called by the methods that modify Content.
+	 * 
+	 * @throws UnsupportedOperationException if this Content is frozen.
+	 */
+	final void checkFrozen() {
+		if (isFrozen()) {
+			throw new UnsupportedOperationException("Cannot modify frozen " + this);
+		}
+	}
+
 	/**
 	 * Sets the parent of this Content. The caller is responsible for removing
 	 * any pre-existing parentage.
@@ -58,6 +58,7 @@ import java.util.*;
 
 import org.jdom2.filter.*;
 import org.jdom2.internal.ArrayCopy;
+import org.jdom2.internal.SystemProperty;
 
 /**
  * A non-public list implementation holding only legal JDOM content, including
@@ -106,6 +107,112 @@ final class ContentList extends AbstractList<Content>
 	/** Document or Element this list belongs to */
 	private final Parent parent;
 
+	/**
+	 * Set when the parent Element builds its content on demand, and that
+	 * content has not been built yet. See {@link Element#deferContent()}.
+	 */
+	private boolean deferred = false;
+
+	/**
+	 * Set when the parent (and the whole tree it is in) has been frozen. See
+	 * {@link Document#freeze()}.
+	 */
+	private boolean frozen = false;
+
+	/**
+	 * Lists with at least this many entries use a name index (see
+	 * {@link #indexLookup(String, String)}) for looking up child Elements by
+	 * name. Smaller lists are simply scanned.
+	 */
+	private static final int INDEX_THRESHOLD = 32;
+
+	/**
+	 * The name index is only built once the unmodified list has been looked
+	 * up this many times, so alternately modifying the list and looking up
+	 * children keeps scanning instead of rebuilding the index every time.
+	 */
+	private static final int INDEX_LOOKUPS = 2;
+
+	/**
+	 * Whether the name index is used at all, see
+	 * {@link JDOMConstants#JDOM2_PROPERTY_CHILD_INDEX}.
+	 */
+	private static final boolean INDEX_ENABLED = !"false".equalsIgnoreCase(
+			SystemProperty.get(JDOMConstants.JDOM2_PROPERTY_CHILD_INDEX, "true"));
+
+	/**
+	 * The positions of the child Elements that have one name/namespace-URI.
+	 * Entries for the same local name in different namespaces are chained.
+	 */
+	private static final class NameEntry {
+		private final String uri;
+		private int[] positions = new int[2];
+		private int count = 0;
+		private NameEntry next = null;
+
+		private NameEntry(final String uri) {
+			this.uri = uri;
+		}
+
+		private void add(final int pos) {
+			if (count == positions.length) {
+				positions = ArrayCopy.copyOf(positions, count * 2);
+			}
+			positions[count++] = pos;
+		}
+	}
+
+	/**
+	 * A name index of the child Elements. It is only valid while the
+	 * dataModCount is unchanged. It is completely built by the constructor,
+	 * and never changed after that.
+	 */
+	private static final class ChildIndex {
+		private final int datamod;
+		private final HashMap<String, NameEntry> names = 
+				new HashMap<String, NameEntry>();
+
+		private ChildIndex(final int datamod, final Content[] data, 
+				final int size) {
+			this.datamod = datamod;
+			for (int i = 0; i < size; i++) {
+				if (data[i] instanceof Element) {
+					final Element e = (Element)data[i];
+					final String ename = e.getName();
+					final String euri = e.getNamespaceURI();
+					NameEntry ne = names.get(ename);
+					while (ne != null && !ne.uri.equals(euri)) {
+						ne = ne.next;
+					}
+					if (ne == null) {
+						ne = new NameEntry(euri);
+						ne.next = names.get(ename);
+						names.put(ename, ne);
+					}
+					ne.add(i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lazily built by indexLookup, and rebuilt after any modification. Lookups
+	 * may build it from threads that only read the list, so it is volatile:
+	 * the index is only published once it is completely built, and a reader
+	 * never sees a partly built index.
+	 */
+	private transient volatile ChildIndex childindex = null;
+
+	/**
+	 * The dataModCount that lookupcount counts the lookups of. The lookup
+	 * counts are only a heuristic: if concurrent readers lose updates to them
+	 * the index is just built a little earlier or later.
+	 */
+	private transient int lookupmod = Integer.MIN_VALUE;
+
+	/** The number of lookups by name since the list was last modified. */
+	private transient int lookupcount = 0;
+
 	/**
 	 * Force either a Document or Element parent
 	 * 
@@ -116,6 +223,171 @@ final class ContentList extends AbstractList<Content>
 		this.parent = parent;
 	}
 	
+	/**
+	 * Mark this list as deferred: the content will be built by the parent
+	 * Element the first time the list is accessed.
+	 */
+	final void setDeferred() {
+		deferred = true;
+	}
+
+	/**
+	 * Build the content of a deferred list, if it has not been built yet.
+	 * Every method that accesses the backing array from outside of this
+	 * class (or creates an Iterator or view that will) calls this first.
+	 */
+	private final void materialize() {
+		if (deferred) {
+			// clear the flag first, the parent adds the content through us.
+			deferred = false;
+			((Element)parent).loadDeferredContent();
+		}
+	}
+
+	/**
+	 * Indicate whether this list (and its parent) can no longer be modified.
+	 * @return true if the list is frozen.
+	 */
+	final boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * Make this list read-only. The content is built (if deferred), the
+	 * backing array is trimmed to the content size, and the name index is
+	 * built if this list is big enough to use it, so that reading the frozen
+	 * list never needs to change it.
+	 */
+	final void freeze() {
+		materialize();
+		if (size == 0) {
+			elementData = null;
+		} else if (elementData.length != size) {
+			elementData = ArrayCopy.copyOf(elementData, size);
+		}
+		if (INDEX_ENABLED && size >= INDEX_THRESHOLD) {
+			indexLookup("", "");
+		}
+		frozen = true;
+	}
+
+	/**
+	 * Every method that modifies the list calls this first.
+	 */
+	private final void checkFrozen() {
+		if (frozen) {
+			throw new UnsupportedOperationException(
+					"Cannot modify the frozen content of " + parent);
+		}
+	}
+
+	/**
+	 * Decide whether a lookup by name should use the name index. The index is
+	 * only used by large lists, and it is only (re)built when the list is
+	 * looked up repeatedly without being modified in between.
+	 * 
+	 * @return true if {@link #indexLookup(String, String)} should be used.
+	 */
+	private final boolean useIndex() {
+		if (!INDEX_ENABLED || size < INDEX_THRESHOLD) {
+			return false;
+		}
+		final int dm = getDataModCount();
+		final ChildIndex ci = childindex;
+		if (ci != null && ci.datamod == dm) {
+			return true;
+		}
+		if (frozen) {
+			// never write to a frozen list, the index was built (or not)
+			// when it was frozen.
+			return false;
+		}
+		if (lookupmod != dm) {
+			lookupmod = dm;
+			lookupcount = 0;
+		}
+		return ++lookupcount >= INDEX_LOOKUPS;
+	}
+
+	/**
+	 * Find the positions of the child Elements with a name and namespace URI
+	 * using the (lazily rebuilt) name index.
+	 * 
+	 * @param name
+	 *        The local name of the child Elements.
+	 * @param uri
+	 *        The namespace URI of the child Elements.
+	 * @return The positions of the matching children, or null if there are
+	 *         none.
+	 */
+	private final NameEntry indexLookup(final String name, final String uri) {
+		ChildIndex ci = childindex;
+		if (ci == null || ci.datamod != getDataModCount()) {
+			ci = new ChildIndex(getDataModCount(), elementData, size);
+			// publish the complete index.
+			childindex = ci;
+		}
+		NameEntry ne = ci.names.get(name);
+		while (ne != null && !ne.uri.equals(uri)) {
+			ne = ne.next;
+		}
+		return ne;
+	}
+
+	/**
+	 * Get the first child Element with the given name and Namespace. Large
+	 * lists use a name index, so this is not a linear scan.
+	 * 
+	 * @param name
+	 *        The local name of the child Element
+	 * @param ns
+	 *        The Namespace of the child Element (not null).
+	 * @return The first matching Element, or null if there is none.
+	 */
+	final Element getChild(final String name, final Namespace ns) {
+		materialize();
+		final String uri = ns.getURI();
+		if (useIndex()) {
+			final NameEntry ne = indexLookup(name, uri);
+			return ne == null ? null : (Element)elementData[ne.positions[0]];
+		}
+		for (int i = 0; i < size; i++) {
+			if (elementData[i] instanceof Element) {
+				final Element e = (Element)elementData[i];
+				if (name.equals(e.getName()) && uri.equals(e.getNamespaceURI())) {
+					return e;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return a live view of the child Elements with the given name and
+	 * Namespace. The same as {@link #getView(Filter)} with an ElementFilter,
+	 * but large lists use the name index to find the children.
+	 * 
+	 * @param name
+	 *        The local name of the child Elements
+	 * @param ns
+	 *        The Namespace of the child Elements (not null).
+	 * @return a list of the matching child Elements.
+	 */
+	final List<Element> getChildren(final String name, final Namespace ns) {
+		materialize();
+		return new FilterList<Element>(new ElementFilter(name, ns), 
+				name, ns.getURI());
+	}
+
+	/**
+	 * Called when a child Element is renamed, or changes its Namespace, so
+	 * that the views and name index are refreshed.
+	 */
+	final void childRenamed() {
+		checkFrozen();
+		incDataModOnly();
+	}
+
 	/**
 	 * Package internal method to support building from sources that are 100%
 	 * trusted.
@@ -124,12 +396,46 @@ final class ContentList extends AbstractList<Content>
 	 *        content to add without any checks
 	 */
 	final void uncheckedAddContent(final Content c) {
+		materialize();
+		checkFrozen();
 		c.parent = parent;
 		ensureCapacity(size + 1);
 		elementData[size++] = c;
 		incModCount();
 	}
 
+	/**
+	 * Package internal method to support building from sources that are 100%
+	 * trusted: append a number of children in one operation. The backing
+	 * array is sized (exactly) once, and the list is modified only once.
+	 * 
+	 * @param children
+	 *        array of content to add without any checks
+	 * @param offset
+	 *        the position of the first child in the array
+	 * @param length
+	 *        the number of children to add
+	 */
+	final void uncheckedAddContent(final Content[] children, final int offset,
+			final int length) {
+		materialize();
+		checkFrozen();
+		if (length == 0) {
+			return;
+		}
+		if (elementData == null) {
+			elementData = new Content[length];
+		} else if (size + length > elementData.length) {
+			elementData = ArrayCopy.copyOf(elementData, size + length);
+		}
+		for (int i = 0; i < length; i++) {
+			final Content c = children[offset + i];
+			c.parent = parent;
+			elementData[size++] = c;
+		}
+		incModCount();
+	}
+
 	/**
 	 * In the FilterList and FilterList iterators it becomes confusing as to
 	 * which modCount is being used. This formalizes the process, and using
@@ -199,8 +505,14 @@ final class ContentList extends AbstractList<Content>
 			throw new NullPointerException("Cannot add null object");
 		}
 
+		checkFrozen();
 		checkIndex(index, replace);
 
+		if (child instanceof Element && ((Element)child).content.isFrozen()) {
+			throw new UnsupportedOperationException(
+					"Cannot add a frozen Element to other content");
+		}
+
 		if (child.getParent() != null) {
 			// the content to be added already has a parent.
 			final Parent p = child.getParent();
@@ -240,6 +552,7 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public void add(final int index, final Content child) {
+		materialize();
 		// Confirm basic sanity of child.
 		checkPreConditions(child, index, false);
 		// Check to see whether this parent believes it can contain this content
@@ -269,6 +582,7 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public boolean addAll(final Collection<? extends Content> collection) {
+		materialize();
 		return addAll(size, collection);
 	}
 
@@ -288,6 +602,7 @@ final class ContentList extends AbstractList<Content>
 	@Override
 	public boolean addAll(final int index, 
 			final Collection<? extends Content> collection) {
+		materialize();
 		if ((collection == null)) {
 			throw new NullPointerException(
 					"Can not add a null collection to the ContentList");
@@ -307,6 +622,7 @@ final class ContentList extends AbstractList<Content>
 			return true;
 		}
 
+		checkFrozen();
 		ensureCapacity(size() + addcnt);
 
 		final int tmpmodcount = getModCount();
@@ -340,6 +656,8 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public void clear() {
+		materialize();
+		checkFrozen();
 		if (elementData != null) {
 			for (int i = 0; i < size; i++) {
 				Content obj = elementData[i];
@@ -359,6 +677,8 @@ final class ContentList extends AbstractList<Content>
 	 *        The collection to use.
 	 */
 	void clearAndSet(final Collection<? extends Content> collection) {
+		materialize();
+		checkFrozen();
 		if (collection == null || collection.isEmpty()) {
 			clear();
 			return;
@@ -410,6 +730,7 @@ final class ContentList extends AbstractList<Content>
 	 *        the desired minimum capacity.
 	 */
 	void ensureCapacity(final int minCapacity) {
+		materialize();
 		if (elementData == null) {
 			elementData = new Content[Math.max(minCapacity, INITIAL_ARRAY_SIZE)];
 			return;
@@ -435,6 +756,7 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public Content get(final int index) {
+		materialize();
 		checkIndex(index, true);
 		return elementData[index];
 	}
@@ -449,6 +771,7 @@ final class ContentList extends AbstractList<Content>
 	 * @return a list representing the rules of the <code>Filter</code>.
 	 */
 	<E extends Content> List<E> getView(final Filter<E> filter) {
+		materialize();
 		return new FilterList<E>(filter);
 	}
 
@@ -460,6 +783,7 @@ final class ContentList extends AbstractList<Content>
 	 * @return index of first element, or -1 if one doesn't exist
 	 */
 	int indexOfFirstElement() {
+		materialize();
 		if (elementData != null) {
 			for (int i = 0; i < size; i++) {
 				if (elementData[i] instanceof Element) {
@@ -477,6 +801,7 @@ final class ContentList extends AbstractList<Content>
 	 * @return index of the DocType, or -1 if it doesn't exist
 	 */
 	int indexOfDocType() {
+		materialize();
 		if (elementData != null) {
 			for (int i = 0; i < size; i++) {
 				if (elementData[i] instanceof DocType) {
@@ -496,6 +821,8 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public Content remove(final int index) {
+		materialize();
+		checkFrozen();
 		checkIndex(index, true);
 
 		final Content old = elementData[index];
@@ -523,6 +850,7 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public Content set(final int index, final Content child) {
+		materialize();
 		// Confirm basic sanity of child.
 		checkPreConditions(child, index, true);
 
@@ -552,21 +880,25 @@ final class ContentList extends AbstractList<Content>
 	 */
 	@Override
 	public int size() {
+		materialize();
 		return size;
 	}
 
 	@Override
 	public Iterator<Content> iterator() {
+		materialize();
 		return new CLIterator();
 	}
 	
 	@Override
 	public ListIterator<Content> listIterator() {
+		materialize();
 		return new CLListIterator(0);
 	}
 
 	@Override
 	public ListIterator<Content> listIterator(final int start) {
+		materialize();
 		return new CLListIterator(start);
 	}
 
@@ -594,6 +926,8 @@ final class ContentList extends AbstractList<Content>
 		for (int i = 0; i < indexes.length; i ++) {
 			elementData[unsorted[i]] = usc[i];
 		}
+		// the positions changed, so the name index and views are stale.
+		incDataModOnly();
 	}
 
 	/**
@@ -636,6 +970,8 @@ final class ContentList extends AbstractList<Content>
      */
 	// @Override - only in Java8
 	public final void sort(final Comparator<? super Content> comp) {
+		materialize();
+		checkFrozen();
 
 	    if (comp == null) {
             // sort by the 'natural order', which, there is none.
@@ -930,6 +1266,9 @@ final class ContentList extends AbstractList<Content>
 		int backingsize = 0;
 		// track data modifications in the backing ContentList.
 		int xdata = -1;
+		// the name and URI of Elements if the filter can use the name index.
+		final String indexname;
+		final String indexuri;
 
 		/**
 		 * Create a new instance of the FilterList with the specified Filter.
@@ -938,7 +1277,25 @@ final class ContentList extends AbstractList<Content>
 		 *        The underlying Filter to use for filtering the content.
 		 */
 		FilterList(final Filter<F> filter) {
+			this(filter, null, null);
+		}
+
+		/**
+		 * Create a new instance of the FilterList with the specified Filter,
+		 * which selects the Elements with a name and namespace URI.
+		 * 
+		 * @param filter
+		 *        The underlying Filter to use for filtering the content.
+		 * @param indexname
+		 *        The name of the Elements the Filter matches (or null).
+		 * @param indexuri
+		 *        The namespace URI of the Elements the Filter matches.
+		 */
+		FilterList(final Filter<F> filter, final String indexname, 
+				final String indexuri) {
 			this.filter = filter;
+			this.indexname = indexname;
+			this.indexuri = indexuri;
 		}
 		
 		/**
@@ -984,6 +1341,20 @@ final class ContentList extends AbstractList<Content>
 				return backingpos[index];
 			}
 
+			if (indexname != null && useIndex()) {
+				// get all the positions at once from the name index.
+				final NameEntry ne = indexLookup(indexname, indexuri);
+				final int cnt = ne == null ? 0 : ne.count;
+				if (cnt > 0) {
+					if (backingpos.length <= cnt) {
+						backingpos = new int[size + 1];
+					}
+					System.arraycopy(ne.positions, 0, backingpos, 0, cnt);
+				}
+				backingsize = cnt;
+				return index >= 0 && index < cnt ? backingpos[index] : size;
+			}
+
 			// the index in the backing list of the next value to check.
 			int bpi = 0;
 			if (backingsize > 0) {
@@ -1261,6 +1632,7 @@ final class ContentList extends AbstractList<Content>
 		 */
 		//Not till Java8 @Override
 		public final void sort(final Comparator<? super F> comp) {
+			checkFrozen();
 			// this size() forces a full scan/update of the list.
 		    if (comp == null) {
 		        // sort by the 'natural order', which, there is none.
@@ -515,6 +515,7 @@ public class Document extends CloneBase implements Parent {
 	 * @param uri the base URI of this document
 	 */
 	public final void setBaseURI(String uri) {
+		checkFrozen();
 		this.baseURI = uri;  // XXX We don't check the URI
 	}
 
@@ -674,6 +675,60 @@ public class Document extends CloneBase implements Parent {
 		return super.hashCode();
 	}
 
+	/**
+	 * Make this Document, and all its content, read-only. Any attempt to
+	 * modify a frozen Document, or any of its Content or Attributes, throws
+	 * an UnsupportedOperationException.
+	 * <p>
+	 * Freezing builds any content that has been deferred, trims all the
+	 * internal storage to the exact size of the content, discards empty
+	 * attribute and namespace lists, and prepares the name indexes of large
+	 * content and attribute lists. As a result, a frozen Document uses less
+	 * memory, and reading it never modifies any internal state, so it can be
+	 * safely read by multiple threads at the same time without any locking
+	 * (as long as it is published safely after it is frozen).
+	 * <p>
+	 * A Document cannot be unfrozen, but a {@link #clone()} of a frozen
+	 * Document is not frozen.
+	 * 
+	 * @return this Document.
+	 * @since JDOM 2.1.0
+	 */
+	public Document freeze() {
+		if (content.isFrozen()) {
+			return this;
+		}
+		content.freeze();
+		for (int i = 0; i < content.size(); i++) {
+			final Content c = content.get(i);
+			if (c instanceof Element) {
+				((Element)c).freezeTree();
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Indicate whether this Document has been {@link #freeze() frozen}.
+	 * 
+	 * @return true if the Document is frozen.
+	 * @since JDOM 2.1.0
+	 */
+	public boolean isFrozen() {
+		return content.isFrozen();
+	}
+
+	/**
+	 * Called by the methods that modify the Document directly.
+	 * 
+	 * @throws UnsupportedOperationException if this Document is frozen.
+	 */
+	private final void checkFrozen() {
+		if (content.isFrozen()) {
+			throw new UnsupportedOperationException("Cannot modify frozen " + this);
+		}
+	}
+
 	/**
 	 * This will return a deep clone of this <code>Document</code>.
 	 *
@@ -767,6 +822,7 @@ public class Document extends CloneBase implements Parent {
 	 * @param value  the <code>Object</code> to store
 	 */
 	public void setProperty(String id, Object value) {
+		checkFrozen();
 		if (propertyMap == null) {
 			propertyMap = new HashMap<String, Object>();
 		}
@@ -882,8 +938,15 @@ public class Document extends CloneBase implements Parent {
 	 * The Stream protocol is:
 	 * <ol>
 	 *   <li>The BaseURI using default Serialization.
+	 *   <li>The int -210, which marks the content as written without
+	 *       recursion. JDOM 2.0 wrote the content recursively, with no
+	 *       marker, and those streams are still read.
 	 *   <li>The count of child Content
-	 *   <li>The actual Child Content.
+	 *   <li>The child Content, each preceded by a boolean that is true if it
+	 *       is an Element. Descendant Elements are serialized without their
+	 *       content, and are followed by the count of their child Content,
+	 *       and that Content, in document order (see the serialized form
+	 *       of {@link Element}).
 	 * </ol>
 	 * 
 	 * @param out where to write the Element to.
@@ -891,11 +954,8 @@ public class Document extends CloneBase implements Parent {
 	 */
 	private void writeObject(final ObjectOutputStream out) throws IOException {
 		out.defaultWriteObject();
-		final int cs = content.size();
-		out.writeInt(cs);
-		for (int i = 0; i < cs; i++) {
-			out.writeObject(getContent(i));
-		}
+		out.writeInt(TreeSerializer.WALK_FORMAT);
+		new TreeSerializer().writeContent(out, this);
 	}
 
 	/**
@@ -914,6 +974,12 @@ public class Document extends CloneBase implements Parent {
 		content = new ContentList(this);
 
 		int cs = in.readInt();
+		if (cs == TreeSerializer.WALK_FORMAT) {
+			new TreeSerializer().readContent(in, this);
+			return;
+		}
+
+		// the recursive JDOM 2.0 form.
 		while (--cs >= 0) {
 			addContent((Content)in.readObject());
 		}
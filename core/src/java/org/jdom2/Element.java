@@ -204,6 +204,34 @@ public class Element extends Content implements Parent {
 		this(name, Namespace.getNamespace(prefix, uri));
 	}
 
+	/**
+	 * Indicate that the content of this Element has not been built yet. The
+	 * first time the content is accessed (through any of the content methods,
+	 * or any "live" List of the content), {@link #loadDeferredContent()} will
+	 * be called to build it.
+	 * <p>
+	 * This supports Element subclasses that build their content on demand,
+	 * like the Elements created by the {@link org.jdom2.input.DeferredBuilder}.
+	 * It should only be called while the Element has no content.
+	 * 
+	 * @since JDOM 2.1.0
+	 */
+	protected final void deferContent() {
+		content.setDeferred();
+	}
+
+	/**
+	 * Build the content of an Element that was marked with
+	 * {@link #deferContent()}. This is called at most once, the first time
+	 * the content is accessed, and any content added during the call is added
+	 * directly to this Element. The default implementation does nothing.
+	 * 
+	 * @since JDOM 2.1.0
+	 */
+	protected void loadDeferredContent() {
+		// nothing to load by default.
+	}
+
 	/**
 	 * Returns the (local) name of the element (without any namespace prefix).
 	 *
@@ -222,14 +250,27 @@ public class Element extends Content implements Parent {
 	 *                              name
 	 */
 	public Element setName(final String name) {
+		checkFrozen();
 		final String reason = Verifier.checkElementName(name);
 		if (reason != null) {
 			throw new IllegalNameException(name, "element", reason);
 		}
 		this.name = name;
+		renamed();
 		return this;
 	}
 
+	/**
+	 * Let the parent Element know that this Element's name or Namespace has
+	 * changed (it may have indexed its children by name).
+	 */
+	private final void renamed() {
+		final Element pe = getParentElement();
+		if (pe != null) {
+			pe.content.childRenamed();
+		}
+	}
+
 	/**
 	 * Returns the element's {@link Namespace}.
 	 *
@@ -248,6 +289,7 @@ public class Element extends Content implements Parent {
 	 * @throws IllegalAddException if there is a Namespace conflict
 	 */
 	public Element setNamespace(Namespace namespace) {
+		checkFrozen();
 		if (namespace == null) {
 			namespace = Namespace.NO_NAMESPACE;
 		}
@@ -270,6 +312,7 @@ public class Element extends Content implements Parent {
 		}
 		
 		this.namespace = namespace;
+		renamed();
 		return this;
 	}
 
@@ -381,6 +424,7 @@ public class Element extends Content implements Parent {
 	 *                             namespace prefix on the element
 	 */
 	public boolean addNamespaceDeclaration(final Namespace additionalNamespace) {
+		checkFrozen();
 
 		if (additionalNamespaces == null) {
 			additionalNamespaces = new ArrayList<Namespace>(INITIAL_ARRAY_SIZE);
@@ -413,6 +457,7 @@ public class Element extends Content implements Parent {
 	 * @param additionalNamespace namespace to remove. A null Namespace does nothing.
 	 */
 	public void removeNamespaceDeclaration(final Namespace additionalNamespace) {
+		checkFrozen();
 		if (additionalNamespaces == null) {
 			return;
 		}
@@ -1079,12 +1124,81 @@ public class Element extends Content implements Parent {
 		return additionalNamespaces != null && !additionalNamespaces.isEmpty();
 	}
 	
+	/**
+	 * Make this Element, and all its content and Attributes, read-only, in
+	 * the same way as {@link Document#freeze()}. Only an Element with no
+	 * parent can be frozen (freeze the Document to freeze a root Element),
+	 * and a frozen Element cannot be added to other content.
+	 * 
+	 * @return this Element.
+	 * @throws IllegalStateException if this Element has a parent that is not
+	 *         frozen.
+	 * @since JDOM 2.1.0
+	 */
+	public Element freeze() {
+		if (isFrozen()) {
+			return this;
+		}
+		if (getParent() != null) {
+			throw new IllegalStateException(
+					"Only an Element with no parent can be frozen");
+		}
+		freezeTree();
+		return this;
+	}
+
+	/**
+	 * Indicate whether this Element has been frozen (see {@link #freeze()}
+	 * and {@link Document#freeze()}).
+	 * 
+	 * @return true if this Element is frozen.
+	 * @since JDOM 2.1.0
+	 */
+	@Override
+	public boolean isFrozen() {
+		return content.isFrozen();
+	}
+
+	/**
+	 * Freeze this Element and all its descendants (without recursion, so
+	 * deep trees are not a problem).
+	 */
+	final void freezeTree() {
+		final ArrayList<Element> stack = new ArrayList<Element>();
+		stack.add(this);
+		while (!stack.isEmpty()) {
+			final Element emt = stack.remove(stack.size() - 1);
+			emt.content.freeze();
+			for (int i = emt.content.size() - 1; i >= 0; i--) {
+				final Content c = emt.content.get(i);
+				if (c instanceof Element) {
+					stack.add((Element)c);
+				}
+			}
+			if (emt.attributes != null) {
+				if (emt.attributes.isEmpty()) {
+					emt.attributes = null;
+				} else {
+					emt.attributes.freeze();
+				}
+			}
+			if (emt.additionalNamespaces != null) {
+				emt.additionalNamespaces = emt.additionalNamespaces.isEmpty() 
+						? null : new ArrayList<Namespace>(emt.additionalNamespaces);
+			}
+		}
+	}
+
 	/**
 	 * Lazy initialiser for the Attribute list.
 	 * @return this Element's Attribute List (creating it if necessary).
 	 */
 	AttributeList getAttributeList() {
 		if (attributes == null) {
+			if (content.isFrozen()) {
+				// do not change a frozen Element, even lazily.
+				return AttributeList.FROZEN_EMPTY;
+			}
 			attributes = new AttributeList(this);
 		}
 		return attributes;
@@ -1574,6 +1688,9 @@ public class Element extends Content implements Parent {
 	 * @return all matching child elements
 	 */
 	public List<Element> getChildren(final String cname, final Namespace ns) {
+		if (cname != null && ns != null) {
+			return content.getChildren(cname, ns);
+		}
 		return content.getView(new ElementFilter(cname, ns));
 	}
 
@@ -1588,6 +1705,9 @@ public class Element extends Content implements Parent {
 	 * @return the first matching child element, or null if not found
 	 */
 	public Element getChild(final String cname, final Namespace ns) {
+		if (cname != null && ns != null) {
+			return content.getChild(cname, ns);
+		}
 		final List<Element> elements = content.getView(new ElementFilter(cname, ns));
 		final Iterator<Element> iter = elements.iterator();
 		if (iter.hasNext()) {
@@ -2022,48 +2142,42 @@ public class Element extends Content implements Parent {
 	 * Serialize out the Element.
 	 * 
 	 * @serialData
-	 * The Stream protocol is:
+	 * The Stream protocol, when this Element is the top of the serialized
+	 * tree, is:
 	 * <ol>
 	 *   <li>The Element name and Namespace using default Serialization.
+	 *   <li>The int -210, which marks the content as written without
+	 *       recursion. JDOM 2.0 wrote the content recursively, with no
+	 *       marker, and those streams are still read.
 	 *   <li>The count of additional Namespace Declarations.
 	 *   <li>The actual additional Namespace Declarations.
 	 *   <li>The count of Attributes.
 	 *   <li>The actual Attributes.
 	 *   <li>The count of child Content
-	 *   <li>The actual Child Content.
+	 *   <li>The child Content, each preceded by a boolean that is true if it
+	 *       is an Element. Descendant Elements are followed by the count of
+	 *       their child Content, and that Content, in document order.
 	 * </ol>
+	 * Descendant Elements write only their name and Namespace, the
+	 * Namespace Declarations, and the Attributes; the names and Namespaces
+	 * are written once and then referenced by index.
 	 * 
 	 * @param out where to write the Element to.
 	 * @throws IOException if there is a writing problem.
 	 */
 	private void writeObject(final ObjectOutputStream out) throws IOException {
+		final TreeSerializer walk = TreeSerializer.consume();
+		if (walk != null) {
+			// a descendant: the walk writes the content.
+			walk.writeHeader(out, this);
+			return;
+		}
 		// sends out the name and namespace.
 		out.defaultWriteObject();
-		if (hasAdditionalNamespaces()) {
-			final int ans = additionalNamespaces.size();
-			out.writeInt(ans);
-			for (int i = 0; i < ans; i++) {
-				out.writeObject(additionalNamespaces.get(i));
-			}
-		} else {
-			out.writeInt(0);
-		}
-		if (hasAttributes()) {
-			final int ans = attributes.size();
-			out.writeInt(ans);
-			for (int i = 0; i < ans; i++) {
-				out.writeObject(attributes.get(i));
-			}
-		} else {
-			out.writeInt(0);
-		}
-		
-		final int cs = content.size();
-		out.writeInt(cs);
-		for (int i = 0; i < cs; i++) {
-			out.writeObject(content.get(i));
-		}
-
+		out.writeInt(TreeSerializer.WALK_FORMAT);
+		final TreeSerializer top = new TreeSerializer();
+		top.writeDeclarations(out, this);
+		top.writeContent(out, this);
 	}
 
 	/**
@@ -2077,12 +2191,27 @@ public class Element extends Content implements Parent {
 	private void readObject(final ObjectInputStream in)
 			throws IOException, ClassNotFoundException {
 
-		in.defaultReadObject();
-		
+		final TreeSerializer walk = TreeSerializer.consume();
+
 		content = new ContentList(this);
 
+		if (walk != null) {
+			// a descendant: the walk reads the content.
+			walk.readHeader(in, this);
+			return;
+		}
+
+		in.defaultReadObject();
+
 		int nss = in.readInt();
-		
+		if (nss == TreeSerializer.WALK_FORMAT) {
+			final TreeSerializer top = new TreeSerializer();
+			top.readDeclarations(in, this);
+			top.readContent(in, this);
+			return;
+		}
+
+		// the recursive JDOM 2.0 form.
 		while (--nss >= 0) {
 			addNamespaceDeclaration((Namespace)in.readObject());
 		}
@@ -164,6 +164,38 @@ public final class JDOMConstants {
 	public static final String JDOM2_PROPERTY_XPATH_FACTORY =
 			"org.jdom2.xpath.XPathFactory";
 	
+	/**
+	 * System Property queried to obtain the capacity of the compiled
+	 * expression cache of the default XPathFactory (no cache if not set).
+	 * Defined as {@value}
+	 * @see XPathFactory#instance()
+	 * @since JDOM 2.1.0
+	 */
+	public static final String JDOM2_PROPERTY_XPATH_CACHE =
+			"org.jdom2.xpath.XPathFactory.cache";
+	
+	/**
+	 * System Property queried to disable the name index that Elements with
+	 * many children use for looking up child Elements by name. Set it to
+	 * <code>false</code> to always scan the children instead.
+	 * Defined as {@value}
+	 * @see Element#getChild(String, Namespace)
+	 * @since JDOM 2.1.0
+	 */
+	public static final String JDOM2_PROPERTY_CHILD_INDEX =
+			"org.jdom2.Element.childIndex";
+	
+	/**
+	 * System Property queried to disable the hash index that Elements with
+	 * many Attributes use for looking up Attributes by name. Set it to
+	 * <code>false</code> to always scan the Attributes instead.
+	 * Defined as {@value}
+	 * @see Element#getAttribute(String, Namespace)
+	 * @since JDOM 2.1.0
+	 */
+	public static final String JDOM2_PROPERTY_ATTRIBUTE_INDEX =
+			"org.jdom2.Element.attributeIndex";
+	
 	/**
 	 * System Property queried to obtain an alternate default Line Separator.
 	 * <p>
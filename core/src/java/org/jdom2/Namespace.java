@@ -89,6 +89,19 @@ public final class Namespace implements Serializable {
 	private static final ConcurrentMap<String, ConcurrentMap<String, Namespace>> 
 			namespacemap = new ConcurrentHashMap
 			<String, ConcurrentMap<String,Namespace>>(512, 0.75f, 64);
+
+	/** The number of slots in the recently-used cache (a power of 2). */
+	private static final int RECENTSIZE = 256;
+
+	/**
+	 * A direct-mapped cache of recently used Namespaces, which is checked
+	 * before the (two-level) namespacemap. Documents typically use the same
+	 * few Namespaces over and over, and a hit costs a single array access and
+	 * two String compares (usually by identity). It is shared by all threads
+	 * without locking, which is safe because Namespace instances are
+	 * immutable: a racing thread sees a valid Namespace, or null, in a slot.
+	 */
+	private static final Namespace[] RECENT = new Namespace[RECENTSIZE];
 	
 	/** Define a <code>Namespace</code> for when <i>not</i> in a namespace */
 	public static final Namespace NO_NAMESPACE = new Namespace(NS_PREFIX_DEFAULT, 
@@ -135,6 +148,30 @@ public final class Namespace implements Serializable {
 	 * @see Verifier#checkNamespaceURI(String)
 	 */
 	public static Namespace getNamespace(final String prefix, final String uri) {
+		if (uri == null) {
+			// slow path will sort out the null URI.
+			return lookupNamespace(prefix, uri);
+		}
+		final String pfx = prefix == null ? NS_PREFIX_DEFAULT : prefix;
+		final int hash = uri.hashCode() * 31 + pfx.hashCode();
+		final int slot = ((hash >>> 16) ^ hash) & (RECENTSIZE - 1);
+		final Namespace recent = RECENT[slot];
+		if (recent != null && (recent.uri == uri || recent.uri.equals(uri))
+				&& (recent.prefix == pfx || recent.prefix.equals(pfx))) {
+			return recent;
+		}
+		final Namespace ns = lookupNamespace(pfx, uri);
+		RECENT[slot] = ns;
+		return ns;
+	}
+
+	/**
+	 * Look up (or create and register) the Namespace in the namespacemap.
+	 * @param prefix the prefix to map
+	 * @param uri the URI to map
+	 * @return the Namespace instance
+	 */
+	private static Namespace lookupNamespace(final String prefix, final String uri) {
 		
 		// This is a rewrite of the JDOM 1 getNamespace() to use
 		// java.util.concurrent. The motivation is:
@@ -61,15 +61,32 @@ import java.util.Map;
  * This JDOMFactory instance reduces the amount of memory used by JDOM content.
  * It does this by reusing String instances instead of using new (but equals())
  * instances. It uses the {@link StringBin} class to provide a String cache.
+ * <p>
+ * By default each SlimJDOMFactory has its own cache, and, like the
+ * StringBin, it is not thread-safe. A <i>shared</i> SlimJDOMFactory instead
+ * uses a single JVM-wide {@link ConcurrentStringBin}, which means all shared
+ * SlimJDOMFactory instances reuse the same String instances, and that a shared
+ * SlimJDOMFactory can be used by many threads at the same time (for example,
+ * by all the SAXBuilders in a parser thread pool). The shared cache is
+ * bounded, less-used Strings are evicted when it is full.
  * 
  * @see StringBin
+ * @see ConcurrentStringBin
  * @author Rolf Lear
  *
  */
 public class SlimJDOMFactory extends DefaultJDOMFactory {
 	
-	private StringBin cache = new StringBin();
+	/**
+	 * Lazy holder of the JVM-wide String cache for shared factories.
+	 */
+	private static final class SharedBin {
+		private static final ConcurrentStringBin BIN = new ConcurrentStringBin();
+	}
+	
+	private StringBin cache;
 	private final boolean cachetext;
+	private final boolean shared;
 	
 	/**
 	 * 
@@ -86,22 +103,71 @@ public class SlimJDOMFactory extends DefaultJDOMFactory {
 	 * Comment and Attribute values cached as well.
 	 */
 	public SlimJDOMFactory(final boolean cachetext) {
+		this(cachetext, false);
+	}
+
+	/**
+	 * Construct a SlimJDOMFactory which will optionally cache Text/CDATA/Comment/Attribute
+	 * values, and which optionally uses the thread-safe JVM-wide String cache
+	 * instead of its own private cache.
+	 * @param cachetext should be true if you want the content of CDATA, Text,
+	 * Comment and Attribute values cached as well.
+	 * @param shared should be true if you want to use the shared thread-safe
+	 * cache, and share this factory between threads.
+	 * @since JDOM 2.1.0
+	 */
+	public SlimJDOMFactory(final boolean cachetext, final boolean shared) {
 		super();
 		this.cachetext = cachetext;
+		this.shared = shared;
+		this.cache = shared ? null : new StringBin();
 	}
 
+	/**
+	 * Is this factory using the shared (thread-safe) JVM-wide String cache.
+	 * @return true if this factory uses the shared cache.
+	 * @since JDOM 2.1.0
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * Does this factory cache the values of Text, CDATA, Comment and
+	 * Attribute content.
+	 * @return true if text values are cached.
+	 * @since JDOM 2.1.0
+	 */
+	public boolean isCachingText() {
+		return cachetext;
+	}
 
 	/**
 	 * Reset any Cached String instance data from this SlimJDOMFaxctory cache.
+	 * If this is a shared factory then the JVM-wide cache is reset, which
+	 * affects all shared factories.
 	 */
 	public void clearCache() {
-		cache = new StringBin();
+		if (shared) {
+			SharedBin.BIN.clear();
+		} else {
+			cache = new StringBin();
+		}
+	}
+
+	/**
+	 * Get the cached instance of a String value.
+	 * @param value The value to reuse
+	 * @return The cached equals() value.
+	 */
+	private String reuse(final String value) {
+		return shared ? SharedBin.BIN.reuse(value) : cache.reuse(value);
 	}
 
 	@Override
 	public Attribute attribute(final String name, final String value, final Namespace namespace) {
-		return super.attribute(cache.reuse(name), 
-				(cachetext ? cache.reuse(value) : value), 
+		return super.attribute(reuse(name), 
+				(cachetext ? reuse(value) : value), 
 				namespace);
 	}
 
@@ -109,120 +175,120 @@ public class SlimJDOMFactory extends DefaultJDOMFactory {
 	@Deprecated
 	public Attribute attribute(final String name, final String value, final int type,
 			final Namespace namespace) {
-		return super.attribute(cache.reuse(name),
-				(cachetext ? cache.reuse(value) : value), 
+		return super.attribute(reuse(name),
+				(cachetext ? reuse(value) : value), 
 				type, namespace);
 	}
 
 	@Override
 	public Attribute attribute(final String name, final String value, final AttributeType type,
 			Namespace namespace) {
-		return super.attribute(cache.reuse(name),
-				(cachetext ? cache.reuse(value) : value),
+		return super.attribute(reuse(name),
+				(cachetext ? reuse(value) : value),
 				type, namespace);
 	}
 
 	@Override
 	public Attribute attribute(final String name, final String value) {
-		return super.attribute(cache.reuse(name), 
-				(cachetext ? cache.reuse(value) : value));
+		return super.attribute(reuse(name), 
+				(cachetext ? reuse(value) : value));
 	}
 
 	@Override
 	@Deprecated
 	public Attribute attribute(final String name, final String value, final int type) {
-		return super.attribute(cache.reuse(name),
-				(cachetext ? cache.reuse(value) : value), 
+		return super.attribute(reuse(name),
+				(cachetext ? reuse(value) : value), 
 				type);
 	}
 
 	@Override
 	public Attribute attribute(final String name, final String value, final AttributeType type) {
-		return super.attribute(cache.reuse(name),
-				(cachetext ? cache.reuse(value) : value), 
+		return super.attribute(reuse(name),
+				(cachetext ? reuse(value) : value), 
 				type);
 	}
 
 	@Override
 	public CDATA cdata(final int line, final int col, final String str) {
-		return super.cdata(line, col, (cachetext ? cache.reuse(str) : str));
+		return super.cdata(line, col, (cachetext ? reuse(str) : str));
 	}
 
 	@Override
 	public Text text(final int line, final int col, final String str) {
-		return super.text(line, col, (cachetext ? cache.reuse(str) : str));
+		return super.text(line, col, (cachetext ? reuse(str) : str));
 	}
 
 	@Override
 	public Comment comment(final int line, final int col, final String text) {
-		return super.comment(line, col, (cachetext ? cache.reuse(text) : text));
+		return super.comment(line, col, (cachetext ? reuse(text) : text));
 	}
 
 	@Override
 	public DocType docType(final int line, final int col, final String elementName, final String publicID, final String systemID) {
-		return super.docType(line, col, cache.reuse(elementName), publicID, systemID);
+		return super.docType(line, col, reuse(elementName), publicID, systemID);
 	}
 
 	@Override
 	public DocType docType(final int line, final int col, final String elementName, final String systemID) {
-		return super.docType(line, col, cache.reuse(elementName), systemID);
+		return super.docType(line, col, reuse(elementName), systemID);
 	}
 
 	@Override
 	public DocType docType(final int line, final int col, final String elementName) {
-		return super.docType(line, col, cache.reuse(elementName));
+		return super.docType(line, col, reuse(elementName));
 	}
 
 	@Override
 	public Element element(final int line, final int col, final String name, final Namespace namespace) {
-		return super.element(line, col, cache.reuse(name), namespace);
+		return super.element(line, col, reuse(name), namespace);
 	}
 
 	@Override
 	public Element element(final int line, final int col, final String name) {
-		return super.element(line, col, cache.reuse(name));
+		return super.element(line, col, reuse(name));
 	}
 
 	@Override
 	public Element element(final int line, final int col, final String name, final String uri) {
-		return super.element(line, col, cache.reuse(name), uri);
+		return super.element(line, col, reuse(name), uri);
 	}
 
 	@Override
 	public Element element(final int line, final int col, final String name, final String prefix, final String uri) {
-		return super.element(line, col, cache.reuse(name), prefix, uri);
+		return super.element(line, col, reuse(name), prefix, uri);
 	}
 
 	@Override
 	public ProcessingInstruction processingInstruction(final int line, final int col, final String target,
 			final Map<String, String> data) {
-		return super.processingInstruction(line, col, cache.reuse(target), data);
+		return super.processingInstruction(line, col, reuse(target), data);
 	}
 
 	@Override
 	public ProcessingInstruction processingInstruction(final int line, final int col, final String target,
 			final String data) {
-		return super.processingInstruction(line, col, cache.reuse(target), data);
+		return super.processingInstruction(line, col, reuse(target), data);
 	}
 
 	@Override
 	public ProcessingInstruction processingInstruction(final int line, final int col, final String target) {
-		return super.processingInstruction(line, col, cache.reuse(target));
+		return super.processingInstruction(line, col, reuse(target));
 	}
 
 	@Override
 	public EntityRef entityRef(final int line, final int col, final String name) {
-		return super.entityRef(line, col, cache.reuse(name));
+		return super.entityRef(line, col, reuse(name));
 	}
 
 	@Override
 	public EntityRef entityRef(final int line, final int col, final String name, final String publicID, final String systemID) {
-		return super.entityRef(line, col, cache.reuse(name), publicID, systemID);
+		return super.entityRef(line, col, reuse(name), publicID, systemID);
 	}
 
 	@Override
 	public EntityRef entityRef(final int line, final int col, final String name, final String systemID) {
-		return super.entityRef(line, col, cache.reuse(name), systemID);
+		return super.entityRef(line, col, reuse(name), systemID);
 	}
 
 }
@@ -81,7 +81,8 @@ import org.jdom2.internal.ArrayCopy;
  * data you have. In XML where there are lots of repeating patterns of element
  * and attribute names this can add up pretty fast.
  * <p>
- * This class is not thread-safe.
+ * This class is not thread-safe. See {@link ConcurrentStringBin} for a
+ * version that can be shared between threads.
  * 
  * @author Rolf Lear
  *
@@ -236,6 +237,52 @@ final class StringBin {
 	 * input was null
 	 */
 	public String reuse(final String value) {
+		return reuse(value, true);
+	}
+	
+	/**
+	 * Get the String instance that is equal to the input value, but only if
+	 * one has already been registered in this StringBin. The input value is
+	 * not registered.
+	 * @param value The value to check.
+	 * @return a String that is equals() to the input value, or null if there
+	 * is no such value registered (or the input was null)
+	 */
+	public String lookup(final String value) {
+		if (value == null) {
+			return null;
+		}
+		final int hash = value.hashCode();
+		final int bucketid = ((hash >>> 16) ^ hash) & mask;
+		final int length = lengths[bucketid];
+		if (length == 0) {
+			return null;
+		}
+		final String[] bucket = buckets[bucketid];
+		final int pos = locate(hash, value, bucket, length);
+		return pos < 0 ? null : bucket[pos];
+	}
+	
+	/**
+	 * Register the actual input value instance (without compacting it) unless
+	 * an equal value is already registered. This is used to move values from
+	 * one StringBin to another while keeping the same String instances.
+	 * @param value The value to register.
+	 * @return a String that is equals() to the input value, or null if the
+	 * input was null
+	 */
+	public String keep(final String value) {
+		return reuse(value, false);
+	}
+	
+	/**
+	 * Get, or register, a String instance that is equal to the input value.
+	 * @param value The value to check.
+	 * @param compact whether a newly registered value should be compacted.
+	 * @return a String that is equals() to the input value, or null if the
+	 * input was null
+	 */
+	private String reuse(final String value, final boolean compact) {
 		if (value == null) {
 			return null;
 		}
@@ -275,7 +322,7 @@ final class StringBin {
 		final int length = lengths[bucketid];
 		if (length == 0) {
 			// start a new bucket
-			final String v = compact(value);
+			final String v = compact ? compact(value) : value;
 			buckets[bucketid] = new String[GROW];
 			buckets[bucketid][0] = v;
 			lengths[bucketid] = 1;
@@ -294,7 +341,7 @@ final class StringBin {
 		if (length >= MAXBUCKET) {
 			// need to rehash, so we do, and then add our value
 			rehash();
-			return reuse(value);
+			return reuse(value, compact);
 		}
 		if (length == bucket.length) {
 			// there is no space for our value.
@@ -302,7 +349,7 @@ final class StringBin {
 			buckets[bucketid] = bucket;
 		}
 		System.arraycopy(bucket, ip, bucket, ip + 1, length - ip);
-		final String v = compact(value);
+		final String v = compact ? compact(value) : value;
 		bucket[ip] = v;
 		lengths[bucketid]++;
 		return v;
@@ -171,6 +171,7 @@ public class Text extends Content {
 	 *         by {@link org.jdom2.Verifier#checkCharacterData})
 	 */
 	public Text setText(String str) {
+		checkFrozen();
 		String reason;
 
 		if (str == null) {
@@ -195,6 +196,7 @@ public class Text extends Content {
 	 *         by {@link org.jdom2.Verifier#checkCharacterData})
 	 */
 	public void append(String str) {
+		checkFrozen();
 		String reason;
 
 		if (str == null) {
@@ -216,6 +218,7 @@ public class Text extends Content {
 	 * @param text Text node to append.
 	 */
 	public void append(Text text) {
+		checkFrozen();
 		if (text == null) {
 			return;
 		}
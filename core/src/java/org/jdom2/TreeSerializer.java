@@ -0,0 +1,397 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.jdom2.internal.ArrayCopy;
+
+/**
+ * Serializes the content of a Document or Element (the top of a tree) without
+ * recursion, and with a back-reference table for names and Namespaces.
+ * <p>
+ * Each descendant Element is still written with
+ * {@link ObjectOutputStream#writeObject(Object)} (so Element subclasses are
+ * preserved), but a TreeSerializer is registered as the 'current walk' while
+ * it is written, and the Element then writes only its name, Namespace,
+ * Namespace declarations and Attributes (see {@link #consume()}). The walk
+ * writes the count of each Element's content, and the content, with an
+ * explicit stack. Each child is preceded by a boolean that is true for an
+ * Element, so the reader knows when to register the walk. Reading mirrors
+ * the writing.
+ * <p>
+ * The protocol for an Element header is:
+ * <ol>
+ *   <li>The name and Namespace (as symbols, only for descendant Elements).
+ *   <li>The count of additional Namespace declarations, and the declarations
+ *       as symbols.
+ *   <li>The count of Attributes, and each Attribute: a boolean that is true
+ *       when the Attribute is exactly an {@link Attribute} and is written as
+ *       the name and Namespace symbols, the value, the AttributeType ordinal
+ *       and the specified flag; otherwise the Attribute (subclass) object.
+ * </ol>
+ * A symbol is an int: 0 for a new symbol, followed by the String (or prefix
+ * and URI Strings for a Namespace), otherwise the index of a previous symbol.
+ * 
+ * @since JDOM 2.1.0
+ */
+final class TreeSerializer {
+
+	private static final ThreadLocal<TreeSerializer> CURRENT =
+			new ThreadLocal<TreeSerializer>();
+
+	private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+
+	/**
+	 * Written by a Document, or the top Element, in place of the first count
+	 * of the JDOM 2.0 serialized form, which is never negative. It marks the
+	 * content as written by a walk, so that streams written by JDOM 2.0 can
+	 * still be read.
+	 */
+	static final int WALK_FORMAT = -210;
+
+	/**
+	 * Get, and clear, the walk that is currently writing (or reading) the
+	 * calling Element as a descendant. The walk is cleared before the
+	 * Element does anything else, so Elements that are serialized as part of
+	 * (subclass) fields of the Element are serialized as complete trees.
+	 * 
+	 * @return the current walk, or null if the Element is the top of a tree.
+	 */
+	static TreeSerializer consume() {
+		final TreeSerializer walk = CURRENT.get();
+		if (walk != null) {
+			CURRENT.remove();
+		}
+		return walk;
+	}
+
+	private HashMap<String, Integer> names = null;
+	private IdentityHashMap<Namespace, Integer> namespaces = null;
+	private String[] namelist = null;
+	private int namecount = 0;
+	private Namespace[] nslist = null;
+	private int nscount = 0;
+
+	/* ************************************
+	 * Writing
+	 * ************************************ */
+
+	private void writeName(final ObjectOutputStream out, final String name)
+			throws IOException {
+		if (names == null) {
+			names = new HashMap<String, Integer>();
+		}
+		final Integer index = names.get(name);
+		if (index != null) {
+			out.writeInt(index.intValue());
+			return;
+		}
+		out.writeInt(0);
+		out.writeObject(name);
+		names.put(name, Integer.valueOf(names.size() + 1));
+	}
+
+	private void writeNamespace(final ObjectOutputStream out, final Namespace ns)
+			throws IOException {
+		if (namespaces == null) {
+			namespaces = new IdentityHashMap<Namespace, Integer>();
+		}
+		final Integer index = namespaces.get(ns);
+		if (index != null) {
+			out.writeInt(index.intValue());
+			return;
+		}
+		out.writeInt(0);
+		out.writeObject(ns.getPrefix());
+		out.writeObject(ns.getURI());
+		namespaces.put(ns, Integer.valueOf(namespaces.size() + 1));
+	}
+
+	/**
+	 * Write the name and Namespace of a descendant Element, then its
+	 * declarations.
+	 */
+	void writeHeader(final ObjectOutputStream out, final Element emt)
+			throws IOException {
+		writeName(out, emt.name);
+		writeNamespace(out, emt.namespace);
+		writeDeclarations(out, emt);
+	}
+
+	/**
+	 * Write the additional Namespace declarations and Attributes.
+	 */
+	void writeDeclarations(final ObjectOutputStream out, final Element emt)
+			throws IOException {
+		if (emt.hasAdditionalNamespaces()) {
+			final List<Namespace> ans = emt.additionalNamespaces;
+			final int size = ans.size();
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				writeNamespace(out, ans.get(i));
+			}
+		} else {
+			out.writeInt(0);
+		}
+		if (emt.hasAttributes()) {
+			final AttributeList atts = emt.attributes;
+			final int size = atts.size();
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				final Attribute att = atts.get(i);
+				if (att.getClass() == Attribute.class) {
+					out.writeBoolean(true);
+					writeName(out, att.getName());
+					writeNamespace(out, att.getNamespace());
+					out.writeObject(att.getValue());
+					out.writeByte(att.getAttributeType().ordinal());
+					out.writeBoolean(att.isSpecified());
+				} else {
+					out.writeBoolean(false);
+					out.writeObject(att);
+				}
+			}
+		} else {
+			out.writeInt(0);
+		}
+	}
+
+	/**
+	 * Write the content of the top of the tree, and all its descendants.
+	 */
+	void writeContent(final ObjectOutputStream out, final Parent top)
+			throws IOException {
+		Parent[] parents = new Parent[16];
+		int[] indexes = new int[16];
+		int depth = 0;
+		parents[0] = top;
+		out.writeInt(top.getContentSize());
+		while (depth >= 0) {
+			final Parent parent = parents[depth];
+			final int index = indexes[depth];
+			if (index >= parent.getContentSize()) {
+				parents[depth--] = null;
+				continue;
+			}
+			indexes[depth] = index + 1;
+			final Content content = parent.getContent(index);
+			if (!(content instanceof Element)) {
+				out.writeBoolean(false);
+				out.writeObject(content);
+				continue;
+			}
+			out.writeBoolean(true);
+			if (!writeDescendant(out, content)) {
+				// was already written (shared reference), content and all.
+				continue;
+			}
+			final Element emt = (Element)content;
+			out.writeInt(emt.content.size());
+			if (++depth == parents.length) {
+				parents = ArrayCopy.copyOf(parents, depth * 2);
+				indexes = ArrayCopy.copyOf(indexes, depth * 2);
+			}
+			parents[depth] = emt;
+			indexes[depth] = 0;
+		}
+	}
+
+	/**
+	 * Write the descendant Element with this as the current walk.
+	 * 
+	 * @return true if the Element wrote its header (rather than being a
+	 *         back-reference to an Element written before).
+	 */
+	private boolean writeDescendant(final ObjectOutputStream out,
+			final Content emt) throws IOException {
+		CURRENT.set(this);
+		try {
+			out.writeObject(emt);
+			return CURRENT.get() != this;
+		} finally {
+			CURRENT.remove();
+		}
+	}
+
+	/* ************************************
+	 * Reading
+	 * ************************************ */
+
+	private String readName(final ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		final int index = in.readInt();
+		if (index == 0) {
+			final String name = (String)in.readObject();
+			if (namelist == null) {
+				namelist = new String[16];
+			} else if (namecount == namelist.length) {
+				namelist = ArrayCopy.copyOf(namelist, namecount * 2);
+			}
+			namelist[namecount++] = name;
+			return name;
+		}
+		if (index < 0 || index > namecount) {
+			throw new InvalidObjectException("Undefined name index " + index);
+		}
+		return namelist[index - 1];
+	}
+
+	private Namespace readNamespace(final ObjectInputStream in)
+			throws IOException, ClassNotFoundException {
+		final int index = in.readInt();
+		if (index == 0) {
+			final String prefix = (String)in.readObject();
+			final String uri = (String)in.readObject();
+			final Namespace ns = Namespace.getNamespace(prefix, uri);
+			if (nslist == null) {
+				nslist = new Namespace[8];
+			} else if (nscount == nslist.length) {
+				nslist = ArrayCopy.copyOf(nslist, nscount * 2);
+			}
+			nslist[nscount++] = ns;
+			return ns;
+		}
+		if (index < 0 || index > nscount) {
+			throw new InvalidObjectException("Undefined Namespace index " + index);
+		}
+		return nslist[index - 1];
+	}
+
+	/**
+	 * Read the name and Namespace of a descendant Element, then its
+	 * declarations.
+	 */
+	void readHeader(final ObjectInputStream in, final Element emt)
+			throws IOException, ClassNotFoundException {
+		emt.name = readName(in);
+		emt.namespace = readNamespace(in);
+		readDeclarations(in, emt);
+	}
+
+	/**
+	 * Read the additional Namespace declarations and Attributes.
+	 */
+	void readDeclarations(final ObjectInputStream in, final Element emt)
+			throws IOException, ClassNotFoundException {
+		int nss = in.readInt();
+		while (--nss >= 0) {
+			emt.addNamespaceDeclaration(readNamespace(in));
+		}
+		int ats = in.readInt();
+		while (--ats >= 0) {
+			if (!in.readBoolean()) {
+				emt.setAttribute((Attribute)in.readObject());
+				continue;
+			}
+			final String name = readName(in);
+			final Namespace ns = readNamespace(in);
+			final String value = (String)in.readObject();
+			final int type = in.readByte();
+			if (type < 0 || type >= ATTRIBUTE_TYPES.length) {
+				throw new InvalidObjectException("Undefined AttributeType " + type);
+			}
+			final Attribute att = new Attribute(name, value, ATTRIBUTE_TYPES[type], ns);
+			att.setSpecified(in.readBoolean());
+			emt.setAttribute(att);
+		}
+	}
+
+	/**
+	 * Read the content of the top of the tree, and all its descendants.
+	 */
+	void readContent(final ObjectInputStream in, final Parent top)
+			throws IOException, ClassNotFoundException {
+		Parent[] parents = new Parent[16];
+		int[] remaining = new int[16];
+		int depth = 0;
+		parents[0] = top;
+		remaining[0] = in.readInt();
+		while (depth >= 0) {
+			if (remaining[depth] <= 0) {
+				parents[depth--] = null;
+				continue;
+			}
+			remaining[depth]--;
+			final boolean element = in.readBoolean();
+			final Content content;
+			final boolean header;
+			CURRENT.set(element ? this : null);
+			try {
+				content = (Content)in.readObject();
+				header = element && CURRENT.get() != this;
+			} finally {
+				CURRENT.remove();
+			}
+			parents[depth].addContent(content);
+			if (!header) {
+				continue;
+			}
+			if (++depth == parents.length) {
+				parents = ArrayCopy.copyOf(parents, depth * 2);
+				remaining = ArrayCopy.copyOf(remaining, depth * 2);
+			}
+			parents[depth] = (Element)content;
+			remaining[depth] = in.readInt();
+		}
+	}
+
+}
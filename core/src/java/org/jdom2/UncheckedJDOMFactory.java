@@ -318,6 +318,31 @@ public class UncheckedJDOMFactory extends DefaultJDOMFactory {
 		}
 	}
 
+	/**
+	 * Append a number of children to a parent in one operation, without any
+	 * checks. The parent's content storage is sized once for all the new
+	 * children. Builders use this (instead of adding the children one at a
+	 * time) when they build with an UncheckedJDOMFactory.
+	 * 
+	 * @param parent
+	 *        The parent to add the children to.
+	 * @param children
+	 *        The array containing the children.
+	 * @param offset
+	 *        The position of the first child to add in the array.
+	 * @param length
+	 *        The number of children to add.
+	 * @since JDOM 2.1.0
+	 */
+	public void addContent(Parent parent, Content[] children, int offset, int length) {
+		if (parent instanceof Element) {
+			((Element) parent).content.uncheckedAddContent(children, offset, length);
+		}
+		else {
+			((Document) parent).content.uncheckedAddContent(children, offset, length);
+		}
+	}
+
 	@Override
 	public void setAttribute(Element parent, Attribute a) {
 		parent.getAttributeList().uncheckedAddAttribute(a);
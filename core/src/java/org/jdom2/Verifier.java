@@ -54,6 +54,8 @@
 
 package org.jdom2;
 
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
 import java.util.*;
 
 /**
@@ -346,6 +348,53 @@ final public class Verifier {
 	private static final byte MASKURICHAR       = 1 << 6;
 	/** Mask used to test for {@link #isXMLLetterOrDigit(char)} */
 	private static final byte MASKXMLLETTERORDIGIT = MASKXMLLETTER | MASKXMLDIGIT;
+
+	/** The number of slots in the verified-name cache (a power of 2). */
+	private static final int NAMECACHESIZE = 1024;
+
+	/** Longer names are not kept in the verified-name cache. */
+	private static final int NAMECACHEMAXLEN = 64;
+
+	/**
+	 * A bounded cache of names that have already been proven to be legal
+	 * JDOM names. Applications typically create many Elements and Attributes
+	 * with the same few names, and a name that is in the cache is accepted
+	 * with a hash lookup (and usually an identity comparison) instead of
+	 * checking each character.
+	 * <p>
+	 * The cache is direct-mapped: each name has one possible slot, and a new
+	 * name simply replaces whatever was in its slot before. It is shared by
+	 * all threads without locking; this is safe because String instances are
+	 * immutable (and safely published even through a data race), so a thread
+	 * sees either a previously verified name, or some other (or no) name,
+	 * and in the worst case simply checks the characters again.
+	 */
+	private static final String[] NAMECACHE = new String[NAMECACHESIZE];
+
+	/** Shorter text is always checked a character at a time. */
+	private static final int TEXTBLOCKMIN = 64;
+
+	/** The number of characters checked at a time in large text. */
+	private static final int TEXTBLOCKSIZE = 2048;
+
+	/** Only text at least this long is kept in the verified-text cache. */
+	private static final int TEXTCACHEMINLEN = 1024;
+
+	/** The number of slots in the verified-text cache (a power of 2). */
+	private static final int TEXTCACHESIZE = 64;
+
+	/**
+	 * A small cache of large String instances that have recently been
+	 * verified as character data. It is common to set the same (large) text
+	 * value more than once, for example when copying the text of one Element
+	 * (which was verified when it was set, or parsed) to another, and an
+	 * instance that is still in the cache is not checked again. Entries are
+	 * matched by identity, and are weak references, so the cache never keeps
+	 * large text in memory. Like the name cache, it is shared between
+	 * threads without locking: a racing thread may miss an entry, and then
+	 * simply checks the characters.
+	 */
+	private static final Object[] TEXTCACHE = new Object[TEXTCACHESIZE];
 	
 	/**
 	 * Ensure instantation cannot occur.
@@ -364,6 +413,14 @@ final public class Verifier {
 			return "XML names cannot be empty";
 		}
 
+		final int hash = name.hashCode();
+		final int slot = ((hash >>> 16) ^ hash) & (NAMECACHESIZE - 1);
+		final String known = NAMECACHE[slot];
+		if (known == name || (known != null && known.equals(name))) {
+			// already verified.
+			return null;
+		}
+
 		// Cannot start with a number
 		if ((byte)0 == (CHARFLAGS[name.charAt(0)] & MASKXMLSTARTCHAR)) {
 			return "XML name '" + name + "' cannot begin with the character \"" + 
@@ -379,6 +436,9 @@ final public class Verifier {
 		}
 
 		// If we got here, everything is OK
+		if (name.length() <= NAMECACHEMAXLEN) {
+			NAMECACHE[slot] = name;
+		}
 		return null;
 	}
 
@@ -436,7 +496,70 @@ final public class Verifier {
 		}
 		
 		final int len = text.length();
-		for (int i = 0; i < len; i++) {
+		if (len < TEXTBLOCKMIN) {
+			return checkCharacterData(text, 0, len);
+		}
+		
+		final int slot = len >= TEXTCACHEMINLEN
+				? System.identityHashCode(text) & (TEXTCACHESIZE - 1) : -1;
+		if (slot >= 0) {
+			final Object known = TEXTCACHE[slot];
+			if (known != null && ((Reference<?>)known).get() == text) {
+				// this very instance was verified already.
+				return null;
+			}
+		}
+		
+		// Check the text in blocks. Tab, newline, carriage-return, and all
+		// chars from 0x20 to 0xD7FF are legal XML characters, and that covers
+		// almost all real text. For each block we just accumulate whether any
+		// char is outside that set (a loop with no branches, which is fast,
+		// and which the JIT can vectorize), and only when there is such a
+		// char do we need a closer look at each char.
+		final char[] block = new char[Math.min(len, TEXTBLOCKSIZE)];
+		int i = 0;
+		while (i < len) {
+			final int cnt = Math.min(block.length, len - i);
+			text.getChars(i, i + cnt, block, 0);
+			int outside = 0;
+			for (int b = 0; b < cnt; b++) {
+				final int c = block[b];
+				// negative if the char is above 0xD7FF, or below 0x20 and
+				// not one of the whitespace chars 0x09, 0x0A or 0x0D (the
+				// bits in 0x2600).
+				outside |= (((c - 0x20) >> 31) & (((0x2600 >>> c) & 1) - 1))
+						| (0xD7FF - c);
+			}
+			if (outside < 0) {
+				// something needs a closer look, from the start of this
+				// block (the previous blocks had no surrogates, so there is
+				// no pair that straddles the blocks).
+				final String reason = checkCharacterData(text, i, len);
+				if (reason != null) {
+					return reason;
+				}
+				break;
+			}
+			i += cnt;
+		}
+		
+		if (slot >= 0) {
+			TEXTCACHE[slot] = new WeakReference<String>(text);
+		}
+		return null;
+	}
+
+	/**
+	 * Check the characters of some text, one character at a time.
+	 * @param text the text to check
+	 * @param from the first character to check
+	 * @param len the length of the text
+	 * @return <code>String</code> reason name is illegal, or
+	 *         <code>null</code> if name is OK.
+	 */
+	private static String checkCharacterData(final String text, final int from,
+			final int len) {
+		for (int i = from; i < len; i++) {
 			// we are expecting a normal char, but may be a surrogate.
 			// the isXMLCharacter method takes an int argument, but we have a char.
 			// we save a lot of time by doing the test directly here without
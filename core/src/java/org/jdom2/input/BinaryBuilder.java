@@ -0,0 +1,517 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.jdom2.Attribute;
+import org.jdom2.AttributeType;
+import org.jdom2.Content;
+import org.jdom2.DocType;
+import org.jdom2.DefaultJDOMFactory;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.JDOMFactory;
+import org.jdom2.Namespace;
+import org.jdom2.Parent;
+import org.jdom2.UncheckedJDOMFactory;
+import org.jdom2.internal.ArrayCopy;
+import org.jdom2.internal.BinaryFormat;
+import org.jdom2.internal.ContentStack;
+import org.jdom2.output.BinaryOutputter;
+
+/**
+ * Builds a JDOM Document or Element from the compact binary format written by
+ * {@link BinaryOutputter}. Compressed streams are detected and decompressed
+ * automatically.
+ * <p>
+ * The content is created with the {@link JDOMFactory} set on the builder.
+ * When the stream comes from a trusted source, an {@link UncheckedJDOMFactory}
+ * makes the build faster still: the values are not verified, and the
+ * children of each Element are added to it in bulk.
+ * <p>
+ * The content is read without recursion, so deeply nested content can be
+ * built. Note that the stream is read in blocks, so the builder may read
+ * beyond the end of the binary content in the stream.
+ * <p>
+ * BinaryBuilder instances are not thread-safe (the factory can be changed),
+ * but concurrent builds with the same configuration are fine.
+ * 
+ * @since JDOM 2.1.0
+ */
+public class BinaryBuilder {
+
+	private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+
+	private JDOMFactory factory = new DefaultJDOMFactory();
+
+	/**
+	 * Create a BinaryBuilder that uses a {@link DefaultJDOMFactory}.
+	 */
+	public BinaryBuilder() {
+		// default factory.
+	}
+
+	/**
+	 * Returns the current {@link org.jdom2.JDOMFactory} in use.
+	 * 
+	 * @return the factory in use
+	 */
+	public JDOMFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * This sets a custom JDOMFactory for the builder. Use this to build the
+	 * tree with your own subclasses of the JDOM classes.
+	 * 
+	 * @param factory
+	 *        <code>JDOMFactory</code> to use
+	 */
+	public void setFactory(final JDOMFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Build a Document from a stream written by
+	 * {@link BinaryOutputter#output(Document, java.io.OutputStream)}. The
+	 * stream is not closed.
+	 * 
+	 * @param in
+	 *        the InputStream to read from.
+	 * @return the Document.
+	 * @throws JDOMException
+	 *         if the stream does not contain a binary Document.
+	 * @throws IOException
+	 *         if there is a problem reading the stream.
+	 */
+	public Document build(final InputStream in) throws JDOMException,
+			IOException {
+		final Decoder dec = new Decoder(in);
+		try {
+			final int tag = dec.readByte();
+			if (tag != BinaryFormat.DOCUMENT) {
+				throw new JDOMException("Expected a binary Document but got tag "
+						+ tag);
+			}
+			final Document doc = factory.document(null);
+			doc.setBaseURI(dec.readString());
+			readContent(dec, doc);
+			return doc;
+		} catch (IllegalArgumentException e) {
+			throw new JDOMException("Illegal content in binary stream: "
+					+ e.getMessage(), e);
+		} finally {
+			dec.end();
+		}
+	}
+
+	/**
+	 * Build a Document from binary content written by
+	 * {@link BinaryOutputter#outputBytes(Document)}.
+	 * 
+	 * @param data
+	 *        the binary content.
+	 * @return the Document.
+	 * @throws JDOMException
+	 *         if the data is not a complete binary Document.
+	 */
+	public Document build(final byte[] data) throws JDOMException {
+		try {
+			return build(new ByteArrayInputStream(data));
+		} catch (IOException e) {
+			throw new JDOMException("Incomplete binary content", e);
+		}
+	}
+
+	/**
+	 * Build an Element from a stream written by
+	 * {@link BinaryOutputter#output(Element, java.io.OutputStream)}. The
+	 * stream is not closed.
+	 * 
+	 * @param in
+	 *        the InputStream to read from.
+	 * @return the Element (without a parent).
+	 * @throws JDOMException
+	 *         if the stream does not contain a binary Element.
+	 * @throws IOException
+	 *         if there is a problem reading the stream.
+	 */
+	public Element buildElement(final InputStream in) throws JDOMException,
+			IOException {
+		final Decoder dec = new Decoder(in);
+		try {
+			final int tag = dec.readByte();
+			if (tag != BinaryFormat.ELEMENT) {
+				throw new JDOMException("Expected a binary Element but got tag "
+						+ tag);
+			}
+			final Element emt = dec.readElement(factory);
+			readContent(dec, emt);
+			return emt;
+		} catch (IllegalArgumentException e) {
+			throw new JDOMException("Illegal content in binary stream: "
+					+ e.getMessage(), e);
+		} finally {
+			dec.end();
+		}
+	}
+
+	/**
+	 * Build an Element from binary content written by
+	 * {@link BinaryOutputter#outputBytes(Element)}.
+	 * 
+	 * @param data
+	 *        the binary content.
+	 * @return the Element (without a parent).
+	 * @throws JDOMException
+	 *         if the data is not a complete binary Element.
+	 */
+	public Element buildElement(final byte[] data) throws JDOMException {
+		try {
+			return buildElement(new ByteArrayInputStream(data));
+		} catch (IOException e) {
+			throw new JDOMException("Incomplete binary content", e);
+		}
+	}
+
+	/**
+	 * Read the content of the Parent, using an explicit stack of the Parents
+	 * being built instead of recursion.
+	 */
+	private void readContent(final Decoder dec, final Parent top)
+			throws JDOMException, IOException {
+		final JDOMFactory fac = factory;
+		final ContentStack bulk = fac instanceof UncheckedJDOMFactory
+				? new ContentStack((UncheckedJDOMFactory)fac) : null;
+		Parent[] parents = new Parent[16];
+		int[] remaining = new int[16];
+		int depth = 0;
+		parents[0] = top;
+		remaining[0] = dec.readVarint();
+		if (bulk != null) {
+			bulk.push(top);
+		}
+		while (depth >= 0) {
+			if (remaining[depth] == 0) {
+				if (bulk != null) {
+					bulk.pop();
+				}
+				parents[depth--] = null;
+				continue;
+			}
+			remaining[depth]--;
+			final int tag = dec.readByte();
+			if (tag == BinaryFormat.ELEMENT) {
+				final Element emt = dec.readElement(fac);
+				if (bulk != null) {
+					bulk.add(emt);
+					bulk.push(emt);
+				} else {
+					fac.addContent(parents[depth], emt);
+				}
+				if (++depth == parents.length) {
+					parents = ArrayCopy.copyOf(parents, depth * 2);
+					remaining = ArrayCopy.copyOf(remaining, depth * 2);
+				}
+				parents[depth] = emt;
+				remaining[depth] = dec.readVarint();
+			} else {
+				final Content content = dec.readContent(fac, tag);
+				if (bulk != null) {
+					bulk.add(content);
+				} else {
+					fac.addContent(parents[depth], content);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Buffers the stream, and keeps the symbol and namespace tables.
+	 */
+	private static final class Decoder {
+		private final Inflater inflater;
+		private final InputStream source;
+		private final byte[] buf = new byte[8192];
+		private int pos = 0;
+		private int limit = 0;
+		private char[] chars = new char[256];
+		private String[] symbols = new String[64];
+		private int symbolcount = 0;
+		private Namespace[] namespaces = new Namespace[16];
+		private int namespacecount = 0;
+
+		Decoder(final InputStream in) throws JDOMException, IOException {
+			// read the header unbuffered, it decides what the source is.
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				magic = (magic << 8) | readRaw(in);
+			}
+			if (magic != BinaryFormat.MAGIC) {
+				throw new JDOMException("Not a JDOM binary stream");
+			}
+			final int version = readRaw(in);
+			if (version != BinaryFormat.VERSION) {
+				throw new JDOMException("Unsupported JDOM binary version " + version);
+			}
+			final int flags = readRaw(in);
+			if ((flags & ~BinaryFormat.FLAG_DEFLATE) != 0) {
+				throw new JDOMException("Unsupported JDOM binary flags " + flags);
+			}
+			if ((flags & BinaryFormat.FLAG_DEFLATE) != 0) {
+				inflater = new Inflater();
+				source = new InflaterInputStream(in, inflater, 8192);
+			} else {
+				inflater = null;
+				source = in;
+			}
+		}
+
+		private static int readRaw(final InputStream in) throws IOException {
+			final int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of JDOM binary stream");
+			}
+			return b;
+		}
+
+		void end() {
+			if (inflater != null) {
+				inflater.end();
+			}
+		}
+
+		private void fill() throws IOException {
+			int got = source.read(buf, 0, buf.length);
+			while (got == 0) {
+				got = source.read(buf, 0, buf.length);
+			}
+			if (got < 0) {
+				throw new EOFException("Unexpected end of JDOM binary stream");
+			}
+			pos = 0;
+			limit = got;
+		}
+
+		int readByte() throws IOException {
+			if (pos == limit) {
+				fill();
+			}
+			return buf[pos++] & 0xFF;
+		}
+
+		int readVarint() throws JDOMException, IOException {
+			int val = 0;
+			int shift = 0;
+			int b;
+			do {
+				if (shift > 28) {
+					throw new JDOMException("Malformed varint in JDOM binary stream");
+				}
+				b = readByte();
+				val |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return val;
+		}
+
+		String readString() throws JDOMException, IOException {
+			final int len = readVarint() - 1;
+			if (len < 0) {
+				if (len == -1) {
+					return null;
+				}
+				throw new JDOMException("Illegal string length in JDOM binary stream");
+			}
+			// the length is not trusted: the chars grow as they are read, so
+			// a corrupt length fails at the end of the stream, not in memory.
+			if (len > chars.length) {
+				chars = new char[Math.min(len, Math.max(buf.length, chars.length * 2))];
+			}
+			char[] cs = chars;
+			for (int i = 0; i < len; i++) {
+				if (i == cs.length) {
+					chars = ArrayCopy.copyOf(cs, (int)Math.min(len, cs.length * 2L));
+					cs = chars;
+				}
+				final int b = pos < limit ? buf[pos++] & 0xFF : readByte();
+				if (b < 0x80) {
+					cs[i] = (char)b;
+				} else if ((b & 0xE0) == 0xC0) {
+					cs[i] = (char)(((b & 0x1F) << 6) | (readByte() & 0x3F));
+				} else if ((b & 0xF0) == 0xE0) {
+					final int b2 = readByte();
+					cs[i] = (char)(((b & 0x0F) << 12) | ((b2 & 0x3F) << 6)
+							| (readByte() & 0x3F));
+				} else {
+					throw new JDOMException("Malformed char in JDOM binary stream");
+				}
+			}
+			return new String(cs, 0, len);
+		}
+
+		String readSymbol() throws JDOMException, IOException {
+			final int index = readVarint();
+			if (index == 0) {
+				final String symbol = readString();
+				if (symbol == null) {
+					throw new JDOMException("Null symbol in JDOM binary stream");
+				}
+				if (symbolcount == symbols.length) {
+					symbols = ArrayCopy.copyOf(symbols, symbolcount * 2);
+				}
+				symbols[symbolcount++] = symbol;
+				return symbol;
+			}
+			if (index > symbolcount) {
+				throw new JDOMException("Undefined symbol " + index
+						+ " in JDOM binary stream");
+			}
+			return symbols[index - 1];
+		}
+
+		Namespace readNamespace() throws JDOMException, IOException {
+			final int index = readVarint();
+			if (index == 0) {
+				final String prefix = readSymbol();
+				final Namespace ns = Namespace.getNamespace(prefix, readSymbol());
+				if (namespacecount == namespaces.length) {
+					namespaces = ArrayCopy.copyOf(namespaces, namespacecount * 2);
+				}
+				namespaces[namespacecount++] = ns;
+				return ns;
+			}
+			if (index > namespacecount) {
+				throw new JDOMException("Undefined namespace " + index
+						+ " in JDOM binary stream");
+			}
+			return namespaces[index - 1];
+		}
+
+		/**
+		 * Read everything but the content of an Element (the tag is already
+		 * read).
+		 */
+		Element readElement(final JDOMFactory factory)
+				throws JDOMException, IOException {
+			final String name = readSymbol();
+			final Element emt = factory.element(name, readNamespace());
+			for (int i = readVarint(); i > 0; i--) {
+				factory.addNamespaceDeclaration(emt, readNamespace());
+			}
+			for (int i = readVarint(); i > 0; i--) {
+				final String aname = readSymbol();
+				final Namespace ans = readNamespace();
+				final int type = readByte();
+				if (type >= ATTRIBUTE_TYPES.length) {
+					throw new JDOMException("Undefined attribute type " + type
+							+ " in JDOM binary stream");
+				}
+				final int flags = readByte();
+				final Attribute att = factory.attribute(aname, readString(),
+						ATTRIBUTE_TYPES[type], ans);
+				if ((flags & BinaryFormat.ATTRIBUTE_DEFAULTED) != 0) {
+					att.setSpecified(false);
+				}
+				factory.setAttribute(emt, att);
+			}
+			return emt;
+		}
+
+		/**
+		 * Read any Content other than an Element (the tag is already read).
+		 */
+		Content readContent(final JDOMFactory factory, final int tag)
+				throws JDOMException, IOException {
+			switch (tag) {
+				case BinaryFormat.TEXT:
+					return factory.text(readString());
+				case BinaryFormat.CDATA:
+					return factory.cdata(readString());
+				case BinaryFormat.COMMENT:
+					return factory.comment(readString());
+				case BinaryFormat.PROCESSING_INSTRUCTION: {
+					final String target = readSymbol();
+					return factory.processingInstruction(target, readString());
+				}
+				case BinaryFormat.ENTITY_REF: {
+					final String name = readSymbol();
+					final String pubid = readString();
+					return factory.entityRef(name, pubid, readString());
+				}
+				case BinaryFormat.DOCTYPE: {
+					final String ename = readSymbol();
+					final String pubid = readString();
+					final String sysid = readString();
+					final String subset = readString();
+					final DocType dt = factory.docType(ename, pubid, sysid);
+					dt.setInternalSubset(subset);
+					return dt;
+				}
+				default:
+					throw new JDOMException("Unexpected tag " + tag
+							+ " in JDOM binary stream");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,332 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import org.jdom2.DefaultJDOMFactory;
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.JDOMFactory;
+import org.jdom2.UncheckedJDOMFactory;
+
+/**
+ * Builds a JDOM Document from XML held in memory, deferring the creation of
+ * each Element's content until that content is first accessed.
+ * <p>
+ * The build process checks that the whole document is well-formed, and
+ * records the location of each Element in the XML, but only the prolog,
+ * the root Element (with its Attributes and Namespace declarations), and the
+ * epilog are built. When the content of an Element is first accessed (or
+ * modified) the immediate children of that Element are built, and each child
+ * Element in turn defers its own content. Applications that only visit a
+ * small part of a large document can save most of the time and memory
+ * normally spent on building the rest of it.
+ * <p>
+ * The XML characters are retained until every Element has been built, or
+ * the Document is no longer referenced.
+ * <p>
+ * Unlike {@link SAXBuilder} the DeferredBuilder is not a validating parser:
+ * <ul>
+ * <li>External DTDs and external entities are not loaded. References to
+ * entities that are not declared in the internal DTD subset become
+ * {@link org.jdom2.EntityRef} content if there is a DocType.
+ * <li>Simple text entities declared in the internal DTD subset are expanded,
+ * but entities that contain markup are kept as EntityRef content.
+ * <li>All Attributes have the type
+ * {@link org.jdom2.AttributeType#CDATA CDATA}, and there are no defaulted
+ * Attributes.
+ * <li>The characters, and the markup, are checked during the build call,
+ * but names are verified (unless the factory is an
+ * {@link UncheckedJDOMFactory}) when they are built. An illegal name deep in
+ * the document is reported as an unchecked exception from the method that
+ * accesses the Element's content.
+ * <li>Elements are always built as an internal subclass of Element, so the
+ * factory's <code>element(...)</code> methods are never called. All other
+ * content, and all Attributes, are created and added through the factory.
+ * </ul>
+ * <p>
+ * Documents built by a DeferredBuilder behave exactly like any other JDOM
+ * Document, and, like any other JDOM Document, they are not thread-safe.
+ * <p>
+ * DeferredBuilder instances are reusable, but not thread-safe.
+ * 
+ * @since JDOM 2.1.0
+ */
+public class DeferredBuilder {
+
+	/** The factory for creating new JDOM objects */
+	private JDOMFactory factory = new DefaultJDOMFactory();
+
+	/**
+	 * This creates a new DeferredBuilder instance using the DefaultJDOMFactory
+	 * to build the JDOM content.
+	 */
+	public DeferredBuilder() {
+	}
+
+	/**
+	 * This sets a custom JDOMFactory for the builder.  Use this to build
+	 * the non-Element content with your own subclasses of the JDOM classes.
+	 * Elements are always built as an internal subclass of Element, and the
+	 * factory's <code>element(...)</code> methods are ignored, but all
+	 * Element content is added through the factory.
+	 *
+	 * @param factory <code>JDOMFactory</code> to use
+	 */
+	public void setFactory(JDOMFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Returns the current {@link org.jdom2.JDOMFactory} in use.
+	 * @return the factory in use
+	 */
+	public JDOMFactory getFactory() {
+		return factory;
+	}
+
+	/**
+	 * Build a Document from the XML in the specified characters. The
+	 * characters are used directly (not copied), and must not be changed
+	 * while the Document is in use.
+	 * 
+	 * @param xml The characters of the XML document.
+	 * @return The built Document.
+	 * @throws JDOMException if the XML is not well-formed.
+	 */
+	public Document build(final char[] xml) throws JDOMException {
+		return build(xml, 0, xml.length);
+	}
+
+	/**
+	 * Build a Document from the XML in a range of the specified characters.
+	 * The characters are used directly (not copied), and must not be changed
+	 * while the Document is in use.
+	 * 
+	 * @param xml The characters containing the XML document.
+	 * @param offset The first character of the XML document.
+	 * @param length The number of characters in the XML document.
+	 * @return The built Document.
+	 * @throws JDOMException if the XML is not well-formed.
+	 */
+	public Document build(final char[] xml, final int offset, final int length)
+			throws JDOMException {
+		return build(xml, offset, length, null);
+	}
+
+	/**
+	 * Build a Document from the XML read from the specified Reader. The Reader
+	 * is read to the end, but is not closed.
+	 * 
+	 * @param reader The source of the XML document.
+	 * @return The built Document.
+	 * @throws JDOMException if the XML is not well-formed.
+	 * @throws IOException if the Reader fails.
+	 */
+	public Document build(final Reader reader) throws JDOMException, IOException {
+		final CharArrayWriter caw = new CharArrayWriter();
+		final char[] chunk = new char[8192];
+		int len = 0;
+		while ((len = reader.read(chunk)) >= 0) {
+			caw.write(chunk, 0, len);
+		}
+		return build(caw.toCharArray());
+	}
+
+	/**
+	 * Build a Document from the XML read from the specified InputStream. The
+	 * InputStream is read to the end, but is not closed. The character
+	 * encoding is determined from the Byte-Order-Mark, or the XML declaration,
+	 * and is UTF-8 otherwise.
+	 * 
+	 * @param in The source of the XML document.
+	 * @return The built Document.
+	 * @throws JDOMException if the XML is not well-formed.
+	 * @throws IOException if the InputStream fails.
+	 */
+	public Document build(final InputStream in) throws JDOMException, IOException {
+		return build(in, null);
+	}
+
+	/**
+	 * Build a Document from the XML in the specified File. The character
+	 * encoding is determined from the Byte-Order-Mark, or the XML declaration,
+	 * and is UTF-8 otherwise. The Document's BaseURI is set to the File's URI.
+	 * 
+	 * @param file The source of the XML document.
+	 * @return The built Document.
+	 * @throws JDOMException if the XML is not well-formed.
+	 * @throws IOException if the File cannot be read.
+	 */
+	public Document build(final File file) throws JDOMException, IOException {
+		final FileInputStream fis = new FileInputStream(file);
+		try {
+			return build(fis, file.toURI().toString());
+		} finally {
+			fis.close();
+		}
+	}
+
+	private Document build(final InputStream in, final String systemID)
+			throws JDOMException, IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte[] chunk = new byte[8192];
+		int len = 0;
+		while ((len = in.read(chunk)) >= 0) {
+			baos.write(chunk, 0, len);
+		}
+		final byte[] bytes = baos.toByteArray();
+		final String encoding = encoding(bytes);
+		final Charset charset;
+		try {
+			charset = Charset.forName(encoding);
+		} catch (IllegalArgumentException e) {
+			throw new JDOMException("Unsupported character encoding '" + 
+					encoding + "' in the XML document" + 
+					(systemID == null ? "" : " " + systemID), e);
+		}
+		final CharsetDecoder decoder = charset.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		final CharBuffer chars;
+		try {
+			chars = decoder.decode(ByteBuffer.wrap(bytes));
+		} catch (CharacterCodingException e) {
+			throw new JDOMException("Unable to decode the XML document" + 
+					(systemID == null ? "" : " " + systemID) + ": " + 
+					e.getMessage(), e);
+		}
+		return build(chars.array(), chars.arrayOffset() + chars.position(), 
+				chars.remaining(), systemID);
+	}
+
+	private Document build(final char[] xml, final int offset, final int length,
+			final String systemID) throws JDOMException {
+		final DeferredSource source = new DeferredSource(xml, offset, length,
+				factory, !(factory instanceof UncheckedJDOMFactory), systemID);
+		try {
+			return source.build();
+		} catch (IllegalArgumentException e) {
+			// IllegalNameException, IllegalDataException, etc.
+			throw new JDOMParseException(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Determine the character encoding of an XML document.
+	 * @param bytes The bytes of the document
+	 * @return The name of the character encoding
+	 */
+	static String encoding(final byte[] bytes) {
+		if (bytes.length >= 2) {
+			final int b0 = bytes[0] & 0xFF;
+			final int b1 = bytes[1] & 0xFF;
+			if (b0 == 0xFE && b1 == 0xFF) {
+				return "UTF-16";
+			}
+			if (b0 == 0xFF && b1 == 0xFE) {
+				return "UTF-16";
+			}
+			if (b0 == 0x00 && b1 == '<') {
+				return "UTF-16BE";
+			}
+			if (b0 == '<' && b1 == 0x00) {
+				return "UTF-16LE";
+			}
+		}
+		if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && 
+				(bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+			return "UTF-8";
+		}
+		// look for an encoding in the (ASCII-compatible) XML declaration.
+		if (bytes.length > 5 && bytes[0] == '<' && bytes[1] == '?' && 
+				bytes[2] == 'x' && bytes[3] == 'm' && bytes[4] == 'l') {
+			int p = 5;
+			final StringBuilder decl = new StringBuilder();
+			while (p < bytes.length && bytes[p] != '>') {
+				decl.append((char)(bytes[p++] & 0xFF));
+			}
+			final int e = decl.indexOf("encoding");
+			if (e >= 0) {
+				int q = decl.indexOf("\"", e);
+				final int a = decl.indexOf("'", e);
+				if (q < 0 || (a >= 0 && a < q)) {
+					q = a;
+				}
+				if (q >= 0) {
+					final int qe = decl.indexOf(String.valueOf(decl.charAt(q)), q + 1);
+					if (qe > q) {
+						return decl.substring(q + 1, qe).trim();
+					}
+				}
+			}
+		}
+		return "UTF-8";
+	}
+
+}
@@ -0,0 +1,150 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+/**
+ * An Element created by the {@link DeferredBuilder}. The Element's name,
+ * Namespace, declarations, and Attributes are built when the Element is
+ * created, but the child content is only built from the source the first
+ * time it is accessed.
+ * <p>
+ * Once the content has been built this behaves exactly like a regular
+ * Element. Clones, and Elements that have been serialized and de-serialized,
+ * are regular (fully built) Elements.
+ * 
+ * @see DeferredBuilder
+ */
+final class DeferredElement extends Element {
+
+	/**
+	 * Standard JDOM2 Serialization. The deferred state is transient, and
+	 * the content is always built before serializing.
+	 */
+	private static final long serialVersionUID = 200L;
+
+	/** Where the content comes from, null once it has been built */
+	private transient DeferredSource source = null;
+	/** The location of this Element in the source index */
+	private transient int index = -1;
+	/**
+	 * The Element this Element was created inside of. Namespace prefixes
+	 * used in the content are resolved in this scope, even if this Element
+	 * has since been detached.
+	 */
+	private transient DeferredElement scope = null;
+
+	/**
+	 * Create a DeferredElement.
+	 * @param name The local name of the Element
+	 * @param namespace The Element's Namespace
+	 * @param verify Whether the name and Namespace should be checked.
+	 * @param scope The Element this Element is created inside of (null for
+	 *        the root Element).
+	 */
+	DeferredElement(final String name, final Namespace namespace,
+			final boolean verify, final DeferredElement scope) {
+		super();
+		if (verify) {
+			setName(name);
+			setNamespace(namespace);
+		} else {
+			this.name = name;
+			this.namespace = namespace;
+		}
+		this.scope = scope;
+	}
+
+	/**
+	 * Indicate that this Element's content is to be built from the source
+	 * the first time it is accessed.
+	 * @param src The source containing the content.
+	 * @param idx The location of this Element in the source index.
+	 */
+	void defer(final DeferredSource src, final int idx) {
+		this.source = src;
+		this.index = idx;
+		deferContent();
+	}
+
+	/**
+	 * Get the Element this Element was created inside of.
+	 * @return the Element this Element was created inside of.
+	 */
+	DeferredElement getScope() {
+		return scope;
+	}
+
+	@Override
+	protected void loadDeferredContent() {
+		final DeferredSource src = source;
+		if (src != null) {
+			source = null;
+			src.materialize(this, index);
+		}
+	}
+
+	@Override
+	public DeferredElement clone() {
+		// Element.clone() copies (and thus builds) the content of this Element
+		final DeferredElement ret = (DeferredElement)super.clone();
+		ret.source = null;
+		ret.scope = null;
+		return ret;
+	}
+
+}
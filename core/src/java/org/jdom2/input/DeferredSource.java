@@ -0,0 +1,1322 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.xml.sax.SAXParseException;
+
+import org.jdom2.Attribute;
+import org.jdom2.AttributeType;
+import org.jdom2.DocType;
+import org.jdom2.Document;
+import org.jdom2.IllegalNameException;
+import org.jdom2.JDOMFactory;
+import org.jdom2.Namespace;
+import org.jdom2.Parent;
+import org.jdom2.Verifier;
+import org.jdom2.internal.ArrayCopy;
+
+/**
+ * The in-memory XML source of a document built by the {@link DeferredBuilder}.
+ * <p>
+ * Building is a two-stage process. The {@link #build()} stage scans the whole
+ * input once, checking that the markup is well-formed, and records the start
+ * offset of each Element's start-tag, and the offset of its end-tag, in two
+ * int arrays (the index). No JDOM content is created for the Elements, except
+ * for the root Element itself.
+ * <p>
+ * The {@link #materialize(DeferredElement, int)} stage builds the immediate
+ * child content of one Element, using the index to skip over the markup of
+ * the child Elements, which are in turn created with deferred content.
+ * <p>
+ * Elements are indexed in document order, so the index of an Element's
+ * start-tag offset can be found with a binary search.
+ * <p>
+ * The scan stage checks the markup, the characters, the entity references,
+ * the Namespace prefixes, and that no start tag repeats an Attribute, but
+ * the names are only checked by the JDOMFactory as that content is
+ * materialized.
+ * 
+ * @see DeferredBuilder
+ */
+final class DeferredSource {
+
+	private static final int INITIAL_INDEX_SIZE = 64;
+
+	/** The XML characters */
+	private final char[] buf;
+	/** The first character of the XML in buf */
+	private final int begin;
+	/** The offset after the last character of the XML in buf */
+	private final int end;
+	/** The factory to create the non-Element content with */
+	private final JDOMFactory factory;
+	/** Whether Element names should be verified */
+	private final boolean verify;
+	/** The SystemID of the source, for error messages (may be null) */
+	private final String systemID;
+
+	/** The offset of the '&lt;' of each Element's start tag */
+	private int[] starts = new int[INITIAL_INDEX_SIZE];
+	/** The offset of the '&lt;' of each Element's end tag, or -1 if empty */
+	private int[] closes = new int[INITIAL_INDEX_SIZE];
+	/** The number of Elements in the index */
+	private int count = 0;
+
+	/**
+	 * The general entities declared in the internal DTD subset. A null value
+	 * means the entity is declared, but is not simple text that can be
+	 * expanded, so it will be an EntityRef in the content.
+	 */
+	private HashMap<String, String> entities = null;
+	/** Whether there is a DocType (and thus maybe external entities) */
+	private boolean hasdoctype = false;
+
+	/** Scan-time stack of the declared namespace prefixes (offsets) */
+	private int[] nsoffset = new int[8];
+	/** Scan-time stack of the declared namespace prefixes (lengths) */
+	private int[] nslength = new int[8];
+	/** Scan-time stack of the declared namespace URIs (value start offsets) */
+	private int[] nsvstart = new int[8];
+	/** Scan-time stack of the declared namespace URIs (value end offsets) */
+	private int[] nsvend = new int[8];
+	/** Scan-time number of declared namespace prefixes */
+	private int nscount = 0;
+	/** Scan-time offsets of the Attribute names in the current start tag */
+	private int[] aoffset = new int[8];
+	/** Scan-time lengths of the Attribute names in the current start tag */
+	private int[] alength = new int[8];
+
+	/**
+	 * Create a source over the XML in the specified characters.
+	 * @param buf The characters containing the XML
+	 * @param offset The first character of the XML
+	 * @param length The number of characters in the XML
+	 * @param factory The factory for non-Element content
+	 * @param verify whether the Element names should be verified
+	 * @param systemID The SystemID of the XML (for error messages)
+	 */
+	DeferredSource(final char[] buf, final int offset, final int length,
+			final JDOMFactory factory, final boolean verify,
+			final String systemID) {
+		this.buf = buf;
+		this.begin = offset;
+		this.end = offset + length;
+		this.factory = factory;
+		this.verify = verify;
+		this.systemID = systemID;
+	}
+
+	/* * * * * * * * * * * * * Scan stage * * * * * * * * * * * * * * */
+
+	/**
+	 * Scan the XML, building the index, and create the Document with the
+	 * prolog and epilog content, and the root Element (with deferred content).
+	 * @return The built Document.
+	 * @throws JDOMParseException if the XML is not well-formed.
+	 */
+	Document build() throws JDOMParseException {
+		int p = begin;
+		if (p < end && buf[p] == '\uFEFF') {
+			// Byte-Order-Mark
+			p++;
+		}
+		if (startsWith(p, "<?xml") && p + 5 < end && isWhite(buf[p + 5])) {
+			// the XML declaration is not content.
+			p = find(p, "?>", "XML Declaration") + 2;
+		}
+		final Document doc = factory.document(null);
+		if (systemID != null) {
+			doc.setBaseURI(systemID);
+		}
+		boolean hasroot = false;
+		while (true) {
+			p = skipWhite(p);
+			if (p >= end) {
+				break;
+			}
+			if (buf[p] != '<') {
+				throw error("Content is not allowed in prolog or epilog", p);
+			}
+			if (startsWith(p, "<!--")) {
+				scanComment(p);
+				p = comment(doc, p);
+			} else if (startsWith(p, "<?")) {
+				scanProcessingInstruction(p);
+				p = processingInstruction(doc, p);
+			} else if (startsWith(p, "<!DOCTYPE")) {
+				if (hasroot || hasdoctype) {
+					throw error("The DOCTYPE must be before the root Element", p);
+				}
+				p = docType(doc, p);
+			} else if (!hasroot && p + 1 < end && isNameStart(buf[p + 1])) {
+				p = scanElements(p);
+				factory.setRoot(doc, createElement(0, null));
+				hasroot = true;
+			} else {
+				throw error("Markup is not allowed in prolog or epilog", p);
+			}
+		}
+		if (!hasroot) {
+			throw error("Premature end of file, there is no root Element", end);
+		}
+		// we are done with the scan-stage data.
+		nsoffset = null;
+		nslength = null;
+		nsvstart = null;
+		nsvend = null;
+		aoffset = null;
+		alength = null;
+		if (starts.length > count) {
+			starts = ArrayCopy.copyOf(starts, count);
+			closes = ArrayCopy.copyOf(closes, count);
+		}
+		return doc;
+	}
+
+	/**
+	 * Scan the root Element, and all its descendants, building the index.
+	 * This is not recursive, so deep documents do not overflow the stack.
+	 * @param start The offset of the root Element's start tag.
+	 * @return the offset after the root Element's end tag.
+	 * @throws JDOMParseException if the XML is not well-formed.
+	 */
+	private int scanElements(final int start) throws JDOMParseException {
+		// the index of each open Element
+		int[] open = new int[32];
+		// the nscount before each open Element's declarations
+		int[] nsmark = new int[32];
+		int depth = 0;
+		int p = start;
+		do {
+			final int c = p + 1 < end ? buf[p + 1] : -1;
+			if (c == '/') {
+				depth--;
+				p = endTag(p, open[depth]);
+				nscount = nsmark[depth];
+			} else if (c == '!') {
+				if (startsWith(p, "<!--")) {
+					p = scanComment(p);
+				} else if (startsWith(p, "<![CDATA[")) {
+					final int cend = find(p + 9, "]]>", "CDATA");
+					checkChars(p + 9, cend);
+					p = cend + 3;
+				} else {
+					throw error("Unexpected markup in content", p);
+				}
+			} else if (c == '?') {
+				p = scanProcessingInstruction(p);
+			} else if (c >= 0 && isNameStart((char)c)) {
+				if (depth == open.length) {
+					open = ArrayCopy.copyOf(open, depth * 2);
+					nsmark = ArrayCopy.copyOf(nsmark, depth * 2);
+				}
+				final int mark = nscount;
+				final int idx = count;
+				p = startTag(p);
+				if (closes[idx] != -1) {
+					// not an empty-element tag, it has an end tag.
+					open[depth] = idx;
+					nsmark[depth] = mark;
+					depth++;
+				} else {
+					nscount = mark;
+				}
+			} else {
+				throw error("Illegal markup", p);
+			}
+			if (depth > 0) {
+				p = scanText(p);
+				if (p >= end) {
+					throw error("Premature end of file in Element content", p);
+				}
+			}
+		} while (depth > 0);
+		return p;
+	}
+
+	/**
+	 * Scan a start tag, adding it to the index.
+	 * @param start The offset of the '&lt;'
+	 * @return The offset after the tag's '&gt;'
+	 * @throws JDOMParseException if the tag is not well-formed.
+	 */
+	private int startTag(final int start) throws JDOMParseException {
+		if (count == starts.length) {
+			starts = ArrayCopy.copyOf(starts, count * 2);
+			closes = ArrayCopy.copyOf(closes, count * 2);
+		}
+		final int idx = count++;
+		starts[idx] = start;
+		// assume it is an empty-element tag, the end-tag sets it otherwise.
+		closes[idx] = 0;
+
+		final int nstart = start + 1;
+		final int nend = scanName(nstart);
+		int p = nend;
+		// The prefixed attributes, checked after all declarations are known
+		int[] prefixed = null;
+		int pcnt = 0;
+		int acnt = 0;
+		while (true) {
+			final int ws = p;
+			p = skipWhite(p);
+			if (p >= end) {
+				throw error("Premature end of file in start tag", p);
+			}
+			final char c = buf[p];
+			if (c == '>') {
+				p++;
+				break;
+			}
+			if (c == '/') {
+				if (p + 1 >= end || buf[p + 1] != '>') {
+					throw error("Expected '/>' to end the empty-element tag", p);
+				}
+				closes[idx] = -1;
+				p += 2;
+				break;
+			}
+			if (p == ws) {
+				throw error("Whitespace is required between attributes", p);
+			}
+			final int astart = p;
+			p = scanName(p);
+			final int alen = p - astart;
+			for (int i = 0; i < acnt; i++) {
+				if (alength[i] == alen && sameChars(aoffset[i], astart, alen)) {
+					throw error("Attribute '" + new String(buf, astart, alen) +
+							"' was already specified for the Element", astart);
+				}
+			}
+			if (acnt == aoffset.length) {
+				aoffset = ArrayCopy.copyOf(aoffset, acnt * 2);
+				alength = ArrayCopy.copyOf(alength, acnt * 2);
+			}
+			aoffset[acnt] = astart;
+			alength[acnt++] = alen;
+			p = skipWhite(p);
+			if (p >= end || buf[p] != '=') {
+				throw error("Expected '=' after the attribute name", p);
+			}
+			p = skipWhite(p + 1);
+			if (p >= end || (buf[p] != '"' && buf[p] != '\'')) {
+				throw error("Expected a quoted attribute value", p);
+			}
+			final int vstart = p + 1;
+			p = scanAttributeValue(vstart, buf[p]);
+			final int vend = p++;
+			if (alen > 6 && startsWith(astart, "xmlns:")) {
+				pushPrefix(astart + 6, alen - 6, vstart, vend);
+			} else if (alen != 5 || !startsWith(astart, "xmlns")) {
+				final int colon = indexOfColon(astart, astart + alen);
+				if (colon >= 0) {
+					if (prefixed == null) {
+						prefixed = new int[8];
+					} else if (pcnt + 4 > prefixed.length) {
+						prefixed = ArrayCopy.copyOf(prefixed, pcnt * 2);
+					}
+					prefixed[pcnt++] = astart;
+					prefixed[pcnt++] = colon - astart;
+					prefixed[pcnt++] = alen;
+					// the declaration the prefix resolves to, set below.
+					prefixed[pcnt++] = -1;
+				}
+			}
+		}
+		final int colon = indexOfColon(nstart, nend);
+		if (colon >= 0) {
+			checkPrefix(nstart, colon - nstart);
+		}
+		for (int i = 0; i < pcnt; i += 4) {
+			prefixed[i + 3] = checkPrefix(prefixed[i], prefixed[i + 1]);
+			for (int j = 0; j < i; j += 4) {
+				if (sameExpandedName(prefixed, j, i)) {
+					throw error("Attribute '" + 
+							new String(buf, prefixed[i], prefixed[i + 2]) +
+							"' has the same namespace and local name as '" +
+							new String(buf, prefixed[j], prefixed[j + 2]) + "'",
+							prefixed[i]);
+				}
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Compare the expanded names of two prefixed Attributes in a start tag.
+	 * Their prefixes have already been resolved.
+	 * @param prefixed The offset, prefix length, name length, and declaration
+	 *        index of each prefixed Attribute.
+	 * @param a The position of the first Attribute in prefixed.
+	 * @param b The position of the second Attribute in prefixed.
+	 * @return true if the Attributes have the same local name and URI.
+	 */
+	private boolean sameExpandedName(final int[] prefixed, final int a, final int b) {
+		final int alocal = prefixed[a + 2] - prefixed[a + 1] - 1;
+		if (alocal != prefixed[b + 2] - prefixed[b + 1] - 1 ||
+				!sameChars(prefixed[a] + prefixed[a + 1] + 1, 
+						prefixed[b] + prefixed[b + 1] + 1, alocal)) {
+			return false;
+		}
+		final int adecl = prefixed[a + 3];
+		final int bdecl = prefixed[b + 3];
+		if (adecl == bdecl) {
+			return true;
+		}
+		if (adecl < 0 || bdecl < 0) {
+			// only the xml prefix is bound to the XML namespace.
+			return false;
+		}
+		return decode(nsvstart[adecl], nsvend[adecl], true).equals(
+				decode(nsvstart[bdecl], nsvend[bdecl], true));
+	}
+
+	/**
+	 * Scan an end tag, confirming it matches the open Element.
+	 * @param start The offset of the '&lt;/'
+	 * @param idx The index of the open Element
+	 * @return The offset after the tag's '&gt;'
+	 * @throws JDOMParseException if the tag does not match.
+	 */
+	private int endTag(final int start, final int idx) throws JDOMParseException {
+		final int nstart = start + 2;
+		final int nend = scanName(nstart);
+		final int ostart = starts[idx] + 1;
+		final int len = nend - nstart;
+		if (ostart + len > end || (ostart + len < end && isNameChar(buf[ostart + len]))) {
+			throw error("The end-tag does not match the start-tag", start);
+		}
+		for (int i = 0; i < len; i++) {
+			if (buf[nstart + i] != buf[ostart + i]) {
+				throw error("The end-tag does not match the start-tag", start);
+			}
+		}
+		final int p = skipWhite(nend);
+		if (p >= end || buf[p] != '>') {
+			throw error("Expected '>' to end the end-tag", p);
+		}
+		closes[idx] = start;
+		return p + 1;
+	}
+
+	/**
+	 * Scan character data in Element content.
+	 * @param start The first character
+	 * @return The offset of the next '&lt;' (or the end of the input)
+	 * @throws JDOMParseException if there is a bad entity reference.
+	 */
+	private int scanText(final int start) throws JDOMParseException {
+		int p = start;
+		while (p < end) {
+			final char c = buf[p];
+			if (c == '<') {
+				return p;
+			}
+			if (c == '&') {
+				p = scanReference(p, false);
+			} else {
+				if (c == '>' && p - 2 >= start && 
+						buf[p - 1] == ']' && buf[p - 2] == ']') {
+					throw error("The character sequence ']]>' must not " +
+							"appear in content", p - 2);
+				}
+				p = checkChar(p);
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Scan a Comment, checking the characters in it.
+	 * @param start The offset of the '&lt;!--'
+	 * @return The offset after the '--&gt;'
+	 * @throws JDOMParseException if the Comment is not legal.
+	 */
+	private int scanComment(final int start) throws JDOMParseException {
+		int p = start + 4;
+		while (p < end) {
+			if (buf[p] == '-' && p + 1 < end && buf[p + 1] == '-') {
+				if (p + 2 < end && buf[p + 2] == '>') {
+					return p + 3;
+				}
+				throw error("The string '--' is not permitted within comments", p);
+			}
+			p = checkChar(p);
+		}
+		throw error("Premature end of file in Comment", end);
+	}
+
+	/**
+	 * Scan a ProcessingInstruction, checking the target and the characters.
+	 * @param start The offset of the '&lt;?'
+	 * @return The offset after the '?&gt;'
+	 * @throws JDOMParseException if the ProcessingInstruction is not legal.
+	 */
+	private int scanProcessingInstruction(final int start)
+			throws JDOMParseException {
+		final int pend = find(start + 2, "?>", "Processing Instruction");
+		scanName(start + 2);
+		checkChars(start + 2, pend);
+		return pend + 2;
+	}
+
+	/**
+	 * Scan a quoted attribute value.
+	 * @param start The first character after the quote
+	 * @param quote The quote character
+	 * @return The offset of the closing quote.
+	 * @throws JDOMParseException if the value is not legal.
+	 */
+	private int scanAttributeValue(final int start, final char quote)
+			throws JDOMParseException {
+		int p = start;
+		while (p < end) {
+			final char c = buf[p];
+			if (c == quote) {
+				return p;
+			}
+			if (c == '<') {
+				throw error("The '<' character is not allowed in attribute values", p);
+			}
+			if (c == '&') {
+				p = scanReference(p, true);
+			} else {
+				p = checkChar(p);
+			}
+		}
+		throw error("Premature end of file in attribute value", p);
+	}
+
+	/**
+	 * Scan an entity or character reference.
+	 * @param start The offset of the '&amp;'
+	 * @param attribute true if the reference is in an attribute value.
+	 * @return The offset after the ';'
+	 * @throws JDOMParseException if the reference is not legal.
+	 */
+	private int scanReference(final int start, final boolean attribute)
+			throws JDOMParseException {
+		int p = start + 1;
+		if (p < end && buf[p] == '#') {
+			p++;
+			final boolean hex = p < end && buf[p] == 'x';
+			if (hex) {
+				p++;
+			}
+			final int dstart = p;
+			int cp = 0;
+			while (p < end && (hex ? Verifier.isHexDigit(buf[p])
+					: (buf[p] >= '0' && buf[p] <= '9'))) {
+				if (cp <= Character.MAX_CODE_POINT) {
+					cp = cp * (hex ? 16 : 10) + Character.digit(buf[p], hex ? 16 : 10);
+				}
+				p++;
+			}
+			if (p == dstart || p >= end || buf[p] != ';' ||
+					!Verifier.isXMLCharacter(cp)) {
+				throw error("Illegal character reference", start);
+			}
+			return p + 1;
+		}
+		final int nend = scanName(p);
+		if (nend >= end || buf[nend] != ';') {
+			throw error("The entity reference must end with ';'", start);
+		}
+		final String name = new String(buf, p, nend - p);
+		if (predefined(name) == null) {
+			if (entities != null && entities.containsKey(name)) {
+				if (attribute && entities.get(name) == null) {
+					throw error("The entity '" + name + 
+							"' is not supported in attribute values", start);
+				}
+			} else if (attribute || !hasdoctype) {
+				throw error("The entity '" + name + "' was not declared", start);
+			}
+		}
+		return nend + 1;
+	}
+
+	/**
+	 * Scan a DocType, including the internal subset (for entities)
+	 * @param doc The Document to add the DocType to
+	 * @param start The offset of the "&lt;!DOCTYPE"
+	 * @return The offset after the DocType
+	 * @throws JDOMParseException if the DocType is not legal.
+	 */
+	private int docType(final Document doc, final int start) throws JDOMParseException {
+		hasdoctype = true;
+		int p = skipWhite(start + 9);
+		final int nstart = p;
+		p = scanName(p);
+		final String name = new String(buf, nstart, p - nstart);
+		String publicID = null;
+		String systemID = null;
+		p = skipWhite(p);
+		if (startsWith(p, "PUBLIC")) {
+			p = skipWhite(p + 6);
+			final int q = quoted(p);
+			publicID = new String(buf, p + 1, q - p - 1);
+			p = skipWhite(q + 1);
+			final int s = quoted(p);
+			systemID = new String(buf, p + 1, s - p - 1);
+			p = skipWhite(s + 1);
+		} else if (startsWith(p, "SYSTEM")) {
+			p = skipWhite(p + 6);
+			final int s = quoted(p);
+			systemID = new String(buf, p + 1, s - p - 1);
+			p = skipWhite(s + 1);
+		}
+		String internal = null;
+		if (p < end && buf[p] == '[') {
+			final int istart = p + 1;
+			p = internalSubset(istart);
+			internal = new String(buf, istart, p - istart);
+			p = skipWhite(p + 1);
+		}
+		if (p >= end || buf[p] != '>') {
+			throw error("Expected '>' to end the DOCTYPE", p);
+		}
+		final DocType dt = factory.docType(name, publicID, systemID);
+		if (internal != null) {
+			dt.setInternalSubset(internal);
+		}
+		factory.addContent(doc, dt);
+		return p + 1;
+	}
+
+	/**
+	 * Find the end of the internal DTD subset, recording any general entity
+	 * declarations on the way.
+	 * @param start The first character in the subset.
+	 * @return The offset of the ']' that ends the subset.
+	 * @throws JDOMParseException if the subset is not terminated.
+	 */
+	private int internalSubset(final int start) throws JDOMParseException {
+		int p = start;
+		while (p < end) {
+			final char c = buf[p];
+			if (c == ']') {
+				return p;
+			}
+			if (c == '"' || c == '\'') {
+				p = quoted(p) + 1;
+			} else if (startsWith(p, "<!--")) {
+				p = find(p + 4, "-->", "Comment") + 3;
+			} else if (startsWith(p, "<!ENTITY")) {
+				p = entityDeclaration(p + 8);
+			} else {
+				p++;
+			}
+		}
+		throw error("Premature end of file in the DTD internal subset", p);
+	}
+
+	/**
+	 * Record a general entity declaration.
+	 * @param start The first character after "&lt;!ENTITY"
+	 * @return The offset to continue scanning the subset at.
+	 * @throws JDOMParseException if a quoted value is not terminated.
+	 */
+	private int entityDeclaration(final int start) throws JDOMParseException {
+		int p = skipWhite(start);
+		if (p < end && buf[p] == '%') {
+			// parameter entities are not interesting.
+			return p;
+		}
+		final int nstart = p;
+		p = scanName(p);
+		final String name = new String(buf, nstart, p - nstart);
+		p = skipWhite(p);
+		String value = null;
+		if (p < end && (buf[p] == '"' || buf[p] == '\'')) {
+			final int q = quoted(p);
+			value = new String(buf, p + 1, q - p - 1);
+			if (value.indexOf('<') >= 0 || value.indexOf('&') >= 0 ||
+					value.indexOf('%') >= 0) {
+				// not simple text, leave it as an EntityRef
+				value = null;
+			}
+			p = q + 1;
+		}
+		if (entities == null) {
+			entities = new HashMap<String, String>();
+		}
+		if (!entities.containsKey(name)) {
+			// the first declaration is binding.
+			entities.put(name, value);
+		}
+		return p;
+	}
+
+	/* * * * * * * * * * * * * Materialize stage * * * * * * * * * * * * * */
+
+	/**
+	 * Create the Element at the specified index, with its Namespace,
+	 * declarations and Attributes. The content will be deferred.
+	 * @param idx The index of the Element.
+	 * @param scope The Element this Element is created inside of.
+	 * @return The created Element.
+	 */
+	private DeferredElement createElement(final int idx,
+			final DeferredElement scope) {
+		final int nstart = starts[idx] + 1;
+		int p = scanNameQuietly(nstart);
+		final String qname = new String(buf, nstart, p - nstart);
+
+		// the attributes, and the offsets of their values.
+		String[] anames = null;
+		int[] avalues = null;
+		int acnt = 0;
+		Namespace[] decls = null;
+		int dcnt = 0;
+		while (true) {
+			p = skipWhite(p);
+			final char c = buf[p];
+			if (c == '>' || c == '/') {
+				p += c == '>' ? 1 : 2;
+				break;
+			}
+			final int astart = p;
+			p = scanNameQuietly(p);
+			final String aname = new String(buf, astart, p - astart);
+			p = skipWhite(p);
+			// the '='
+			p = skipWhite(p + 1);
+			final char quote = buf[p];
+			final int vstart = p + 1;
+			p = vstart;
+			while (buf[p] != quote) {
+				p++;
+			}
+			final int vend = p++;
+			if (aname.startsWith("xmlns") && 
+					(aname.length() == 5 || aname.charAt(5) == ':')) {
+				final String prefix = aname.length() == 5 ? "" : aname.substring(6);
+				if (decls == null) {
+					decls = new Namespace[4];
+				} else if (dcnt == decls.length) {
+					decls = ArrayCopy.copyOf(decls, dcnt * 2);
+				}
+				decls[dcnt++] = Namespace.getNamespace(prefix,
+						decode(vstart, vend, true));
+			} else {
+				if (anames == null) {
+					anames = new String[4];
+					avalues = new int[8];
+				} else if (acnt == anames.length) {
+					anames = ArrayCopy.copyOf(anames, acnt * 2);
+					avalues = ArrayCopy.copyOf(avalues, acnt * 4);
+				}
+				avalues[acnt * 2] = vstart;
+				avalues[acnt * 2 + 1] = vend;
+				anames[acnt++] = aname;
+			}
+		}
+
+		final int colon = qname.indexOf(':');
+		final String prefix = colon < 0 ? "" : qname.substring(0, colon);
+		final DeferredElement emt = new DeferredElement(
+				colon < 0 ? qname : qname.substring(colon + 1),
+				resolve(prefix, decls, dcnt, scope), verify, scope);
+		for (int i = 0; i < dcnt; i++) {
+			if (decls[i] != emt.getNamespace()) {
+				factory.addNamespaceDeclaration(emt, decls[i]);
+			}
+		}
+		for (int i = 0; i < acnt; i++) {
+			final String aname = anames[i];
+			final int acolon = aname.indexOf(':');
+			final Namespace ans = acolon < 0 ? Namespace.NO_NAMESPACE :
+				resolve(aname.substring(0, acolon), decls, dcnt, scope);
+			final Attribute att = factory.attribute(
+					acolon < 0 ? aname : aname.substring(acolon + 1),
+					decode(avalues[i * 2], avalues[i * 2 + 1], true), 
+					AttributeType.CDATA, ans);
+			factory.setAttribute(emt, att);
+		}
+		if (closes[idx] > p) {
+			emt.defer(this, idx);
+		}
+		return emt;
+	}
+
+	/**
+	 * Resolve a Namespace prefix in the scope of a start tag.
+	 * @param prefix The prefix to resolve.
+	 * @param decls The Namespaces declared on the start tag.
+	 * @param dcnt The number of Namespaces declared on the start tag.
+	 * @param scope The Element the start tag is inside of.
+	 * @return The Namespace bound to the prefix.
+	 */
+	private static Namespace resolve(final String prefix, 
+			final Namespace[] decls, final int dcnt, final DeferredElement scope) {
+		for (int i = 0; i < dcnt; i++) {
+			if (prefix.equals(decls[i].getPrefix())) {
+				return decls[i];
+			}
+		}
+		for (DeferredElement e = scope; e != null; e = e.getScope()) {
+			if (prefix.equals(e.getNamespacePrefix())) {
+				return e.getNamespace();
+			}
+			if (e.hasAdditionalNamespaces()) {
+				for (final Namespace ns : e.getAdditionalNamespaces()) {
+					if (prefix.equals(ns.getPrefix())) {
+						return ns;
+					}
+				}
+			}
+		}
+		if (prefix.length() == 0) {
+			return Namespace.NO_NAMESPACE;
+		}
+		if ("xml".equals(prefix)) {
+			return Namespace.XML_NAMESPACE;
+		}
+		throw new IllegalNameException("The namespace prefix '" + prefix + 
+				"' is not declared");
+	}
+
+	/**
+	 * Build the immediate content of the Element at the specified index.
+	 * Child Elements are created with deferred content.
+	 * <p>
+	 * This is synchronized so that different Elements from the same Document
+	 * can be materialized from different threads.
+	 * @param emt The Element to add the content to.
+	 * @param idx The index of the Element.
+	 */
+	synchronized void materialize(final DeferredElement emt, final int idx) {
+		final int close = closes[idx];
+		int p = skipStartTag(starts[idx]);
+		int next = idx + 1;
+		while (p < close) {
+			if (buf[p] != '<') {
+				p = text(emt, p, close);
+			} else if (buf[p + 1] == '!') {
+				if (buf[p + 2] == '-') {
+					p = comment(emt, p);
+				} else {
+					final int cend = find(p + 9, "]]>");
+					factory.addContent(emt, factory.cdata(decode(p + 9, cend, false)));
+					p = cend + 3;
+				}
+			} else if (buf[p + 1] == '?') {
+				p = processingInstruction(emt, p);
+			} else {
+				// a child Element, the index is in document order.
+				next = Arrays.binarySearch(starts, next, count, p);
+				factory.addContent(emt, createElement(next, emt));
+				final int cclose = closes[next];
+				p = cclose < 0 ? skipStartTag(p) : find(cclose, ">") + 1;
+				next++;
+			}
+		}
+	}
+
+	/**
+	 * Skip over a start tag (quoted values may contain '&gt;').
+	 * @param start The offset of the tag's '&lt;'
+	 * @return The offset after the tag's '&gt;'
+	 */
+	private int skipStartTag(final int start) {
+		int p = start + 1;
+		while (buf[p] != '>') {
+			final char c = buf[p++];
+			if (c == '"' || c == '\'') {
+				while (buf[p] != c) {
+					p++;
+				}
+				p++;
+			}
+		}
+		return p + 1;
+	}
+
+	/**
+	 * Add the Text (and EntityRef) content up to the next markup.
+	 * @param emt The Element to add to.
+	 * @param start The first character of the text.
+	 * @param limit The offset the text must end before.
+	 * @return The offset of the next markup.
+	 */
+	private int text(final DeferredElement emt, final int start, final int limit) {
+		int p = start;
+		int from = start;
+		StringBuilder sb = null;
+		while (p < limit && buf[p] != '<') {
+			final char c = buf[p];
+			if (c == '&') {
+				final int semi = find(p, ";");
+				final String expansion = reference(p + 1, semi);
+				if (expansion == null) {
+					// an unexpanded entity reference.
+					if (sb == null) {
+						sb = new StringBuilder();
+					}
+					appendNormalized(sb, from, p, false);
+					if (sb.length() > 0) {
+						factory.addContent(emt, factory.text(sb.toString()));
+						sb.setLength(0);
+					}
+					factory.addContent(emt, factory.entityRef(
+							new String(buf, p + 1, semi - p - 1)));
+				} else {
+					if (sb == null) {
+						sb = new StringBuilder(semi - start + 16);
+					}
+					appendNormalized(sb, from, p, false);
+					sb.append(expansion);
+				}
+				p = semi + 1;
+				from = p;
+			} else {
+				p++;
+			}
+		}
+		if (sb == null) {
+			// no references, the common case.
+			factory.addContent(emt, factory.text(decode(from, p, false)));
+		} else {
+			appendNormalized(sb, from, p, false);
+			if (sb.length() > 0) {
+				factory.addContent(emt, factory.text(sb.toString()));
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Add a Comment.
+	 * @param parent The Parent to add the Comment to
+	 * @param start The offset of the '&lt;!--'
+	 * @return The offset after the Comment.
+	 */
+	private int comment(final Parent parent, final int start) {
+		final int cend = find(start + 4, "-->");
+		factory.addContent(parent, factory.comment(decode(start + 4, cend, false)));
+		return cend + 3;
+	}
+
+	/**
+	 * Add a ProcessingInstruction.
+	 * @param parent The Parent to add the ProcessingInstruction to
+	 * @param start The offset of the '&lt;?'
+	 * @return The offset after the ProcessingInstruction.
+	 */
+	private int processingInstruction(final Parent parent, final int start) {
+		final int pend = find(start + 2, "?>");
+		final int tend = scanNameQuietly(start + 2);
+		final String target = new String(buf, start + 2, tend - start - 2);
+		final int dstart = skipWhite(tend);
+		if (dstart >= pend) {
+			factory.addContent(parent, factory.processingInstruction(target));
+		} else {
+			factory.addContent(parent, factory.processingInstruction(target,
+					decode(dstart, pend, false)));
+		}
+		return pend + 2;
+	}
+
+	/* * * * * * * * * * * * * Character Utilities * * * * * * * * * * * * */
+
+	/**
+	 * Create a String from the characters, normalizing line-ends (and, in
+	 * attribute values, whitespace), and expanding references.
+	 * @param from The first character
+	 * @param to The offset after the last character
+	 * @param attribute true if this is an attribute value.
+	 * @return The decoded String.
+	 */
+	private String decode(final int from, final int to, final boolean attribute) {
+		for (int i = from; i < to; i++) {
+			final char c = buf[i];
+			if (c == '\r' || c == '&' || (attribute && (c == '\n' || c == '\t'))) {
+				// slow path.
+				final StringBuilder sb = new StringBuilder(to - from);
+				appendNormalized(sb, from, i, attribute);
+				int p = i;
+				int f = i;
+				while (p < to) {
+					if (buf[p] == '&' && attribute) {
+						appendNormalized(sb, f, p, true);
+						final int semi = find(p, ";");
+						sb.append(reference(p + 1, semi));
+						p = semi + 1;
+						f = p;
+					} else {
+						p++;
+					}
+				}
+				appendNormalized(sb, f, to, attribute);
+				return sb.toString();
+			}
+		}
+		return new String(buf, from, to - from);
+	}
+
+	/**
+	 * Append characters, normalizing the line-ends (and, in attribute values,
+	 * all whitespace).
+	 * @param sb Where to append to
+	 * @param from The first character
+	 * @param to The offset after the last character
+	 * @param attribute true if this is an attribute value.
+	 */
+	private void appendNormalized(final StringBuilder sb, final int from,
+			final int to, final boolean attribute) {
+		int f = from;
+		for (int i = from; i < to; i++) {
+			final char c = buf[i];
+			if (c == '\r') {
+				sb.append(buf, f, i - f);
+				sb.append(attribute ? ' ' : '\n');
+				if (i + 1 < to && buf[i + 1] == '\n') {
+					i++;
+				}
+				f = i + 1;
+			} else if (attribute && (c == '\n' || c == '\t')) {
+				sb.append(buf, f, i - f);
+				sb.append(' ');
+				f = i + 1;
+			}
+		}
+		sb.append(buf, f, to - f);
+	}
+
+	/**
+	 * Get the expansion of a reference
+	 * @param start The first character after the '&amp;'
+	 * @param semi The offset of the ';'
+	 * @return The expanded text, or null if it should be an EntityRef.
+	 */
+	private String reference(final int start, final int semi) {
+		if (buf[start] == '#') {
+			final int cp = buf[start + 1] == 'x'
+					? Integer.parseInt(new String(buf, start + 2, semi - start - 2), 16)
+					: Integer.parseInt(new String(buf, start + 1, semi - start - 1));
+			return new String(Character.toChars(cp));
+		}
+		final String name = new String(buf, start, semi - start);
+		final String pd = predefined(name);
+		if (pd != null) {
+			return pd;
+		}
+		return entities == null ? null : entities.get(name);
+	}
+
+	/**
+	 * Get the value of a predefined entity.
+	 * @param name The entity name
+	 * @return The entity value, or null if it is not a predefined entity.
+	 */
+	private static String predefined(final String name) {
+		if ("amp".equals(name)) {
+			return "&";
+		}
+		if ("lt".equals(name)) {
+			return "<";
+		}
+		if ("gt".equals(name)) {
+			return ">";
+		}
+		if ("quot".equals(name)) {
+			return "\"";
+		}
+		if ("apos".equals(name)) {
+			return "'";
+		}
+		return null;
+	}
+
+	private static boolean isWhite(final char c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+	private static boolean isNameStart(final char c) {
+		// surrogate pairs are checked by the Verifier when materialized.
+		return Verifier.isXMLNameStartCharacter(c) || 
+				Verifier.isHighSurrogate(c);
+	}
+
+	private static boolean isNameChar(final char c) {
+		return Verifier.isXMLNameCharacter(c) || Verifier.isHighSurrogate(c) ||
+				Verifier.isLowSurrogate(c);
+	}
+
+	private int skipWhite(final int start) {
+		int p = start;
+		while (p < end && isWhite(buf[p])) {
+			p++;
+		}
+		return p;
+	}
+
+	private boolean startsWith(final int start, final String s) {
+		if (start + s.length() > end) {
+			return false;
+		}
+		for (int i = s.length() - 1; i >= 0; i--) {
+			if (buf[start + i] != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find a String in the XML, failing if it is not found.
+	 * @param start Where to start looking
+	 * @param s What to look for
+	 * @param what The construct that the String terminates
+	 * @return The offset of the String
+	 * @throws JDOMParseException if it is not found.
+	 */
+	private int find(final int start, final String s, final String what)
+			throws JDOMParseException {
+		final int ret = find(start, s);
+		if (ret < 0) {
+			throw error("Premature end of file in " + what, end);
+		}
+		return ret;
+	}
+
+	/**
+	 * Find a String in the XML.
+	 * @param start Where to start looking
+	 * @param s What to look for
+	 * @return The offset of the String, or -1 if it is not found.
+	 */
+	private int find(final int start, final String s) {
+		final char first = s.charAt(0);
+		final int last = end - s.length();
+		for (int p = start; p <= last; p++) {
+			if (buf[p] == first && startsWith(p, s)) {
+				return p;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Find the end of a quoted value.
+	 * @param start The offset of the opening quote.
+	 * @return The offset of the closing quote.
+	 * @throws JDOMParseException if there is no quoted value.
+	 */
+	private int quoted(final int start) throws JDOMParseException {
+		if (start >= end || (buf[start] != '"' && buf[start] != '\'')) {
+			throw error("Expected a quoted value", start);
+		}
+		final char quote = buf[start];
+		for (int p = start + 1; p < end; p++) {
+			if (buf[p] == quote) {
+				return p;
+			}
+		}
+		throw error("Premature end of file in quoted value", end);
+	}
+
+	/**
+	 * Scan a name.
+	 * @param start The first character of the name
+	 * @return The offset after the name.
+	 * @throws JDOMParseException if there is no name.
+	 */
+	private int scanName(final int start) throws JDOMParseException {
+		if (start >= end || !isNameStart(buf[start])) {
+			throw error("Expected a name", start);
+		}
+		return scanNameQuietly(start);
+	}
+
+	/**
+	 * Scan a name that is known to be there.
+	 * @param start The first character of the name
+	 * @return The offset after the name.
+	 */
+	private int scanNameQuietly(final int start) {
+		int p = start + 1;
+		while (p < end && isNameChar(buf[p])) {
+			p++;
+		}
+		return p;
+	}
+
+	/**
+	 * Compare two runs of characters in the XML.
+	 * @param a The first character of one run
+	 * @param b The first character of the other run
+	 * @param length The length of the runs
+	 * @return true if the runs have the same characters.
+	 */
+	private boolean sameChars(final int a, final int b, final int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			if (buf[a + i] != buf[b + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Check that the character is a legal XML character.
+	 * @param p The offset of the character
+	 * @return The offset after the character (a surrogate pair is two chars).
+	 * @throws JDOMParseException if it is not a legal XML character.
+	 */
+	private int checkChar(final int p) throws JDOMParseException {
+		final char c = buf[p];
+		if (c >= 0x20 && c < 0xD800) {
+			// the common case.
+			return p + 1;
+		}
+		if (Verifier.isHighSurrogate(c)) {
+			if (p + 1 < end && Verifier.isLowSurrogate(buf[p + 1])) {
+				return p + 2;
+			}
+		} else if (Verifier.isXMLCharacter(c)) {
+			return p + 1;
+		}
+		throw error("An invalid XML character (Unicode: 0x" +
+				Integer.toHexString(c) + ") was found", p);
+	}
+
+	/**
+	 * Check that the characters are all legal XML characters.
+	 * @param from The first character
+	 * @param to The offset after the last character
+	 * @throws JDOMParseException if there is an illegal character.
+	 */
+	private void checkChars(final int from, final int to)
+			throws JDOMParseException {
+		int p = from;
+		while (p < to) {
+			p = checkChar(p);
+		}
+	}
+
+	private int indexOfColon(final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			if (buf[i] == ':') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void pushPrefix(final int offset, final int length,
+			final int vstart, final int vend) {
+		if (nscount == nsoffset.length) {
+			nsoffset = ArrayCopy.copyOf(nsoffset, nscount * 2);
+			nslength = ArrayCopy.copyOf(nslength, nscount * 2);
+			nsvstart = ArrayCopy.copyOf(nsvstart, nscount * 2);
+			nsvend = ArrayCopy.copyOf(nsvend, nscount * 2);
+		}
+		nsoffset[nscount] = offset;
+		nsvstart[nscount] = vstart;
+		nsvend[nscount] = vend;
+		nslength[nscount++] = length;
+	}
+
+	/**
+	 * Check that a Namespace prefix is declared.
+	 * @param offset The first character of the prefix
+	 * @param length The length of the prefix
+	 * @return The index of the prefix's declaration, or -1 for the xml prefix.
+	 * @throws JDOMParseException if the prefix is not declared.
+	 */
+	private int checkPrefix(final int offset, final int length) 
+			throws JDOMParseException {
+		if (length == 3 && startsWith(offset, "xml")) {
+			return -1;
+		}
+		for (int i = nscount - 1; i >= 0; i--) {
+			if (nslength[i] == length && sameChars(nsoffset[i], offset, length)) {
+				return i;
+			}
+		}
+		throw error("The namespace prefix '" + new String(buf, offset, length) +
+				"' is not declared", offset);
+	}
+
+	/**
+	 * Create a parse exception with the line and column of the problem.
+	 * @param message The problem
+	 * @param at The offset of the problem
+	 * @return The exception to throw
+	 */
+	private JDOMParseException error(final String message, final int at) {
+		int line = 1;
+		int col = 1;
+		final int lim = Math.min(at, end);
+		for (int i = begin; i < lim; i++) {
+			if (buf[i] == '\n') {
+				line++;
+				col = 1;
+			} else {
+				col++;
+			}
+		}
+		final String msg = "Error on line " + line + " col " + col + 
+				(systemID == null ? "" : " of " + systemID) + ": " + message;
+		return new JDOMParseException(msg, 
+				new SAXParseException(message, null, systemID, line, col));
+	}
+
+}
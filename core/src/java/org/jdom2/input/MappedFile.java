@@ -0,0 +1,309 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import org.xml.sax.InputSource;
+
+/**
+ * Reads the content of a FileChannel, from its current position to its end,
+ * through read-only memory-mapped windows of the file. The channel position
+ * is not changed, and the channel is not closed.
+ * <p>
+ * When the XML is UTF-8 (it has a UTF-8 Byte-Order-Mark, declares the UTF-8
+ * encoding, or has no Byte-Order-Mark and declares no encoding) the content
+ * is supplied as a Reader that decodes the chars straight from the mapped
+ * bytes in to the parser's buffer. Otherwise the content is supplied as an
+ * InputStream, and the parser decodes it.
+ * <p>
+ * The windows are each mapped from the first byte that is not consumed yet,
+ * so a UTF-8 sequence is never split between windows.
+ * 
+ * @since JDOM 2.1.0
+ */
+final class MappedFile {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** The largest window that is mapped at once (64MB). */
+	private static final int WINDOW = 1 << 26;
+
+	private final FileChannel channel;
+	private final long end;
+	private final int window;
+	/** The file position of the start of the current window */
+	private long offset;
+	private ByteBuffer buffer;
+
+	/**
+	 * Map the content of the channel.
+	 * 
+	 * @param channel
+	 *        the channel to read.
+	 * @throws IOException
+	 *         if the channel cannot be mapped.
+	 */
+	MappedFile(final FileChannel channel) throws IOException {
+		this(channel, WINDOW);
+	}
+
+	/**
+	 * Map the content of the channel in windows of (at most) the given size.
+	 * 
+	 * @param channel
+	 *        the channel to read.
+	 * @param window
+	 *        the largest window to map at once (at least 4 bytes, so that
+	 *        any UTF-8 sequence fits in a window).
+	 * @throws IOException
+	 *         if the channel cannot be mapped.
+	 */
+	MappedFile(final FileChannel channel, final int window) throws IOException {
+		this.channel = channel;
+		this.window = Math.max(4, window);
+		this.offset = channel.position();
+		this.end = channel.size();
+		map(offset);
+	}
+
+	private void map(final long from) throws IOException {
+		offset = from;
+		final long len = Math.min(window, end - from);
+		buffer = channel.map(FileChannel.MapMode.READ_ONLY, from,
+				len < 0 ? 0 : len);
+	}
+
+	/**
+	 * Map the next window, starting with the first unconsumed byte.
+	 * 
+	 * @return false if there is nothing more to map.
+	 */
+	private boolean remap() throws IOException {
+		final long from = offset + buffer.position();
+		if (from >= end) {
+			return false;
+		}
+		map(from);
+		return true;
+	}
+
+	private boolean isLastWindow() {
+		return offset + buffer.limit() >= end;
+	}
+
+	/**
+	 * Whether the XML is UTF-8 encoded. If it has a UTF-8 Byte-Order-Mark,
+	 * the mark is consumed.
+	 * 
+	 * @return true if the XML is UTF-8 encoded.
+	 */
+	boolean isUTF8() {
+		final ByteBuffer bb = buffer;
+		final int len = Math.min(bb.remaining(), 200);
+		final int p = bb.position();
+		if (len >= 3 && (bb.get(p) & 0xFF) == 0xEF && 
+				(bb.get(p + 1) & 0xFF) == 0xBB && (bb.get(p + 2) & 0xFF) == 0xBF) {
+			bb.position(p + 3);
+			return true;
+		}
+		if (len >= 2) {
+			final int b0 = bb.get(p) & 0xFF;
+			final int b1 = bb.get(p + 1) & 0xFF;
+			if (b0 == 0xFE || b0 == 0xFF || b0 == 0x00 || b1 == 0x00) {
+				// UTF-16 or some such.
+				return false;
+			}
+		}
+		if (len < 5 || bb.get(p) != '<' || bb.get(p + 1) != '?' || 
+				bb.get(p + 2) != 'x' || bb.get(p + 3) != 'm' || 
+				bb.get(p + 4) != 'l') {
+			return true;
+		}
+		final StringBuilder decl = new StringBuilder(len);
+		for (int i = 5; i < len; i++) {
+			final char c = (char)(bb.get(p + i) & 0xFF);
+			if (c == '>') {
+				break;
+			}
+			decl.append(c);
+		}
+		final int e = decl.indexOf("encoding");
+		if (e < 0) {
+			return true;
+		}
+		// the encoding value, without the quotes and spaces.
+		final String enc = decl.substring(e + 8).replace('=', ' ')
+				.replace('"', ' ').replace('\'', ' ').trim();
+		return enc.regionMatches(true, 0, "UTF-8", 0, 5) && (enc.length() == 5
+				|| enc.charAt(5) == ' ' || enc.charAt(5) == '?');
+	}
+
+	/**
+	 * The XML as an InputStream of the mapped bytes.
+	 * 
+	 * @return the stream.
+	 */
+	InputStream getInputStream() {
+		return new InputStream() {
+			@Override
+			public int read() throws IOException {
+				if (!buffer.hasRemaining() && !remap()) {
+					return -1;
+				}
+				return buffer.get() & 0xFF;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len)
+					throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				if (!buffer.hasRemaining() && !remap()) {
+					return -1;
+				}
+				final int cnt = Math.min(len, buffer.remaining());
+				buffer.get(b, off, cnt);
+				return cnt;
+			}
+
+			@Override
+			public int available() {
+				return buffer.remaining();
+			}
+		};
+	}
+
+	/**
+	 * The XML as a Reader that decodes the mapped UTF-8 bytes. Call only
+	 * when {@link #isUTF8()} is true.
+	 * 
+	 * @return the reader.
+	 */
+	Reader getUTF8Reader() {
+		final CharsetDecoder decoder = UTF8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		return new Reader() {
+			private boolean done = false;
+
+			@Override
+			public int read(final char[] cbuf, final int off, final int len)
+					throws IOException {
+				if (len == 0) {
+					return 0;
+				}
+				if (done) {
+					return -1;
+				}
+				final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+				while (true) {
+					final boolean last = isLastWindow();
+					final CoderResult cr = decoder.decode(buffer, out, last);
+					if (cr.isError()) {
+						cr.throwException();
+					}
+					if (out.position() > off) {
+						return out.position() - off;
+					}
+					if (cr.isOverflow()) {
+						// not even one char fits (a surrogate pair in 1 char).
+						throw new IOException("Unable to read a supplementary "
+								+ "character in to a 1-char buffer");
+					}
+					if (last || !remap()) {
+						decoder.flush(out);
+						done = true;
+						return out.position() > off ? out.position() - off : -1;
+					}
+				}
+			}
+
+			@Override
+			public void close() {
+				done = true;
+			}
+		};
+	}
+
+	/**
+	 * The XML as a SAX InputSource.
+	 * 
+	 * @param systemId
+	 *        the system ID of the XML (may be null).
+	 * @return the source.
+	 */
+	InputSource getInputSource(final String systemId) {
+		final InputSource source = new InputSource();
+		if (isUTF8()) {
+			source.setCharacterStream(getUTF8Reader());
+		} else {
+			source.setByteStream(getInputStream());
+		}
+		source.setSystemId(systemId);
+		return source;
+	}
+
+}
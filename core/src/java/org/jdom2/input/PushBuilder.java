@@ -0,0 +1,694 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Content;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+
+/**
+ * Builds a JDOM Document from XML that is pushed in to the builder in chunks
+ * of bytes, as they arrive (for example from a non-blocking NIO channel).
+ * Nothing blocks: each {@link #feed(ByteBuffer)} consumes the chunk, builds
+ * whatever content is complete, and returns.
+ * <p>
+ * The Document is built one child of the root Element at a time: as soon as
+ * a child Element (and its content) is complete it is built, added to the
+ * root Element, and reported to the {@link ElementHandler} (if any). The
+ * handler can process the Element and then {@link Element#detach()} it, so
+ * that arbitrarily large documents can be processed with little memory. Call
+ * {@link #endOfInput()} when all the XML has been pushed.
+ * <p>
+ * The content is parsed with a (non-validating) {@link SAXBuilder}, so its
+ * settings (the JDOMFactory, entity expansion, EntityResolver, ...) apply.
+ * Each child of the root is parsed as a Document that has the original
+ * prolog (including any DOCTYPE) and root start tag, so the Namespace
+ * declarations and entities of the Document are available to it. As a
+ * result, the prolog is parsed again for every child of the root Element:
+ * an internal DTD subset is re-parsed, and an external DTD is resolved and
+ * parsed again, each time. For a document with many small children and a
+ * large DTD this can cost far more than the children themselves; use an
+ * EntityResolver that returns a cached (or empty) DTD if this is a problem.
+ * Line and column numbers in parse errors are relative to the child being
+ * parsed.
+ * <p>
+ * The character encoding is determined from the Byte-Order-Mark, or the XML
+ * declaration, and is UTF-8 otherwise.
+ * <p>
+ * A PushBuilder builds one Document, and is not thread-safe.
+ * 
+ * @since JDOM 2.1.0
+ */
+public class PushBuilder {
+
+	/**
+	 * Receives the children of the root Element as they are completed.
+	 */
+	public static interface ElementHandler {
+		/**
+		 * Called when a child Element of the root Element is complete. The
+		 * Element has been added to the root Element, and can be detached.
+		 * 
+		 * @param element
+		 *        the complete child Element.
+		 * @throws JDOMException
+		 *         to abort the build; it is thrown from the feed() call.
+		 */
+		public void elementComplete(Element element) throws JDOMException;
+	}
+
+	/** Scanning content (text) */
+	private static final int TEXT = 0;
+	/** Scanning a start tag, or an empty-element tag */
+	private static final int START_TAG = 1;
+	/** Scanning an end tag */
+	private static final int END_TAG = 2;
+	/** Scanning a comment */
+	private static final int COMMENT = 3;
+	/** Scanning a CDATA section */
+	private static final int CDATA = 4;
+	/** Scanning a processing instruction (or the XML declaration) */
+	private static final int PI = 5;
+	/** Scanning a DOCTYPE declaration */
+	private static final int DOCTYPE = 6;
+
+	/** The most bytes to look at for the encoding in the XML declaration */
+	private static final int MAXHEADER = 1024;
+
+	private final SAXBuilder builder;
+	private final ElementHandler handler;
+
+	/* Decoding */
+	private ByteArrayOutputStream header = new ByteArrayOutputStream();
+	private CharsetDecoder decoder = null;
+	private final ByteBuffer carry = ByteBuffer.allocate(16);
+	private final CharBuffer chars = CharBuffer.allocate(8192);
+	private boolean firstchar = true;
+
+	/* Scanning */
+	private final StringBuilder pending = new StringBuilder();
+	/** The start of the pending chars that are not yet built */
+	private int base = 0;
+	private int scan = 0;
+	private int state = TEXT;
+	private int markup = 0;
+	private char quote = 0;
+	private int brackets = 0;
+	private int depth = 0;
+
+	/* Building */
+	private String prolog = null;
+	private String roottag = null;
+	private String rootname = null;
+	private String rootend = null;
+	private Document document = null;
+	private Element root = null;
+	private boolean rootdone = false;
+	private boolean ended = false;
+	private boolean failed = false;
+
+	/**
+	 * Create a PushBuilder that parses with a default SAXBuilder, and has no
+	 * ElementHandler.
+	 */
+	public PushBuilder() {
+		this(new SAXBuilder(), null);
+	}
+
+	/**
+	 * Create a PushBuilder.
+	 * 
+	 * @param builder
+	 *        the SAXBuilder used to parse the content (it may not be
+	 *        validating).
+	 * @param handler
+	 *        the handler for completed children of the root Element (may be
+	 *        null).
+	 * @throws IllegalArgumentException
+	 *         if the SAXBuilder is validating (the content is parsed in
+	 *         pieces, which cannot be validated).
+	 */
+	public PushBuilder(final SAXBuilder builder, final ElementHandler handler) {
+		if (builder.isValidating()) {
+			throw new IllegalArgumentException(
+					"A PushBuilder cannot use a validating SAXBuilder");
+		}
+		this.builder = builder;
+		this.handler = handler;
+	}
+
+	/**
+	 * The Document being built. It has its prolog and (partial) root Element
+	 * as soon as the root start tag has been pushed.
+	 * 
+	 * @return the Document, or null if the root start tag is not complete.
+	 */
+	public Document getDocument() {
+		return document;
+	}
+
+	/**
+	 * Whether the root Element is complete.
+	 * 
+	 * @return true once the root end tag has been pushed.
+	 */
+	public boolean isRootComplete() {
+		return rootdone;
+	}
+
+	/**
+	 * Push the remaining bytes of the buffer in to the builder. The buffer
+	 * position is moved to its limit.
+	 * 
+	 * @param chunk
+	 *        the next bytes of the XML.
+	 * @throws JDOMException
+	 *         if the XML is not well-formed, or the ElementHandler fails.
+	 * @throws IllegalStateException
+	 *         if the builder failed before, or the end of input was pushed.
+	 */
+	public void feed(final ByteBuffer chunk) throws JDOMException {
+		checkState();
+		failed = true;
+		if (decoder == null) {
+			while (chunk.hasRemaining() && decoder == null) {
+				header.write(chunk.get());
+				checkHeader(false);
+			}
+		}
+		if (decoder != null && chunk.hasRemaining()) {
+			decode(chunk, false);
+		}
+		failed = false;
+	}
+
+	/**
+	 * Push bytes in to the builder.
+	 * 
+	 * @param bytes
+	 *        the array containing the next bytes of the XML.
+	 * @param offset
+	 *        the position of the first byte.
+	 * @param length
+	 *        the number of bytes.
+	 * @throws JDOMException
+	 *         if the XML is not well-formed, or the ElementHandler fails.
+	 * @throws IllegalStateException
+	 *         if the builder failed before, or the end of input was pushed.
+	 */
+	public void feed(final byte[] bytes, final int offset, final int length)
+			throws JDOMException {
+		feed(ByteBuffer.wrap(bytes, offset, length));
+	}
+
+	/**
+	 * Indicate that all the XML has been pushed, and complete the Document.
+	 * 
+	 * @return the complete Document.
+	 * @throws JDOMException
+	 *         if the XML is not well-formed, or is incomplete.
+	 * @throws IllegalStateException
+	 *         if the builder failed before, or the end of input was pushed.
+	 */
+	public Document endOfInput() throws JDOMException {
+		checkState();
+		failed = true;
+		if (decoder == null) {
+			checkHeader(true);
+		} else {
+			decode(ByteBuffer.allocate(0), true);
+		}
+		if (carry.position() > 0) {
+			throw new JDOMException("Incomplete character at the end of the XML");
+		}
+		if (!rootdone) {
+			throw new JDOMException("Unexpected end of the XML: the root Element "
+					+ (root == null ? "was not started" : "is not complete"));
+		}
+		buildEpilog();
+		ended = true;
+		failed = false;
+		return document;
+	}
+
+	private void checkState() {
+		if (failed) {
+			throw new IllegalStateException("The PushBuilder has failed");
+		}
+		if (ended) {
+			throw new IllegalStateException("The end of input has been pushed");
+		}
+	}
+
+	/* ************************************
+	 * Decoding
+	 * ************************************ */
+
+	/**
+	 * Create the decoder once enough bytes are available to determine the
+	 * encoding, then decode the header bytes.
+	 */
+	private void checkHeader(final boolean end) throws JDOMException {
+		final int size = header.size();
+		if (!end && size < 4) {
+			return;
+		}
+		final byte[] bytes = header.toByteArray();
+		if (!end && size < MAXHEADER && bytes[0] == '<' && bytes[1] == '?'
+				&& bytes[2] == 'x' && bytes[3] == 'm' && bytes[size - 1] != '>') {
+			// wait for the end of the XML declaration.
+			return;
+		}
+		final String encoding = DeferredBuilder.encoding(bytes);
+		try {
+			decoder = Charset.forName(encoding).newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT);
+		} catch (IllegalArgumentException e) {
+			throw new JDOMException("Unsupported character encoding '" + 
+					encoding + "' in the XML document", e);
+		}
+		header = null;
+		decode(ByteBuffer.wrap(bytes), end);
+	}
+
+	private void decode(final ByteBuffer in, final boolean end)
+			throws JDOMException {
+		// complete a character that was split between chunks.
+		while (carry.position() > 0 && in.hasRemaining()) {
+			carry.put(in.get());
+			carry.flip();
+			decodeBuffer(carry, false);
+			carry.compact();
+		}
+		decodeBuffer(in, end);
+		if (in.hasRemaining()) {
+			if (in.remaining() > carry.remaining()) {
+				throw new JDOMException("Malformed character in the XML");
+			}
+			carry.put(in);
+		}
+		scan(end);
+		compact();
+	}
+
+	/**
+	 * Remove the chars that have been built from the pending chars. This is
+	 * done once for each chunk, not for each built child, so that a chunk
+	 * with many children is not quadratic.
+	 */
+	private void compact() {
+		if (base > 0) {
+			pending.delete(0, base);
+			scan -= base;
+			markup -= base;
+			base = 0;
+		}
+	}
+
+	private void decodeBuffer(final ByteBuffer in, final boolean end)
+			throws JDOMException {
+		while (true) {
+			final CoderResult cr = decoder.decode(in, chars, end);
+			if (cr.isError()) {
+				try {
+					cr.throwException();
+				} catch (CharacterCodingException e) {
+					throw new JDOMException("Unable to decode the XML: " + 
+							e.getMessage(), e);
+				}
+			}
+			if (end && cr.isUnderflow()) {
+				decoder.flush(chars);
+			}
+			chars.flip();
+			if (firstchar && chars.hasRemaining()) {
+				firstchar = false;
+				if (chars.get(0) == '\uFEFF') {
+					// a UTF-8 Byte-Order-Mark.
+					chars.get();
+				}
+			}
+			pending.append(chars);
+			chars.clear();
+			if (cr.isUnderflow()) {
+				return;
+			}
+		}
+	}
+
+	/* ************************************
+	 * Scanning
+	 * ************************************ */
+
+	/**
+	 * Scan the pending chars for complete markup, building the content as
+	 * each child of the root Element completes.
+	 */
+	private void scan(final boolean end) throws JDOMException {
+		if (rootdone) {
+			// the epilog is built at the end.
+			return;
+		}
+		final StringBuilder buf = pending;
+		int i = scan;
+		while (i < buf.length()) {
+			switch (state) {
+				case TEXT: {
+					final int lt = buf.indexOf("<", i);
+					if (lt < 0) {
+						i = buf.length();
+						break;
+					}
+					if (lt + 1 >= buf.length()) {
+						i = lt;
+						scan = i;
+						return;
+					}
+					final char c = buf.charAt(lt + 1);
+					if (c == '/') {
+						state = END_TAG;
+					} else if (c == '?') {
+						state = PI;
+					} else if (c == '!') {
+						if (startsWith(buf, "<!--", lt)) {
+							state = COMMENT;
+						} else if (buf.length() - lt < 9) {
+							// need more to tell which it is.
+							if (end) {
+								throw new JDOMException("Incomplete markup at the end of the XML");
+							}
+							scan = lt;
+							return;
+						} else if (startsWith(buf, "<![CDATA[", lt)) {
+							state = CDATA;
+						} else if (startsWith(buf, "<!DOCTYPE", lt)) {
+							state = DOCTYPE;
+							brackets = 0;
+						} else {
+							throw new JDOMException("Unexpected markup '" + 
+									buf.substring(lt, lt + 9) + "' in the XML");
+						}
+					} else {
+						state = START_TAG;
+					}
+					markup = lt;
+					quote = 0;
+					i = lt + 2;
+					break;
+				}
+				case START_TAG:
+				case END_TAG: {
+					final char c = buf.charAt(i++);
+					if (quote != 0) {
+						if (c == quote) {
+							quote = 0;
+						}
+					} else if (c == '"' || c == '\'') {
+						quote = c;
+					} else if (c == '>') {
+						state = TEXT;
+						final boolean start = buf.charAt(markup + 1) != '/';
+						i = tag(start, start && buf.charAt(i - 2) == '/', i);
+					}
+					break;
+				}
+				case COMMENT:
+					i = skipPast(buf, "-->", markup + 4, i);
+					break;
+				case CDATA:
+					i = skipPast(buf, "]]>", markup + 9, i);
+					break;
+				case PI:
+					i = skipPast(buf, "?>", markup + 2, i);
+					break;
+				case DOCTYPE: {
+					final char c = buf.charAt(i++);
+					if (quote != 0) {
+						if (c == quote) {
+							quote = 0;
+						}
+					} else if (c == '"' || c == '\'') {
+						quote = c;
+					} else if (c == '[') {
+						brackets++;
+					} else if (c == ']') {
+						brackets--;
+					} else if (c == '<' && brackets > 0 && !end && buf.length() - i < 3) {
+						// need more to tell whether it is a comment.
+						i--;
+						scan = i;
+						return;
+					} else if (c == '<' && brackets > 0 && startsWith(buf, "<!--", i - 1)) {
+						// a comment in the internal subset may contain anything.
+						final int close = buf.indexOf("-->", i + 3);
+						if (close < 0) {
+							i--;
+							scan = i;
+							return;
+						}
+						i = close + 3;
+					} else if (c == '>' && brackets == 0) {
+						state = TEXT;
+					}
+					break;
+				}
+				default:
+					throw new IllegalStateException("Unknown state " + state);
+			}
+			if (rootdone) {
+				return;
+			}
+		}
+		scan = i;
+	}
+
+	private static boolean startsWith(final StringBuilder buf, final String prefix,
+			final int from) {
+		if (from + prefix.length() > buf.length()) {
+			return false;
+		}
+		for (int i = prefix.length() - 1; i >= 0; i--) {
+			if (buf.charAt(from + i) != prefix.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the end of markup that is terminated by a fixed String.
+	 * 
+	 * @return the position after the terminator, or the position to resume
+	 *         scanning from if the terminator is not there yet.
+	 */
+	private int skipPast(final StringBuilder buf, final String terminator,
+			final int from, final int i) {
+		final int close = buf.indexOf(terminator, Math.max(from, i - terminator.length() + 1));
+		if (close < 0) {
+			return buf.length();
+		}
+		state = TEXT;
+		return close + terminator.length();
+	}
+
+	/**
+	 * Process a complete tag.
+	 * 
+	 * @param start
+	 *        true for a start (or empty-element) tag.
+	 * @param empty
+	 *        true for an empty-element tag.
+	 * @param after
+	 *        the position after the tag.
+	 * @return the position to continue scanning from.
+	 */
+	private int tag(final boolean start, final boolean empty, final int after)
+			throws JDOMException {
+		if (start) {
+			if (depth == 0) {
+				return rootStart(empty, after);
+			}
+			if (!empty) {
+				depth++;
+				return after;
+			}
+			return depth == 1 ? buildChildren(after, after) : after;
+		}
+		depth--;
+		if (depth == 1) {
+			return buildChildren(after, after);
+		}
+		if (depth == 0) {
+			// the root end tag: build the content before it.
+			int n = markup + 2;
+			while (n < after && !isNameEnd(pending.charAt(n))) {
+				n++;
+			}
+			if (!rootname.equals(pending.substring(markup + 2, n))) {
+				throw new JDOMException("The end tag '" + 
+						pending.substring(markup, after) + 
+						"' does not match the root Element '" + rootname + "'");
+			}
+			buildChildren(markup, after);
+			rootdone = true;
+			return after;
+		}
+		if (depth < 0) {
+			throw new JDOMException("Unexpected end tag in the XML");
+		}
+		return after;
+	}
+
+	/* ************************************
+	 * Building
+	 * ************************************ */
+
+	private Document parse(final String xml) throws JDOMException {
+		try {
+			return builder.build(new StringReader(xml));
+		} catch (IOException e) {
+			throw new JDOMException("Unable to parse the XML", e);
+		}
+	}
+
+	private int rootStart(final boolean empty, final int after)
+			throws JDOMException {
+		prolog = pending.substring(0, markup);
+		roottag = pending.substring(markup, after);
+		if (empty) {
+			document = parse(prolog + roottag);
+			root = document.getRootElement();
+			rootdone = true;
+			base = after;
+			return after;
+		}
+		int n = 1;
+		while (n < roottag.length() && !isNameEnd(roottag.charAt(n))) {
+			n++;
+		}
+		rootname = roottag.substring(1, n);
+		rootend = "</" + rootname + ">";
+		document = parse(prolog + roottag + rootend);
+		root = document.getRootElement();
+		depth = 1;
+		base = after;
+		return after;
+	}
+
+	private static boolean isNameEnd(final char c) {
+		return c == '>' || c == '/' || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	/**
+	 * Build the pending content of the root Element, up to the given
+	 * position, and move it in to the root Element.
+	 * 
+	 * @param to
+	 *        the end of the content to build.
+	 * @param trim
+	 *        where the pending chars that are not yet built now start.
+	 * @return the position to continue scanning from.
+	 */
+	private int buildChildren(final int to, final int trim) throws JDOMException {
+		if (to > base) {
+			final Document doc = parse(prolog + roottag + pending.substring(base, to) + rootend);
+			final List<Content> content = doc.getRootElement().removeContent();
+			final List<Element> complete = new ArrayList<Element>();
+			for (Content c : content) {
+				root.addContent(c);
+				if (c instanceof Element) {
+					complete.add((Element)c);
+				}
+			}
+			if (handler != null) {
+				for (Element emt : complete) {
+					handler.elementComplete(emt);
+				}
+			}
+		}
+		base = trim;
+		return trim;
+	}
+
+	private void buildEpilog() throws JDOMException {
+		compact();
+		if (pending.length() == 0) {
+			return;
+		}
+		// the epilog (comments and PIs) is parsed after an empty root.
+		final Document doc = parse("<x/>" + pending);
+		pending.setLength(0);
+		final List<Content> content = doc.removeContent();
+		for (int i = 1; i < content.size(); i++) {
+			document.addContent(content.get(i));
+		}
+	}
+
+}
@@ -65,6 +65,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -1173,6 +1174,52 @@ public class SAXBuilder implements SAXEngine {
 		}
 	}
 
+	/**
+	 * This builds a document from the supplied FileChannel, from its current
+	 * position to its end, by memory-mapping the file. This avoids the read
+	 * calls and buffer copies of reading a stream, which matters for large
+	 * files. When the XML is UTF-8 encoded the characters are decoded
+	 * directly from the mapped file, otherwise the parser decodes the mapped
+	 * bytes.
+	 * <p>
+	 * The channel position is not changed, and the channel is not closed.
+	 * Note that the mapped memory is only released when it is garbage
+	 * collected.
+	 * 
+	 * @param channel
+	 *        <code>FileChannel</code> to read from.
+	 * @param systemId
+	 *        base for resolving relative URIs (may be null).
+	 * @return <code>Document</code> resultant Document object
+	 * @throws JDOMException
+	 *         when errors occur in parsing
+	 * @throws IOException
+	 *         when an I/O error prevents a document from being fully parsed
+	 * @since JDOM 2.1.0
+	 */
+	public Document build(final FileChannel channel, final String systemId)
+			throws JDOMException, IOException {
+		return build(new MappedFile(channel).getInputSource(systemId));
+	}
+
+	/**
+	 * This builds a document from the supplied FileChannel by memory-mapping
+	 * the file. See {@link #build(FileChannel, String)}.
+	 * 
+	 * @param channel
+	 *        <code>FileChannel</code> to read from.
+	 * @return <code>Document</code> resultant Document object
+	 * @throws JDOMException
+	 *         when errors occur in parsing
+	 * @throws IOException
+	 *         when an I/O error prevents a document from being fully parsed
+	 * @since JDOM 2.1.0
+	 */
+	public Document build(final FileChannel channel)
+			throws JDOMException, IOException {
+		return build(channel, null);
+	}
+
 	/**
 	 * <p>
 	 * This builds a document from the supplied Reader. It's the programmer's
@@ -56,10 +56,15 @@ package org.jdom2.input;
 
 import static javax.xml.stream.XMLStreamConstants.*;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
@@ -71,9 +76,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.JDOMFactory;
 import org.jdom2.Namespace;
+import org.jdom2.UncheckedJDOMFactory;
 import org.jdom2.Verifier;
 import org.jdom2.input.stax.DTDParser;
 import org.jdom2.input.stax.StAXFilter;
+import org.jdom2.internal.ArrayCopy;
+import org.jdom2.internal.ContentStack;
+import org.jdom2.internal.NamespaceCache;
 
 /**
  * Builds a JDOM Document from a StAX-based XMLStreamReader.
@@ -114,12 +123,15 @@ public class StAXStreamBuilder {
 	 * Create a Document from an XMLStreamReader
 	 * @param factory The {@link JDOMFactory} to use
 	 * @param stream The XMLStreamReader to read from
+	 * @param ignorespace whether to discard SPACE events
+	 * @param ignoreboundary whether to discard whitespace-only text
 	 * @return the parsed Document
 	 * @throws JDOMException if there is any issue
 	 * 				(XMLStreamExceptions are wrapped).
 	 */
 	private static final Document process(final JDOMFactory factory, 
-			final XMLStreamReader stream) throws JDOMException {
+			final XMLStreamReader stream, final boolean ignorespace,
+			final boolean ignoreboundary) throws JDOMException {
 		try {
 
 			int state = stream.getEventType();
@@ -151,7 +163,8 @@ public class StAXStreamBuilder {
 						break;
 
 					case START_ELEMENT:
-						document.setRootElement(processElementFragment(factory, stream));
+						document.setRootElement(processElementFragment(factory,
+								stream, ignorespace, ignoreboundary));
 						break;
 
 					case END_ELEMENT:
@@ -165,9 +178,8 @@ public class StAXStreamBuilder {
 						// space data outside the root element, but just in case, we ignore it.
 						break; //throw new JDOMException("Unexpected XMLStream event at Document level: SPACE");
 					case CHARACTERS:
-						final String badtxt = stream.getText();
-						if (!Verifier.isAllXMLWhitespace(badtxt)) {
-							throw new JDOMException("Unexpected XMLStream event at Document level: CHARACTERS (" + badtxt + ")");
+						if (!isAllWhitespace(stream)) {
+							throw new JDOMException("Unexpected XMLStream event at Document level: CHARACTERS (" + stream.getText() + ")");
 						}
 						// otherwise ignore the chars.
 						break;
@@ -291,6 +303,114 @@ public class StAXStreamBuilder {
 	}
 
 	
+	/**
+	 * Iterates over the Elements selected by a StAXFilter, building each one
+	 * only when it is requested.
+	 */
+	private static final class ElementIterator implements Iterator<Element> {
+		private final JDOMFactory factory;
+		private final XMLStreamReader reader;
+		private final StAXFilter filter;
+		/** The depth of the current event relative to the starting event */
+		private int depth = 0;
+		/** Whether the current event still needs to be examined */
+		private boolean examine = true;
+		/** Whether the current event is a selected START_ELEMENT */
+		private boolean ready = false;
+		/** Whether the iteration is complete */
+		private boolean done = false;
+
+		private ElementIterator(final JDOMFactory factory, 
+				final XMLStreamReader reader, final StAXFilter filter) {
+			this.factory = factory;
+			this.reader = reader;
+			this.filter = filter;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (ready) {
+				return true;
+			}
+			if (done) {
+				return false;
+			}
+			try {
+				if (!examine) {
+					if (!reader.hasNext()) {
+						done = true;
+						return false;
+					}
+					reader.next();
+				}
+				examine = false;
+				while (true) {
+					switch (reader.getEventType()) {
+						case START_ELEMENT:
+							final QName qn = reader.getName();
+							if (filter.includeElement(depth, qn.getLocalPart(), 
+									Namespace.getNamespace(qn.getPrefix(), 
+											qn.getNamespaceURI()))) {
+								ready = true;
+								return true;
+							}
+							// look inside the element for selected Elements.
+							depth++;
+							break;
+						case END_ELEMENT:
+							if (--depth < 0) {
+								// the end of the element we started inside of.
+								done = true;
+								return false;
+							}
+							break;
+						case END_DOCUMENT:
+							done = true;
+							return false;
+						default:
+							// other content outside the selected Elements.
+							break;
+					}
+					if (!reader.hasNext()) {
+						done = true;
+						return false;
+					}
+					reader.next();
+				}
+			} catch (XMLStreamException e) {
+				done = true;
+				throw new IllegalStateException(
+						"Unable to process Elements from XMLStreamReader.", e);
+			}
+		}
+
+		@Override
+		public Element next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException("No more selected Elements.");
+			}
+			ready = false;
+			try {
+				// leaves the reader at the Element's END_ELEMENT
+				return processPrunableElement(factory, reader, depth, filter);
+			} catch (XMLStreamException e) {
+				done = true;
+				throw new IllegalStateException(
+						"Unable to process Element from XMLStreamReader.", e);
+			} catch (JDOMException e) {
+				done = true;
+				throw new IllegalStateException(
+						"Unable to process Element from XMLStreamReader.", e);
+			}
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"Cannot remove Elements from an XMLStreamReader.");
+		}
+	}
+
 	private static final Element processPrunableElement(final JDOMFactory factory, 
 			final XMLStreamReader reader, final int topdepth, StAXFilter filter) 
 					throws XMLStreamException, JDOMException {
@@ -301,7 +421,8 @@ public class StAXStreamBuilder {
 					"Element Fragment.");
 		}
 		
-		final Element fragment = processElement(factory, reader);
+		final NamespaceCache nscache = new NamespaceCache();
+		final Element fragment = processElement(factory, reader, nscache);
 		Element current = fragment;
 		int depth = topdepth + 1;
 		String text = null;
@@ -312,7 +433,7 @@ public class StAXStreamBuilder {
 					if (!filter.pruneElement(depth, qn.getLocalPart(), 
 							Namespace.getNamespace(
 									qn.getPrefix(), qn.getNamespaceURI()))) {
-						Element tmp = processElement(factory, reader);
+						Element tmp = processElement(factory, reader, nscache);
 						current.addContent(tmp);
 						current = tmp;
 						depth++;
@@ -381,12 +502,16 @@ public class StAXStreamBuilder {
 	 * event after the matching END_ELEMENT for an Element fragment).
 	 * @param factory The {@link JDOMFactory} to use
 	 * @param stream The XMLStreamReader to read from
+	 * @param ignorespace whether to discard SPACE events inside an Element
+	 * @param ignoreboundary whether to discard whitespace-only text inside
+	 * 				an Element
 	 * @return the parsed Document
 	 * @throws JDOMException if there is any issue
 	 * 				(XMLStreamExceptions are wrapped).
 	 */
 	private static final Content processFragment(final JDOMFactory factory, 
-			final XMLStreamReader stream) throws JDOMException {
+			final XMLStreamReader stream, final boolean ignorespace,
+			final boolean ignoreboundary) throws JDOMException {
 		try {
 			
 			switch (stream.getEventType()) {
@@ -399,7 +524,8 @@ public class StAXStreamBuilder {
 					throw new JDOMException("Illegal state for XMLStreamReader. Cannot get XML Fragment for state END_ELEMENT" );
 
 				case START_ELEMENT:
-					Element emt = processElementFragment(factory, stream);
+					Element emt = processElementFragment(factory, stream,
+							ignorespace, ignoreboundary);
 					stream.next();
 					return emt;
 
@@ -444,8 +570,27 @@ public class StAXStreamBuilder {
 		}
 	}
 
+	/**
+	 * Check whether the current text event of the reader is all whitespace,
+	 * directly on the reader's characters (without creating a String).
+	 * @param reader The XMLStreamReader at a text event
+	 * @return true if all the characters are whitespace.
+	 */
+	private static final boolean isAllWhitespace(final XMLStreamReader reader) {
+		final char[] chars = reader.getTextCharacters();
+		final int start = reader.getTextStart();
+		int i = start + reader.getTextLength();
+		while (--i >= start) {
+			if (!Verifier.isXMLWhitespace(chars[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private static final Element processElementFragment(final JDOMFactory factory, 
-			final XMLStreamReader reader) throws XMLStreamException, JDOMException {
+			final XMLStreamReader reader, final boolean ignorespace,
+			final boolean ignoreboundary) throws XMLStreamException, JDOMException {
 
 		if (START_ELEMENT != reader.getEventType()) {
 			throw new JDOMException("JDOM requires that the XMLStreamReader " +
@@ -453,40 +598,91 @@ public class StAXStreamBuilder {
 					"Element Fragment.");
 		}
 		
-		final Element fragment = processElement(factory, reader);
+		final NamespaceCache nscache = new NamespaceCache();
+		final Element fragment = processElement(factory, reader, nscache);
 		Element current = fragment;
 		int depth = 1;
+		// with an unchecked factory the children of each Element are added
+		// in one operation when the Element ends.
+		final ContentStack bulk = factory instanceof UncheckedJDOMFactory
+				? new ContentStack((UncheckedJDOMFactory)factory) : null;
+		if (bulk != null) {
+			bulk.push(fragment);
+		}
+		// whitespace that may be boundary whitespace is held here (and not
+		// made in to a String) until we know whether it is followed by text.
+		char[] pending = null;
+		int pendinglen = 0;
+		// whether the previous event was non-whitespace text.
+		boolean intext = false;
 		while (depth > 0 && reader.hasNext()) {
-			switch(reader.next()) {
+			final int event = reader.next();
+			if (event == SPACE && ignorespace) {
+				continue;
+			}
+			if (event != CHARACTERS && event != SPACE) {
+				// any discarded whitespace is simply forgotten.
+				pendinglen = 0;
+				intext = false;
+			}
+			switch(event) {
 				case START_ELEMENT:
-					Element tmp = processElement(factory, reader);
-					current.addContent(tmp);
+					Element tmp = processElement(factory, reader, nscache);
+					if (bulk != null) {
+						bulk.add(tmp);
+						bulk.push(tmp);
+					} else {
+						current.addContent(tmp);
+					}
 					current = tmp;
 					depth++;
 					break;
 				case END_ELEMENT:
-					current = current.getParentElement();
+					current = bulk != null ? (Element)bulk.pop()
+							: current.getParentElement();
 					depth--;
 					break;
 				case CDATA:
-					current.addContent(factory.cdata(reader.getText()));
+					addContent(bulk, current, factory.cdata(reader.getText()));
 					break;
 
 				case SPACE:
 				case CHARACTERS:
-					current.addContent(factory.text(reader.getText()));
+					if (!ignoreboundary || intext) {
+						addContent(bulk, current, factory.text(reader.getText()));
+						break;
+					}
+					if (isAllWhitespace(reader)) {
+						// keep it aside, it is discarded unless text follows.
+						final int len = reader.getTextLength();
+						if (pending == null || pendinglen + len > pending.length) {
+							pending = pending == null
+									? new char[Math.max(len, 64)]
+									: ArrayCopy.copyOf(pending, pendinglen + len + 64);
+						}
+						System.arraycopy(reader.getTextCharacters(),
+								reader.getTextStart(), pending, pendinglen, len);
+						pendinglen += len;
+					} else {
+						// real text, keep it (and any whitespace before it).
+						final String txt = reader.getText();
+						addContent(bulk, current, factory.text(pendinglen == 0 ? txt
+								: String.valueOf(pending, 0, pendinglen) + txt));
+						pendinglen = 0;
+						intext = true;
+					}
 					break;
 
 				case COMMENT:
-					current.addContent(factory.comment(reader.getText()));
+					addContent(bulk, current, factory.comment(reader.getText()));
 					break;
 
 				case ENTITY_REFERENCE:
-					current.addContent(factory.entityRef(reader.getLocalName()));
+					addContent(bulk, current, factory.entityRef(reader.getLocalName()));
 					break;
 
 				case PROCESSING_INSTRUCTION:
-					current.addContent(factory.processingInstruction(
+					addContent(bulk, current, factory.processingInstruction(
 							reader.getPITarget(), reader.getPIData()));
 					break;
 
@@ -496,14 +692,34 @@ public class StAXStreamBuilder {
 			
 		}
 		
+		if (bulk != null) {
+			// the reader ended early, keep what we have.
+			bulk.flush();
+		}
 		return fragment;
 	}
 
+	/**
+	 * Add a child to the Element being built, either directly, or in bulk
+	 * when the Element ends.
+	 * @param bulk The children of the Elements being built, or null.
+	 * @param parent The Element being built
+	 * @param child The child to add.
+	 */
+	private static final void addContent(final ContentStack bulk,
+			final Element parent, final Content child) {
+		if (bulk == null) {
+			parent.addContent(child);
+		} else {
+			bulk.add(child);
+		}
+	}
+
 	private static final Element processElement(final JDOMFactory factory, 
-			final XMLStreamReader reader) {
+			final XMLStreamReader reader, final NamespaceCache nscache) {
 
 		final Element element = factory.element(reader.getLocalName(),
-				Namespace.getNamespace(reader.getPrefix(), 
+				nscache.getNamespace(reader.getPrefix(), 
 						reader.getNamespaceURI()));
 
 		// Handle attributes
@@ -512,13 +728,13 @@ public class StAXStreamBuilder {
 					reader.getAttributeLocalName(i),
 					reader.getAttributeValue(i), 
 					AttributeType.getAttributeType(reader.getAttributeType(i)),
-					Namespace.getNamespace(reader.getAttributePrefix(i),
+					nscache.getNamespace(reader.getAttributePrefix(i),
 							reader.getAttributeNamespace(i))));
 		}
 
 		// Handle Namespaces
 		for (int i = 0, len = reader.getNamespaceCount(); i < len; i++) {
-			element.addNamespaceDeclaration(Namespace.getNamespace(
+			element.addNamespaceDeclaration(nscache.getNamespace(
 					reader.getNamespacePrefix(i), reader.getNamespaceURI(i)));
 		}
 
@@ -529,6 +745,12 @@ public class StAXStreamBuilder {
 	/** The factory to use for parsing */
 	private JDOMFactory builderfactory = new DefaultJDOMFactory();
 
+	/** Whether to ignore SPACE (ignorable whitespace) events */
+	private boolean ignoringWhite = false;
+
+	/** Whether to ignore text containing all whitespace */
+	private boolean ignoringBoundaryWhite = false;
+
 	/**
 	 * Returns the current {@link org.jdom2.JDOMFactory} in use.
 	 * @return the factory in use
@@ -547,6 +769,66 @@ public class StAXStreamBuilder {
 		this.builderfactory = factory;
 	}
 
+	/**
+	 * Returns whether element content whitespace is to be ignored during the
+	 * build.
+	 * 
+	 * @return whether element content whitespace is to be ignored during the
+	 *         build
+	 * @since JDOM 2.1.0
+	 */
+	public boolean getIgnoringElementContentWhitespace() {
+		return ignoringWhite;
+	}
+
+	/**
+	 * Specifies whether or not the builder should eliminate whitespace in
+	 * element content (sometimes known as "ignorable whitespace") when building
+	 * the document. This is the whitespace the XMLStreamReader reports as
+	 * SPACE events, which typically requires that the reader is validating.
+	 * The default value of this setting is <code>false</code>.
+	 * 
+	 * @param ignoringWhite
+	 *        Whether to ignore ignorable whitespace
+	 * @since JDOM 2.1.0
+	 */
+	public void setIgnoringElementContentWhitespace(final boolean ignoringWhite) {
+		this.ignoringWhite = ignoringWhite;
+	}
+
+	/**
+	 * Returns whether or not the builder will eliminate element content
+	 * containing only whitespace.
+	 * 
+	 * @return <code>boolean</code> - whether only whitespace content will be
+	 *         ignored during build.
+	 * @see #setIgnoringBoundaryWhitespace
+	 * @since JDOM 2.1.0
+	 */
+	public boolean getIgnoringBoundaryWhitespace() {
+		return ignoringBoundaryWhite;
+	}
+
+	/**
+	 * Specifies whether or not the builder should elminate boundary
+	 * whitespace, a term that indicates whitespace-only text between element
+	 * tags. This behaves the same as
+	 * {@link SAXBuilder#setIgnoringBoundaryWhitespace(boolean)}: all
+	 * whitespace-only text is removed, even if the XMLStreamReader reports it
+	 * in more than one event. The whitespace is checked directly on the
+	 * reader's characters, and discarded whitespace is never made in to a
+	 * String or Text. This applies to {@link #build(XMLStreamReader)} and
+	 * {@link #fragment(XMLStreamReader)} (the StAXFilter controls the text
+	 * of the other build methods). The default is <code>false</code>.
+	 * 
+	 * @param ignoringBoundaryWhite
+	 *        Whether to ignore whitespace-only text nodes
+	 * @since JDOM 2.1.0
+	 */
+	public void setIgnoringBoundaryWhitespace(final boolean ignoringBoundaryWhite) {
+		this.ignoringBoundaryWhite = ignoringBoundaryWhite;
+	}
+
 	/**
 	 * This builds a document from the supplied
 	 * XMLStreamReader.
@@ -558,9 +840,48 @@ public class StAXStreamBuilder {
 	 * @throws JDOMException when errors occur in parsing
 	 */
 	public Document build(XMLStreamReader reader) throws JDOMException {
-		return process(builderfactory, reader);
+		return process(builderfactory, reader, ignoringWhite,
+				ignoringBoundaryWhite);
 	}
 	
+	/**
+	 * This builds a document from the supplied FileChannel, from its current
+	 * position to its end, by memory-mapping the file. The XMLStreamReader
+	 * is created with the supplied XMLInputFactory: when the XML is UTF-8
+	 * encoded it reads the characters decoded directly from the mapped file,
+	 * otherwise it decodes the mapped bytes itself.
+	 * <p>
+	 * The channel position is not changed, and the channel is not closed.
+	 * Note that the mapped memory is only released when it is garbage
+	 * collected.
+	 * 
+	 * @param inputfactory The XMLInputFactory used to create the XMLStreamReader.
+	 * @param channel The FileChannel to read from.
+	 * @param systemId The base for resolving relative URIs (may be null).
+	 * @return the parsed Document
+	 * @throws JDOMException if there is any issue
+	 * 				(XMLStreamExceptions are wrapped).
+	 * @throws IOException if the file cannot be mapped or read.
+	 * @since JDOM 2.1.0
+	 */
+	public Document build(final XMLInputFactory inputfactory,
+			final FileChannel channel, final String systemId)
+			throws JDOMException, IOException {
+		final MappedFile mapped = new MappedFile(channel);
+		try {
+			final XMLStreamReader reader = mapped.isUTF8()
+					? inputfactory.createXMLStreamReader(systemId, mapped.getUTF8Reader())
+					: inputfactory.createXMLStreamReader(systemId, mapped.getInputStream());
+			try {
+				return build(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (final XMLStreamException xse) {
+			throw new JDOMException("Unable to process XMLStream. See Cause.", xse);
+		}
+	}
+
 	/**
 	 * Read the entire XMLStreamReader and from it build a list of Content that
 	 * conforms to the rules in the supplied StAXFilter.
@@ -573,6 +894,60 @@ public class StAXStreamBuilder {
 		return processFragments(builderfactory, reader, filter);
 	}
 
+
+	/**
+	 * Stream the Elements selected by the supplied StAXFilter one at a time.
+	 * This makes it possible to process documents of any size, one record at
+	 * a time, in constant memory:
+	 * <pre>
+	 * Iterator&lt;Element&gt; records = builder.buildElements(reader, filter);
+	 * while (records.hasNext()) {
+	 *     Element record = records.next();
+	 *     ....
+	 * }
+	 * </pre>
+	 * Each Element is only built when it is returned from the Iterator's
+	 * <code>next()</code> method, and the XMLStreamReader is not advanced past
+	 * the Element's END_ELEMENT until <code>hasNext()</code> is called again.
+	 * The returned Elements are detached (they have no parent), and nothing
+	 * else refers to them, so they can be garbage-collected as soon as they are
+	 * processed.
+	 * <p>
+	 * The filter selects Elements with the
+	 * {@link StAXFilter#includeElement(int, String, Namespace)} method, and
+	 * the content of the selected Elements is pruned with the filter's
+	 * <code>prune*</code> methods, the same as for
+	 * {@link #buildFragments(XMLStreamReader, StAXFilter)}. Unlike
+	 * buildFragments, the content of Elements that are not selected is
+	 * searched for selected Elements, and all other content outside the
+	 * selected Elements is discarded. An Element inside a selected Element is
+	 * part of that selected Element, it is not returned separately.
+	 * <p>
+	 * The iteration starts at the current event of the XMLStreamReader, and
+	 * ends at the end of the document, or at the END_ELEMENT of the Element
+	 * the reader was inside of when the iteration started. The
+	 * <code>depth</code> values given to the filter are relative to the event
+	 * the iteration started at.
+	 * <p>
+	 * The reader must not be used while the iteration is in progress. Problems
+	 * with the XMLStreamReader or the content are thrown from the Iterator's
+	 * methods as an IllegalStateException with the original exception as the
+	 * cause.
+	 * 
+	 * @param reader The XMLStreamReader to read Elements from
+	 * @param filter The Filter to select (and prune) Elements with
+	 * @return an Iterator over the selected Elements.
+	 * @since JDOM 2.1.0
+	 */
+	public Iterator<Element> buildElements(XMLStreamReader reader, StAXFilter filter) {
+		if (reader == null) {
+			throw new NullPointerException("Cannot read from a null XMLStreamReader");
+		}
+		if (filter == null) {
+			throw new NullPointerException("Cannot select Elements with a null StAXFilter");
+		}
+		return new ElementIterator(builderfactory, reader, filter);
+	}
 	
 	/**
 	 * Read the current XML Fragment from the XMLStreamReader.
@@ -584,7 +959,8 @@ public class StAXStreamBuilder {
 	 * XMLStreamReader or some other issue with the processing.
 	 */
 	public Content fragment(XMLStreamReader reader) throws JDOMException {
-		return processFragment(builderfactory, reader);
+		return processFragment(builderfactory, reader, ignoringWhite,
+				ignoringBoundaryWhite);
 	}
 
 }
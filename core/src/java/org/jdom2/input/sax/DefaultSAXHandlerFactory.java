@@ -67,13 +67,15 @@ public final class DefaultSAXHandlerFactory
 	/**
 	 * For performance reasons it helps to use 'final' instances of classes.
 	 * This makes the SAXHandler class a 'final' class for all normal
-	 * SAXBuilders. It adds no other functionality.
+	 * SAXBuilders. It adds no other functionality, but because it does not
+	 * access the Elements while they are built, it can add their children in
+	 * bulk when the factory is an UncheckedJDOMFactory.
 	 * 
 	 * @author Rolf Lear
 	 */
 	private static final class DefaultSAXHandler extends SAXHandler {
 		public DefaultSAXHandler(final JDOMFactory factory) {
-			super(factory);
+			super(factory, true);
 		}
 	}
 
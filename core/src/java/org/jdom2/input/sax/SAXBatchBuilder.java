@@ -0,0 +1,365 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input.sax;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.xml.sax.InputSource;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.SlimJDOMFactory;
+import org.jdom2.input.SAXBuilder;
+
+/**
+ * Builds many independent documents in parallel, using the threads of an
+ * Executor, and a {@link SAXBuilderEnginePool} with one engine for each
+ * parallel parse.
+ * <p>
+ * There are two ways to use the SAXBatchBuilder:
+ * <ul>
+ * <li>{@link #submit(Collection)} starts all the parses immediately and
+ * returns a Future for each one, in the same order as the sources.
+ * <li>{@link #build(Iterable, Handler, boolean)} parses the sources with
+ * 'back-pressure': no more than a fixed number of parses are in progress (or
+ * complete, but not yet handled) at any time, so even a huge (or lazy)
+ * Iterable of sources does not create a huge number of tasks or Documents.
+ * Each result is given to a {@link Handler} in the calling thread, either in
+ * the order of the sources, or in the order the parses complete.
+ * </ul>
+ * For example, to parse all the files in a directory, using all the CPUs:
+ * <pre>
+ * ExecutorService exec = Executors.newFixedThreadPool(cpus);
+ * SAXBatchBuilder batch = new SAXBatchBuilder(new SAXBuilder(), exec, cpus);
+ * List&lt;InputSource&gt; sources = new ArrayList&lt;InputSource&gt;();
+ * for (File f : dir.listFiles()) {
+ *     sources.add(new InputSource(f.toURI().toString()));
+ * }
+ * batch.build(sources, handler, false);
+ * exec.shutdown();
+ * </pre>
+ * The SAXBuilder has to be safe to use in multiple threads, in the same way
+ * as is required for the {@link SAXBuilderEnginePool}. In particular, the
+ * JDOMFactory is shared by all the parses, so it cannot be a SlimJDOMFactory
+ * unless that SlimJDOMFactory is <i>shared</i> (which is a good choice for
+ * batches of similar documents).
+ * <p>
+ * The SAXBatchBuilder is thread-safe, but the Executor is not shut down by
+ * the SAXBatchBuilder.
+ * 
+ * @see SAXBuilderEnginePool
+ * @since JDOM 2.1.0
+ */
+public class SAXBatchBuilder {
+
+	/**
+	 * Receives the results of the {@link SAXBatchBuilder#build(Iterable,
+	 * Handler, boolean)} method. The methods are called in the thread that
+	 * called the build method, never concurrently.
+	 */
+	public interface Handler {
+		/**
+		 * A document was successfully built.
+		 * 
+		 * @param index
+		 *        The position of the source in the sources.
+		 * @param source
+		 *        The source of the document.
+		 * @param document
+		 *        The built document.
+		 */
+		public void built(int index, InputSource source, Document document);
+
+		/**
+		 * A document could not be built.
+		 * 
+		 * @param index
+		 *        The position of the source in the sources.
+		 * @param source
+		 *        The source of the document.
+		 * @param cause
+		 *        The reason the document could not be built (typically a
+		 *        JDOMException or IOException).
+		 */
+		public void failed(int index, InputSource source, Throwable cause);
+	}
+
+	/**
+	 * A parse task that remembers where its source came from.
+	 */
+	private final class BuildTask extends FutureTask<Document> {
+		private final int index;
+		private final InputSource source;
+
+		private BuildTask(final int index, final InputSource source) {
+			super(new Callable<Document>() {
+				@Override
+				public Document call() throws Exception {
+					return pool.build(source);
+				}
+			});
+			this.index = index;
+			this.source = source;
+		}
+	}
+
+	/** The engines to parse with */
+	private final SAXBuilderEnginePool pool;
+	/** The threads to parse with */
+	private final Executor executor;
+	/** The most parses that can be in progress in the build method */
+	private final int maxPending;
+
+	/**
+	 * Create a SAXBatchBuilder that parses up to <code>parallelism</code>
+	 * documents at a time using the threads of the supplied Executor, with
+	 * up to twice that many results pending in the build method.
+	 * 
+	 * @param builder
+	 *        The SAXBuilder that is configured to parse the documents.
+	 * @param executor
+	 *        The Executor to run the parses on.
+	 * @param parallelism
+	 *        The number of SAXEngines, typically the number of threads in the
+	 *        Executor.
+	 * @throws JDOMException
+	 *         if the SAXBuilder is unable to create an engine.
+	 */
+	public SAXBatchBuilder(final SAXBuilder builder, final Executor executor,
+			final int parallelism) throws JDOMException {
+		this(builder, executor, parallelism, parallelism * 2);
+	}
+
+	/**
+	 * Create a SAXBatchBuilder that parses up to <code>parallelism</code>
+	 * documents at a time using the threads of the supplied Executor, with
+	 * up to <code>maxPending</code> parses in progress, or waiting to be
+	 * handled, in the build method.
+	 * 
+	 * @param builder
+	 *        The SAXBuilder that is configured to parse the documents.
+	 * @param executor
+	 *        The Executor to run the parses on.
+	 * @param parallelism
+	 *        The number of SAXEngines, typically the number of threads in the
+	 *        Executor.
+	 * @param maxPending
+	 *        The back-pressure limit for the build method.
+	 * @throws JDOMException
+	 *         if the SAXBuilder is unable to create an engine.
+	 */
+	public SAXBatchBuilder(final SAXBuilder builder, final Executor executor,
+			final int parallelism, final int maxPending) throws JDOMException {
+		if (executor == null) {
+			throw new NullPointerException("Cannot use a null Executor");
+		}
+		if (maxPending < 1) {
+			throw new IllegalArgumentException(
+					"At least one parse must be allowed, not " + maxPending);
+		}
+		if (builder != null && builder.getJDOMFactory() instanceof SlimJDOMFactory
+				&& !((SlimJDOMFactory)builder.getJDOMFactory()).isShared()) {
+			throw new IllegalArgumentException("A SlimJDOMFactory can only be " +
+					"used in multiple threads if it is shared.");
+		}
+		this.pool = new SAXBuilderEnginePool(builder, parallelism);
+		this.executor = executor;
+		this.maxPending = maxPending;
+	}
+
+	/**
+	 * The pool of engines used for the parses. This is useful for monitoring
+	 * how much time parses spend waiting for an engine.
+	 * 
+	 * @return the SAXBuilderEnginePool.
+	 */
+	public SAXBuilderEnginePool getEnginePool() {
+		return pool;
+	}
+
+	/**
+	 * Start parsing all the sources, and return a Future for each of them.
+	 * All the parse tasks are given to the Executor immediately, so this is
+	 * best for a modest number of sources.
+	 * 
+	 * @param sources
+	 *        The documents to parse.
+	 * @return The Future Document for each source, in the same order as the
+	 *         sources. The Future's <code>get()</code> throws an
+	 *         ExecutionException with the JDOMException (or IOException) as
+	 *         the cause if the source cannot be parsed.
+	 */
+	public List<Future<Document>> submit(
+			final Collection<? extends InputSource> sources) {
+		final List<Future<Document>> ret = 
+				new ArrayList<Future<Document>>(sources.size());
+		int index = 0;
+		for (final InputSource source : sources) {
+			final BuildTask task = new BuildTask(index++, source);
+			executor.execute(task);
+			ret.add(task);
+		}
+		return ret;
+	}
+
+	/**
+	 * Parse all the sources, giving each result to the Handler. No more than
+	 * the <code>maxPending</code> parses are in progress, or waiting to be
+	 * handled, at any time. This method returns when all the sources have
+	 * been handled.
+	 * <p>
+	 * If the Handler throws an exception, then the parses that are in
+	 * progress are cancelled, and the exception is thrown from this method.
+	 * 
+	 * @param sources
+	 *        The documents to parse (iterated only in the calling thread).
+	 * @param handler
+	 *        The Handler for the results.
+	 * @param ordered
+	 *        If true, the results are handled in the same order as the
+	 *        sources. If false, they are handled as soon as they are
+	 *        complete, which is faster if some documents take longer to parse
+	 *        than others.
+	 * @throws InterruptedException
+	 *         if the calling thread is interrupted while waiting for results
+	 *         (the parses in progress are cancelled).
+	 */
+	public void build(final Iterable<? extends InputSource> sources,
+			final Handler handler, final boolean ordered) 
+					throws InterruptedException {
+		final ArrayDeque<BuildTask> pending = new ArrayDeque<BuildTask>();
+		final ExecutorCompletionService<BuildTask> completion = ordered ? null :
+			new ExecutorCompletionService<BuildTask>(executor);
+		final Iterator<? extends InputSource> it = sources.iterator();
+		int index = 0;
+		boolean complete = false;
+		try {
+			while (it.hasNext() || !pending.isEmpty()) {
+				while (pending.size() < maxPending && it.hasNext()) {
+					final BuildTask task = new BuildTask(index++, it.next());
+					pending.add(task);
+					if (completion == null) {
+						executor.execute(task);
+					} else {
+						// the completion service queues the task when it is done.
+						completion.submit(task, task);
+					}
+				}
+				final BuildTask done;
+				if (completion == null) {
+					done = pending.poll();
+				} else {
+					done = doneTask(completion.take());
+					pending.remove(done);
+				}
+				handle(done, handler);
+			}
+			complete = true;
+		} finally {
+			if (!complete) {
+				for (final BuildTask task : pending) {
+					task.cancel(true);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the BuildTask that a completion-service Future represents.
+	 * @param future The completed Future (of the completion service).
+	 * @return The completed BuildTask.
+	 * @throws InterruptedException if interrupted (the Future is complete,
+	 * so this does not actually happen).
+	 */
+	private static BuildTask doneTask(final Future<BuildTask> future) 
+			throws InterruptedException {
+		try {
+			// the completion service's Future has the BuildTask as the result.
+			return future.get();
+		} catch (ExecutionException e) {
+			// the BuildTask never fails, it captures its own exceptions.
+			throw new IllegalStateException("Unexpected failure", e);
+		}
+	}
+
+	/**
+	 * Wait for a task to complete, and give its result to the handler.
+	 * @param task The task
+	 * @param handler The Handler
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	private static void handle(final BuildTask task, final Handler handler) 
+			throws InterruptedException {
+		final Document doc;
+		try {
+			doc = task.get();
+		} catch (ExecutionException e) {
+			handler.failed(task.index, task.source, e.getCause());
+			return;
+		}
+		handler.built(task.index, task.source, doc);
+	}
+
+}
@@ -0,0 +1,503 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.input.sax;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.JDOMFactory;
+import org.jdom2.input.SAXBuilder;
+
+/**
+ * A bounded, thread-safe pool of {@link SAXEngine} instances, all created from
+ * the same {@link SAXBuilder} configuration. Each engine keeps its own
+ * XMLReader, SAXHandler (and TextBuffer) for its whole life, so the cost of
+ * creating and configuring the parser is only paid once per engine, not once
+ * per document.
+ * <p>
+ * Engines can be borrowed and returned explicitly:
+ * <pre>
+ * SAXEngine engine = pool.borrowEngine();
+ * try {
+ *     Document doc = engine.build(in);
+ * } finally {
+ *     pool.returnEngine(engine);
+ * }
+ * </pre>
+ * but it is simpler to use the pool itself as a SAXEngine. Each of the
+ * <code>build(...)</code> methods on the pool borrows an engine, builds the
+ * Document, and returns the engine again. A thread that needs an engine when
+ * all the engines are in use waits until one is returned.
+ * <p>
+ * Engines are created as they are needed, up to the maximum pool size. The
+ * first engine is created when the pool is created, so configuration problems
+ * are reported immediately. The SAXBuilder should not be reconfigured once the
+ * pool is created. The same conditions apply to the SAXBuilder as for using
+ * {@link SAXBuilderEngine} instances in multiple threads: the JDOMFactory,
+ * XMLFilter, and XMLReaderJDOMFactory have to be thread-safe. Note that a
+ * {@link org.jdom2.SlimJDOMFactory} is only thread-safe if it is
+ * <i>shared</i>.
+ * <p>
+ * The pool keeps some simple statistics on how it is used, including the
+ * time spent waiting for an engine to become available. A lot of waiting
+ * suggests the pool is too small.
+ * 
+ * @see org.jdom2.input.sax
+ * @since JDOM 2.1.0
+ */
+public class SAXBuilderEnginePool implements SAXEngine {
+
+	/** The source of new engines */
+	private final SAXBuilder builder;
+	/** The maximum number of engines in this pool */
+	private final int maxEngines;
+	/** The first engine, used for the SAXEngine configuration getters */
+	private final SAXEngine prototype;
+
+	/** One permit for each engine that may be borrowed */
+	private final Semaphore permits;
+	/** The engines that are not borrowed */
+	private final ConcurrentLinkedQueue<SAXEngine> idle =
+			new ConcurrentLinkedQueue<SAXEngine>();
+	/** The engines that are borrowed */
+	private final Map<SAXEngine, Boolean> borrowed =
+			new ConcurrentHashMap<SAXEngine, Boolean>();
+	/** The number of engines created */
+	private final AtomicInteger created = new AtomicInteger();
+
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong waitCount = new AtomicLong();
+	private final AtomicLong waitNanos = new AtomicLong();
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	/**
+	 * Create a pool of up to <code>maxEngines</code> engines that parse the
+	 * way the specified SAXBuilder is configured to.
+	 * 
+	 * @param builder
+	 *        The SAXBuilder to create the engines with.
+	 * @param maxEngines
+	 *        The maximum number of engines (and thus concurrent parses).
+	 * @throws JDOMException
+	 *         if the SAXBuilder is unable to create an engine.
+	 */
+	public SAXBuilderEnginePool(final SAXBuilder builder, final int maxEngines)
+			throws JDOMException {
+		if (builder == null) {
+			throw new NullPointerException("Cannot use a null SAXBuilder");
+		}
+		if (maxEngines < 1) {
+			throw new IllegalArgumentException(
+					"The pool must allow at least one engine, not " + maxEngines);
+		}
+		this.builder = builder;
+		this.maxEngines = maxEngines;
+		this.permits = new Semaphore(maxEngines, true);
+		this.prototype = createEngine();
+		idle.add(prototype);
+	}
+
+	/**
+	 * Create a new engine from the SAXBuilder.
+	 * @return the new engine.
+	 * @throws JDOMException if the engine cannot be created.
+	 */
+	private SAXEngine createEngine() throws JDOMException {
+		final SAXEngine engine;
+		// SAXBuilder is not thread-safe
+		synchronized (builder) {
+			engine = builder.buildEngine();
+		}
+		created.incrementAndGet();
+		return engine;
+	}
+
+	/**
+	 * Get an engine for the exclusive use of the calling thread. This waits
+	 * until an engine is available. The engine must be returned with
+	 * {@link #returnEngine(SAXEngine)}.
+	 * 
+	 * @return A SAXEngine that is not in use by any other thread.
+	 * @throws JDOMException
+	 *         if a new engine is needed, and it cannot be created.
+	 * @throws InterruptedException
+	 *         if the thread is interrupted while waiting for an engine.
+	 */
+	public SAXEngine borrowEngine() throws JDOMException, InterruptedException {
+		if (!permits.tryAcquire()) {
+			final long start = System.nanoTime();
+			permits.acquire();
+			recordWait(System.nanoTime() - start);
+		}
+		return take();
+	}
+
+	/**
+	 * Get an engine for the exclusive use of the calling thread, waiting no
+	 * longer than the specified time for an engine to become available. The
+	 * engine must be returned with {@link #returnEngine(SAXEngine)}.
+	 * 
+	 * @param timeout
+	 *        The longest time to wait.
+	 * @param unit
+	 *        The units of the timeout.
+	 * @return A SAXEngine that is not in use by any other thread, or null if
+	 *         no engine became available in the time.
+	 * @throws JDOMException
+	 *         if a new engine is needed, and it cannot be created.
+	 * @throws InterruptedException
+	 *         if the thread is interrupted while waiting for an engine.
+	 */
+	public SAXEngine borrowEngine(final long timeout, final TimeUnit unit)
+			throws JDOMException, InterruptedException {
+		if (!permits.tryAcquire()) {
+			final long start = System.nanoTime();
+			final boolean got = permits.tryAcquire(timeout, unit);
+			recordWait(System.nanoTime() - start);
+			if (!got) {
+				return null;
+			}
+		}
+		return take();
+	}
+
+	/**
+	 * Get an idle engine (or create one). The caller has a permit.
+	 * @return the engine.
+	 * @throws JDOMException if an engine cannot be created.
+	 */
+	private SAXEngine take() throws JDOMException {
+		SAXEngine engine = idle.poll();
+		if (engine == null) {
+			try {
+				engine = createEngine();
+			} catch (JDOMException e) {
+				permits.release();
+				throw e;
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+		borrowed.put(engine, Boolean.TRUE);
+		borrowCount.incrementAndGet();
+		return engine;
+	}
+
+	private void recordWait(final long nanos) {
+		waitCount.incrementAndGet();
+		waitNanos.addAndGet(nanos);
+		long max = maxWaitNanos.get();
+		while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+			max = maxWaitNanos.get();
+		}
+	}
+
+	/**
+	 * Return an engine that was borrowed from this pool, making it available
+	 * to other threads. The calling thread must not use the engine after
+	 * returning it.
+	 * 
+	 * @param engine
+	 *        The engine to return.
+	 * @throws IllegalArgumentException
+	 *         if the engine is not currently borrowed from this pool.
+	 */
+	public void returnEngine(final SAXEngine engine) {
+		if (engine == null || borrowed.remove(engine) == null) {
+			throw new IllegalArgumentException(
+					"The SAXEngine was not borrowed from this pool");
+		}
+		idle.add(engine);
+		permits.release();
+	}
+
+	/**
+	 * The maximum number of engines this pool will create.
+	 * @return the maximum pool size.
+	 */
+	public int getMaxEngines() {
+		return maxEngines;
+	}
+
+	/**
+	 * The number of engines this pool has created so far.
+	 * @return the number of engines created.
+	 */
+	public int getCreatedCount() {
+		return created.get();
+	}
+
+	/**
+	 * The number of engines currently borrowed.
+	 * @return the number of engines in use.
+	 */
+	public int getBorrowedCount() {
+		return borrowed.size();
+	}
+
+	/**
+	 * The total number of times an engine has been borrowed (including by the
+	 * build methods on this pool).
+	 * @return the number of borrows.
+	 */
+	public long getBorrowCount() {
+		return borrowCount.get();
+	}
+
+	/**
+	 * The number of borrows that had to wait for an engine to be returned.
+	 * @return the number of borrows that waited.
+	 */
+	public long getWaitCount() {
+		return waitCount.get();
+	}
+
+	/**
+	 * The total time spent waiting for engines to be returned.
+	 * @param unit The units to return the time in.
+	 * @return the total wait time.
+	 */
+	public long getTotalWaitTime(final TimeUnit unit) {
+		return unit.convert(waitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * The longest time any one borrow waited for an engine to be returned.
+	 * @param unit The units to return the time in.
+	 * @return the longest wait time.
+	 */
+	public long getMaxWaitTime(final TimeUnit unit) {
+		return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Reset the borrow and wait statistics.
+	 */
+	public void resetStatistics() {
+		borrowCount.set(0);
+		waitCount.set(0);
+		waitNanos.set(0);
+		maxWaitNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "SAXBuilderEnginePool[engines=" + created.get() + "/" + maxEngines +
+				" borrowed=" + borrowed.size() + " borrows=" + borrowCount.get() +
+				" waits=" + waitCount.get() + " waitms=" + 
+				TimeUnit.NANOSECONDS.toMillis(waitNanos.get()) + "]";
+	}
+
+	/**
+	 * Borrow an engine for a build, converting an interrupt in to a
+	 * JDOMException (the interrupt status is restored).
+	 * @return The borrowed engine.
+	 * @throws JDOMException if the engine cannot be obtained.
+	 */
+	private SAXEngine borrowForBuild() throws JDOMException {
+		try {
+			return borrowEngine();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JDOMException("Interrupted while waiting for a SAXEngine", e);
+		}
+	}
+
+	/* *************************************************************
+	 * SAXEngine methods.
+	 * ************************************************************* */
+
+	@Override
+	public JDOMFactory getJDOMFactory() {
+		return prototype.getJDOMFactory();
+	}
+
+	@Override
+	public boolean isValidating() {
+		return prototype.isValidating();
+	}
+
+	@Override
+	public ErrorHandler getErrorHandler() {
+		return prototype.getErrorHandler();
+	}
+
+	@Override
+	public EntityResolver getEntityResolver() {
+		return prototype.getEntityResolver();
+	}
+
+	@Override
+	public DTDHandler getDTDHandler() {
+		return prototype.getDTDHandler();
+	}
+
+	@Override
+	public boolean getIgnoringElementContentWhitespace() {
+		return prototype.getIgnoringElementContentWhitespace();
+	}
+
+	@Override
+	public boolean getIgnoringBoundaryWhitespace() {
+		return prototype.getIgnoringBoundaryWhitespace();
+	}
+
+	@Override
+	public boolean getExpandEntities() {
+		return prototype.getExpandEntities();
+	}
+
+	@Override
+	public Document build(final InputSource in) throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(in);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final InputStream in) throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(in);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final File file) throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(file);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final URL url) throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(url);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final InputStream in, final String systemId)
+			throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(in, systemId);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final Reader characterStream)
+			throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(characterStream);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final Reader characterStream, final String systemId)
+			throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(characterStream, systemId);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+	@Override
+	public Document build(final String systemId) throws JDOMException, IOException {
+		final SAXEngine engine = borrowForBuild();
+		try {
+			return engine.build(systemId);
+		} finally {
+			returnEngine(engine);
+		}
+	}
+
+}
@@ -74,6 +74,7 @@ import org.jdom2.Attribute;
 import org.jdom2.AttributeType;
 import org.jdom2.CDATA;
 import org.jdom2.Comment;
+import org.jdom2.Content;
 import org.jdom2.DefaultJDOMFactory;
 import org.jdom2.DocType;
 import org.jdom2.Document;
@@ -83,8 +84,12 @@ import org.jdom2.JDOMFactory;
 import org.jdom2.Namespace;
 import org.jdom2.Parent;
 import org.jdom2.ProcessingInstruction;
+import org.jdom2.SlimJDOMFactory;
 import org.jdom2.Text;
+import org.jdom2.UncheckedJDOMFactory;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.internal.ContentStack;
+import org.jdom2.internal.NamespaceCache;
 
 /**
  * A support class for {@link SAXBuilder} which listens for SAX events.
@@ -135,6 +140,20 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 	/** Temporary holder for Text and CDATA */
 	private final TextBuffer textBuffer = new TextBuffer();
 
+	/**
+	 * The Namespaces recently used by this handler. Parsers typically report
+	 * the same (interned) prefix and URI Strings over and over, and this
+	 * resolves them without going to the global Namespace registry. Unlike
+	 * other state it is kept between parses.
+	 */
+	private final NamespaceCache namespaces = new NamespaceCache();
+
+	/**
+	 * The children of the elements being built, when they are added in bulk
+	 * (null if children are added one at a time).
+	 */
+	private final ContentStack bulk;
+
 	/** The external entities defined in this document */
 	private final Map<String, String[]> externalEntities = new HashMap<String, String[]>();
 
@@ -204,7 +223,27 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 	 *        <code>JDOMFactory</code> to be used for constructing objects
 	 */
 	public SAXHandler(final JDOMFactory factory) {
+		this(factory, false);
+	}
+
+	/**
+	 * This will create a new <code>SAXHandler</code> that listens to SAX events
+	 * and creates a JDOM Document, optionally adding the children of each
+	 * Element in one (bulk) operation when the Element ends. Bulk adds are
+	 * only used with an {@link UncheckedJDOMFactory}, and only by handlers
+	 * that do not access the Elements while they are being built.
+	 * 
+	 * @param factory
+	 *        <code>JDOMFactory</code> to be used for constructing objects
+	 * @param bulkadd
+	 *        whether children may be added in bulk.
+	 */
+	SAXHandler(final JDOMFactory factory, final boolean bulkadd) {
 		this.factory = factory != null ? factory : new DefaultJDOMFactory();
+		this.bulk = bulkadd && this.factory instanceof UncheckedJDOMFactory
+				? new ContentStack((UncheckedJDOMFactory)this.factory) : null;
+		textBuffer.setInterning(this.factory instanceof SlimJDOMFactory
+				&& ((SlimJDOMFactory)this.factory).isCachingText());
 		reset();
 	}
 
@@ -237,10 +276,14 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 		entityDepth = 0;
 		declaredNamespaces.clear();
 		internalSubset.setLength(0);
-		textBuffer.clear();
+		textBuffer.release();
+		if (bulk != null) {
+			bulk.clear();
+		}
 		externalEntities.clear();
 		ignoringWhite = false;
 		ignoringBoundaryWhite = false;
+		textBuffer.setDeferringWhitespace(false);
 		resetSubCLass();
 	}
 
@@ -257,18 +300,48 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 			currentDocument.setRootElement(element); // XXX should we use a
 			// factory call?
 			atRoot = false;
+		} else if (bulk != null) {
+			bulk.add(element);
 		} else {
 			factory.addContent(currentElement, element);
 		}
+		if (bulk != null) {
+			bulk.push(element);
+		}
 		currentElement = element;
 	}
 
+	/**
+	 * Add content to the Element being built. When children are added in
+	 * bulk they are collected, and added to the Element when it ends.
+	 * 
+	 * @param child
+	 *        the content to add.
+	 * @throws SAXException
+	 *         if there is no Element being built.
+	 */
+	private void appendContent(final Content child) throws SAXException {
+		if (bulk == null) {
+			factory.addContent(getCurrentElement(), child);
+		} else if (currentElement == null) {
+			// same as getCurrentElement().
+			throw new SAXException(
+					"Ill-formed XML document (multiple root elements detected)");
+		} else {
+			bulk.add(child);
+		}
+	}
+
 	/**
 	 * Returns the document. Should be called after parsing is complete.
 	 * 
 	 * @return <code>Document</code> - Document that was built
 	 */
 	public Document getDocument() {
+		if (bulk != null) {
+			// make any partially built content consistent.
+			bulk.flush();
+		}
 		return currentDocument;
 	}
 
@@ -334,6 +407,35 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 	public void setIgnoringBoundaryWhitespace(
 			final boolean ignoringBoundaryWhite) {
 		this.ignoringBoundaryWhite = ignoringBoundaryWhite;
+		textBuffer.setDeferringWhitespace(ignoringBoundaryWhite);
+	}
+
+	/**
+	 * Specifies whether short text values (like the whitespace used to indent
+	 * a document) should be interned: repeated values are looked up directly
+	 * from the parser's characters, and reuse an existing String instance
+	 * instead of creating a new one. This is enabled by default when the
+	 * factory is a {@link SlimJDOMFactory} that caches text values.
+	 * <p>
+	 * Unlike the other settings this is not cleared by {@link #reset()}.
+	 * 
+	 * @param interning
+	 *        Whether to intern short text values.
+	 * @since JDOM 2.1.0
+	 */
+	public void setInterningText(final boolean interning) {
+		textBuffer.setInterning(interning);
+	}
+
+	/**
+	 * Returns whether or not short text values are interned.
+	 * 
+	 * @return <code>boolean</code> - whether short text values are interned.
+	 * @see #setInterningText
+	 * @since JDOM 2.1.0
+	 */
+	public boolean getInterningText() {
+		return textBuffer.isInterning();
 	}
 
 	/**
@@ -500,7 +602,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 		if (atRoot) {
 			factory.addContent(currentDocument, pi);
 		} else {
-			factory.addContent(getCurrentElement(), pi);
+			appendContent(pi);
 		}
 	}
 
@@ -526,7 +628,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 				: factory.entityRef(currentLocator.getLineNumber(),
 						currentLocator.getColumnNumber(), name);
 
-		factory.addContent(getCurrentElement(), er);
+		appendContent(er);
 	}
 
 	/**
@@ -545,7 +647,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 		if (suppress)
 			return;
 
-		final Namespace ns = Namespace.getNamespace(prefix, uri);
+		final Namespace ns = namespaces.getNamespace(prefix, uri);
 		declaredNamespaces.add(ns);
 	}
 
@@ -593,7 +695,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 		// At this point either prefix and localName are set correctly or
 		// there is an error in the parser.
 
-		final Namespace namespace = Namespace
+		final Namespace namespace = namespaces
 				.getNamespace(prefix, namespaceURI);
 		final Element element = currentLocator == null ? factory.element(
 				localName, namespace) : factory.element(
@@ -613,7 +715,10 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 			// call...
 			atRoot = false;
 		} else {
-			factory.addContent(getCurrentElement(), element);
+			appendContent(element);
+		}
+		if (bulk != null) {
+			bulk.push(element);
 		}
 		currentElement = element;
 
@@ -679,6 +784,10 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 				// <xs:attribute name="attname" form="qualified" ... />
 				// or the schema sets attributeFormDefault="qualified"
 				final HashMap<String, Namespace> tmpmap = new HashMap<String, Namespace>();
+				if (bulk != null) {
+					// the element needs its ancestors.
+					bulk.flush();
+				}
 				for (final Namespace nss : element.getNamespacesInScope()) {
 					if (nss.getPrefix().length() > 0
 							&& nss.getURI().equals(attURI)) {
@@ -710,7 +819,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 					attPrefix = pfx;
 				}
 			}
-			final Namespace attNs = Namespace.getNamespace(attPrefix, attURI);
+			final Namespace attNs = namespaces.getNamespace(attPrefix, attURI);
 
 			final Attribute attribute = factory.attribute(attLocalName,
 					attValue, attType, attNs);
@@ -799,6 +908,8 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 	 */
 	protected void flushCharacters() throws SAXException {
 		if (ignoringBoundaryWhite) {
+			// whitespace is checked as the characters arrive, and a discarded
+			// whitespace-only run is never made in to a String.
 			if (!textBuffer.isAllWhitespace()) {
 				flushCharacters(textBuffer.toString());
 			}
@@ -834,11 +945,11 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 		if (previousCDATA) {
 			final CDATA cdata = currentLocator == null ? factory.cdata(data)
 					: factory.cdata(lastline, lastcol, data);
-			factory.addContent(getCurrentElement(), cdata);
+			appendContent(cdata);
 		} else {
 			final Text text = currentLocator == null ? factory.text(data)
 					: factory.text(lastline, lastcol, data);
-			factory.addContent(getCurrentElement(), text);
+			appendContent(text);
 		}
 
 		previousCDATA = inCDATA;
@@ -868,7 +979,15 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 
 		flushCharacters();
 
-		if (!atRoot) {
+		if (!atRoot && bulk != null) {
+			// the element is complete, add its children.
+			final Parent p = bulk.pop();
+			if (p == null) {
+				atRoot = true;
+			} else {
+				currentElement = (Element) p;
+			}
+		} else if (!atRoot) {
 			final Parent p = currentElement.getParent();
 			if (p instanceof Document) {
 				atRoot = true;
@@ -966,7 +1085,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 
 					// no way to tell if the entity was from an attribute or
 					// element so just assume element
-					factory.addContent(getCurrentElement(), entity);
+					appendContent(entity);
 				}
 				suppress = true;
 			}
@@ -1047,7 +1166,7 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 			if (atRoot) {
 				factory.addContent(currentDocument, comment);
 			} else {
-				factory.addContent(getCurrentElement(), comment);
+				appendContent(comment);
 			}
 		}
 	}
@@ -1134,6 +1253,10 @@ public class SAXHandler extends DefaultHandler implements LexicalHandler,
 			throw new SAXException(
 					"Ill-formed XML document (multiple root elements detected)");
 		}
+		if (bulk != null) {
+			// make any partially built content consistent.
+			bulk.flush();
+		}
 		return currentElement;
 	}
 
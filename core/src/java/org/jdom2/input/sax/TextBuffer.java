@@ -54,6 +54,8 @@
 
 package org.jdom2.input.sax;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 import org.jdom2.Verifier;
 import org.jdom2.internal.ArrayCopy;
 
@@ -66,28 +68,113 @@ import org.jdom2.internal.ArrayCopy;
  * uses). In this case, the returned text will be the first String chunk,
  * concatenated with the subsequent chunks stored in the char array. This
  * provides optimal performance in the common case, while still providing very
- * good performance in the uncommon case. Furthermore, avoiding StringBuilder
- * means that no extra unused char array space will be kept around after parsing
+ * good performance in the uncommon case.
+ * <p>
+ * The supplemental char array is only allocated when it is needed, and it is
+ * returned to a small JVM-wide pool when the TextBuffer is
+ * {@link #release() released} (at the end of each parse), so a single large
+ * buffer is shared by all the documents that are parsed one after the other,
+ * and no extra unused char array space will be kept around after parsing
  * is through.
+ * <p>
+ * Optionally, short values (which are typically repetitive, like the
+ * whitespace used to indent a document) can be interned: they are looked up
+ * in a small cache directly from the characters, and an existing String
+ * instance is returned without creating a new one.
+ * <p>
+ * When whitespace is being deferred (because whitespace-only text will be
+ * discarded) TextBuffer keeps track of whether all the characters are
+ * whitespace as they are appended, and a whitespace-only first chunk is only
+ * copied in to the (pooled) char array, so discarding it does not allocate
+ * anything. Otherwise the characters are not inspected when appended.
  * 
  * @author Bradley S. Huffman
  * @author Alex Rosen
  */
 final class TextBuffer {
 
+	/** The initial size of the supplemental char array */
+	private static final int INITIAL_SIZE = 1024;
+
+	/** Larger arrays are not returned to the pool */
+	private static final int MAX_POOLED_SIZE = 64 * 1024;
+
+	/** Longer values are never interned */
+	private static final int MAX_INTERN_LENGTH = 32;
+
+	/** The number of (direct-mapped) slots in the intern cache */
+	private static final int INTERN_SLOTS = 512;
+
+	/** Released char arrays available for reuse */
+	private static final AtomicReferenceArray<char[]> POOL =
+			new AtomicReferenceArray<char[]>(8);
+
+	/** The first chunk of the text value, if it is the only one. */
+	private String first = null;
+
 	/**
-	 * The text value. Only the first <code>arraySize</code> characters are
-	 * valid.
+	 * The text value, if there was more than one chunk. Only the first
+	 * <code>arraySize</code> characters are valid.
 	 */
-	private char[] array = new char[1024];
+	private char[] array = null;
 
-	/** The size of the text value. */
+	/** The size of the text value in the array. */
 	private int arraySize = 0;
 
+	/** The intern cache, null if interning is disabled. */
+	private String[] interned = null;
+
+	/**
+	 * Whether all the chars appended since the last clear are whitespace
+	 * (only tracked when whitespace is deferred).
+	 */
+	private boolean white = true;
+
+	/** Whether whitespace-only chunks should not be made in to Strings. */
+	private boolean deferwhite = false;
+
 	/** Constructor */
 	TextBuffer() {
 	}
 
+	/**
+	 * Enable or disable the interning of short values.
+	 * 
+	 * @param intern
+	 *        true to enable interning.
+	 */
+	void setInterning(final boolean intern) {
+		if (!intern) {
+			interned = null;
+		} else if (interned == null) {
+			interned = new String[INTERN_SLOTS];
+		}
+	}
+
+	/**
+	 * Is interning of short values enabled.
+	 * 
+	 * @return true if short values are interned.
+	 */
+	boolean isInterning() {
+		return interned != null;
+	}
+
+	/**
+	 * Specify whether whitespace-only text is likely to be discarded, in which
+	 * case a whitespace-only chunk is not made in to a String when appended.
+	 * 
+	 * @param defer
+	 *        true to defer creating Strings from whitespace.
+	 */
+	void setDeferringWhitespace(final boolean defer) {
+		if (defer && !deferwhite) {
+			// start tracking from the current value.
+			white = scanWhitespace();
+		}
+		deferwhite = defer;
+	}
+
 	/**
 	 * Append the specified text to the text value of this buffer.
 	 * 
@@ -99,19 +186,93 @@ final class TextBuffer {
 	 *        The number of chars to add.
 	 */
 	void append(final char[] source, final int start, final int count) {
-		if ((count + arraySize) > array.length) {
-			// grow by 25%
-			array = ArrayCopy.copyOf(array, count + arraySize + (array.length >> 2));
+		if (deferwhite && white) {
+			final int end = start + count;
+			for (int i = start; i < end; i++) {
+				if (!Verifier.isXMLWhitespace(source[i])) {
+					white = false;
+					break;
+				}
+			}
+		}
+		if (first == null && arraySize == 0 && !(white && deferwhite)) {
+			// the common case, one chunk becomes a String with no other copy.
+			first = makeString(source, start, count);
+			return;
+		}
+		if (first != null) {
+			// move the first chunk to the array.
+			final int len = first.length();
+			ensureCapacity(len + count);
+			first.getChars(0, len, array, 0);
+			arraySize = len;
+			first = null;
+		} else {
+			ensureCapacity(arraySize + count);
 		}
 		System.arraycopy(source, start, array, arraySize, count);
 		arraySize += count;
 	}
 
+	/**
+	 * Make sure the array can hold at least the specified number of chars.
+	 * 
+	 * @param capacity
+	 *        The minimum size of the array.
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (array == null) {
+			array = acquire(capacity);
+		} else if (capacity > array.length) {
+			// grow by 25%
+			array = ArrayCopy.copyOf(array, capacity + (array.length >> 2));
+		}
+	}
+
 	/**
 	 * Clears the text value and prepares the TextBuffer for reuse.
 	 */
 	void clear() {
+		first = null;
 		arraySize = 0;
+		white = true;
+	}
+
+	/**
+	 * Clears the text value, and returns the supplemental array to the pool.
+	 */
+	void release() {
+		clear();
+		if (array != null) {
+			if (array.length <= MAX_POOLED_SIZE) {
+				for (int i = 0; i < POOL.length(); i++) {
+					if (POOL.compareAndSet(i, null, array)) {
+						break;
+					}
+				}
+			}
+			array = null;
+		}
+	}
+
+	/**
+	 * Get a char array from the pool, or create a new one.
+	 * 
+	 * @param capacity
+	 *        The minimum size of the array.
+	 * @return a char array of at least the specified capacity.
+	 */
+	private static char[] acquire(final int capacity) {
+		for (int i = 0; i < POOL.length(); i++) {
+			final char[] pooled = POOL.getAndSet(i, null);
+			if (pooled != null) {
+				if (pooled.length >= capacity) {
+					return pooled;
+				}
+				// too small, forget it.
+			}
+		}
+		return new char[Math.max(capacity + (capacity >> 2), INITIAL_SIZE)];
 	}
 
 	/**
@@ -120,6 +281,25 @@ final class TextBuffer {
 	 * @return true if all chars are whitespace
 	 */
 	boolean isAllWhitespace() {
+		// tracked as the chars are appended, if whitespace is deferred.
+		return deferwhite ? white : scanWhitespace();
+	}
+
+	/**
+	 * Inspect the chars of the text value for non-whitespace.
+	 * 
+	 * @return true if all chars are whitespace
+	 */
+	private boolean scanWhitespace() {
+		if (first != null) {
+			int i = first.length();
+			while (--i >= 0) {
+				if (!Verifier.isXMLWhitespace(first.charAt(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
 		int i = arraySize;
 		while (--i >= 0) {
 			if (!Verifier.isXMLWhitespace(array[i])) {
@@ -129,13 +309,58 @@ final class TextBuffer {
 		return true;
 	}
 
+	/**
+	 * Create a String from the specified chars, using the intern cache if
+	 * it is enabled.
+	 * 
+	 * @param source
+	 *        The char[] data
+	 * @param start
+	 *        The offset of the first char
+	 * @param count
+	 *        The number of chars.
+	 * @return a String with the specified chars.
+	 */
+	private String makeString(final char[] source, final int start, final int count) {
+		if (count == 0) {
+			return "";
+		}
+		if (interned == null || count > MAX_INTERN_LENGTH) {
+			return String.valueOf(source, start, count);
+		}
+		final int end = start + count;
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + source[i];
+		}
+		final int slot = ((hash >>> 16) ^ hash) & (INTERN_SLOTS - 1);
+		final String cached = interned[slot];
+		if (cached != null && cached.length() == count && cached.hashCode() == hash) {
+			int i = count;
+			while (--i >= 0) {
+				if (cached.charAt(i) != source[start + i]) {
+					break;
+				}
+			}
+			if (i < 0) {
+				return cached;
+			}
+		}
+		final String value = String.valueOf(source, start, count);
+		interned[slot] = value;
+		return value;
+	}
+
 	/** Returns the text value stored in the buffer. */
 	@Override
 	public String toString() {
+		if (first != null) {
+			return first;
+		}
 		if (arraySize == 0) {
 			return "";
 		}
-		return String.valueOf(array, 0, arraySize);
+		return makeString(array, 0, arraySize);
 	}
 
 }
@@ -320,6 +320,18 @@
  SAXBuilder that represents the configuration you want, and then you can use this
  single SAXBuilder to create multiple SAXEngines as you need them in the pool by
  calling the <code>buildEngine()</code> method.
+ <p>
+ The {@link org.jdom2.input.sax.SAXBuilderEnginePool} is a ready-made bounded
+ and thread-safe pool of engines created this way. It is itself a SAXEngine,
+ and each of its 'build' methods borrows an engine from the pool for the
+ duration of the parse, so a single pool instance can be used by all the
+ threads in an application.
+ <p>
+ The {@link org.jdom2.input.sax.SAXBatchBuilder} goes one step further, and
+ parses a whole batch of documents in parallel on the threads of an Executor,
+ using a SAXBuilderEnginePool for the engines. The results are available as
+ Futures, or can be handled (with back-pressure) in the order of the sources,
+ or in the order the parses complete.
 
  <h2>Examples</h2>
  <a name="Examples" />
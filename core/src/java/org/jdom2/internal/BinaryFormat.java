@@ -0,0 +1,137 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.internal;
+
+/**
+ * Constants describing the compact binary format that is written by
+ * {@link org.jdom2.output.BinaryOutputter} and read by
+ * {@link org.jdom2.input.BinaryBuilder}.
+ * <p>
+ * A stream starts with the 4 {@link #MAGIC} bytes, the {@link #VERSION} byte,
+ * and a flags byte. If the flags contain {@link #FLAG_DEFLATE} the rest of
+ * the stream is compressed with a (zlib) Deflater. The rest of the stream is a
+ * single {@link #DOCUMENT} or {@link #ELEMENT} item.
+ * <p>
+ * Integers are written as unsigned varints: 7 bits per byte, least significant
+ * group first, with the high bit set on all but the last byte. Strings are
+ * a varint of the number of chars plus one (0 means null), followed by each
+ * char in 1, 2, or 3 bytes using the same encoding as
+ * {@link java.io.DataOutput#writeUTF(String)} (surrogate pairs are written as
+ * two chars).
+ * <p>
+ * Names, prefixes, URIs, and PI targets are written as symbols: each stream
+ * has a symbol table which starts empty. A symbol is a varint; 0 means a new
+ * symbol, which is then written as a String and added to the end of the
+ * table, otherwise it is the (1-based) index of a previous symbol. Namespaces
+ * are likewise written as a varint index in to a per-stream namespace table,
+ * where 0 is followed by the prefix and URI symbols of a new Namespace.
+ * <p>
+ * Each item is a tag byte followed by:
+ * <ul>
+ * <li>{@link #DOCUMENT}: the base URI String, a varint count of the content,
+ *     and the content items.
+ * <li>{@link #ELEMENT}: the name symbol, the Namespace, a varint count of
+ *     the additional Namespace declarations and those Namespaces, a varint
+ *     count of the Attributes, each of which is the name symbol, the
+ *     Namespace, the AttributeType ordinal byte, a flags byte
+ *     ({@link #ATTRIBUTE_DEFAULTED} when the Attribute is not specified) and
+ *     the value String; then a varint count of the content and the content
+ *     items.
+ * <li>{@link #TEXT}, {@link #CDATA}, {@link #COMMENT}: the text String.
+ * <li>{@link #PROCESSING_INSTRUCTION}: the target symbol and data String.
+ * <li>{@link #ENTITY_REF}: the name symbol, the public ID and system ID
+ *     Strings.
+ * <li>{@link #DOCTYPE}: the element name symbol, then the public ID, system
+ *     ID, and internal subset Strings.
+ * </ul>
+ * 
+ * @since JDOM 2.1.0
+ */
+public final class BinaryFormat {
+
+	/** The first bytes of every stream, "JDOM" in ASCII. */
+	public static final int MAGIC = 0x4A444F4D;
+
+	/** The current (and only) version of the format. */
+	public static final int VERSION = 1;
+
+	/** Flag set when the body of the stream is compressed. */
+	public static final int FLAG_DEFLATE = 0x01;
+
+	/** Flag set when an Attribute is not specified (it is a default). */
+	public static final int ATTRIBUTE_DEFAULTED = 0x01;
+
+	/** Tag for a Document. */
+	public static final int DOCUMENT = 1;
+	/** Tag for an Element. */
+	public static final int ELEMENT = 2;
+	/** Tag for a Text. */
+	public static final int TEXT = 3;
+	/** Tag for a CDATA. */
+	public static final int CDATA = 4;
+	/** Tag for a Comment. */
+	public static final int COMMENT = 5;
+	/** Tag for a ProcessingInstruction. */
+	public static final int PROCESSING_INSTRUCTION = 6;
+	/** Tag for an EntityRef. */
+	public static final int ENTITY_REF = 7;
+	/** Tag for a DocType. */
+	public static final int DOCTYPE = 8;
+
+	private BinaryFormat() {
+		// constants only.
+	}
+
+}
@@ -0,0 +1,182 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.internal;
+
+import org.jdom2.Content;
+import org.jdom2.Parent;
+import org.jdom2.UncheckedJDOMFactory;
+
+/**
+ * Collects the children of the Parents that are being built, so that each
+ * Parent's children can be added to it in one (bulk) operation with
+ * {@link UncheckedJDOMFactory#addContent(Parent, Content[], int, int)}.
+ * <p>
+ * The Parents being built form a stack: {@link #push(Parent)} a Parent when
+ * its content starts, {@link #add(Content)} its children, and
+ * {@link #pop()} it when its content ends, at which point its children are
+ * added to it. Note that until then the children do not have a parent.
+ * {@link #flush()} adds all the children collected so far to their Parents
+ * (without changing the stack), for when the partially built content needs
+ * to be consistent.
+ * <p>
+ * Instances are not thread-safe, and are reusable (after a {@link #clear()}).
+ * 
+ * @since JDOM 2.1.0
+ */
+public final class ContentStack {
+
+	private final UncheckedJDOMFactory factory;
+
+	private Content[] content = new Content[32];
+	private int size = 0;
+
+	private Parent[] parents = new Parent[16];
+	private int[] marks = new int[16];
+	private int depth = 0;
+
+	/**
+	 * Create a ContentStack that adds the content with the given factory.
+	 * 
+	 * @param factory
+	 *        the factory to add content with.
+	 */
+	public ContentStack(final UncheckedJDOMFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Start collecting the children of a Parent.
+	 * 
+	 * @param parent
+	 *        the Parent whose children follow.
+	 */
+	public void push(final Parent parent) {
+		if (depth == parents.length) {
+			parents = ArrayCopy.copyOf(parents, depth * 2);
+			marks = ArrayCopy.copyOf(marks, depth * 2);
+		}
+		parents[depth] = parent;
+		marks[depth] = size;
+		depth++;
+	}
+
+	/**
+	 * Collect a child of the Parent at the top of the stack.
+	 * 
+	 * @param child
+	 *        the child to collect.
+	 */
+	public void add(final Content child) {
+		if (size == content.length) {
+			content = ArrayCopy.copyOf(content, size * 2);
+		}
+		content[size++] = child;
+	}
+
+	/**
+	 * Add the collected children to the Parent at the top of the stack, and
+	 * remove it from the stack.
+	 * 
+	 * @return the Parent that is now at the top of the stack, or null if the
+	 *         stack is now empty.
+	 */
+	public Parent pop() {
+		depth--;
+		final int mark = marks[depth];
+		factory.addContent(parents[depth], content, mark, size - mark);
+		parents[depth] = null;
+		while (size > mark) {
+			content[--size] = null;
+		}
+		return depth == 0 ? null : parents[depth - 1];
+	}
+
+	/**
+	 * Add all the children collected so far to their Parents. The Parents
+	 * remain on the stack.
+	 */
+	public void flush() {
+		for (int d = 0; d < depth; d++) {
+			final int end = d + 1 < depth ? marks[d + 1] : size;
+			factory.addContent(parents[d], content, marks[d], end - marks[d]);
+			marks[d] = 0;
+		}
+		while (size > 0) {
+			content[--size] = null;
+		}
+	}
+
+	/**
+	 * Get the number of Parents on the stack.
+	 * 
+	 * @return the depth of the stack.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * Discard all the collected children, and empty the stack.
+	 */
+	public void clear() {
+		while (size > 0) {
+			content[--size] = null;
+		}
+		while (depth > 0) {
+			parents[--depth] = null;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.internal;
+
+import org.jdom2.Namespace;
+
+/**
+ * A small, unsynchronized cache of Namespace instances for use by a single
+ * builder (a single thread). XML parsers typically report the prefixes and
+ * URIs of a document using the same (interned) String instances over and
+ * over, and for those this cache resolves the Namespace with an array access
+ * and two identity compares, without touching the global Namespace registry
+ * at all.
+ * <p>
+ * The cache is direct-mapped: each prefix/URI pair has one possible slot,
+ * and a new pair simply replaces whatever was in its slot before. Misses
+ * are resolved with {@link Namespace#getNamespace(String, String)}, so this
+ * returns exactly the same instances (and throws the same exceptions) as
+ * that method.
+ * 
+ * @since JDOM 2.1.0
+ */
+public final class NamespaceCache {
+
+	/** The number of slots (a power of 2). */
+	private static final int SIZE = 64;
+
+	private final Namespace[] slots = new Namespace[SIZE];
+
+	/**
+	 * Get the Namespace for the given prefix and URI.
+	 * 
+	 * @param prefix
+	 *        The Namespace prefix (null is the same as "")
+	 * @param uri
+	 *        The Namespace URI
+	 * @return the Namespace.
+	 * @see Namespace#getNamespace(String, String)
+	 */
+	public Namespace getNamespace(final String prefix, final String uri) {
+		if (prefix == null || uri == null) {
+			return Namespace.getNamespace(prefix, uri);
+		}
+		final int hash = uri.hashCode() * 31 + prefix.hashCode();
+		final int slot = ((hash >>> 16) ^ hash) & (SIZE - 1);
+		final Namespace ns = slots[slot];
+		if (ns != null) {
+			final String nsuri = ns.getURI();
+			final String nsprefix = ns.getPrefix();
+			if ((nsuri == uri || nsuri.equals(uri))
+					&& (nsprefix == prefix || nsprefix.equals(prefix))) {
+				return ns;
+			}
+		}
+		final Namespace got = Namespace.getNamespace(prefix, uri);
+		slots[slot] = got;
+		return got;
+	}
+
+}
@@ -0,0 +1,446 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.jdom2.Attribute;
+import org.jdom2.Comment;
+import org.jdom2.Content;
+import org.jdom2.DocType;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.EntityRef;
+import org.jdom2.Namespace;
+import org.jdom2.Parent;
+import org.jdom2.ProcessingInstruction;
+import org.jdom2.Text;
+import org.jdom2.internal.ArrayCopy;
+import org.jdom2.internal.BinaryFormat;
+import org.jdom2.input.BinaryBuilder;
+
+/**
+ * Outputs a JDOM Document or Element in a compact binary format that can be
+ * read back with {@link BinaryBuilder}.
+ * <p>
+ * The binary format is intended for shipping and caching JDOM content between
+ * JVMs: it is much faster to write and read than XML, and much smaller and
+ * faster than Java serialization, because each stream has a symbol table so
+ * element and attribute names, prefixes, and namespace URIs are written only
+ * once. All the JDOM content types are preserved, including the DocType,
+ * EntityRef, CDATA, and the Attribute types. The Document base URI is
+ * preserved, but the Document properties are not. The format is described in
+ * {@link BinaryFormat}.
+ * <p>
+ * The output can optionally be compressed, which is useful when the content
+ * is large and the stream is slow.
+ * <p>
+ * BinaryOutputter instances are thread-safe, and the content is written
+ * without recursion, so deeply nested content can be output.
+ * 
+ * @since JDOM 2.1.0
+ */
+public class BinaryOutputter {
+
+	private final boolean compress;
+
+	/**
+	 * Create a BinaryOutputter that does not compress the output.
+	 */
+	public BinaryOutputter() {
+		this(false);
+	}
+
+	/**
+	 * Create a BinaryOutputter.
+	 * 
+	 * @param compress
+	 *        true if the output should be compressed.
+	 */
+	public BinaryOutputter(final boolean compress) {
+		this.compress = compress;
+	}
+
+	/**
+	 * Whether the output is compressed.
+	 * 
+	 * @return true if the output is compressed.
+	 */
+	public boolean isCompressing() {
+		return compress;
+	}
+
+	/**
+	 * Output the Document to the OutputStream. The stream is flushed but not
+	 * closed.
+	 * 
+	 * @param doc
+	 *        the Document to output.
+	 * @param out
+	 *        the OutputStream to write to.
+	 * @throws IOException
+	 *         if there is a problem writing to the stream.
+	 */
+	public void output(final Document doc, final OutputStream out)
+			throws IOException {
+		final Encoder enc = new Encoder(out, compress);
+		try {
+			enc.writeByte(BinaryFormat.DOCUMENT);
+			enc.writeString(doc.getBaseURI());
+			writeContent(enc, doc);
+			enc.finish();
+		} finally {
+			enc.end();
+		}
+	}
+
+	/**
+	 * Output the Element (and its content) to the OutputStream. The stream is
+	 * flushed but not closed.
+	 * 
+	 * @param element
+	 *        the Element to output.
+	 * @param out
+	 *        the OutputStream to write to.
+	 * @throws IOException
+	 *         if there is a problem writing to the stream.
+	 */
+	public void output(final Element element, final OutputStream out)
+			throws IOException {
+		final Encoder enc = new Encoder(out, compress);
+		try {
+			enc.writeElement(element);
+			writeContent(enc, element);
+			enc.finish();
+		} finally {
+			enc.end();
+		}
+	}
+
+	/**
+	 * Output the Document to a byte array.
+	 * 
+	 * @param doc
+	 *        the Document to output.
+	 * @return the binary form of the Document.
+	 */
+	public byte[] outputBytes(final Document doc) {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try {
+			output(doc, baos);
+		} catch (IOException e) {
+			// ByteArrayOutputStream does not throw IOException.
+			throw new IllegalStateException("Unexpected IOException", e);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Output the Element (and its content) to a byte array.
+	 * 
+	 * @param element
+	 *        the Element to output.
+	 * @return the binary form of the Element.
+	 */
+	public byte[] outputBytes(final Element element) {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try {
+			output(element, baos);
+		} catch (IOException e) {
+			// ByteArrayOutputStream does not throw IOException.
+			throw new IllegalStateException("Unexpected IOException", e);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Write the content of the Parent (the Parent itself has already been
+	 * written), using an explicit stack of the Parents being written instead
+	 * of recursion.
+	 */
+	private static void writeContent(final Encoder enc, final Parent top)
+			throws IOException {
+		Parent[] parents = new Parent[16];
+		int[] indexes = new int[16];
+		int depth = 0;
+		parents[0] = top;
+		enc.writeVarint(top.getContentSize());
+		while (depth >= 0) {
+			final Parent parent = parents[depth];
+			final int index = indexes[depth];
+			if (index >= parent.getContentSize()) {
+				parents[depth--] = null;
+				continue;
+			}
+			indexes[depth] = index + 1;
+			final Content content = parent.getContent(index);
+			if (content instanceof Element) {
+				final Element emt = (Element)content;
+				enc.writeElement(emt);
+				enc.writeVarint(emt.getContentSize());
+				if (++depth == parents.length) {
+					parents = ArrayCopy.copyOf(parents, depth * 2);
+					indexes = ArrayCopy.copyOf(indexes, depth * 2);
+				}
+				parents[depth] = emt;
+				indexes[depth] = 0;
+			} else {
+				enc.writeContent(content);
+			}
+		}
+	}
+
+	/**
+	 * Buffers the encoded bytes, and keeps the symbol and namespace tables.
+	 */
+	private static final class Encoder {
+		private final OutputStream out;
+		private final Deflater deflater;
+		private final OutputStream sink;
+		private final byte[] buf = new byte[8192];
+		private int pos = 0;
+		private final HashMap<String, Integer> symbols =
+				new HashMap<String, Integer>();
+		private final IdentityHashMap<Namespace, Integer> namespaces =
+				new IdentityHashMap<Namespace, Integer>();
+
+		Encoder(final OutputStream out, final boolean compress)
+				throws IOException {
+			this.out = out;
+			out.write(BinaryFormat.MAGIC >>> 24);
+			out.write(BinaryFormat.MAGIC >>> 16);
+			out.write(BinaryFormat.MAGIC >>> 8);
+			out.write(BinaryFormat.MAGIC);
+			out.write(BinaryFormat.VERSION);
+			if (compress) {
+				out.write(BinaryFormat.FLAG_DEFLATE);
+				deflater = new Deflater(Deflater.BEST_SPEED);
+				sink = new DeflaterOutputStream(out, deflater, 8192);
+			} else {
+				out.write(0);
+				deflater = null;
+				sink = out;
+			}
+		}
+
+		void finish() throws IOException {
+			flush();
+			if (deflater != null) {
+				((DeflaterOutputStream)sink).finish();
+			}
+			out.flush();
+		}
+
+		void end() {
+			if (deflater != null) {
+				deflater.end();
+			}
+		}
+
+		private void flush() throws IOException {
+			if (pos > 0) {
+				sink.write(buf, 0, pos);
+				pos = 0;
+			}
+		}
+
+		void writeByte(final int b) throws IOException {
+			if (pos == buf.length) {
+				flush();
+			}
+			buf[pos++] = (byte)b;
+		}
+
+		void writeVarint(int val) throws IOException {
+			if (pos > buf.length - 5) {
+				flush();
+			}
+			while ((val & ~0x7F) != 0) {
+				buf[pos++] = (byte)((val & 0x7F) | 0x80);
+				val >>>= 7;
+			}
+			buf[pos++] = (byte)val;
+		}
+
+		void writeString(final String str) throws IOException {
+			if (str == null) {
+				writeVarint(0);
+				return;
+			}
+			final int len = str.length();
+			writeVarint(len + 1);
+			for (int i = 0; i < len; i++) {
+				if (pos > buf.length - 3) {
+					flush();
+				}
+				final char c = str.charAt(i);
+				if (c > 0 && c < 0x80) {
+					buf[pos++] = (byte)c;
+				} else if (c < 0x800) {
+					buf[pos++] = (byte)(0xC0 | (c >> 6));
+					buf[pos++] = (byte)(0x80 | (c & 0x3F));
+				} else {
+					buf[pos++] = (byte)(0xE0 | (c >> 12));
+					buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+					buf[pos++] = (byte)(0x80 | (c & 0x3F));
+				}
+			}
+		}
+
+		void writeSymbol(final String symbol) throws IOException {
+			final Integer index = symbols.get(symbol);
+			if (index != null) {
+				writeVarint(index.intValue());
+				return;
+			}
+			writeVarint(0);
+			writeString(symbol);
+			symbols.put(symbol, Integer.valueOf(symbols.size() + 1));
+		}
+
+		void writeNamespace(final Namespace ns) throws IOException {
+			final Integer index = namespaces.get(ns);
+			if (index != null) {
+				writeVarint(index.intValue());
+				return;
+			}
+			writeVarint(0);
+			writeSymbol(ns.getPrefix());
+			writeSymbol(ns.getURI());
+			namespaces.put(ns, Integer.valueOf(namespaces.size() + 1));
+		}
+
+		/**
+		 * Write everything but the content of the Element.
+		 */
+		void writeElement(final Element emt) throws IOException {
+			writeByte(BinaryFormat.ELEMENT);
+			writeSymbol(emt.getName());
+			writeNamespace(emt.getNamespace());
+			final List<Namespace> additional = emt.getAdditionalNamespaces();
+			writeVarint(additional.size());
+			for (int i = 0; i < additional.size(); i++) {
+				writeNamespace(additional.get(i));
+			}
+			if (!emt.hasAttributes()) {
+				writeVarint(0);
+				return;
+			}
+			final List<Attribute> atts = emt.getAttributes();
+			final int size = atts.size();
+			writeVarint(size);
+			for (int i = 0; i < size; i++) {
+				final Attribute att = atts.get(i);
+				writeSymbol(att.getName());
+				writeNamespace(att.getNamespace());
+				writeByte(att.getAttributeType().ordinal());
+				writeByte(att.isSpecified() ? 0 : BinaryFormat.ATTRIBUTE_DEFAULTED);
+				writeString(att.getValue());
+			}
+		}
+
+		/**
+		 * Write any Content other than an Element.
+		 */
+		void writeContent(final Content content) throws IOException {
+			switch (content.getCType()) {
+				case Text:
+					writeByte(BinaryFormat.TEXT);
+					writeString(((Text)content).getText());
+					break;
+				case CDATA:
+					writeByte(BinaryFormat.CDATA);
+					writeString(((Text)content).getText());
+					break;
+				case Comment:
+					writeByte(BinaryFormat.COMMENT);
+					writeString(((Comment)content).getText());
+					break;
+				case ProcessingInstruction:
+					final ProcessingInstruction pi = (ProcessingInstruction)content;
+					writeByte(BinaryFormat.PROCESSING_INSTRUCTION);
+					writeSymbol(pi.getTarget());
+					writeString(pi.getData());
+					break;
+				case EntityRef:
+					final EntityRef er = (EntityRef)content;
+					writeByte(BinaryFormat.ENTITY_REF);
+					writeSymbol(er.getName());
+					writeString(er.getPublicID());
+					writeString(er.getSystemID());
+					break;
+				case DocType:
+					final DocType dt = (DocType)content;
+					writeByte(BinaryFormat.DOCTYPE);
+					writeSymbol(dt.getElementName());
+					writeString(dt.getPublicID());
+					writeString(dt.getSystemID());
+					writeString(dt.getInternalSubset());
+					break;
+				default:
+					throw new IllegalStateException(
+							"Unexpected content type " + content.getCType());
+			}
+		}
+	}
+
+}
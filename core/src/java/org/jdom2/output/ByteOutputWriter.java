@@ -0,0 +1,282 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A Writer that encodes characters directly in to bytes for the UTF-8,
+ * US-ASCII, and ISO-8859-1 encodings, and writes the bytes in blocks to an
+ * OutputStream.
+ * <p>
+ * The XMLOutputter uses this instead of an OutputStreamWriter for those
+ * encodings. Compared to the BufferedWriter/OutputStreamWriter/
+ * BufferedOutputStream combination there is just one buffer (of bytes), no
+ * CharsetEncoder, and no intermediate char[] copies of the String values that
+ * are written. Characters that cannot be represented in the encoding (and
+ * unpaired surrogates) are written as '?', the same as an OutputStreamWriter.
+ * <p>
+ * Flushing the writer writes the buffered bytes, and flushes the OutputStream.
+ * 
+ * @since JDOM 2.1.0
+ */
+final class ByteOutputWriter extends Writer {
+
+	/** The encoding kinds */
+	private static final int UTF8 = 0, ASCII = 1, LATIN1 = 2;
+
+	/** The size of the byte buffer */
+	private static final int BUFFERSIZE = 8192;
+
+	/**
+	 * Get a ByteOutputWriter for the specified encoding, if it is one that is
+	 * supported.
+	 * @param out The OutputStream to write the bytes to.
+	 * @param encoding The character encoding.
+	 * @return a ByteOutputWriter, or null if the encoding is not supported.
+	 */
+	static ByteOutputWriter forEncoding(final OutputStream out, 
+			final String encoding) {
+		if ("UTF-8".equalsIgnoreCase(encoding) || 
+				"UTF8".equalsIgnoreCase(encoding)) {
+			return new ByteOutputWriter(out, UTF8);
+		}
+		if ("US-ASCII".equalsIgnoreCase(encoding) || 
+				"ASCII".equalsIgnoreCase(encoding)) {
+			return new ByteOutputWriter(out, ASCII);
+		}
+		if ("ISO-8859-1".equalsIgnoreCase(encoding) || 
+				"Latin1".equalsIgnoreCase(encoding)) {
+			return new ByteOutputWriter(out, LATIN1);
+		}
+		return null;
+	}
+
+	private final OutputStream out;
+	private final int kind;
+	/** The highest char that encodes as a single byte */
+	private final char single;
+	private final byte[] buffer = new byte[BUFFERSIZE];
+	private int pos = 0;
+	/** A high surrogate waiting for its low surrogate (UTF-8), or 0 */
+	private char pending = 0;
+
+	private ByteOutputWriter(final OutputStream out, final int kind) {
+		super();
+		this.out = out;
+		this.kind = kind;
+		this.single = kind == LATIN1 ? '\u00FF' : '\u007F';
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		if (pending == 0 && c <= single) {
+			if (pos == BUFFERSIZE) {
+				drain();
+			}
+			buffer[pos++] = (byte)c;
+		} else {
+			encode((char)c);
+		}
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len)
+			throws IOException {
+		final int end = off + len;
+		int i = off;
+		while (i < end) {
+			if (pending == 0) {
+				// single-byte run, bounded by the space in the buffer.
+				int lim = end;
+				if (lim - i > BUFFERSIZE - pos) {
+					lim = i + BUFFERSIZE - pos;
+				}
+				char c = 0;
+				while (i < lim && (c = cbuf[i]) <= single) {
+					buffer[pos++] = (byte)c;
+					i++;
+				}
+				if (pos == BUFFERSIZE) {
+					drain();
+				}
+				if (i == lim) {
+					continue;
+				}
+			}
+			encode(cbuf[i++]);
+		}
+	}
+
+	@Override
+	public void write(final String str, final int off, final int len)
+			throws IOException {
+		final int end = off + len;
+		int i = off;
+		while (i < end) {
+			if (pending == 0) {
+				// single-byte run, bounded by the space in the buffer.
+				int lim = end;
+				if (lim - i > BUFFERSIZE - pos) {
+					lim = i + BUFFERSIZE - pos;
+				}
+				char c = 0;
+				while (i < lim && (c = str.charAt(i)) <= single) {
+					buffer[pos++] = (byte)c;
+					i++;
+				}
+				if (pos == BUFFERSIZE) {
+					drain();
+				}
+				if (i == lim) {
+					continue;
+				}
+			}
+			encode(str.charAt(i++));
+		}
+	}
+
+	/**
+	 * Encode a character that may need more than one byte.
+	 * @param c The character to encode.
+	 * @throws IOException if the OutputStream fails.
+	 */
+	private void encode(final char c) throws IOException {
+		if (BUFFERSIZE - pos < 4) {
+			drain();
+		}
+		if (kind != UTF8) {
+			// surrogate pairs are a single '?' 
+			if (pending != 0) {
+				pending = 0;
+				if (c >= '\uDC00' && c <= '\uDFFF') {
+					buffer[pos++] = '?';
+					return;
+				}
+				buffer[pos++] = '?';
+			}
+			if (c <= single) {
+				buffer[pos++] = (byte)c;
+			} else if (c >= '\uD800' && c <= '\uDBFF') {
+				pending = c;
+			} else {
+				buffer[pos++] = '?';
+			}
+			return;
+		}
+		if (pending != 0) {
+			final char high = pending;
+			pending = 0;
+			if (c >= '\uDC00' && c <= '\uDFFF') {
+				final int cp = Character.toCodePoint(high, c);
+				buffer[pos++] = (byte)(0xF0 | (cp >> 18));
+				buffer[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+				buffer[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+				buffer[pos++] = (byte)(0x80 | (cp & 0x3F));
+				return;
+			}
+			// unpaired high surrogate
+			buffer[pos++] = '?';
+			if (BUFFERSIZE - pos < 3) {
+				drain();
+			}
+		}
+		if (c < 0x80) {
+			buffer[pos++] = (byte)c;
+		} else if (c < 0x800) {
+			buffer[pos++] = (byte)(0xC0 | (c >> 6));
+			buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+		} else if (c >= '\uD800' && c <= '\uDBFF') {
+			pending = c;
+		} else if (c >= '\uDC00' && c <= '\uDFFF') {
+			// unpaired low surrogate
+			buffer[pos++] = '?';
+		} else {
+			buffer[pos++] = (byte)(0xE0 | (c >> 12));
+			buffer[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+			buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+		}
+	}
+
+	/**
+	 * Write the buffered bytes to the OutputStream.
+	 * @throws IOException if the OutputStream fails.
+	 */
+	private void drain() throws IOException {
+		if (pos > 0) {
+			out.write(buffer, 0, pos);
+			pos = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (pending != 0) {
+			pending = 0;
+			write('?');
+		}
+		flush();
+		out.close();
+	}
+
+}
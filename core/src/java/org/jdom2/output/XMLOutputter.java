@@ -61,6 +61,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
 import org.jdom2.Attribute;
@@ -93,7 +95,13 @@ import org.jdom2.output.support.XMLOutputProcessor;
  * </ul>
  * <p>
  * There are <code>{@link #output output(...)}</code> methods to print any of
- * the standard JDOM classes to either a Writer or an OutputStream.
+ * the standard JDOM classes to either a Writer or an OutputStream, and
+ * Documents and Elements can also be printed to a WritableByteChannel.
+ * <p>
+ * When the output is an OutputStream (or WritableByteChannel) and the Format
+ * encoding is UTF-8, US-ASCII, or ISO-8859-1, the characters are encoded
+ * directly in to a byte buffer, which is faster than encoding them with an
+ * OutputStreamWriter.
  * <p>
  * <b>Warning</b>: When outputting to a Writer, make sure the writer's encoding
  * matches the encoding setting in the Format object. This ensures the encoding
@@ -168,6 +176,12 @@ public final class XMLOutputter implements Cloneable {
 	private static final Writer makeWriter(final OutputStream out,
 			final Format format)
 			throws java.io.UnsupportedEncodingException {
+		// UTF-8, US-ASCII and ISO-8859-1 are encoded directly to bytes.
+		final Writer direct = ByteOutputWriter.forEncoding(out, 
+				format.getEncoding());
+		if (direct != null) {
+			return direct;
+		}
 		return new BufferedWriter(new OutputStreamWriter(
 				new BufferedOutputStream(out), format.getEncoding()));
 	}
@@ -397,6 +411,47 @@ public final class XMLOutputter implements Cloneable {
 		output(doc, makeWriter(out, myFormat));
 	}
 
+	/**
+	 * This will print the <code>{@link Document}</code> to the given
+	 * WritableByteChannel. The characters are printed using the encoding
+	 * specified in the constructor, or a default of UTF-8. The channel must be
+	 * in blocking mode.
+	 * 
+	 * @param doc
+	 *        <code>Document</code> to format.
+	 * @param channel
+	 *        <code>WritableByteChannel</code> to use.
+	 * @throws IOException
+	 *         if there's any problem writing.
+	 * @throws NullPointerException
+	 *         if the specified content is null.
+	 * @since JDOM 2.1.0
+	 */
+	public final void output(Document doc, WritableByteChannel channel)
+			throws IOException {
+		output(doc, Channels.newOutputStream(channel));
+	}
+
+	/**
+	 * Print out an <code>{@link Element}</code>, including its
+	 * <code>{@link Attribute}</code>s, and all contained (child) elements, etc.
+	 * to the given WritableByteChannel. The channel must be in blocking mode.
+	 * 
+	 * @param element
+	 *        <code>Element</code> to output.
+	 * @param channel
+	 *        <code>WritableByteChannel</code> to use.
+	 * @throws IOException
+	 *         if there's any problem writing.
+	 * @throws NullPointerException
+	 *         if the specified content is null.
+	 * @since JDOM 2.1.0
+	 */
+	public final void output(Element element, WritableByteChannel channel)
+			throws IOException {
+		output(element, Channels.newOutputStream(channel));
+	}
+
 	/**
 	 * This will print the <code>{@link DocType}</code> to the given
 	 * OutputStream.
@@ -70,6 +70,7 @@ import org.jdom2.JDOMConstants;
 import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
+import org.jdom2.internal.ArrayCopy;
 import org.jdom2.output.DOMOutputter;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
@@ -417,6 +418,22 @@ public abstract class AbstractDOMOutputProcessor extends
 		return attr;
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #printElement(FormatStack, NamespaceStack, org.w3c.dom.Document, Element)} or {@link #printContent(FormatStack, NamespaceStack, org.w3c.dom.Document, org.w3c.dom.Node, Walker)}. Descendant
+	 * Elements are then printed through those methods, recursively, as they
+	 * always were. This is fixed for the instance, so it is reentrant.
+	 */
+	private final boolean recursive =
+			isOverridden(getClass(), AbstractDOMOutputProcessor.class,
+					"printElement", FormatStack.class, NamespaceStack.class,
+					org.w3c.dom.Document.class, Element.class)
+			|| isOverridden(getClass(), AbstractDOMOutputProcessor.class,
+					"printContent", FormatStack.class, NamespaceStack.class,
+					org.w3c.dom.Document.class, org.w3c.dom.Node.class, Walker.class)
+			|| isOverridden(getClass(), AbstractDOMOutputProcessor.class,
+					"helperContentDispatcher", FormatStack.class, NamespaceStack.class,
+					org.w3c.dom.Document.class, Content.class);
+
 	/**
 	 * This will handle printing of an {@link Element}.
 	 * <p>
@@ -426,6 +443,16 @@ public abstract class AbstractDOMOutputProcessor extends
 	 * The actual formatting of the content is managed by the Walker created for
 	 * the Element's content.
 	 * <p>
+	 * Descendant Elements are converted by this method too, keeping the
+	 * Walkers of the open Elements on an explicit stack rather than
+	 * recursing, so very deep Elements can be converted. Their other content
+	 * is converted with the respective print* methods.
+	 * <p>
+	 * If a subclass overrides this method, or
+	 * {@link #printContent(FormatStack, NamespaceStack, org.w3c.dom.Document, org.w3c.dom.Node, Walker)},
+	 * then the content is printed recursively through those methods instead,
+	 * so an overriding method is still called for every descendant Element.
+	 * <p>
 	 * 
 	 * @param fstack
 	 *        the FormatStack
@@ -441,20 +468,84 @@ public abstract class AbstractDOMOutputProcessor extends
 			final NamespaceStack nstack, final org.w3c.dom.Document basedoc,
 			final Element element) {
 
-		nstack.push(element);
+		final org.w3c.dom.Element ret = 
+				printElementStart(fstack, nstack, basedoc, element);
+		Walker walker = printElementContent(fstack, nstack, basedoc, element, ret);
+		if (walker == null) {
+			return ret;
+		}
+
+		org.w3c.dom.Element[] targets = new org.w3c.dom.Element[16];
+		Walker[] walkers = new Walker[16];
+		int depth = 0;
+		targets[depth] = ret;
+		walkers[depth++] = walker;
+
 		try {
+			while (depth > 0) {
+				walker = walkers[depth - 1];
+				final org.w3c.dom.Element target = targets[depth - 1];
+				if (recursive) {
+					// this prints all the remaining content of the Element.
+					printContent(fstack, nstack, basedoc, target, walker);
+				}
+				if (!walker.hasNext()) {
+					// all the content is done, close this Element.
+					depth--;
+					targets[depth] = null;
+					walkers[depth] = null;
+					printElementEnd(fstack, nstack, basedoc, target, walker);
+					if (depth > 0) {
+						// attach complete Elements only: the open parents are
+						// all detached, so the DOM's ancestor checks are cheap.
+						targets[depth - 1].appendChild(target);
+					}
+					continue;
+				}
+				final Content c = walker.next();
+				if (c instanceof Element) {
+					final Element child = (Element)c;
+					final org.w3c.dom.Element n = 
+							printElementStart(fstack, nstack, basedoc, child);
+					final Walker cwalker = 
+							printElementContent(fstack, nstack, basedoc, child, n);
+					if (cwalker == null) {
+						target.appendChild(n);
+					} else {
+						if (depth == walkers.length) {
+							targets = ArrayCopy.copyOf(targets, depth * 2);
+							walkers = ArrayCopy.copyOf(walkers, depth * 2);
+						}
+						targets[depth] = n;
+						walkers[depth++] = cwalker;
+					}
+				} else {
+					printContentItem(fstack, nstack, basedoc, target, walker, c);
+				}
+			}
+		} finally {
+			// only unwinds when the conversion failed.
+			while (depth > 0) {
+				depth--;
+				fstack.pop();
+				nstack.pop();
+			}
+		}
 
-			TextMode textmode = fstack.getTextMode();
+		return ret;
+	}
 
-			// Check for xml:space and adjust format settings
-			final String space = element.getAttributeValue("space",
-					Namespace.XML_NAMESPACE);
+	/**
+	 * Push the Element on to the NamespaceStack and create its DOM Element,
+	 * with the namespace declarations and attributes, but no content.
+	 */
+	private org.w3c.dom.Element printElementStart(final FormatStack fstack,
+			final NamespaceStack nstack, final org.w3c.dom.Document basedoc,
+			final Element element) {
 
-			if ("default".equals(space)) {
-				textmode = fstack.getDefaultMode();
-			} else if ("preserve".equals(space)) {
-				textmode = TextMode.PRESERVE;
-			}
+		nstack.push(element);
+		boolean ok = false;
+		try {
 
 			org.w3c.dom.Element ret = basedoc.createElementNS(
 					element.getNamespaceURI(), element.getQualifiedName());
@@ -475,38 +566,90 @@ public abstract class AbstractDOMOutputProcessor extends
 				}
 			}
 
+			ok = true;
+			return ret;
+
+		} finally {
+			if (!ok) {
+				nstack.pop();
+			}
+		}
+	}
+
+	/**
+	 * Push the FormatStack for the content of an Element created by
+	 * printElementStart.
+	 * 
+	 * @return the Walker of the Element's content, or null if the Element has
+	 *         no content (and the NamespaceStack is already popped).
+	 */
+	private Walker printElementContent(final FormatStack fstack,
+			final NamespaceStack nstack, final org.w3c.dom.Document basedoc,
+			final Element element, final org.w3c.dom.Element ret) {
+
+		boolean open = false;
+		try {
 			final List<Content> content = element.getContent();
 			
-			if (!content.isEmpty()) {
-				fstack.push();
-				try {
-					fstack.setTextMode(textmode);
-					Walker walker = buildWalker(fstack, content, false);
-					
-					if (!walker.isAllText() && fstack.getPadBetween() != null) {
-						// we need to newline/indent
-						final org.w3c.dom.Text n = basedoc.createTextNode(
-								fstack.getPadBetween());
-						ret.appendChild(n);
-					}
-					
-					printContent(fstack, nstack, basedoc, ret, walker);
-					
-					if (!walker.isAllText() && fstack.getPadLast() != null) {
-						// we need to newline/indent
-						final org.w3c.dom.Text n = basedoc.createTextNode(
-								fstack.getPadLast());
-						ret.appendChild(n);
-					}
-					
-				} finally {
+			if (content.isEmpty()) {
+				return null;
+			}
+
+			TextMode textmode = fstack.getTextMode();
+
+			// Check for xml:space and adjust format settings
+			final String space = element.getAttributeValue("space",
+					Namespace.XML_NAMESPACE);
+
+			if ("default".equals(space)) {
+				textmode = fstack.getDefaultMode();
+			} else if ("preserve".equals(space)) {
+				textmode = TextMode.PRESERVE;
+			}
+
+			fstack.push();
+			try {
+				fstack.setTextMode(textmode);
+				Walker walker = buildWalker(fstack, content, false);
+				
+				if (!walker.isAllText() && fstack.getPadBetween() != null) {
+					// we need to newline/indent
+					final org.w3c.dom.Text n = basedoc.createTextNode(
+							fstack.getPadBetween());
+					ret.appendChild(n);
+				}
+				
+				open = true;
+				return walker;
+			} finally {
+				if (!open) {
 					fstack.pop();
 				}
 			}
 
-			return ret;
+		} finally {
+			if (!open) {
+				nstack.pop();
+			}
+		}
+	}
 
+	/**
+	 * Finish the content of an Element started by printElementContent, and
+	 * pop the stacks that were pushed for it.
+	 */
+	private void printElementEnd(final FormatStack fstack,
+			final NamespaceStack nstack, final org.w3c.dom.Document basedoc,
+			final org.w3c.dom.Element ret, final Walker walker) {
+		try {
+			if (!walker.isAllText() && fstack.getPadLast() != null) {
+				// we need to newline/indent
+				final org.w3c.dom.Text n = basedoc.createTextNode(
+						fstack.getPadLast());
+				ret.appendChild(n);
+			}
 		} finally {
+			fstack.pop();
 			nstack.pop();
 		}
 	}
@@ -531,25 +674,35 @@ public abstract class AbstractDOMOutputProcessor extends
 			final org.w3c.dom.Node target, final Walker walker) {
 
 		while (walker.hasNext()) {
-			final Content c = walker.next();
-			org.w3c.dom.Node n = null;
-			if (c == null) {
-				// Formatted Text or CDATA
-				final String text = walker.text();
-				if (walker.isCDATA()) {
-					n = printCDATA(fstack, basedoc, new CDATA(text));
-				} else {
-					n = printText(fstack, basedoc, new Text(text));
-				}
+			printContentItem(fstack, nstack, basedoc, target, walker, 
+					walker.next());
+		}
+
+	}
+
+	/**
+	 * Convert one value from a Walker, and append it to the target.
+	 */
+	private void printContentItem(final FormatStack fstack,
+			final NamespaceStack nstack, final org.w3c.dom.Document basedoc,
+			final org.w3c.dom.Node target, final Walker walker,
+			final Content c) {
+		org.w3c.dom.Node n = null;
+		if (c == null) {
+			// Formatted Text or CDATA
+			final String text = walker.text();
+			if (walker.isCDATA()) {
+				n = printCDATA(fstack, basedoc, new CDATA(text));
 			} else {
-				n = helperContentDispatcher(fstack, nstack,
-						basedoc, c);
-			}
-			if (n != null) {
-				target.appendChild(n);
+				n = printText(fstack, basedoc, new Text(text));
 			}
+		} else {
+			n = helperContentDispatcher(fstack, nstack,
+					basedoc, c);
+		}
+		if (n != null) {
+			target.appendChild(n);
 		}
-
 	}
 
 	/**
@@ -110,4 +110,35 @@ public abstract class AbstractOutputProcessor {
 		return new WalkerPRESERVE(content);
 	}
 
+	/**
+	 * Check whether a class overrides a method that is declared in one of its
+	 * super classes. The processors print the descendants of an Element
+	 * without recursion, unless a subclass overrides the methods that the
+	 * recursive implementation was built from.
+	 * 
+	 * @param clazz The class to check (normally <code>getClass()</code>).
+	 * @param base The class that declares the method.
+	 * @param name The name of the method.
+	 * @param params The parameter types of the method.
+	 * @return true if a class between clazz and base (not including base)
+	 *         declares the method, or if that can not be determined.
+	 */
+	static final boolean isOverridden(final Class<?> clazz, 
+			final Class<?> base, final String name, final Class<?>... params) {
+		Class<?> c = clazz;
+		while (c != null && c != base) {
+			try {
+				c.getDeclaredMethod(name, params);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// not declared here, try the super class.
+			} catch (SecurityException e) {
+				// we can not tell, so play it safe.
+				return true;
+			}
+			c = c.getSuperclass();
+		}
+		return false;
+	}
+
 }
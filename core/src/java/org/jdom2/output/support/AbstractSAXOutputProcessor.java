@@ -88,6 +88,7 @@ import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
+import org.jdom2.internal.ArrayCopy;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.XMLOutputter;
@@ -519,11 +520,32 @@ public class AbstractSAXOutputProcessor extends AbstractOutputProcessor
 		out.getContentHandler().characters(chars, 0, chars.length);
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #printElement(SAXTarget, FormatStack, NamespaceStack, Element)} or {@link #printContent(SAXTarget, FormatStack, NamespaceStack, Walker)}. Descendant
+	 * Elements are then printed through those methods, recursively, as they
+	 * always were. This is fixed for the instance, so it is reentrant.
+	 */
+	private final boolean recursive =
+			isOverridden(getClass(), AbstractSAXOutputProcessor.class,
+					"printElement", SAXTarget.class, FormatStack.class, NamespaceStack.class, Element.class)
+			|| isOverridden(getClass(), AbstractSAXOutputProcessor.class,
+					"printContent", SAXTarget.class, FormatStack.class, NamespaceStack.class, Walker.class);
+
 	/**
 	 * This will handle printing of an {@link Element}.
 	 * <p>
 	 * This method arranges for outputting the Element infrastructure including
 	 * Namespace Declarations and Attributes.
+	 * <p>
+	 * Descendant Elements are reported from this method as well, using an
+	 * explicit stack of open Elements instead of recursion, so deep documents
+	 * do not exhaust the Java call stack. All other content goes through the
+	 * respective print* methods.
+	 * <p>
+	 * If a subclass overrides this method, or
+	 * {@link #printContent(SAXTarget, FormatStack, NamespaceStack, Walker)},
+	 * then the content is printed recursively through those methods instead,
+	 * so an overriding method is still called for every descendant Element.
 	 * 
 	 * @param out
 	 *        <code>SAXTarget</code> to use.
@@ -540,9 +562,85 @@ public class AbstractSAXOutputProcessor extends AbstractOutputProcessor
 			final NamespaceStack nstack, final Element element)
 			throws SAXException {
 
+		Object origloc = out.getLocator().getNode();
+		Walker walker = printElementStart(out, fstack, nstack, element);
+		if (walker == null) {
+			return;
+		}
+
+		Element[] elements = new Element[16];
+		Walker[] walkers = new Walker[16];
+		Object[] origlocs = new Object[16];
+		int depth = 0;
+		elements[depth] = element;
+		origlocs[depth] = origloc;
+		walkers[depth++] = walker;
+
+		try {
+			while (depth > 0) {
+				walker = walkers[depth - 1];
+				if (recursive) {
+					// this prints all the remaining content of the Element.
+					printContent(out, fstack, nstack, walker);
+				}
+				if (!walker.hasNext()) {
+					// all the content is done, close this Element.
+					depth--;
+					final Element done = elements[depth];
+					origloc = origlocs[depth];
+					elements[depth] = null;
+					walkers[depth] = null;
+					origlocs[depth] = null;
+					printElementEnd(out, fstack, nstack, done, walker, origloc);
+					continue;
+				}
+				final Content c = walker.next();
+				if (c instanceof Element) {
+					final Element child = (Element)c;
+					origloc = out.getLocator().getNode();
+					final Walker cwalker =
+							printElementStart(out, fstack, nstack, child);
+					if (cwalker != null) {
+						if (depth == walkers.length) {
+							elements = ArrayCopy.copyOf(elements, depth * 2);
+							walkers = ArrayCopy.copyOf(walkers, depth * 2);
+							origlocs = ArrayCopy.copyOf(origlocs, depth * 2);
+						}
+						elements[depth] = child;
+						origlocs[depth] = origloc;
+						walkers[depth++] = cwalker;
+					}
+				} else {
+					printContentItem(out, fstack, walker, c);
+				}
+			}
+		} finally {
+			// only unwinds when the output failed.
+			if (depth > 0) {
+				while (depth > 0) {
+					depth--;
+					fstack.pop();
+					nstack.pop();
+				}
+				out.getLocator().setNode(origlocs[0]);
+			}
+		}
+	}
+
+	/**
+	 * Report the start of an Element and push the stacks for its content.
+	 * 
+	 * @return the Walker of the Element's content, or null if there was no
+	 *         content to report (and the Element is already ended).
+	 */
+	private Walker printElementStart(final SAXTarget out,
+			final FormatStack fstack, final NamespaceStack nstack,
+			final Element element) throws SAXException {
+
 		final ContentHandler ch = out.getContentHandler();
 		final Object origloc = out.getLocator().getNode();
 		nstack.push(element);
+		boolean open = false;
 		try {
 
 			// update locator
@@ -610,40 +708,72 @@ public class AbstractSAXOutputProcessor extends AbstractOutputProcessor
 							final String indent = fstack.getPadBetween();
 							printText(out, fstack, new Text(indent));
 						}
-						
-						printContent(out, fstack, nstack, walker);
-						
-						if (!walker.isAllText() && 
-								fstack.getPadLast() != null) {
-							// we need to newline/indent
-							final String indent = 
-									fstack.getPadLast();
-							printText(out, fstack, new Text(indent));
-						}
-						
+						open = true;
+						return walker;
 					}
 
 				} finally {
-					fstack.pop();
+					if (!open) {
+						fstack.pop();
+					}
 				}
 			}
 
-			// contentHandler.endElement()
-			out.getContentHandler().endElement(element.getNamespaceURI(),
-					element.getName(), element.getQualifiedName());
+			endElement(out, nstack, element);
+			return null;
+
+		} finally {
+			if (!open) {
+				nstack.pop();
+				out.getLocator().setNode(origloc);
+			}
+		}
+	}
 
-			// contentHandler.endPrefixMapping()
-			// de-map in reverse order to the mapping.
-			for (Namespace ns : nstack.addedReverse()) {
-				ch.endPrefixMapping(ns.getPrefix());
+	/**
+	 * Report the end of an Element started by printElementStart, and pop the
+	 * stacks that were pushed for it.
+	 */
+	private void printElementEnd(final SAXTarget out, final FormatStack fstack,
+			final NamespaceStack nstack, final Element element,
+			final Walker walker, final Object origloc) throws SAXException {
+		try {
+			try {
+				if (!walker.isAllText() && 
+						fstack.getPadLast() != null) {
+					// we need to newline/indent
+					final String indent = 
+							fstack.getPadLast();
+					printText(out, fstack, new Text(indent));
+				}
+			} finally {
+				fstack.pop();
 			}
 
+			endElement(out, nstack, element);
+
 		} finally {
 			nstack.pop();
 			out.getLocator().setNode(origloc);
 		}
 	}
 
+	private static void endElement(final SAXTarget out,
+			final NamespaceStack nstack, final Element element)
+			throws SAXException {
+		final ContentHandler ch = out.getContentHandler();
+
+		// contentHandler.endElement()
+		ch.endElement(element.getNamespaceURI(),
+				element.getName(), element.getQualifiedName());
+
+		// contentHandler.endPrefixMapping()
+		// de-map in reverse order to the mapping.
+		for (Namespace ns : nstack.addedReverse()) {
+			ch.endPrefixMapping(ns.getPrefix());
+		}
+	}
+
 	/**
 	 * This will handle printing of a List of {@link Content}.
 	 * <p>
@@ -666,43 +796,52 @@ public class AbstractSAXOutputProcessor extends AbstractOutputProcessor
 
 		while (walker.hasNext()) {
 			final Content c = walker.next();
-			if (c == null) {
-				// Formatted Text or CDATA
-				final String text = walker.text();
-				if (walker.isCDATA()) {
-					printCDATA(out, fstack, new CDATA(text));
-				} else {
-					printText(out, fstack, new Text(text));
-				}
+			if (c instanceof Element) {
+				printElement(out, fstack, nstack, (Element)c);
 			} else {
-				switch (c.getCType()) {
-					case CDATA:
-						printCDATA(out, fstack, (CDATA)c);
-						break;
-					case Comment:
-						printComment(out, fstack, (Comment)c);
-						break;
-					case DocType:
-						// do nothing.
-						break;
-					case Element :
-						printElement(out, fstack, nstack, (Element)c);
-						break;
-					case EntityRef:
-						printEntityRef(out, fstack, (EntityRef)c);
-						break;
-					case ProcessingInstruction:
-						printProcessingInstruction(out, fstack, 
-								(ProcessingInstruction)c);
-						break;
-					case Text:
-						printText(out, fstack, (Text)c);
-						break;
-				}
+				printContentItem(out, fstack, walker, c);
 			}
 		}
 	}
 
+	/**
+	 * Report one value from a Walker, other than an Element.
+	 */
+	private void printContentItem(final SAXTarget out, final FormatStack fstack,
+			final Walker walker, final Content c) throws SAXException {
+		if (c == null) {
+			// Formatted Text or CDATA
+			final String text = walker.text();
+			if (walker.isCDATA()) {
+				printCDATA(out, fstack, new CDATA(text));
+			} else {
+				printText(out, fstack, new Text(text));
+			}
+			return;
+		}
+		switch (c.getCType()) {
+			case CDATA:
+				printCDATA(out, fstack, (CDATA)c);
+				break;
+			case Comment:
+				printComment(out, fstack, (Comment)c);
+				break;
+			case EntityRef:
+				printEntityRef(out, fstack, (EntityRef)c);
+				break;
+			case ProcessingInstruction:
+				printProcessingInstruction(out, fstack, 
+						(ProcessingInstruction)c);
+				break;
+			case Text:
+				printText(out, fstack, (Text)c);
+				break;
+			default:
+				// DocType is not reported, Elements are printed by the callers.
+				break;
+		}
+	}
+
 	/**
 	 * <p>
 	 * Returns the SAX 2.0 attribute type string from the type of a JDOM
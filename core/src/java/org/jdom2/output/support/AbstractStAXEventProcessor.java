@@ -77,6 +77,7 @@ import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
 import org.jdom2.Verifier;
+import org.jdom2.internal.ArrayCopy;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.StAXEventOutputter;
@@ -610,12 +611,34 @@ public abstract class AbstractStAXEventProcessor extends AbstractOutputProcessor
 		out.add(eventfactory.createCharacters(text.getText()));
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #printElement(XMLEventConsumer, FormatStack, NamespaceStack, XMLEventFactory, Element)} or {@link #printContent(XMLEventConsumer, FormatStack, NamespaceStack, XMLEventFactory, Walker)}. Descendant
+	 * Elements are then printed through those methods, recursively, as they
+	 * always were. This is fixed for the instance, so it is reentrant.
+	 */
+	private final boolean recursive =
+			isOverridden(getClass(), AbstractStAXEventProcessor.class,
+					"printElement", XMLEventConsumer.class, FormatStack.class, NamespaceStack.class,
+					XMLEventFactory.class, Element.class)
+			|| isOverridden(getClass(), AbstractStAXEventProcessor.class,
+					"printContent", XMLEventConsumer.class, FormatStack.class, NamespaceStack.class,
+					XMLEventFactory.class, Walker.class);
+
 	/**
 	 * This will handle printing of an {@link Element}.
 	 * <p>
 	 * This method arranges for outputting the Element infrastructure including
 	 * Namespace Declarations and Attributes.
 	 * <p>
+	 * The events of descendant Elements are created here too. The open
+	 * Elements are kept on an explicit stack instead of recursing, so the
+	 * depth of the tree is limited only by memory; other content is sent
+	 * through the respective print* methods.
+	 * <p>
+	 * If a subclass overrides this method, or
+	 * {@link #printContent(XMLEventConsumer, FormatStack, NamespaceStack, XMLEventFactory, Walker)},
+	 * then the content is printed recursively through those methods instead,
+	 * so an overriding method is still called for every descendant Element.
 	 * 
 	 * @param out
 	 *        <code>XMLEventConsumer</code> to use.
@@ -634,7 +657,73 @@ public abstract class AbstractStAXEventProcessor extends AbstractOutputProcessor
 			final NamespaceStack nstack, final XMLEventFactory eventfactory, 
 			final Element element) throws XMLStreamException {
 
+		Walker walker = printElementStart(out, fstack, nstack, eventfactory, element);
+		if (walker == null) {
+			return;
+		}
+
+		Element[] elements = new Element[16];
+		Walker[] walkers = new Walker[16];
+		int depth = 0;
+		elements[depth] = element;
+		walkers[depth++] = walker;
+
+		try {
+			while (depth > 0) {
+				walker = walkers[depth - 1];
+				if (recursive) {
+					// this prints all the remaining content of the Element.
+					printContent(out, fstack, nstack, eventfactory, walker);
+				}
+				if (!walker.hasNext()) {
+					// all the content is done, close this Element.
+					depth--;
+					final Element done = elements[depth];
+					elements[depth] = null;
+					walkers[depth] = null;
+					printElementEnd(out, fstack, nstack, eventfactory, done, walker);
+					continue;
+				}
+				final Content c = walker.next();
+				if (c instanceof Element) {
+					final Element child = (Element)c;
+					final Walker cwalker = printElementStart(out, fstack, nstack,
+							eventfactory, child);
+					if (cwalker != null) {
+						if (depth == walkers.length) {
+							elements = ArrayCopy.copyOf(elements, depth * 2);
+							walkers = ArrayCopy.copyOf(walkers, depth * 2);
+						}
+						elements[depth] = child;
+						walkers[depth++] = cwalker;
+					}
+				} else {
+					printContentItem(out, fstack, eventfactory, walker, c);
+				}
+			}
+		} finally {
+			// only unwinds when the output failed.
+			while (depth > 0) {
+				depth--;
+				fstack.pop();
+				nstack.pop();
+			}
+		}
+	}
+
+	/**
+	 * Add the start event of an Element, and push the stacks for its content.
+	 * 
+	 * @return the Walker of the Element's content, or null if there was no
+	 *         content to print (and the end event is already added).
+	 */
+	private Walker printElementStart(final XMLEventConsumer out,
+			final FormatStack fstack, final NamespaceStack nstack,
+			final XMLEventFactory eventfactory, final Element element)
+			throws XMLStreamException {
+
 		nstack.push(element);
+		boolean open = false;
 		try {
 			
 			Namespace ns = element.getNamespace();
@@ -684,31 +773,61 @@ public abstract class AbstractStAXEventProcessor extends AbstractOutputProcessor
 							final String indent = fstack.getPadBetween();
 							printText(out, fstack, eventfactory, new Text(indent));
 						}
-						
-						printContent(out, fstack, nstack, eventfactory, walker);
-						
-						if (!walker.isAllText() && fstack.getPadLast() != null) {
-							// we need to newline/indent
-							final String indent = fstack.getPadLast(); 
-							printText(out, fstack, eventfactory, new Text(indent));
-						}
+						open = true;
+						return walker;
 					}
 				} finally {
-					fstack.pop();
+					if (!open) {
+						fstack.pop();
+					}
 				}
 				
 			}
 			
-			out.add(eventfactory.createEndElement(element.getNamespacePrefix(), 
-					element.getNamespaceURI(), element.getName(), 
-					new NSIterator(nstack.addedReverse().iterator(), eventfactory)));
-		
+			endElement(out, nstack, eventfactory, element);
+			return null;
+
+		} finally {
+			if (!open) {
+				nstack.pop();
+			}
+		}
+	}
+
+	/**
+	 * Add the end event of an Element started by printElementStart, and pop
+	 * the stacks that were pushed for it.
+	 */
+	private void printElementEnd(final XMLEventConsumer out,
+			final FormatStack fstack, final NamespaceStack nstack,
+			final XMLEventFactory eventfactory, final Element element,
+			final Walker walker) throws XMLStreamException {
+		try {
+			try {
+				if (!walker.isAllText() && fstack.getPadLast() != null) {
+					// we need to newline/indent
+					final String indent = fstack.getPadLast(); 
+					printText(out, fstack, eventfactory, new Text(indent));
+				}
+			} finally {
+				fstack.pop();
+			}
+
+			endElement(out, nstack, eventfactory, element);
 
 		} finally {
 			nstack.pop();
 		}
 	}
 
+	private static void endElement(final XMLEventConsumer out,
+			final NamespaceStack nstack, final XMLEventFactory eventfactory,
+			final Element element) throws XMLStreamException {
+		out.add(eventfactory.createEndElement(element.getNamespacePrefix(), 
+				element.getNamespaceURI(), element.getName(), 
+				new NSIterator(nstack.addedReverse().iterator(), eventfactory)));
+	}
+
 	/**
 	 * This will handle printing of a List of {@link Content}.
 	 * <p>
@@ -735,42 +854,53 @@ public abstract class AbstractStAXEventProcessor extends AbstractOutputProcessor
 			
 			final Content content = walker.next();
 			
-			if (content == null) {
-				if (walker.isCDATA()) {
-					printCDATA(out, fstack, eventfactory, new CDATA(walker.text()));
-				} else {
-					printText(out, fstack, eventfactory, new Text(walker.text()));
-				}
+			if (content instanceof Element) {
+				printElement(out, fstack, nstack, eventfactory, (Element) content);
 			} else {
-				switch (content.getCType()) {
-					case CDATA:
-						printCDATA(out, fstack, eventfactory, (CDATA) content);
-						break;
-					case Comment:
-						printComment(out, fstack, eventfactory, (Comment) content);
-						break;
-					case Element:
-						printElement(out, fstack, nstack, eventfactory, (Element) content);
-						break;
-					case EntityRef:
-						printEntityRef(out, fstack, eventfactory, (EntityRef) content);
-						break;
-					case ProcessingInstruction:
-						printProcessingInstruction(out, fstack, eventfactory,
-								(ProcessingInstruction) content);
-						break;
-					case Text:
-						printText(out, fstack, eventfactory, (Text) content);
-						break;
-					case DocType:
-						printDocType(out, fstack, eventfactory, (DocType) content);
-						break;
-					default:
-						throw new IllegalStateException(
-								"Unexpected Content " + content.getCType());
-		
-				}
+				printContentItem(out, fstack, eventfactory, walker, content);
+			}
+		}
+	}
+
+	/**
+	 * Add the events for one value from a Walker, other than an Element.
+	 */
+	private void printContentItem(final XMLEventConsumer out,
+			final FormatStack fstack, final XMLEventFactory eventfactory,
+			final Walker walker, final Content content)
+			throws XMLStreamException {
+		if (content == null) {
+			if (walker.isCDATA()) {
+				printCDATA(out, fstack, eventfactory, new CDATA(walker.text()));
+			} else {
+				printText(out, fstack, eventfactory, new Text(walker.text()));
 			}
+			return;
+		}
+		switch (content.getCType()) {
+			case CDATA:
+				printCDATA(out, fstack, eventfactory, (CDATA) content);
+				break;
+			case Comment:
+				printComment(out, fstack, eventfactory, (Comment) content);
+				break;
+			case EntityRef:
+				printEntityRef(out, fstack, eventfactory, (EntityRef) content);
+				break;
+			case ProcessingInstruction:
+				printProcessingInstruction(out, fstack, eventfactory,
+						(ProcessingInstruction) content);
+				break;
+			case Text:
+				printText(out, fstack, eventfactory, (Text) content);
+				break;
+			case DocType:
+				printDocType(out, fstack, eventfactory, (DocType) content);
+				break;
+			default:
+				throw new IllegalStateException(
+						"Unexpected Content " + content.getCType());
+
 		}
 	}
 }
@@ -76,6 +76,7 @@ import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
 import org.jdom2.Verifier;
+import org.jdom2.internal.ArrayCopy;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.StAXStreamOutputter;
@@ -538,8 +539,29 @@ public abstract class AbstractStAXStreamProcessor
 		out.writeCharacters(text.getText());
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #printElement(XMLStreamWriter, FormatStack, NamespaceStack, Element)} or {@link #printContent(XMLStreamWriter, FormatStack, NamespaceStack, Walker)}. Descendant
+	 * Elements are then printed through those methods, recursively, as they
+	 * always were. This is fixed for the instance, so it is reentrant.
+	 */
+	private final boolean recursive =
+			isOverridden(getClass(), AbstractStAXStreamProcessor.class,
+					"printElement", XMLStreamWriter.class, FormatStack.class, NamespaceStack.class, Element.class)
+			|| isOverridden(getClass(), AbstractStAXStreamProcessor.class,
+					"printContent", XMLStreamWriter.class, FormatStack.class, NamespaceStack.class, Walker.class);
+
 	/**
 	 * This will handle printing of an {@link Element}.
+	 * <p>
+	 * The Element's descendants are written here as well: an explicit stack of
+	 * the open Elements replaces recursion, so the nesting depth is bounded by
+	 * memory rather than by the Java call stack. Other content is written
+	 * through the respective print* methods.
+	 * <p>
+	 * If a subclass overrides this method, or
+	 * {@link #printContent(XMLStreamWriter, FormatStack, NamespaceStack, Walker)},
+	 * then the content is printed recursively through those methods instead,
+	 * so an overriding method is still called for every descendant Element.
 	 * 
 	 * @param out
 	 *        <code>XMLStreamWriter</code> to use.
@@ -555,7 +577,64 @@ public abstract class AbstractStAXStreamProcessor
 	protected void printElement(final XMLStreamWriter out, final FormatStack fstack,
 			final NamespaceStack nstack, final Element element) throws XMLStreamException {
 
+		Walker walker = printElementStart(out, fstack, nstack, element);
+		if (walker == null) {
+			return;
+		}
+
+		Walker[] walkers = new Walker[16];
+		int depth = 0;
+		walkers[depth++] = walker;
+
+		try {
+			while (depth > 0) {
+				walker = walkers[depth - 1];
+				if (recursive) {
+					// this prints all the remaining content of the Element.
+					printContent(out, fstack, nstack, walker);
+				}
+				if (!walker.hasNext()) {
+					// all the content is done, close this Element.
+					walkers[--depth] = null;
+					printElementEnd(out, fstack, nstack, walker);
+					continue;
+				}
+				final Content c = walker.next();
+				if (c instanceof Element) {
+					final Walker cwalker =
+							printElementStart(out, fstack, nstack, (Element)c);
+					if (cwalker != null) {
+						if (depth == walkers.length) {
+							walkers = ArrayCopy.copyOf(walkers, depth * 2);
+						}
+						walkers[depth++] = cwalker;
+					}
+				} else {
+					printContentItem(out, fstack, walker, c);
+				}
+			}
+		} finally {
+			// only unwinds when the output failed.
+			while (depth > 0) {
+				depth--;
+				fstack.pop();
+				popNamespaces(out, nstack);
+			}
+		}
+	}
+
+	/**
+	 * Write the start of an Element, and push the stacks for its content.
+	 * 
+	 * @return the Walker of the Element's content, or null if the Element had
+	 *         nothing to print (and it is already ended).
+	 */
+	private Walker printElementStart(final XMLStreamWriter out,
+			final FormatStack fstack, final NamespaceStack nstack,
+			final Element element) throws XMLStreamException {
+
 		nstack.push(element);
+		boolean open = false;
 		try {
 			for (Namespace nsa : nstack.addedForward()) {
 				if (JDOMConstants.NS_PREFIX_DEFAULT.equals(nsa.getPrefix())) {
@@ -643,16 +722,12 @@ public abstract class AbstractStAXStreamProcessor
 							final String indent = fstack.getPadBetween();
 							printText(out, fstack, new Text(indent));
 						}
-						
-						printContent(out, fstack, nstack, walker);
-						
-						if (!walker.isAllText() && fstack.getPadLast() != null) {
-							// we need to newline/indent
-							final String indent = fstack.getPadLast(); 
-							printText(out, fstack, new Text(indent));
-						}
+						open = true;
+						return walker;
 					} finally {
-						fstack.pop();
+						if (!open) {
+							fstack.pop();
+						}
 					}
 				}
 			
@@ -680,22 +755,59 @@ public abstract class AbstractStAXStreamProcessor
 				// This neatens up the output stream for some reason.
 				out.writeCharacters("");
 			}
+			return null;
 
 		} finally {
-			for (Namespace nsr : nstack.addedForward()) {
-				Namespace nsa = nstack.getRebound(nsr.getPrefix());
-				if (nsa != null) {
-					if (JDOMConstants.NS_PREFIX_DEFAULT.equals(nsa.getPrefix())) {
-						out.setDefaultNamespace(nsa.getURI());
-					} else {
-						out.setPrefix(nsa.getPrefix(), nsa.getURI());
-					}
+			if (!open) {
+				popNamespaces(out, nstack);
+			}
+		}
+	}
+
+	/**
+	 * Write the end of an Element started by printElementStart, and pop the
+	 * stacks that were pushed for it.
+	 */
+	private void printElementEnd(final XMLStreamWriter out,
+			final FormatStack fstack, final NamespaceStack nstack,
+			final Walker walker) throws XMLStreamException {
+		try {
+			try {
+				if (!walker.isAllText() && fstack.getPadLast() != null) {
+					// we need to newline/indent
+					final String indent = fstack.getPadLast(); 
+					printText(out, fstack, new Text(indent));
 				}
+			} finally {
+				fstack.pop();
 			}
-			nstack.pop();
+		
+			out.writeEndElement();
+
+		} finally {
+			popNamespaces(out, nstack);
 		}
 	}
 
+	/**
+	 * Restore the prefixes that the current Element re-bound, and pop it from
+	 * the NamespaceStack.
+	 */
+	private static void popNamespaces(final XMLStreamWriter out,
+			final NamespaceStack nstack) throws XMLStreamException {
+		for (Namespace nsr : nstack.addedForward()) {
+			Namespace nsa = nstack.getRebound(nsr.getPrefix());
+			if (nsa != null) {
+				if (JDOMConstants.NS_PREFIX_DEFAULT.equals(nsa.getPrefix())) {
+					out.setDefaultNamespace(nsa.getURI());
+				} else {
+					out.setPrefix(nsa.getPrefix(), nsa.getURI());
+				}
+			}
+		}
+		nstack.pop();
+	}
+
 	/**
 	 * This will handle printing of a List of {@link Content}.
 	 * <p>
@@ -717,45 +829,54 @@ public abstract class AbstractStAXStreamProcessor
 
 		while (walker.hasNext()) {
 			final Content content = walker.next();
-			
-			if (content == null) {
-				if (walker.isCDATA()) {
-					printCDATA(out, fstack, new CDATA(walker.text()));
-				} else {
-					printText(out, fstack, new Text(walker.text()));
-				}
+			if (content instanceof Element) {
+				printElement(out, fstack, nstack, (Element) content);
 			} else {
-				switch (content.getCType()) {
-					case CDATA:
-						printCDATA(out, fstack, (CDATA) content);
-						break;
-					case Comment:
-						printComment(out, fstack, (Comment) content);
-						break;
-					case Element:
-						printElement(out, fstack, nstack, (Element) content);
-						break;
-					case EntityRef:
-						printEntityRef(out, fstack, (EntityRef) content);
-						break;
-					case ProcessingInstruction:
-						printProcessingInstruction(out, fstack,
-								(ProcessingInstruction) content);
-						break;
-					case Text:
-						printText(out, fstack, (Text) content);
-						break;
-					case DocType:
-						printDocType(out, fstack, (DocType) content);
-						break;
-					default:
-						throw new IllegalStateException(
-								"Unexpected Content " + content.getCType());
-		
-				}
+				printContentItem(out, fstack, walker, content);
+			}
+		}
+
+	}
+
+	/**
+	 * Write one value from a Walker, other than an Element.
+	 */
+	private void printContentItem(final XMLStreamWriter out,
+			final FormatStack fstack, final Walker walker,
+			final Content content) throws XMLStreamException {
+		if (content == null) {
+			if (walker.isCDATA()) {
+				printCDATA(out, fstack, new CDATA(walker.text()));
+			} else {
+				printText(out, fstack, new Text(walker.text()));
 			}
+			return;
 		}
+		switch (content.getCType()) {
+			case CDATA:
+				printCDATA(out, fstack, (CDATA) content);
+				break;
+			case Comment:
+				printComment(out, fstack, (Comment) content);
+				break;
+			case EntityRef:
+				printEntityRef(out, fstack, (EntityRef) content);
+				break;
+			case ProcessingInstruction:
+				printProcessingInstruction(out, fstack,
+						(ProcessingInstruction) content);
+				break;
+			case Text:
+				printText(out, fstack, (Text) content);
+				break;
+			case DocType:
+				printDocType(out, fstack, (DocType) content);
+				break;
+			default:
+				throw new IllegalStateException(
+						"Unexpected Content " + content.getCType());
 
+		}
 	}
 
 
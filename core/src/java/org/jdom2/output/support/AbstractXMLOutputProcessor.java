@@ -75,6 +75,8 @@ import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
 import org.jdom2.Verifier;
+import org.jdom2.internal.ArrayCopy;
+import org.jdom2.output.EscapeStrategy;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.XMLOutputter;
@@ -105,8 +107,9 @@ import org.jdom2.util.NamespaceStack;
  * maintains both a {@link NamespaceStack} and {@link FormatStack} that are
  * managed in the
  * {@link #printElement(Writer, FormatStack, NamespaceStack, Element)} method.
- * The stacks are pushed and popped in that method only. They significantly
- * improve the performance and readability of the code.
+ * The stacks are pushed and popped in that method only (it walks the whole
+ * Element tree, without recursion). They significantly improve the
+ * performance and readability of the code.
  * <p>
  * The NamespaceStack is only sent through to the
  * {@link #printElement(Writer, FormatStack, NamespaceStack, Element)} and
@@ -153,7 +156,15 @@ import org.jdom2.util.NamespaceStack;
  * <h2>Final Notes</h2> No methods actually write to the destination Writer
  * except the <code>write(...)</code> methods. Thus, all other methods do their
  * respective processing and delegate the actual destination output to the
- * {@link #write(Writer, char)} or {@link #write(Writer, String)} methods.
+ * {@link #write(Writer, char)}, {@link #write(Writer, String)} or
+ * {@link #write(Writer, String, int, int)} methods.
+ * <p>
+ * Escaped Text and Attribute values are written as ranges of the source
+ * String, through {@link #textRaw(Writer, String, int, int)} and
+ * {@link #write(Writer, String, int, int)}, to avoid building new Strings.
+ * When a subclass overrides {@link #write(Writer, String)} or
+ * {@link #textRaw(Writer, String)} the range methods pass each range to those
+ * String methods instead, so such overrides still see all the output.
  * <p>
  * All Text-like content (printCDATA, printText, and printEntityRef) will
  * ultimately be output through the the text* methods (and no other content).
@@ -172,6 +183,9 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 	/** Simple constant for a close-CDATA */
 	protected static final String CDATAPOST = "]]>";
 
+	/** The (lower-case, like Integer.toHexString()) hexadecimal digits */
+	private static final char[] HEXDIGITS = "0123456789abcdef".toCharArray();
+
 	
 
 	/* *******************************************
@@ -342,6 +356,46 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 		out.write(str);
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #write(Writer, String)} or
+	 * {@link #textRaw(Writer, String)}. The range methods then pass each range
+	 * to those methods as a substring. This is fixed for the instance.
+	 */
+	private final boolean stringhooks =
+			isOverridden(getClass(), AbstractXMLOutputProcessor.class,
+					"write", Writer.class, String.class)
+			|| isOverridden(getClass(), AbstractXMLOutputProcessor.class,
+					"textRaw", Writer.class, String.class);
+
+	/**
+	 * Print a range of characters from a String value to the output.
+	 * <p>
+	 * If {@link #write(Writer, String)} or {@link #textRaw(Writer, String)} is
+	 * overridden the range is passed to {@link #write(Writer, String)} as a
+	 * substring, otherwise it is written directly to the Writer. An override
+	 * of {@link #write(Writer, String)} should therefore not call this method.
+	 * 
+	 * @param out
+	 *        The Writer to write to.
+	 * @param str
+	 *        The String to write a range of.
+	 * @param off
+	 *        The first char to write.
+	 * @param len
+	 *        The number of chars to write.
+	 * @throws IOException
+	 *         if the out Writer fails.
+	 * @since JDOM 2.1.0
+	 */
+	protected void write(final Writer out, final String str, final int off,
+			final int len) throws IOException {
+		if (stringhooks) {
+			write(out, str.substring(off, off + len));
+			return;
+		}
+		out.write(str, off, len);
+	}
+
 	/**
 	 * Write a single character to the output Writer.
 	 * 
@@ -398,15 +452,169 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 			return;
 		}
 		
-		write(out, Format.escapeAttribute(fstack.getEscapeStrategy(), value));
+		escapedEntitiesFilter(out, fstack, value, false);
+
+	}
+
+	/**
+	 * Write a Text or Attribute value, escaping it the same way as
+	 * {@link Format#escapeText(org.jdom2.output.EscapeStrategy, String, String)}
+	 * or {@link Format#escapeAttribute(org.jdom2.output.EscapeStrategy, String)}.
+	 * Runs of characters that need no escaping are written as ranges of the
+	 * input value, and the escape-table from the FormatStack means the
+	 * EscapeStrategy is only consulted for characters of 256 and above. No
+	 * Strings are created.
+	 * 
+	 * @param out
+	 *        The destination Writer
+	 * @param fstack
+	 *        The {@link FormatStack}
+	 * @param value
+	 *        The value to escape.
+	 * @param text
+	 *        true if this is Text content (written with the textRaw methods),
+	 *        false for an Attribute value (written with the write methods).
+	 * @throws IOException
+	 *         if the destination Writer fails.
+	 * @throws IllegalDataException
+	 *         if an entity can not be escaped
+	 */
+	private void escapedEntitiesFilter(final Writer out, final FormatStack fstack,
+			final String value, final boolean text) throws IOException {
+		final byte[] table = fstack.getEscapeTable();
+		final EscapeStrategy strategy = fstack.getEscapeStrategy();
+		final byte mask = text ? FormatStack.ESCAPETEXT : FormatStack.ESCAPEATTRIBUTE;
+		final int len = value.length();
+		int start = 0;
+		int idx = 0;
+		while (idx < len) {
+			final char ch = value.charAt(idx);
+			if (ch < 256 ? (table[ch] & mask) == 0 : !strategy.shouldEscape(ch)) {
+				idx++;
+				continue;
+			}
+			if (idx > start) {
+				escapedRun(out, value, start, idx - start, text);
+			}
+			idx++;
+			switch (ch) {
+				case '<':
+					escapedRun(out, "&lt;", text);
+					break;
+				case '>':
+					escapedRun(out, "&gt;", text);
+					break;
+				case '&':
+					escapedRun(out, "&amp;", text);
+					break;
+				case '\r':
+					escapedRun(out, "&#xD;", text);
+					break;
+				case '"':
+					if (text) {
+						// only escaped in Text by a custom EscapeStrategy.
+						escapedCharRef(out, ch, text);
+					} else {
+						escapedRun(out, "&quot;", text);
+					}
+					break;
+				case '\t':
+					escapedRun(out, "&#x9;", text);
+					break;
+				case '\n':
+					if (!text) {
+						escapedRun(out, "&#xA;", text);
+					} else if (fstack.getLineSeparator() != null) {
+						escapedRun(out, fstack.getLineSeparator(), text);
+					} else {
+						escapedRun(out, "\n", text);
+					}
+					break;
+				default:
+					// make sure what we are escaping is not the
+					// beginning of a multi-byte character.
+					if (Verifier.isHighSurrogate(ch)) {
+						if (idx >= len) {
+							throw new IllegalDataException("Surrogate pair 0x" +
+									Integer.toHexString(ch) + "truncated");
+						}
+						final char low = value.charAt(idx++);
+						if (!Verifier.isLowSurrogate(low)) {
+							throw new IllegalDataException(
+									"Could not decode surrogate pair 0x" +
+									Integer.toHexString(ch) + " / 0x"
+									+ Integer.toHexString(low));
+						}
+						escapedCharRef(out, 
+								Verifier.decodeSurrogatePair(ch, low), text);
+					} else {
+						escapedCharRef(out, ch, text);
+					}
+					break;
+			}
+			start = idx;
+		}
+		if (start == 0) {
+			// the common case, nothing to escape.
+			escapedRun(out, value, text);
+		} else if (start < len) {
+			escapedRun(out, value, start, len - start, text);
+		}
+	}
+
+	private void escapedRun(final Writer out, final String str, 
+			final boolean text) throws IOException {
+		if (text) {
+			textRaw(out, str);
+		} else {
+			write(out, str);
+		}
+	}
 
+	private void escapedRun(final Writer out, final String str, final int off,
+			final int len, final boolean text) throws IOException {
+		if (text) {
+			textRaw(out, str, off, len);
+		} else {
+			write(out, str, off, len);
+		}
+	}
+
+	/**
+	 * Write a hexadecimal character reference, one char at a time.
+	 * @param out The destination
+	 * @param cp The code point to reference
+	 * @param text Whether this is Text or Attribute content
+	 * @throws IOException if the Writer fails.
+	 */
+	private void escapedCharRef(final Writer out, final int cp,
+			final boolean text) throws IOException {
+		escapedRun(out, "&#x", text);
+		int shift = 28;
+		while (shift > 0 && (cp >>> shift) == 0) {
+			shift -= 4;
+		}
+		for (; shift >= 0; shift -= 4) {
+			final char digit = HEXDIGITS[(cp >>> shift) & 0xF];
+			if (text) {
+				textRaw(out, digit);
+			} else {
+				write(out, digit);
+			}
+		}
+		if (text) {
+			textRaw(out, ';');
+		} else {
+			write(out, ';');
+		}
 	}
 
 	/**
 	 * Convenience method that simply passes the input str to
 	 * {@link #write(Writer, String)}. This could be useful for subclasses to
-	 * hook in to. All text-type output will come through this or the
-	 * {@link #textRaw(Writer, char)} method.
+	 * hook in to. When this is overridden all text-type output will come
+	 * through this or the {@link #textRaw(Writer, char)} method, including the
+	 * ranges passed to {@link #textRaw(Writer, String, int, int)}.
 	 * 
 	 * @param out
 	 *        the destination writer.
@@ -419,11 +627,44 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 		write(out, str);
 	}
 
+	/**
+	 * Convenience method that simply passes a range of the input str to
+	 * {@link #write(Writer, String, int, int)}. This is used for the runs of
+	 * characters that need no escaping in escaped Text content.
+	 * <p>
+	 * If {@link #write(Writer, String)} or {@link #textRaw(Writer, String)} is
+	 * overridden the range is passed to {@link #textRaw(Writer, String)} as a
+	 * substring instead, so that the override sees it. An override of
+	 * {@link #textRaw(Writer, String)} should therefore not call this method.
+	 * 
+	 * @param out
+	 *        the destination writer.
+	 * @param str
+	 *        the String to write a range of.
+	 * @param off
+	 *        The first char to write.
+	 * @param len
+	 *        The number of chars to write.
+	 * @throws IOException
+	 *         if the Writer fails.
+	 * @since JDOM 2.1.0
+	 */
+	protected void textRaw(final Writer out, final String str, final int off,
+			final int len) throws IOException {
+		if (stringhooks) {
+			textRaw(out, str.substring(off, off + len));
+			return;
+		}
+		write(out, str, off, len);
+	}
+
 	/**
 	 * Convenience method that simply passes the input char to
 	 * {@link #write(Writer, char)}. This could be useful for subclasses to hook
-	 * in to. All text-type output will come through this or the
-	 * {@link #textRaw(Writer, String)} method.
+	 * in to. All text-type output will come through this,
+	 * {@link #textRaw(Writer, String)} or
+	 * {@link #textRaw(Writer, String, int, int)}, and the range method passes
+	 * through {@link #textRaw(Writer, String)} when that is overridden.
 	 * 
 	 * @param out
 	 *        the destination Writer.
@@ -763,19 +1004,38 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 	protected void printText(final Writer out, final FormatStack fstack,
 			final Text text) throws IOException {
 		if (fstack.getEscapeOutput()) {
-			textRaw(out, Format.escapeText(fstack.getEscapeStrategy(),
-					fstack.getLineSeparator(), text.getText()));
-
+			escapedEntitiesFilter(out, fstack, text.getText(), true);
 			return;
 		}
 		textRaw(out, text.getText());
 	}
 
+	/**
+	 * Set when a subclass overrides {@link #printElement(Writer, FormatStack, NamespaceStack, Element)} or {@link #printContent(Writer, FormatStack, NamespaceStack, Walker)}. Descendant
+	 * Elements are then printed through those methods, recursively, as they
+	 * always were. This is fixed for the instance, so it is reentrant.
+	 */
+	private final boolean recursive =
+			isOverridden(getClass(), AbstractXMLOutputProcessor.class,
+					"printElement", Writer.class, FormatStack.class, NamespaceStack.class, Element.class)
+			|| isOverridden(getClass(), AbstractXMLOutputProcessor.class,
+					"printContent", Writer.class, FormatStack.class, NamespaceStack.class, Walker.class);
+
 	/**
 	 * This will handle printing of an {@link Element}.
 	 * <p>
 	 * This method arranges for outputting the Element infrastructure including
 	 * Namespace Declarations and Attributes.
+	 * <p>
+	 * The descendant Elements are printed from here too, with an explicit
+	 * stack of the open Elements and the Walkers of their content, so the depth
+	 * of the Element tree is not limited by the Java call stack. Their other
+	 * content is still printed through the respective print* methods.
+	 * <p>
+	 * If a subclass overrides this method, or
+	 * {@link #printContent(Writer, FormatStack, NamespaceStack, Walker)},
+	 * then the content is printed recursively through those methods instead,
+	 * so an overriding method is still called for every descendant Element.
 	 * 
 	 * @param out
 	 *        <code>Writer</code> to use.
@@ -791,7 +1051,74 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 	protected void printElement(final Writer out, final FormatStack fstack,
 			final NamespaceStack nstack, final Element element) throws IOException {
 
+		Walker walker = printElementStart(out, fstack, nstack, element);
+		if (walker == null) {
+			// nothing more to do.
+			return;
+		}
+
+		Element[] elements = new Element[16];
+		Walker[] walkers = new Walker[16];
+		int depth = 0;
+		elements[depth] = element;
+		walkers[depth++] = walker;
+
+		try {
+			while (depth > 0) {
+				walker = walkers[depth - 1];
+				if (recursive) {
+					// this prints all the remaining content of the Element.
+					printContent(out, fstack, nstack, walker);
+				}
+				if (!walker.hasNext()) {
+					// all the content is done, close this Element.
+					depth--;
+					final Element done = elements[depth];
+					elements[depth] = null;
+					walkers[depth] = null;
+					printElementEnd(out, fstack, nstack, done, walker);
+					continue;
+				}
+				final Content c = walker.next();
+				if (c instanceof Element) {
+					final Element child = (Element)c;
+					final Walker cwalker = 
+							printElementStart(out, fstack, nstack, child);
+					if (cwalker != null) {
+						if (depth == walkers.length) {
+							elements = ArrayCopy.copyOf(elements, depth * 2);
+							walkers = ArrayCopy.copyOf(walkers, depth * 2);
+						}
+						elements[depth] = child;
+						walkers[depth++] = cwalker;
+					}
+				} else {
+					printContentItem(out, fstack, walker, c);
+				}
+			}
+		} finally {
+			// only unwinds when the output failed.
+			while (depth > 0) {
+				depth--;
+				fstack.pop();
+				nstack.pop();
+			}
+		}
+
+	}
+
+	/**
+	 * Print the start tag of an Element and push the stacks for its content.
+	 * 
+	 * @return the Walker of the Element's content, or null if the Element was
+	 *         printed as an empty element (and the stacks are already popped).
+	 */
+	private Walker printElementStart(final Writer out, final FormatStack fstack,
+			final NamespaceStack nstack, final Element element) throws IOException {
+
 		nstack.push(element);
+		boolean pushed = false;
+		boolean open = false;
 		try {
 			final List<Content> content = element.getContent();
 
@@ -813,23 +1140,10 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 				}
 			}
 
-			if (content.isEmpty()) {
-				// Case content is empty
-				if (fstack.isExpandEmptyElements()) {
-					write(out, "></");
-					write(out, element.getQualifiedName());
-					write(out, ">");
-				}
-				else {
-					write(out, " />");
-				}
-				// nothing more to do.
-				return;
-			}
-			
-			// OK, we have real content to push.
-			fstack.push();
-			try {
+			if (!content.isEmpty()) {
+				// OK, we have real content to push.
+				fstack.push();
+				pushed = true;
 
 				// Check for xml:space and adjust format settings
 				final String space = element.getAttributeValue("space",
@@ -843,30 +1157,49 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 				}
 				
 				// note we ensure the FStack is right before creating the walker
-				Walker walker = buildWalker(fstack, content, true);
+				final Walker walker = buildWalker(fstack, content, true);
 				
-				if (!walker.hasNext()) {
-					// the walker has formatted out whatever content we had
-					if (fstack.isExpandEmptyElements()) {
-						write(out, "></");
-						write(out, element.getQualifiedName());
-						write(out, ">");
-					}
-					else {
-						write(out, " />");
+				if (walker.hasNext()) {
+					// we have some content.
+					write(out, ">");
+					if (!walker.isAllText()) {
+						// we need to newline/indent
+						textRaw(out, fstack.getPadBetween());
 					}
-					// nothing more to do.
-					return;
+					open = true;
+					return walker;
 				}
-				// we have some content.
+				// the walker has formatted out whatever content we had
+			}
+
+			if (fstack.isExpandEmptyElements()) {
+				write(out, "></");
+				write(out, element.getQualifiedName());
 				write(out, ">");
-				if (!walker.isAllText()) {
-					// we need to newline/indent
-					textRaw(out, fstack.getPadBetween());
+			}
+			else {
+				write(out, " />");
+			}
+			return null;
+		} finally {
+			if (!open) {
+				if (pushed) {
+					fstack.pop();
 				}
+				nstack.pop();
+			}
+		}
+	}
 
-				printContent(out, fstack, nstack, walker);
-
+	/**
+	 * Print the end tag of an Element opened by printElementStart, and pop
+	 * the stacks that were pushed for it.
+	 */
+	private void printElementEnd(final Writer out, final FormatStack fstack,
+			final NamespaceStack nstack, final Element element,
+			final Walker walker) throws IOException {
+		try {
+			try {
 				if (!walker.isAllText()) {
 					// we need to newline/indent
 					textRaw(out, fstack.getPadLast());
@@ -874,14 +1207,12 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 				write(out, "</");
 				write(out, element.getQualifiedName());
 				write(out, ">");
-				
 			} finally {
 				fstack.pop();
 			}
 		} finally {
 			nstack.pop();
 		}
-
 	}
 
 	/**
@@ -922,45 +1253,57 @@ public abstract class AbstractXMLOutputProcessor extends AbstractOutputProcessor
 			throws IOException {
 
 		while (walker.hasNext()) {
-			Content c = walker.next();
-			if (c == null) {
-				// it is a text value of some sort.
-				final String t = walker.text();
-				if (walker.isCDATA()) {
-					textCDATA(out, t);
-				} else {
-					textRaw(out, t);
-				}
+			final Content c = walker.next();
+			if (c instanceof Element) {
+				printElement(out, fstack, nstack, (Element)c);
 			} else {
-				switch(c.getCType()) {
-					case CDATA:
-						printCDATA(out, fstack, (CDATA)c);
-						break;
-					case Comment:
-						printComment(out, fstack, (Comment)c);
-						break;
-					case DocType:
-						printDocType(out, fstack, (DocType)c);
-						break;
-					case Element:
-						printElement(out, fstack, nstack, (Element)c);
-						break;
-					case EntityRef:
-						printEntityRef(out, fstack, (EntityRef)c);
-						break;
-					case ProcessingInstruction:
-						printProcessingInstruction(out, fstack, 
-								(ProcessingInstruction)c);
-						break;
-					case Text:
-						printText(out, fstack, (Text)c);
-						break;
-				}
+				printContentItem(out, fstack, walker, c);
 			}
 		}
 
 	}
 
+	/**
+	 * Print one value from a Walker, other than an Element.
+	 */
+	private void printContentItem(final Writer out, final FormatStack fstack,
+			final Walker walker, final Content c) throws IOException {
+		if (c == null) {
+			// it is a text value of some sort.
+			final String t = walker.text();
+			if (walker.isCDATA()) {
+				textCDATA(out, t);
+			} else {
+				textRaw(out, t);
+			}
+			return;
+		}
+		switch(c.getCType()) {
+			case CDATA:
+				printCDATA(out, fstack, (CDATA)c);
+				break;
+			case Comment:
+				printComment(out, fstack, (Comment)c);
+				break;
+			case DocType:
+				printDocType(out, fstack, (DocType)c);
+				break;
+			case EntityRef:
+				printEntityRef(out, fstack, (EntityRef)c);
+				break;
+			case ProcessingInstruction:
+				printProcessingInstruction(out, fstack, 
+						(ProcessingInstruction)c);
+				break;
+			case Text:
+				printText(out, fstack, (Text)c);
+				break;
+			default:
+				// Elements are printed by the callers.
+				break;
+		}
+	}
+
 	/**
 	 * This will handle printing of any needed <code>{@link Namespace}</code>
 	 * declarations.
@@ -124,6 +124,9 @@ public final class FormatStack {
 	/** entity escape logic */
 	private final EscapeStrategy escapeStrategy;
 
+	/** Lookup table of the chars (less than 256) to escape, built lazily */
+	private byte[] escapeTable = null;
+
 	/*
 	 * ====================================================================
 	 * The following values can be changed mid-way through the output, hence
@@ -266,6 +269,37 @@ public final class FormatStack {
 		return escapeStrategy;
 	}
 
+	/** Flag in the escape table for chars to escape in Text content */
+	static final byte ESCAPETEXT = 1;
+	/** Flag in the escape table for chars to escape in Attribute values */
+	static final byte ESCAPEATTRIBUTE = 2;
+
+	/**
+	 * Get a lookup table for the chars less than 256 that need escaping in
+	 * Text content ({@link #ESCAPETEXT}) or Attribute values 
+	 * ({@link #ESCAPEATTRIBUTE}). This combines the XML special characters
+	 * with the chars the EscapeStrategy escapes, so the EscapeStrategy only
+	 * needs to be queried for chars of 256 or more.
+	 * 
+	 * @return the shared lookup table, which must not be modified.
+	 */
+	byte[] getEscapeTable() {
+		if (escapeTable == null) {
+			final byte[] table = new byte[256];
+			for (int c = 0; c < table.length; c++) {
+				if (escapeStrategy.shouldEscape((char)c)) {
+					table[c] = ESCAPETEXT | ESCAPEATTRIBUTE;
+				}
+			}
+			table['<'] = table['>'] = table['&'] = table['\r'] = table['\n'] =
+					ESCAPETEXT | ESCAPEATTRIBUTE;
+			table['"'] |= ESCAPEATTRIBUTE;
+			table['\t'] |= ESCAPEATTRIBUTE;
+			escapeTable = table;
+		}
+		return escapeTable;
+	}
+
 	/**
 	 * @return the current depth's {@link Format#getIgnoreTrAXEscapingPIs()}
 	 */
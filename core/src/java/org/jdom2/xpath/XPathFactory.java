@@ -65,6 +65,7 @@ import org.jdom2.filter.Filters;
 import org.jdom2.internal.ReflectionConstructor;
 import org.jdom2.internal.SystemProperty;
 import org.jdom2.xpath.jaxen.JaxenXPathFactory;
+import org.jdom2.xpath.util.CachingXPathFactory;
 
 /**
  * XPathFactory allows JDOM users to configure which XPath implementation to use
@@ -102,6 +103,9 @@ public abstract class XPathFactory {
 	private static final String DEFAULTFACTORY = SystemProperty.get(
 			JDOMConstants.JDOM2_PROPERTY_XPATH_FACTORY, null);
 
+	private static final String DEFAULTCACHE = SystemProperty.get(
+			JDOMConstants.JDOM2_PROPERTY_XPATH_CACHE, null);
+
 	/**
 	 * Obtain an instance of an XPathFactory using the default mechanisms to
 	 * determine what XPathFactory implementation to use.
@@ -112,6 +116,10 @@ public abstract class XPathFactory {
 	 * {@link JDOMConstants#JDOM2_PROPERTY_XPATH_FACTORY} to determine what
 	 * class should be used for the XPathFactory. If that property is not set
 	 * then JDOM will use the {@link JaxenXPathFactory}.
+	 * <p>
+	 * If the system property {@link JDOMConstants#JDOM2_PROPERTY_XPATH_CACHE}
+	 * is set to a positive number then the default XPathFactory keeps a cache
+	 * of that many compiled expressions (see {@link #withCache(int)}).
 	 * 
 	 * @return the default XPathFactory instance
 	 */
@@ -122,6 +130,16 @@ public abstract class XPathFactory {
 		}
 		XPathFactory fac = DEFAULTFACTORY == null ? new JaxenXPathFactory()
 				: newInstance(DEFAULTFACTORY);
+		if (DEFAULTCACHE != null) {
+			try {
+				final int capacity = Integer.parseInt(DEFAULTCACHE.trim());
+				if (capacity > 0) {
+					fac = fac.withCache(capacity);
+				}
+			} catch (NumberFormatException nfe) {
+				// ignore a broken property, and do not cache.
+			}
+		}
 		if (defaultreference.compareAndSet(null, fac)) {
 			return fac;
 		}
@@ -148,6 +166,24 @@ public abstract class XPathFactory {
 				.construct(factoryclass, XPathFactory.class);
 	}
 
+	/**
+	 * Create an XPathFactory that keeps a bounded, least-recently-used cache
+	 * of the expressions compiled by this XPathFactory. Compiling an expression
+	 * that is in the cache (with equal filter, variables and namespaces)
+	 * returns a clone of the cached expression instead of compiling it again.
+	 * The returned factory reports the cache hit and miss counts.
+	 * 
+	 * @param capacity
+	 *        The maximum number of compiled expressions to keep.
+	 * @return A caching XPathFactory that uses this XPathFactory to compile.
+	 * @throws IllegalArgumentException
+	 *         if the capacity is less than 1.
+	 * @since JDOM 2.1.0
+	 */
+	public CachingXPathFactory withCache(int capacity) {
+		return new CachingXPathFactory(this, capacity);
+	}
+
 	/**
 	 * Create a Compiled XPathExpression&lt;&gt; instance from this factory. This
 	 * is the only abstract method on this class. All other compile and evaluate
@@ -0,0 +1,131 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.xpath.direct;
+
+import java.util.List;
+import java.util.Map;
+
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filter;
+import org.jdom2.filter.Filters;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+import org.jdom2.xpath.util.AbstractXPathCompiled;
+
+/**
+ * An XPathExpression that is evaluated directly on the JDOM content. Contexts
+ * that are not JDOM nodes (for example a List of nodes) are evaluated by an
+ * equivalent expression from the fallback XPathFactory.
+ * 
+ * @param <T>
+ *        The generic type of returned data.
+ */
+class DirectCompiled<T> extends AbstractXPathCompiled<T> {
+
+	private final DirectPath path;
+	private final XPathFactory fallbackfactory;
+	/** Created when first needed, and not shared with clones */
+	private XPathExpression<Object> fallback = null;
+
+	/**
+	 * @param expression The XPath expression
+	 * @param filter The coercion filter
+	 * @param variables The XPath variable context
+	 * @param namespaces The XPath namespace context
+	 * @param path The parsed expression
+	 * @param fallbackfactory The XPathFactory for unusual contexts.
+	 */
+	DirectCompiled(String expression, Filter<T> filter,
+			Map<String, Object> variables, Namespace[] namespaces, 
+			DirectPath path, XPathFactory fallbackfactory) {
+		super(expression, filter, variables, namespaces);
+		this.path = path;
+		this.fallbackfactory = fallbackfactory;
+	}
+
+	private XPathExpression<Object> getFallback() {
+		if (fallback == null) {
+			fallback = fallbackfactory.compile(getExpression(), 
+					Filters.fpassthrough(), getVariables(), getNamespaces());
+		}
+		return fallback;
+	}
+
+	@Override
+	protected List<?> evaluateRawAll(Object context) {
+		if (DirectPath.isDirectContext(context)) {
+			return path.evaluate(context);
+		}
+		return getFallback().evaluate(context);
+	}
+
+	@Override
+	protected Object evaluateRawFirst(Object context) {
+		if (DirectPath.isDirectContext(context)) {
+			final List<Object> ret = path.evaluate(context);
+			return ret.isEmpty() ? null : ret.get(0);
+		}
+		return getFallback().evaluateFirst(context);
+	}
+
+	@Override
+	public DirectCompiled<T> clone() {
+		@SuppressWarnings("unchecked")
+		final DirectCompiled<T> ret = (DirectCompiled<T>)super.clone();
+		ret.fallback = null;
+		return ret;
+	}
+
+}
@@ -0,0 +1,851 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.xpath.direct;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import org.jdom2.Attribute;
+import org.jdom2.Content;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.Parent;
+import org.jdom2.Text;
+import org.jdom2.Verifier;
+
+/**
+ * A parsed XPath location path from the subset that can be evaluated
+ * directly on the JDOM content, without an XPath library.
+ * <p>
+ * The supported subset is:
+ * <ul>
+ * <li>relative and absolute paths, with '/' and '//' separators.
+ * <li>the child, descendant and attribute axes (also as '@'), and '.'.
+ * <li>name tests (QName, '*' and 'prefix:*'), and the text() node test.
+ * <li>predicates: a position <code>[n]</code>, <code>[last()]</code>,
+ * <code>[@att]</code>, <code>[@att='value']</code>, <code>[child]</code> and
+ * <code>[child='value']</code>.
+ * </ul>
+ * Instances are immutable, and thread-safe.
+ */
+final class DirectPath {
+
+	/* Step axes */
+	private static final int CHILD = 0;
+	private static final int DESCENDANT = 1;
+	private static final int DESCENDANT_OR_SELF = 2;
+	private static final int ATTRIBUTE = 3;
+	private static final int SELF = 4;
+
+	/* Node tests */
+	private static final int NAME = 0;
+	private static final int ANYNAME = 1;
+	private static final int NSNAME = 2;
+	private static final int TEXT = 3;
+	private static final int ANYNODE = 4;
+
+	/* Predicates */
+	private static final int POSITION = 0;
+	private static final int LAST = 1;
+	private static final int HASATTRIBUTE = 2;
+	private static final int ATTRIBUTEEQUALS = 3;
+	private static final int HASCHILD = 4;
+	private static final int CHILDEQUALS = 5;
+
+	private static final class Predicate {
+		private final int type;
+		private final int position;
+		private final String name;
+		private final Namespace namespace;
+		private final String value;
+
+		private Predicate(int type, int position, String name,
+				Namespace namespace, String value) {
+			this.type = type;
+			this.position = position;
+			this.name = name;
+			this.namespace = namespace;
+			this.value = value;
+		}
+
+		private boolean isPositional() {
+			return type == POSITION || type == LAST;
+		}
+
+		private boolean matches(final Object node) {
+			if (!(node instanceof Element)) {
+				return false;
+			}
+			final Element emt = (Element)node;
+			switch (type) {
+				case HASATTRIBUTE:
+					return emt.getAttribute(name, namespace) != null;
+				case ATTRIBUTEEQUALS:
+					final Attribute att = emt.getAttribute(name, namespace);
+					return att != null && value.equals(att.getValue());
+				case HASCHILD:
+					return emt.getChild(name, namespace) != null;
+				case CHILDEQUALS:
+					final int sz = emt.getContentSize();
+					for (int i = 0; i < sz; i++) {
+						final Content c = emt.getContent(i);
+						if (c instanceof Element) {
+							final Element kid = (Element)c;
+							if (name.equals(kid.getName())
+									&& namespace.getURI().equals(kid.getNamespaceURI())
+									&& value.equals(kid.getValue())) {
+								return true;
+							}
+						}
+					}
+					return false;
+				default:
+					throw new IllegalStateException("Unknown predicate " + type);
+			}
+		}
+
+		/**
+		 * Apply this predicate to the nodes selected from one context node.
+		 * @param nodes The nodes, in axis order.
+		 * @return The nodes that match the predicate (may be the input list).
+		 */
+		private List<Object> filter(final List<Object> nodes) {
+			switch (type) {
+				case POSITION:
+					if (position > nodes.size()) {
+						return Collections.emptyList();
+					}
+					return Collections.singletonList(nodes.get(position - 1));
+				case LAST:
+					if (nodes.isEmpty()) {
+						return nodes;
+					}
+					return Collections.singletonList(nodes.get(nodes.size() - 1));
+				default:
+					final List<Object> ret = new ArrayList<Object>(nodes.size());
+					for (final Object o : nodes) {
+						if (matches(o)) {
+							ret.add(o);
+						}
+					}
+					return ret;
+			}
+		}
+	}
+
+	private static final class Step {
+		private final int axis;
+		private final int test;
+		private final String name;
+		private final Namespace namespace;
+		private final Predicate[] predicates;
+		private final boolean positional;
+
+		private Step(int axis, int test, String name, Namespace namespace,
+				Predicate[] predicates) {
+			this.axis = axis;
+			this.test = test;
+			this.name = name;
+			this.namespace = namespace;
+			this.predicates = predicates;
+			boolean pos = false;
+			for (final Predicate p : predicates) {
+				pos |= p.isPositional();
+			}
+			this.positional = pos;
+		}
+
+		private boolean matchesNode(final Object node) {
+			switch (test) {
+				case NAME:
+					if (node instanceof Element) {
+						final Element emt = (Element)node;
+						return name.equals(emt.getName())
+								&& namespace.getURI().equals(emt.getNamespaceURI());
+					}
+					return false;
+				case ANYNAME:
+					return node instanceof Element;
+				case NSNAME:
+					return node instanceof Element && namespace.getURI()
+							.equals(((Element)node).getNamespaceURI());
+				case TEXT:
+					return node instanceof Text;
+				case ANYNODE:
+					return true;
+				default:
+					throw new IllegalStateException("Unknown node test " + test);
+			}
+		}
+
+		private boolean matches(final Object node) {
+			if (!matchesNode(node)) {
+				return false;
+			}
+			for (final Predicate p : predicates) {
+				if (!p.matches(node)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean matchesAttribute(final Attribute att) {
+			switch (test) {
+				case NAME:
+					return name.equals(att.getName())
+							&& namespace.getURI().equals(att.getNamespaceURI());
+				case NSNAME:
+					return namespace.getURI().equals(att.getNamespaceURI());
+				default:
+					return true;
+			}
+		}
+
+		/**
+		 * Apply the predicates to the nodes selected from one context node.
+		 * @param nodes The nodes that match the node test, in axis order.
+		 * @param out Where to add the selected nodes.
+		 */
+		private void select(List<Object> nodes, final List<Object> out) {
+			for (final Predicate p : predicates) {
+				nodes = p.filter(nodes);
+			}
+			out.addAll(nodes);
+		}
+	}
+
+	/**
+	 * A growable stack of Parents, and the next content index in each one,
+	 * used to walk the descendants of a node in document order.
+	 */
+	private static final class Walker {
+		private Parent[] parents = new Parent[16];
+		private int[] indices = new int[16];
+		private int depth = 0;
+		private final IdentityHashMap<Object, Object> visited;
+
+		private Walker(final IdentityHashMap<Object, Object> visited) {
+			this.visited = visited;
+		}
+
+		private void push(final Parent p) {
+			if (depth == parents.length) {
+				final Parent[] np = new Parent[depth * 2];
+				System.arraycopy(parents, 0, np, 0, depth);
+				parents = np;
+				final int[] ni = new int[depth * 2];
+				System.arraycopy(indices, 0, ni, 0, depth);
+				indices = ni;
+			}
+			if (visited != null) {
+				visited.put(p, p);
+			}
+			parents[depth] = p;
+			indices[depth++] = 0;
+		}
+
+		/**
+		 * @return the next descendant in document order, or null when done.
+		 */
+		private Content next() {
+			while (depth > 0) {
+				final Parent p = parents[depth - 1];
+				final int i = indices[depth - 1]++;
+				if (i >= p.getContentSize()) {
+					parents[--depth] = null;
+					continue;
+				}
+				final Content c = p.getContent(i);
+				if (c instanceof Element) {
+					push((Element)c);
+				}
+				return c;
+			}
+			return null;
+		}
+	}
+
+	private static final Namespace[] NONS = new Namespace[0];
+
+	/**
+	 * Parse an expression in to a DirectPath.
+	 * 
+	 * @param expression
+	 *        The XPath expression
+	 * @param namespaces
+	 *        The namespaces the expression's prefixes can resolve to.
+	 * @return The parsed expression, or null if the expression is not in the
+	 *         supported subset (or its prefixes are not all available).
+	 */
+	static DirectPath parse(final String expression, final Namespace[] namespaces) {
+		final Parser p = new Parser(expression, 
+				namespaces == null ? NONS : namespaces);
+		try {
+			return p.parse();
+		} catch (IllegalArgumentException e) {
+			// not in the subset we understand.
+			return null;
+		}
+	}
+
+	/**
+	 * A simple recursive-descent parser. Anything not understood throws
+	 * IllegalArgumentException.
+	 */
+	private static final class Parser {
+		private final String xp;
+		private final Namespace[] namespaces;
+		private final int len;
+		private int pos = 0;
+		private boolean nesting = false;
+
+		private Parser(final String xp, final Namespace[] namespaces) {
+			this.xp = xp;
+			this.namespaces = namespaces;
+			this.len = xp.length();
+		}
+
+		private DirectPath parse() {
+			final List<Step> steps = new ArrayList<Step>();
+			skipSpace();
+			boolean absolute = false;
+			if (peek('/')) {
+				absolute = true;
+				if (peek("//")) {
+					pos += 2;
+					steps.add(descendantOrSelf());
+				} else {
+					pos++;
+					skipSpace();
+					if (pos == len) {
+						return new DirectPath(true, steps);
+					}
+				}
+			}
+			while (true) {
+				final Step step = step();
+				if (step.axis == ATTRIBUTE) {
+					steps.add(step);
+					skipSpace();
+					break;
+				}
+				if (step.axis != SELF) {
+					steps.add(step);
+				}
+				skipSpace();
+				if (peek("//")) {
+					pos += 2;
+					steps.add(descendantOrSelf());
+				} else if (peek('/')) {
+					pos++;
+				} else {
+					break;
+				}
+			}
+			if (pos != len) {
+				throw new IllegalArgumentException("Unexpected content at " + pos);
+			}
+			return new DirectPath(absolute, steps);
+		}
+
+		private Step descendantOrSelf() {
+			nesting = true;
+			return new Step(DESCENDANT_OR_SELF, ANYNODE, null, null, 
+					new Predicate[0]);
+		}
+
+		private Step step() {
+			skipSpace();
+			if (peek('.')) {
+				pos++;
+				if (peek('.') || nesting) {
+					// '..' and '//.' are not supported.
+					throw new IllegalArgumentException("Unsupported self");
+				}
+				return new Step(SELF, ANYNODE, null, null, new Predicate[0]);
+			}
+			int axis = CHILD;
+			if (peek('@')) {
+				pos++;
+				axis = ATTRIBUTE;
+			} else {
+				final int start = pos;
+				final String ax = ncname();
+				skipSpace();
+				if (ax != null && peek("::")) {
+					pos += 2;
+					if ("child".equals(ax)) {
+						axis = CHILD;
+					} else if ("descendant".equals(ax)) {
+						axis = DESCENDANT;
+					} else if ("attribute".equals(ax)) {
+						axis = ATTRIBUTE;
+					} else {
+						throw new IllegalArgumentException("Unsupported axis " + ax);
+					}
+				} else {
+					pos = start;
+				}
+			}
+			skipSpace();
+			final Step ret;
+			if (peek('*')) {
+				pos++;
+				ret = new Step(axis, ANYNAME, null, null, predicates());
+			} else {
+				final String n1 = ncname();
+				if (n1 == null) {
+					throw new IllegalArgumentException("Expected a name at " + pos);
+				}
+				if (peek(':') && !peek("::")) {
+					pos++;
+					final Namespace ns = resolve(n1);
+					if (peek('*')) {
+						pos++;
+						ret = new Step(axis, NSNAME, null, ns, predicates());
+					} else {
+						final String n2 = ncname();
+						if (n2 == null) {
+							throw new IllegalArgumentException("Expected a name at " + pos);
+						}
+						ret = new Step(axis, NAME, n2, ns, predicates());
+					}
+				} else {
+					skipSpace();
+					if (peek('(')) {
+						if (!"text".equals(n1) || axis == ATTRIBUTE) {
+							throw new IllegalArgumentException("Unsupported " + n1);
+						}
+						pos++;
+						skipSpace();
+						expect(')');
+						ret = new Step(axis, TEXT, null, null, predicates());
+					} else {
+						ret = new Step(axis, NAME, n1, Namespace.NO_NAMESPACE, 
+								predicates());
+					}
+				}
+			}
+			if (ret.axis == ATTRIBUTE && ret.predicates.length > 0) {
+				throw new IllegalArgumentException("Unsupported attribute predicate");
+			}
+			if (ret.axis == DESCENDANT) {
+				if (nesting && ret.positional) {
+					throw new IllegalArgumentException(
+							"Unsupported positional predicate on nested descendants");
+				}
+				nesting = true;
+			}
+			return ret;
+		}
+
+		private Predicate[] predicates() {
+			final List<Predicate> preds = new ArrayList<Predicate>();
+			skipSpace();
+			while (peek('[')) {
+				pos++;
+				skipSpace();
+				preds.add(predicate());
+				skipSpace();
+				expect(']');
+				skipSpace();
+			}
+			return preds.toArray(new Predicate[preds.size()]);
+		}
+
+		private Predicate predicate() {
+			if (pos < len && xp.charAt(pos) >= '0' && xp.charAt(pos) <= '9') {
+				final int start = pos;
+				while (pos < len && xp.charAt(pos) >= '0' && xp.charAt(pos) <= '9') {
+					pos++;
+				}
+				final int p = Integer.parseInt(xp.substring(start, pos));
+				if (p < 1) {
+					throw new IllegalArgumentException("Unsupported position " + p);
+				}
+				return new Predicate(POSITION, p, null, null, null);
+			}
+			final boolean att = peek('@');
+			if (att) {
+				pos++;
+			}
+			final String n1 = ncname();
+			if (n1 == null) {
+				throw new IllegalArgumentException("Expected a name at " + pos);
+			}
+			String name = n1;
+			Namespace ns = Namespace.NO_NAMESPACE;
+			if (peek(':')) {
+				pos++;
+				ns = resolve(n1);
+				name = ncname();
+				if (name == null) {
+					throw new IllegalArgumentException("Expected a name at " + pos);
+				}
+			}
+			skipSpace();
+			if (!att && ns == Namespace.NO_NAMESPACE && peek('(')) {
+				if (!"last".equals(n1)) {
+					throw new IllegalArgumentException("Unsupported " + n1);
+				}
+				pos++;
+				skipSpace();
+				expect(')');
+				return new Predicate(LAST, 0, null, null, null);
+			}
+			if (peek('=')) {
+				pos++;
+				skipSpace();
+				final String value = literal();
+				return new Predicate(att ? ATTRIBUTEEQUALS : CHILDEQUALS, 0, name, 
+						ns, value);
+			}
+			return new Predicate(att ? HASATTRIBUTE : HASCHILD, 0, name, ns, null);
+		}
+
+		private String literal() {
+			if (pos >= len || (xp.charAt(pos) != '"' && xp.charAt(pos) != '\'')) {
+				throw new IllegalArgumentException("Expected a literal at " + pos);
+			}
+			final char quote = xp.charAt(pos);
+			final int end = xp.indexOf(quote, pos + 1);
+			if (end < 0) {
+				throw new IllegalArgumentException("Unterminated literal at " + pos);
+			}
+			final String ret = xp.substring(pos + 1, end);
+			pos = end + 1;
+			return ret;
+		}
+
+		private Namespace resolve(final String prefix) {
+			for (final Namespace ns : namespaces) {
+				if (ns != null && prefix.equals(ns.getPrefix())) {
+					return ns;
+				}
+			}
+			throw new IllegalArgumentException("Unknown prefix " + prefix);
+		}
+
+		private String ncname() {
+			if (pos >= len || !Verifier.isXMLNameStartCharacter(xp.charAt(pos))
+					|| xp.charAt(pos) == ':') {
+				return null;
+			}
+			final int start = pos++;
+			while (pos < len && Verifier.isXMLNameCharacter(xp.charAt(pos))
+					&& xp.charAt(pos) != ':') {
+				pos++;
+			}
+			return xp.substring(start, pos);
+		}
+
+		private void expect(final char c) {
+			if (!peek(c)) {
+				throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+			}
+			pos++;
+		}
+
+		private boolean peek(final char c) {
+			return pos < len && xp.charAt(pos) == c;
+		}
+
+		private boolean peek(final String s) {
+			return xp.startsWith(s, pos);
+		}
+
+		private void skipSpace() {
+			while (pos < len && Verifier.isXMLWhitespace(xp.charAt(pos))) {
+				pos++;
+			}
+		}
+	}
+
+	private final boolean absolute;
+	private final Step[] steps;
+
+	private DirectPath(final boolean absolute, final List<Step> steps) {
+		this.absolute = absolute;
+		this.steps = steps.toArray(new Step[steps.size()]);
+	}
+
+	/**
+	 * Whether the path can be evaluated directly against the context.
+	 * @param context The context to evaluate against.
+	 * @return true if the context is a JDOM node.
+	 */
+	static boolean isDirectContext(final Object context) {
+		return context instanceof Content || context instanceof Document
+				|| context instanceof Attribute;
+	}
+
+	/**
+	 * Evaluate this path against a context node.
+	 * 
+	 * @param context
+	 *        The context (for which {@link #isDirectContext(Object)} is true).
+	 * @return The selected nodes, in document order.
+	 */
+	List<Object> evaluate(final Object context) {
+		Object start = context;
+		if (absolute) {
+			if (context instanceof Document) {
+				start = context;
+			} else if (context instanceof Attribute) {
+				start = ((Attribute)context).getDocument();
+			} else {
+				start = ((Content)context).getDocument();
+			}
+			if (start == null) {
+				return Collections.emptyList();
+			}
+		}
+		List<Object> current = Collections.singletonList(start);
+		boolean nested = false;
+		for (final Step step : steps) {
+			if (current.isEmpty()) {
+				break;
+			}
+			switch (step.axis) {
+				case CHILD:
+					current = nested ? nestedChildren(step, current) 
+							: children(step, current);
+					break;
+				case DESCENDANT:
+					current = descendants(step, current, nested);
+					nested = true;
+					break;
+				case DESCENDANT_OR_SELF:
+					current = descendantOrSelf(current);
+					nested = true;
+					break;
+				case ATTRIBUTE:
+					current = attributes(step, current);
+					break;
+				default:
+					throw new IllegalStateException("Unknown axis " + step.axis);
+			}
+		}
+		return current;
+	}
+
+	private static List<Object> children(final Step step, final List<Object> contexts) {
+		final List<Object> out = new ArrayList<Object>();
+		final List<Object> tmp = step.predicates.length == 0 ? null 
+				: new ArrayList<Object>();
+		for (final Object ctx : contexts) {
+			if (!(ctx instanceof Parent)) {
+				continue;
+			}
+			final Parent p = (Parent)ctx;
+			final int sz = p.getContentSize();
+			for (int i = 0; i < sz; i++) {
+				final Content c = p.getContent(i);
+				if (step.matchesNode(c)) {
+					if (tmp == null) {
+						out.add(c);
+					} else {
+						tmp.add(c);
+					}
+				}
+			}
+			if (tmp != null) {
+				step.select(tmp, out);
+				tmp.clear();
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * When the contexts may contain each other, the children have to be
+	 * found by walking the content in document order.
+	 */
+	private static List<Object> nestedChildren(final Step step, 
+			final List<Object> contexts) {
+		final IdentityHashMap<Object, Object> selected = 
+				new IdentityHashMap<Object, Object>();
+		for (final Object o : children(step, contexts)) {
+			selected.put(o, o);
+		}
+		final List<Object> out = new ArrayList<Object>(selected.size());
+		if (selected.isEmpty()) {
+			return out;
+		}
+		final IdentityHashMap<Object, Object> visited = 
+				new IdentityHashMap<Object, Object>();
+		final Walker walker = new Walker(visited);
+		for (final Object ctx : contexts) {
+			if (!(ctx instanceof Parent) || visited.containsKey(ctx)) {
+				continue;
+			}
+			walker.push((Parent)ctx);
+			Content c = null;
+			while ((c = walker.next()) != null) {
+				if (selected.containsKey(c)) {
+					out.add(c);
+				}
+			}
+		}
+		return out;
+	}
+
+	private static List<Object> descendantOrSelf(final List<Object> contexts) {
+		final List<Object> out = new ArrayList<Object>();
+		final IdentityHashMap<Object, Object> visited = 
+				new IdentityHashMap<Object, Object>();
+		final Walker walker = new Walker(visited);
+		for (final Object ctx : contexts) {
+			if (!(ctx instanceof Parent) || visited.containsKey(ctx)) {
+				continue;
+			}
+			out.add(ctx);
+			walker.push((Parent)ctx);
+			Content c = null;
+			while ((c = walker.next()) != null) {
+				if (c instanceof Element) {
+					out.add(c);
+				}
+			}
+		}
+		return out;
+	}
+
+	private static List<Object> descendants(final Step step, 
+			final List<Object> contexts, final boolean nested) {
+		final List<Object> out = new ArrayList<Object>();
+		if (nested) {
+			// the parser guarantees there are no positional predicates.
+			final IdentityHashMap<Object, Object> visited = 
+					new IdentityHashMap<Object, Object>();
+			final Walker walker = new Walker(visited);
+			for (final Object ctx : contexts) {
+				if (!(ctx instanceof Parent) || visited.containsKey(ctx)) {
+					continue;
+				}
+				walker.push((Parent)ctx);
+				Content c = null;
+				while ((c = walker.next()) != null) {
+					if (step.matches(c)) {
+						out.add(c);
+					}
+				}
+			}
+			return out;
+		}
+		final Walker walker = new Walker(null);
+		final List<Object> tmp = new ArrayList<Object>();
+		for (final Object ctx : contexts) {
+			if (!(ctx instanceof Parent)) {
+				continue;
+			}
+			walker.push((Parent)ctx);
+			Content c = null;
+			while ((c = walker.next()) != null) {
+				if (step.matchesNode(c)) {
+					tmp.add(c);
+				}
+			}
+			step.select(tmp, out);
+			tmp.clear();
+		}
+		return out;
+	}
+
+	private static List<Object> attributes(final Step step, final List<Object> contexts) {
+		final List<Object> out = new ArrayList<Object>();
+		for (final Object ctx : contexts) {
+			if (!(ctx instanceof Element)) {
+				continue;
+			}
+			final Element emt = (Element)ctx;
+			if (!emt.hasAttributes()) {
+				continue;
+			}
+			if (step.test == NAME) {
+				final Attribute a = emt.getAttribute(step.name, step.namespace);
+				if (a != null) {
+					out.add(a);
+				}
+			} else {
+				for (final Attribute a : emt.getAttributes()) {
+					if (step.matchesAttribute(a)) {
+						out.add(a);
+					}
+				}
+			}
+		}
+		return out;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		sb.append(absolute ? "DirectPath[/" : "DirectPath[");
+		for (final Step s : steps) {
+			sb.append("{").append(s.axis).append(",").append(s.test);
+			if (s.name != null) {
+				sb.append(",").append(s.name);
+			}
+			sb.append(",").append(s.predicates.length).append("}");
+		}
+		return sb.append("]").toString();
+	}
+
+}
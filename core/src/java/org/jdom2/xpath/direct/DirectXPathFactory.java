@@ -0,0 +1,158 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.xpath.direct;
+
+import java.util.Map;
+
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filter;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+import org.jdom2.xpath.jaxen.JaxenXPathFactory;
+
+/**
+ * An XPathFactory that evaluates the most common XPath location paths
+ * directly on the JDOM content, and uses another XPathFactory (Jaxen by
+ * default) for everything else.
+ * <p>
+ * The expressions that are evaluated directly are location paths that use:
+ * <ul>
+ * <li>'/' and '//' separators, either relative or absolute.
+ * <li>the child, descendant and attribute axes (also abbreviated as '@'),
+ * and '.'.
+ * <li>name tests (QName, '*' and 'prefix:*'), and the text() node test.
+ * <li>predicates on element steps that are a position <code>[2]</code>,
+ * <code>[last()]</code>, an attribute <code>[@att]</code> or child
+ * <code>[child]</code> test, or a comparison of an attribute or child with a
+ * literal: <code>[@att='value']</code> and <code>[child='value']</code>.
+ * </ul>
+ * For example <code>/a/b[@id='x']/c</code>, <code>//item[2]</code> or
+ * <code>ns:list/ns:entry/@key</code>. Such expressions are evaluated by walking
+ * the content of each Element (or Document) with no XPath library and no
+ * wrapping of the results, and they return the nodes in document order.
+ * Expressions (and contexts, like a List of nodes) outside this subset are
+ * compiled (and evaluated) by the fallback XPathFactory, so this factory can
+ * be used for all expressions.
+ * <p>
+ * To make this the default XPathFactory set the system property
+ * {@link org.jdom2.JDOMConstants#JDOM2_PROPERTY_XPATH_FACTORY} to
+ * <code>org.jdom2.xpath.direct.DirectXPathFactory</code>.
+ * 
+ * @since JDOM 2.1.0
+ */
+public class DirectXPathFactory extends XPathFactory {
+
+	private final XPathFactory fallback;
+
+	/**
+	 * The public default constructor used by the XPathFactory, which uses a
+	 * {@link JaxenXPathFactory} for the expressions that cannot be evaluated
+	 * directly.
+	 */
+	public DirectXPathFactory() {
+		this(new JaxenXPathFactory());
+	}
+
+	/**
+	 * Create a DirectXPathFactory with a specific fallback XPathFactory.
+	 * 
+	 * @param fallback
+	 *        The XPathFactory for the expressions that cannot be evaluated
+	 *        directly.
+	 */
+	public DirectXPathFactory(XPathFactory fallback) {
+		if (fallback == null) {
+			throw new NullPointerException("Null fallback XPathFactory");
+		}
+		this.fallback = fallback;
+	}
+
+	/**
+	 * The XPathFactory used for the expressions that cannot be evaluated
+	 * directly.
+	 * 
+	 * @return The fallback XPathFactory.
+	 */
+	public XPathFactory getFallback() {
+		return fallback;
+	}
+
+	/**
+	 * Determine whether an XPathExpression is evaluated directly.
+	 * 
+	 * @param xpath
+	 *        The XPathExpression to check
+	 * @return true if the expression was compiled by a DirectXPathFactory and
+	 *         is evaluated directly on the JDOM content.
+	 */
+	public static boolean isDirect(XPathExpression<?> xpath) {
+		return xpath instanceof DirectCompiled;
+	}
+
+	@Override
+	public <T> XPathExpression<T> compile(String expression, Filter<T> filter,
+			Map<String, Object> variables, Namespace... namespaces) {
+		if (expression == null) {
+			throw new NullPointerException("Null query");
+		}
+		final DirectPath path = DirectPath.parse(expression, namespaces);
+		if (path == null) {
+			return fallback.compile(expression, filter, variables, namespaces);
+		}
+		return new DirectCompiled<T>(expression, filter, variables, namespaces, 
+				path, fallback);
+	}
+
+}
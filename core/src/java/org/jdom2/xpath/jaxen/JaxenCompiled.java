@@ -55,16 +55,19 @@
 package org.jdom2.xpath.jaxen;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.jaxen.BaseXPath;
+import org.jaxen.Context;
+import org.jaxen.ContextSupport;
 import org.jaxen.JaxenException;
 import org.jaxen.NamespaceContext;
 import org.jaxen.UnresolvableException;
 import org.jaxen.VariableContext;
-import org.jaxen.XPath;
+import org.jaxen.XPathFunctionContext;
 
 import org.jdom2.Namespace;
 import org.jdom2.filter.Filter;
@@ -80,6 +83,40 @@ import org.jdom2.xpath.util.AbstractXPathCompiled;
 class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 		NamespaceContext, VariableContext {
 
+	/**
+	 * A parsed Jaxen expression that can be shared by clones of a
+	 * JaxenCompiled instance (the parse is the expensive part of compiling).
+	 * The namespace, variable and navigator contexts are supplied for each
+	 * evaluation, instead of being set on the shared BaseXPath.
+	 */
+	private static final class SharedXPath extends BaseXPath {
+		private static final long serialVersionUID = 1L;
+
+		private SharedXPath(String expression) throws JaxenException {
+			super(expression, null);
+		}
+
+		private Context getContext(Object node, ContextSupport support) {
+			final Context context = new Context(support);
+			if (node instanceof List) {
+				context.setNodeSet((List<?>)node);
+			} else {
+				context.setNodeSet(Collections.singletonList(node));
+			}
+			return context;
+		}
+
+		private List<?> selectNodes(Object node, ContextSupport support) 
+				throws JaxenException {
+			return selectNodesForContext(getContext(node, support));
+		}
+
+		private Object selectSingleNode(Object node, ContextSupport support) 
+				throws JaxenException {
+			return selectSingleNodeForContext(getContext(node, support));
+		}
+	}
+
 	/**
 	 * Same story, need to be able to strip NamespaceContainer instances from
 	 * Namespace content.
@@ -114,10 +151,10 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 	}
 
 	/**
-	 * The compiled XPath object to select nodes. This attribute can not be made
-	 * final as it needs to be set upon object deserialization.
+	 * The compiled XPath object to select nodes. This is shared with any
+	 * clones of this instance.
 	 */
-	private final XPath xPath;
+	private final SharedXPath xPath;
 
 	/**
 	 * The current context for XPath expression evaluation. The navigator is
@@ -137,6 +174,12 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 	 */
 	private final JDOM2Navigator navigator = new JDOM2Navigator();
 
+	/**
+	 * The contexts this instance evaluates the shared xPath with.
+	 */
+	private final ContextSupport support = new ContextSupport(this,
+			XPathFunctionContext.getInstance(), this, navigator);
+
 	/**
 	 * @param expression The XPath expression
 	 * @param filter The coercion filter
@@ -147,23 +190,24 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 			Map<String, Object> variables, Namespace[] namespaces) {
 		super(expression, filter, variables, namespaces);
 		try {
-			xPath = new BaseXPath(expression, navigator);
+			xPath = new SharedXPath(expression);
 		} catch (JaxenException e) {
 			throw new IllegalArgumentException("Unable to compile '" + expression
 					+ "'. See Cause.", e);
 		}
-		xPath.setNamespaceContext(this);
-		xPath.setVariableContext(this);
 	}
 
 	/**
 	 * Make a copy-constructor available to the clone() method.
-	 * This is simpler than trying to do a deep clone anyway.
+	 * This is simpler than trying to do a deep clone anyway, and the
+	 * already-parsed expression is reused.
 	 * 
 	 * @param toclone The JaxenCompiled instance to clone
 	 */
 	private JaxenCompiled(JaxenCompiled<T> toclone) {
-		this(toclone.getExpression(), toclone.getFilter(), toclone.getVariables(), toclone.getNamespaces());
+		super(toclone.getExpression(), toclone.getFilter(), 
+				toclone.getVariables(), toclone.getNamespaces());
+		xPath = toclone.xPath;
 	}
 
 	@Override
@@ -195,7 +239,7 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 	@Override
 	protected List<?> evaluateRawAll(Object context) {
 		try {
-			return unWrap(xPath.selectNodes(context));
+			return unWrap(xPath.selectNodes(context, support));
 		} catch (JaxenException e) {
 			throw new IllegalStateException(
 					"Unable to evaluate expression. See cause", e);
@@ -205,7 +249,7 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 	@Override
 	protected Object evaluateRawFirst(Object context) {
 		try {
-			return unWrapNS(xPath.selectSingleNode(context));
+			return unWrapNS(xPath.selectSingleNode(context, support));
 		} catch (JaxenException e) {
 			throw new IllegalStateException(
 					"Unable to evaluate expression. See cause", e);
@@ -216,8 +260,7 @@ class JaxenCompiled<T> extends AbstractXPathCompiled<T> implements
 	public JaxenCompiled<T> clone() {
 		// Use a copy-constructor instead of a deep clone.
 		// we have a couple of final variables on this class that we cannot share
-		// between instances, and the Jaxen xpath variable is pretty complicated to reconstruct
-		// anyway. Easier to just reconstruct it.
+		// between instances. The parsed Jaxen expression is shared though.
 		return new JaxenCompiled<T>(this);
 	}
 
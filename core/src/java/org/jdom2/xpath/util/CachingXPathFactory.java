@@ -0,0 +1,294 @@
+/*--
+
+ Copyright (C) 2011-2014 Jason Hunter & Brett McLaughlin.
+ All rights reserved.
+
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions, and the following disclaimer.
+
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions, and the disclaimer that follows
+    these conditions in the documentation and/or other materials
+    provided with the distribution.
+
+ 3. The name "JDOM" must not be used to endorse or promote products
+    derived from this software without prior written permission.  For
+    written permission, please contact <request_AT_jdom_DOT_org>.
+
+ 4. Products derived from this software may not be called "JDOM", nor
+    may "JDOM" appear in their name, without prior written permission
+    from the JDOM Project Management <request_AT_jdom_DOT_org>.
+
+ In addition, we request (but do not require) that you include in the
+ end-user documentation provided with the redistribution and/or in the
+ software itself an acknowledgement equivalent to the following:
+     "This product includes software developed by the
+      JDOM Project (http://www.jdom.org/)."
+ Alternatively, the acknowledgment may be graphical using the logos
+ available at http://www.jdom.org/images/logos.
+
+ THIS SOFTWARE IS PROVIDED ``AS IS'' AND ANY EXPRESSED OR IMPLIED
+ WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+ OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ DISCLAIMED.  IN NO EVENT SHALL THE JDOM AUTHORS OR THE PROJECT
+ CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF
+ USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ SUCH DAMAGE.
+
+ This software consists of voluntary contributions made by many
+ individuals on behalf of the JDOM Project and was originally
+ created by Jason Hunter <jhunter_AT_jdom_DOT_org> and
+ Brett McLaughlin <brett_AT_jdom_DOT_org>.  For more information
+ on the JDOM Project, please see <http://www.jdom.org/>.
+
+ */
+
+package org.jdom2.xpath.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filter;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+/**
+ * An XPathFactory that keeps a bounded, least-recently-used cache of the
+ * XPathExpression instances compiled by some other XPathFactory.
+ * <p>
+ * Expressions are cached by the combination of the expression, the Filter,
+ * the variables (names and values) and the namespaces (prefixes and URIs)
+ * they are compiled with. Because XPathExpression instances are not
+ * thread-safe, the cache keeps its own instance of each expression, and
+ * each compile returns a {@link XPathExpression#clone() clone} of it.
+ * Cloning is much cheaper than compiling for the XPathFactory
+ * implementations that come with JDOM (the parsed expression is shared by
+ * the clones).
+ * <p>
+ * Like all XPathFactory instances, this class is thread-safe.
+ * 
+ * @see XPathFactory#withCache(int)
+ * @since JDOM 2.1.0
+ */
+public class CachingXPathFactory extends XPathFactory {
+
+	/**
+	 * The identity of a compiled expression.
+	 */
+	private static final class Key {
+		private final String expression;
+		private final Filter<?> filter;
+		private final Map<String, Object> variables;
+		private final String[] namespaces;
+		private final int hash;
+
+		private Key(final String expression, final Filter<?> filter,
+				final Map<String, Object> variables, final Namespace[] namespaces) {
+			this.expression = expression;
+			this.filter = filter;
+			this.variables = variables == null || variables.isEmpty()
+					? Collections.<String, Object>emptyMap()
+					: new HashMap<String, Object>(variables);
+			// Namespace.equals() ignores the prefix, but compile does not.
+			final int nslen = namespaces == null ? 0 : namespaces.length;
+			this.namespaces = new String[nslen * 2];
+			for (int i = 0; i < nslen; i++) {
+				this.namespaces[i * 2] = namespaces[i].getPrefix();
+				this.namespaces[i * 2 + 1] = namespaces[i].getURI();
+			}
+			int h = expression.hashCode();
+			h = h * 31 + filter.hashCode();
+			h = h * 31 + this.variables.hashCode();
+			hash = h * 31 + Arrays.hashCode(this.namespaces);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key k = (Key)obj;
+			return hash == k.hash && expression.equals(k.expression)
+					&& filter.equals(k.filter)
+					&& variables.equals(k.variables)
+					&& Arrays.equals(namespaces, k.namespaces);
+		}
+	}
+
+	/**
+	 * An access-ordered map that discards the least-recently-used expression.
+	 */
+	private static final class LRUMap extends LinkedHashMap<Key, XPathExpression<?>> {
+		private static final long serialVersionUID = 1L;
+		private final int capacity;
+
+		private LRUMap(final int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<Key, XPathExpression<?>> eldest) {
+			return size() > capacity;
+		}
+	}
+
+	private final XPathFactory delegate;
+	private final int capacity;
+	/** Guarded by itself */
+	private final LRUMap cache;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Create a CachingXPathFactory that caches up to <code>capacity</code>
+	 * expressions compiled by the delegate XPathFactory.
+	 * 
+	 * @param delegate
+	 *        The XPathFactory that compiles the expressions.
+	 * @param capacity
+	 *        The maximum number of expressions to keep.
+	 * @throws NullPointerException
+	 *         if the delegate is null.
+	 * @throws IllegalArgumentException
+	 *         if the capacity is less than 1.
+	 */
+	public CachingXPathFactory(final XPathFactory delegate, final int capacity) {
+		if (delegate == null) {
+			throw new NullPointerException("Cannot cache a null XPathFactory");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException(
+					"The cache capacity must be at least 1, not " + capacity);
+		}
+		this.delegate = delegate;
+		this.capacity = capacity;
+		this.cache = new LRUMap(capacity);
+	}
+
+	@Override
+	public <T> XPathExpression<T> compile(final String expression,
+			final Filter<T> filter, final Map<String, Object> variables,
+			final Namespace... namespaces) {
+		if (expression == null) {
+			throw new NullPointerException("Null expression");
+		}
+		if (filter == null) {
+			throw new NullPointerException("Null filter");
+		}
+		final Key key = new Key(expression, filter, variables, namespaces);
+		XPathExpression<?> cached = null;
+		synchronized (cache) {
+			cached = cache.get(key);
+		}
+		if (cached != null) {
+			hits.incrementAndGet();
+			// The key has an equal filter, so the generic type is T.
+			@SuppressWarnings("unchecked")
+			final XPathExpression<T> ret = (XPathExpression<T>)cached.clone();
+			return ret;
+		}
+		misses.incrementAndGet();
+		final XPathExpression<T> compiled = 
+				delegate.compile(expression, filter, variables, namespaces);
+		synchronized (cache) {
+			cache.put(key, compiled);
+		}
+		return compiled.clone();
+	}
+
+	/**
+	 * The XPathFactory that compiles the expressions that are not cached.
+	 * 
+	 * @return the delegate XPathFactory.
+	 */
+	public XPathFactory getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * The maximum number of expressions kept by this cache.
+	 * 
+	 * @return the cache capacity.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * The number of expressions currently cached.
+	 * 
+	 * @return the cache size.
+	 */
+	public int getSize() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * The number of compiles that were satisfied from the cache.
+	 * 
+	 * @return the hit count.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * The number of compiles that had to be done by the delegate.
+	 * 
+	 * @return the miss count.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * Discard all the cached expressions. The hit and miss counts are not
+	 * changed.
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Reset the hit and miss counts to 0.
+	 */
+	public void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CachingXPathFactory[%s size=%d/%d hits=%d misses=%d]",
+				delegate, getSize(), capacity, hits.get(), misses.get());
+	}
+
+}
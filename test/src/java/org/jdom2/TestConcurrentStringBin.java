@@ -0,0 +1,102 @@
+package org.jdom2;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jdom2.test.util.UnitTestUtil;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TestConcurrentStringBin {
+	
+	@Test
+	public void testIllegalArguments() {
+		try {
+			new ConcurrentStringBin(-1, 1);
+			fail("excpect exception!");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+		try {
+			new ConcurrentStringBin(10, 0);
+			fail("excpect exception!");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+	}
+	
+	@Test
+	public void testNull() {
+		ConcurrentStringBin bin = new ConcurrentStringBin();
+		assertNull(bin.reuse(null));
+	}
+	
+	@Test
+	public void testReuse() {
+		ConcurrentStringBin bin = new ConcurrentStringBin();
+		String a = bin.reuse("value");
+		assertEquals("value", a);
+		assertTrue("value" != a);
+		assertTrue(a == bin.reuse(new String("value")));
+		assertEquals(1, bin.size());
+		bin.clear();
+		assertEquals(0, bin.size());
+		assertTrue(a != bin.reuse("value"));
+	}
+	
+	@Test
+	public void testBounded() {
+		ConcurrentStringBin bin = new ConcurrentStringBin(64, 4);
+		String keep = bin.reuse("keep");
+		for (int i = 0; i < 10000; i++) {
+			bin.reuse("value " + i);
+			// a frequently used value survives the evictions.
+			assertTrue(keep == bin.reuse("keep"));
+		}
+		assertTrue(bin.size() <= 2 * 64 + 4);
+		String once = bin.reuse("once");
+		for (int i = 0; i < 10000; i++) {
+			bin.reuse("other " + i);
+		}
+		assertTrue(once != bin.reuse("once"));
+	}
+	
+	@Test
+	public void testThreads() throws Exception {
+		final ConcurrentStringBin bin = new ConcurrentStringBin();
+		final int threads = 8;
+		ExecutorService exec = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<String[]>> results = new ArrayList<Future<String[]>>();
+			for (int t = 0; t < threads; t++) {
+				results.add(exec.submit(new Callable<String[]>() {
+					@Override
+					public String[] call() {
+						String[] ret = new String[1000];
+						for (int i = 0; i < ret.length; i++) {
+							ret[i] = bin.reuse("value " + i);
+						}
+						return ret;
+					}
+				}));
+			}
+			String[] first = results.get(0).get();
+			for (int t = 1; t < threads; t++) {
+				String[] got = results.get(t).get();
+				for (int i = 0; i < first.length; i++) {
+					assertTrue(first[i] == got[i]);
+				}
+			}
+			assertEquals(1000, bin.size());
+		} finally {
+			exec.shutdown();
+		}
+	}
+
+}
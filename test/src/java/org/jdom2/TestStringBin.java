@@ -120,5 +120,19 @@ public class TestStringBin {
 		}
 		assertTrue(bin.size() == tstvals.length + samehc.length);
 	}
+
+	@Test
+	public void testLookupAndKeep() {
+		StringBin bin = new StringBin();
+		String hi = new String("hi");
+		assertNull(bin.lookup(null));
+		assertNull(bin.lookup(hi));
+		assertTrue(hi == bin.keep(hi));
+		assertTrue(hi == bin.lookup("hi"));
+		assertTrue(hi == bin.reuse(new String("hi")));
+		assertTrue(hi == bin.keep(new String("hi")));
+		assertEquals(1, bin.size());
+		assertNull(bin.keep(null));
+	}
 	
 }
@@ -0,0 +1,156 @@
+package org.jdom2.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TestMappedFile {
+
+	// multi-byte UTF-8 sequences of 2, 3, and 4 bytes.
+	private static final String TEXT =
+			"<root>a\u00e9b\u4e2dc\ud834\udd1ed</root>";
+
+	private static File write(final byte[] data) throws IOException {
+		final File file = File.createTempFile("jdom-mapped", ".xml");
+		file.deleteOnExit();
+		final FileOutputStream fos = new FileOutputStream(file);
+		try {
+			fos.write(data);
+		} finally {
+			fos.close();
+		}
+		return file;
+	}
+
+	private static String readAll(final Reader reader, final int chunk)
+			throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		final char[] buf = new char[chunk];
+		int len = 0;
+		while ((len = reader.read(buf, 0, chunk)) >= 0) {
+			sb.append(buf, 0, len);
+		}
+		return sb.toString();
+	}
+
+	private static byte[] readAll(final InputStream in) throws IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final byte[] buf = new byte[3];
+		int len = 0;
+		while ((len = in.read(buf)) >= 0) {
+			baos.write(buf, 0, len);
+		}
+		return baos.toByteArray();
+	}
+
+	private static boolean isUTF8(final String head) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(
+				write(head.getBytes("ISO-8859-1")), "r");
+		try {
+			return new MappedFile(raf.getChannel()).isUTF8();
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testUTF8Windows() throws IOException {
+		final File file = write(TEXT.getBytes("UTF-8"));
+		// every window size splits the multi-byte sequences somewhere.
+		for (int window = 1; window <= 12; window++) {
+			for (int chunk = 2; chunk <= 5; chunk++) {
+				final RandomAccessFile raf = new RandomAccessFile(file, "r");
+				try {
+					final MappedFile mf = new MappedFile(raf.getChannel(), window);
+					assertTrue(mf.isUTF8());
+					assertEquals(TEXT, readAll(mf.getUTF8Reader(), chunk));
+					assertEquals(0, raf.getChannel().position());
+				} finally {
+					raf.close();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBytesWindows() throws IOException {
+		final byte[] data = TEXT.getBytes("UTF-16");
+		final File file = write(data);
+		for (int window = 1; window <= 7; window++) {
+			final RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				final MappedFile mf = new MappedFile(raf.getChannel(), window);
+				assertFalse(mf.isUTF8());
+				assertEquals(new String(data, "UTF-16"),
+						new String(readAll(mf.getInputStream()), "UTF-16"));
+			} finally {
+				raf.close();
+			}
+		}
+	}
+
+	@Test
+	public void testPosition() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(
+				write(("skip" + TEXT).getBytes("UTF-8")), "r");
+		try {
+			raf.getChannel().position(4);
+			final MappedFile mf = new MappedFile(raf.getChannel(), 5);
+			assertEquals(TEXT, readAll(mf.getUTF8Reader(), 100));
+			assertEquals(4, raf.getChannel().position());
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(write(new byte[0]), "r");
+		try {
+			assertEquals("", readAll(new MappedFile(raf.getChannel()).getUTF8Reader(), 10));
+			assertEquals(0, readAll(new MappedFile(raf.getChannel()).getInputStream()).length);
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testMalformed() throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(
+				write(new byte[] {'<', 'a', (byte)0xC3, '/', '>'}), "r");
+		try {
+			readAll(new MappedFile(raf.getChannel()).getUTF8Reader(), 10);
+			fail("Expected a decoding failure");
+		} catch (IOException e) {
+			// good
+		} finally {
+			raf.close();
+		}
+	}
+
+	@Test
+	public void testIsUTF8() throws IOException {
+		assertTrue(isUTF8("<root/>"));
+		assertTrue(isUTF8("<?xml version=\"1.0\"?><root/>"));
+		assertTrue(isUTF8("<?xml version=\"1.0\" encoding=\"UTF-8\"?><root/>"));
+		assertTrue(isUTF8("<?xml version='1.0' encoding = 'utf-8' ?><root/>"));
+		assertTrue(isUTF8("\u00ef\u00bb\u00bf<root/>"));
+		assertFalse(isUTF8("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><root/>"));
+		assertFalse(isUTF8("<?xml version=\"1.0\" encoding=\"UTF-16\"?><root/>"));
+		assertFalse(isUTF8("\u00fe\u00ff\u0000<"));
+		assertFalse(isUTF8("<\u0000r\u0000"));
+	}
+
+}
@@ -29,4 +29,124 @@ public class TestTextBuffer {
 		}
 	}
 
+	@Test
+	public void testSingleChunk() {
+		final TextBuffer tb = new TextBuffer();
+		assertEquals("", tb.toString());
+		final char[] data = "  frodo  ".toCharArray();
+		tb.append(data, 2, 5);
+		final String s = tb.toString();
+		assertEquals("frodo", s);
+		// the single chunk is returned as-is.
+		assertTrue(s == tb.toString());
+		// modifying the source after the append has no effect.
+		data[2] = 'F';
+		assertEquals("frodo", tb.toString());
+		tb.clear();
+		assertEquals("", tb.toString());
+		assertTrue(tb.isAllWhitespace());
+	}
+
+	@Test
+	public void testMultiChunkRelease() {
+		final TextBuffer tb = new TextBuffer();
+		final char[] data = "frodo".toCharArray();
+		tb.append(data, 0, 5);
+		tb.append(data, 0, 3);
+		assertEquals("frodofro", tb.toString());
+		tb.release();
+		assertEquals("", tb.toString());
+		tb.append(data, 1, 2);
+		assertEquals("ro", tb.toString());
+		tb.append(data, 0, 1);
+		assertEquals("rof", tb.toString());
+		tb.release();
+		tb.release();
+		assertEquals("", tb.toString());
+	}
+
+	@Test
+	public void testInterning() {
+		final TextBuffer tb = new TextBuffer();
+		assertFalse(tb.isInterning());
+		final char[] data = "\n    frodo\n    ".toCharArray();
+		tb.append(data, 0, 5);
+		final String a = tb.toString();
+		tb.clear();
+		tb.append(data, 0, 5);
+		assertFalse(a == tb.toString());
+		assertEquals(a, tb.toString());
+		tb.clear();
+
+		tb.setInterning(true);
+		assertTrue(tb.isInterning());
+		tb.append(data, 0, 5);
+		final String b = tb.toString();
+		tb.clear();
+		tb.append(data, 10, 5);
+		assertTrue(b == tb.toString());
+		tb.clear();
+		// multi-chunk values are interned too.
+		tb.append(data, 10, 2);
+		tb.append(data, 12, 3);
+		assertTrue(b == tb.toString());
+		tb.clear();
+		tb.append(data, 0, 10);
+		assertEquals("\n    frodo", tb.toString());
+		tb.clear();
+		// long values are not interned.
+		final char[] big = new char[100];
+		java.util.Arrays.fill(big, ' ');
+		tb.append(big, 0, big.length);
+		final String c = tb.toString();
+		tb.clear();
+		tb.append(big, 0, big.length);
+		assertFalse(c == tb.toString());
+		assertEquals(c, tb.toString());
+		tb.setInterning(false);
+		assertFalse(tb.isInterning());
+	}
+
+	@Test
+	public void testDeferringWhitespace() {
+		final TextBuffer tb = new TextBuffer();
+		tb.setDeferringWhitespace(true);
+		final char[] data = "  \n  frodo ".toCharArray();
+		tb.append(data, 0, 5);
+		assertTrue(tb.isAllWhitespace());
+		assertEquals("  \n  ", tb.toString());
+		tb.append(data, 5, 2);
+		assertFalse(tb.isAllWhitespace());
+		tb.append(data, 10, 1);
+		assertFalse(tb.isAllWhitespace());
+		assertEquals("  \n  fr ", tb.toString());
+		tb.clear();
+		assertTrue(tb.isAllWhitespace());
+		tb.append(data, 5, 5);
+		assertFalse(tb.isAllWhitespace());
+		assertEquals("frodo", tb.toString());
+		tb.setDeferringWhitespace(false);
+		tb.release();
+		tb.append(data, 0, 2);
+		assertTrue(tb.isAllWhitespace());
+		assertEquals("  ", tb.toString());
+		// not deferring: the chars are checked when asked, not when appended.
+		tb.append(data, 5, 5);
+		assertFalse(tb.isAllWhitespace());
+		tb.clear();
+		tb.append(data, 5, 5);
+		assertFalse(tb.isAllWhitespace());
+		// start deferring part way through a value.
+		tb.setDeferringWhitespace(true);
+		assertFalse(tb.isAllWhitespace());
+		tb.clear();
+		tb.append(data, 0, 5);
+		tb.setDeferringWhitespace(false);
+		tb.append(data, 0, 5);
+		tb.setDeferringWhitespace(true);
+		assertTrue(tb.isAllWhitespace());
+		tb.append(data, 5, 1);
+		assertFalse(tb.isAllWhitespace());
+	}
+
 }
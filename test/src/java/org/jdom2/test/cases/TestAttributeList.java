@@ -409,4 +409,79 @@ public class TestAttributeList extends AbstractTestList<Attribute> {
 		
 	}
 	
+	@Test
+	public void testWideAttributeLookup() {
+		// enough attributes to use the hash index.
+		final Namespace ns = Namespace.getNamespace("p", "urn:p");
+		final Element emt = new Element("wide");
+		for (int i = 0; i < 200; i++) {
+			emt.setAttribute("a" + i, "v" + i);
+			emt.setAttribute("a" + i, "n" + i, ns);
+		}
+		assertEquals(400, emt.getAttributes().size());
+		for (int i = 0; i < 200; i++) {
+			assertEquals("v" + i, emt.getAttributeValue("a" + i));
+			assertEquals("n" + i, emt.getAttributeValue("a" + i, ns));
+		}
+		assertNull(emt.getAttribute("a200"));
+		assertNull(emt.getAttribute("a1", Namespace.getNamespace("q", "urn:q")));
+		// insertion order is kept.
+		assertEquals("a7", emt.getAttributes().get(14).getName());
+		assertEquals(ns, emt.getAttributes().get(15).getNamespace());
+
+		// replacing keeps the position
+		emt.setAttribute("a7", "replaced");
+		assertEquals("replaced", emt.getAttributes().get(14).getValue());
+		assertEquals(400, emt.getAttributes().size());
+
+		// removal and insertion move the others.
+		assertTrue(emt.removeAttribute("a0"));
+		assertNull(emt.getAttribute("a0"));
+		assertEquals("v1", emt.getAttributeValue("a1"));
+		emt.getAttributes().add(0, new Attribute("first", "f"));
+		assertEquals("f", emt.getAttributeValue("first"));
+		assertEquals("v199", emt.getAttributeValue("a199"));
+		emt.getAttributes().set(1, new Attribute("second", "s", ns));
+		assertNull(emt.getAttribute("a0", ns));
+		assertEquals("s", emt.getAttributeValue("second", ns));
+
+		// renames
+		emt.getAttribute("a5").setName("renamed");
+		assertNull(emt.getAttribute("a5"));
+		assertEquals("v5", emt.getAttributeValue("renamed"));
+		emt.getAttribute("renamed").setNamespace(ns);
+		assertNull(emt.getAttribute("renamed"));
+		assertEquals("v5", emt.getAttributeValue("renamed", ns));
+
+		// sorting
+		emt.sortAttributes(null);
+		for (int i = 1; i < 200; i++) {
+			if (i != 5) {
+				assertEquals("n" + i, emt.getAttributeValue("a" + i, ns));
+			}
+		}
+		assertEquals("f", emt.getAttributeValue("first"));
+
+		// iterator removal
+		Iterator<Attribute> it = emt.getAttributes().iterator();
+		while (it.hasNext()) {
+			if (it.next().getNamespace() == ns) {
+				it.remove();
+			}
+		}
+		assertNull(emt.getAttribute("a9", ns));
+		assertEquals("v9", emt.getAttributeValue("a9"));
+
+		// clear and set
+		List<Attribute> atts = new ArrayList<Attribute>();
+		for (int i = 0; i < 50; i++) {
+			atts.add(new Attribute("b" + i, "x" + i));
+		}
+		emt.setAttributes(atts);
+		assertNull(emt.getAttribute("a9"));
+		assertEquals("x49", emt.getAttributeValue("b49"));
+		emt.getAttributes().clear();
+		assertNull(emt.getAttribute("b49"));
+	}
+
 }
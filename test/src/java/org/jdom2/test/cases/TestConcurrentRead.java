@@ -0,0 +1,199 @@
+package org.jdom2.test.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import org.jdom2.Content;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+@SuppressWarnings("javadoc")
+public class TestConcurrentRead {
+
+	private static final Namespace NS = Namespace.getNamespace("p", "urn:p");
+
+	private static final int GROUPS = 8;
+	// wide enough that both the child and attribute indexes are used.
+	private static final int ITEMS = 64;
+	private static final int ATTS = 16;
+	private static final int THREADS = 8;
+	private static final int LOOPS = 25;
+
+	private static Document build() {
+		final Element root = new Element("root");
+		root.addNamespaceDeclaration(NS);
+		for (int g = 0; g < GROUPS; g++) {
+			final Element group = new Element("group");
+			group.setAttribute("id", "g" + g);
+			for (int i = 0; i < ITEMS; i++) {
+				final Element item = new Element(i % 2 == 0 ? "item" : "other",
+						i % 4 == 1 ? NS : Namespace.NO_NAMESPACE);
+				for (int a = 0; a < ATTS; a++) {
+					item.setAttribute("a" + a, g + "." + i + "." + a);
+				}
+				item.setAttribute("id", g + "." + i, NS);
+				item.addContent(new Element("leaf").setText("v" + i));
+				item.addContent("tail");
+				group.addContent(item);
+			}
+			root.addContent(group);
+		}
+		return new Document(root);
+	}
+
+	private static int countDescendants(final Element emt) {
+		int cnt = 0;
+		final Iterator<Content> it = emt.getDescendants();
+		while (it.hasNext()) {
+			it.next();
+			cnt++;
+		}
+		return cnt;
+	}
+
+	/**
+	 * Read everything the navigation APIs can reach, and compare it with
+	 * the expected values computed from the structure.
+	 */
+	private static void readAll(final Document doc, final XPathExpression<Element> xp) {
+		final Element root = doc.getRootElement();
+		final List<Element> groups = root.getChildren("group");
+		assertEquals(GROUPS, groups.size());
+		// element, leaf, leaf-text, tail per item.
+		assertEquals(GROUPS + GROUPS * ITEMS * 4, countDescendants(root));
+		for (int g = 0; g < GROUPS; g++) {
+			final Element group = groups.get(g);
+			assertEquals("g" + g, group.getAttributeValue("id"));
+			assertEquals(ITEMS, group.getChildren().size());
+			assertEquals(ITEMS / 2, group.getChildren("item").size());
+			assertEquals(ITEMS / 4, group.getChildren("other", NS).size());
+			assertEquals(ITEMS / 4, group.getChildren("other").size());
+			assertTrue(group == group.getChild("item").getParentElement());
+			assertEquals(g + ".1", group.getChild("other", NS).getAttributeValue("id", NS));
+			assertEquals(g + ".3", group.getChild("other").getAttributeValue("id", NS));
+			assertEquals(null, group.getChild("item", NS));
+			int i = 0;
+			for (Element item : group.getChildren()) {
+				assertEquals(g + "." + i + "." + (i % ATTS),
+						item.getAttributeValue("a" + (i % ATTS)));
+				assertEquals(g + "." + i, item.getAttributeValue("id", NS));
+				assertEquals(null, item.getAttributeValue("id"));
+				assertEquals(ATTS + 1, item.getAttributes().size());
+				assertEquals("v" + i, item.getChildText("leaf"));
+				assertEquals("v" + i + "tail", item.getValue());
+				i++;
+			}
+		}
+		final List<Element> found = xp.evaluate(doc);
+		assertEquals(GROUPS * ITEMS / 2, found.size());
+	}
+
+	private static void hammer(final Document doc) throws InterruptedException {
+		final ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<Throwable>();
+		final CountDownLatch start = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(THREADS);
+		final XPathFactory fac = XPathFactory.instance();
+		for (int t = 0; t < THREADS; t++) {
+			final Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						// XPathExpression instances are not thread-safe, compile one per thread.
+						final XPathExpression<Element> xp = fac.compile(
+								"//item", Filters.element());
+						start.await();
+						for (int i = 0; i < LOOPS; i++) {
+							readAll(doc, xp);
+						}
+					} catch (Throwable e) {
+						failures.add(e);
+					} finally {
+						done.countDown();
+					}
+				}
+			}, "ConcurrentRead-" + t);
+			thread.setDaemon(true);
+			thread.start();
+		}
+		start.countDown();
+		done.await();
+		if (!failures.isEmpty()) {
+			final AssertionError ae = new AssertionError(failures.size()
+					+ " reader threads failed: " + failures.peek());
+			ae.initCause(failures.peek());
+			throw ae;
+		}
+	}
+
+	@Test
+	public void testConcurrentReadFrozen() throws InterruptedException {
+		final Document doc = build();
+		final String before = new XMLOutputter().outputString(doc);
+		doc.freeze();
+		hammer(doc);
+		assertEquals(before, new XMLOutputter().outputString(doc));
+	}
+
+	@Test
+	public void testConcurrentReadFrozenParsed() throws Exception {
+		final String xml = new XMLOutputter().outputString(build());
+		final Document doc = new SAXBuilder().build(new StringReader(xml));
+		doc.freeze();
+		hammer(doc);
+		assertEquals(xml, new XMLOutputter().outputString(doc));
+	}
+
+	@Test
+	public void testConcurrentOutputFrozen() throws InterruptedException {
+		final Document doc = build().freeze();
+		final String expect = new XMLOutputter().outputString(doc);
+		final List<Thread> threads = new ArrayList<Thread>();
+		final ConcurrentLinkedQueue<String> results = new ConcurrentLinkedQueue<String>();
+		final CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < THREADS; t++) {
+			final Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					for (int i = 0; i < 5; i++) {
+						results.add(new XMLOutputter().outputString(doc));
+					}
+				}
+			});
+			thread.setDaemon(true);
+			thread.start();
+			threads.add(thread);
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(THREADS * 5, results.size());
+		for (String s : results) {
+			if (!expect.equals(s)) {
+				fail("Concurrent output differs from the expected output");
+			}
+		}
+	}
+
+}
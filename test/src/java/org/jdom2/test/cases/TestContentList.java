@@ -2,16 +2,21 @@ package org.jdom2.test.cases;
 
 import static org.jdom2.test.util.UnitTestUtil.checkException;
 import static org.jdom2.test.util.UnitTestUtil.failNoException;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
 import org.jdom2.Content;
 import org.jdom2.DocType;
 import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.Text;
 import org.jdom2.internal.ArrayCopy;
 import org.jdom2.test.util.AbstractTestList;
 
@@ -147,4 +152,95 @@ public class TestContentList extends AbstractTestList<Content> {
 		assertTrue(content[1] == it.next());
 	}
 	
+	@Test
+	public void testNamedChildIndex() {
+		// wide enough to use the name index.
+		final Namespace ns = Namespace.getNamespace("urn:x");
+		final Element parent = new Element("parent");
+		for (int i = 0; i < 100; i++) {
+			parent.addContent(new Element("kid" + (i % 10)).setAttribute("i", "" + i));
+			parent.addContent(new Element("kid" + (i % 10), ns).setAttribute("i", "" + i));
+			parent.addContent(new Text(" "));
+		}
+		assertEquals("0", parent.getChild("kid0").getAttributeValue("i"));
+		assertEquals("3", parent.getChild("kid3", ns).getAttributeValue("i"));
+		assertNull(parent.getChild("kid10"));
+		assertNull(parent.getChild("kid1", Namespace.getNamespace("urn:y")));
+		final List<Element> kids = parent.getChildren("kid5");
+		assertEquals(10, kids.size());
+		assertEquals("95", kids.get(9).getAttributeValue("i"));
+		assertTrue(parent.getChildren("none").isEmpty());
+
+		// modifications are reflected in the live list, and lookups.
+		parent.addContent(0, new Element("kid5").setAttribute("i", "new"));
+		assertEquals(11, kids.size());
+		assertEquals("new", kids.get(0).getAttributeValue("i"));
+		assertEquals("new", parent.getChild("kid5").getAttributeValue("i"));
+		kids.remove(0);
+		assertEquals("5", parent.getChild("kid5").getAttributeValue("i"));
+		parent.setContent(parent.indexOf(kids.get(0)), new Element("other"));
+		assertEquals(9, kids.size());
+		assertEquals("15", parent.getChild("kid5").getAttributeValue("i"));
+
+		// renames are reflected too.
+		kids.get(0).setName("renamed");
+		assertEquals(8, kids.size());
+		assertEquals("25", parent.getChild("kid5").getAttributeValue("i"));
+		assertEquals("15", parent.getChild("renamed").getAttributeValue("i"));
+		parent.getChild("renamed").setNamespace(ns);
+		assertNull(parent.getChild("renamed"));
+		assertEquals("15", parent.getChild("renamed", ns).getAttributeValue("i"));
+		parent.getChild("kid9").setName("kid5");
+		assertEquals(9, kids.size());
+		assertEquals("9", parent.getChild("kid5").getAttributeValue("i"));
+		assertEquals("9", kids.get(0).getAttributeValue("i"));
+
+		// adding through the view
+		kids.add(new Element("kid5").setAttribute("i", "last"));
+		assertEquals(10, kids.size());
+		assertEquals("last", kids.get(9).getAttributeValue("i"));
+		assertTrue(parent.getContent(parent.getContentSize() - 1) == kids.get(9));
+	}
+
+	@Test
+	public void testNamedChildIndexSort() {
+		final Element parent = new Element("parent");
+		for (int i = 0; i < 40; i++) {
+			parent.addContent(new Element(i % 2 == 0 ? "a" : "b")
+					.setAttribute("n", "" + i));
+		}
+		// look up twice so the name index is built.
+		assertEquals("0", parent.getChild("a").getAttributeValue("n"));
+		assertEquals("1", parent.getChild("b").getAttributeValue("n"));
+		final List<Element> as = parent.getChildren("a");
+		assertEquals(20, as.size());
+		parent.sortContent(new Comparator<Content>() {
+			@Override
+			public int compare(final Content o1, final Content o2) {
+				final int n1 = Integer.parseInt(((Element)o1).getAttributeValue("n"));
+				final int n2 = Integer.parseInt(((Element)o2).getAttributeValue("n"));
+				return n2 - n1;
+			}
+		});
+		assertEquals("a", parent.getChild("a").getName());
+		assertEquals("38", parent.getChild("a").getAttributeValue("n"));
+		assertEquals("39", parent.getChild("b").getAttributeValue("n"));
+		assertEquals("38", parent.getChildren("a").get(0).getAttributeValue("n"));
+		assertEquals("38", as.get(0).getAttributeValue("n"));
+		assertEquals("0", as.get(19).getAttributeValue("n"));
+
+		// sorting the children only.
+		parent.sortChildren(new Comparator<Element>() {
+			@Override
+			public int compare(final Element o1, final Element o2) {
+				final int n1 = Integer.parseInt(o1.getAttributeValue("n"));
+				final int n2 = Integer.parseInt(o2.getAttributeValue("n"));
+				return n1 - n2;
+			}
+		});
+		assertEquals("0", parent.getChild("a").getAttributeValue("n"));
+		assertEquals("1", parent.getChild("b").getAttributeValue("n"));
+		assertEquals("0", as.get(0).getAttributeValue("n"));
+	}
+
 }
@@ -0,0 +1,174 @@
+package org.jdom2.test.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import org.jdom2.Attribute;
+import org.jdom2.Comment;
+import org.jdom2.Content;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.ProcessingInstruction;
+import org.jdom2.Text;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.test.util.UnitTestUtil;
+
+@SuppressWarnings("javadoc")
+public class TestFreeze {
+
+	private static final String XML = 
+			"<?xml version='1.0'?><!DOCTYPE root><?pi data?><root xmlns:p='urn:p' a='1' p:b='2'>" +
+			"<kid>text<!--comment--><grand/></kid><p:kid/>tail</root>";
+
+	private static Document doc() throws Exception {
+		return new SAXBuilder().build(new StringReader(XML));
+	}
+
+	private static void frozen(Runnable r) {
+		try {
+			r.run();
+			fail("Should not be able to modify frozen content");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(UnsupportedOperationException.class, e);
+		}
+	}
+
+	@Test
+	public void testFreezeDocument() throws Exception {
+		final Document doc = doc();
+		final String before = new XMLOutputter().outputString(doc);
+		assertFalse(doc.isFrozen());
+		assertTrue(doc == doc.freeze());
+		assertTrue(doc.isFrozen());
+		assertTrue(doc == doc.freeze());
+		assertEquals(before, new XMLOutputter().outputString(doc));
+
+		final Element root = doc.getRootElement();
+		final Element kid = root.getChild("kid");
+		final Element grand = kid.getChild("grand");
+		final Text text = (Text)kid.getContent(0);
+		final Comment comment = (Comment)kid.getContent(1);
+		final Attribute att = root.getAttribute("a");
+		final ProcessingInstruction pi = (ProcessingInstruction)doc.getContent(1);
+		assertTrue(root.isFrozen());
+		assertTrue(grand.isFrozen());
+		assertTrue(text.isFrozen());
+		assertTrue(att.isFrozen());
+		assertTrue(doc.getDocType().isFrozen());
+
+		// reading is fine.
+		assertEquals("2", root.getAttributeValue("b", Namespace.getNamespace("urn:p")));
+		assertTrue(grand.getAttributes().isEmpty());
+		assertNull(grand.getAttribute("x"));
+		assertEquals(1, root.getChildren("kid").size());
+		assertEquals("texttail", root.getValue().replace("\n", ""));
+
+		frozen(new Runnable() { public void run() { root.addContent(new Element("x")); }});
+		frozen(new Runnable() { public void run() { root.removeContent(0); }});
+		frozen(new Runnable() { public void run() { root.setName("x"); }});
+		frozen(new Runnable() { public void run() { root.setNamespace(Namespace.getNamespace("urn:x")); }});
+		frozen(new Runnable() { public void run() { root.setAttribute("a", "x"); }});
+		frozen(new Runnable() { public void run() { root.setAttribute("c", "x"); }});
+		frozen(new Runnable() { public void run() { root.removeAttribute("a"); }});
+		frozen(new Runnable() { public void run() { root.addNamespaceDeclaration(Namespace.getNamespace("q", "urn:q")); }});
+		frozen(new Runnable() { public void run() { grand.setAttribute("c", "x"); }});
+		frozen(new Runnable() { public void run() { grand.detach(); }});
+		frozen(new Runnable() { public void run() { text.setText("x"); }});
+		frozen(new Runnable() { public void run() { text.append("x"); }});
+		frozen(new Runnable() { public void run() { comment.setText("x"); }});
+		frozen(new Runnable() { public void run() { pi.setData("x"); }});
+		frozen(new Runnable() { public void run() { att.setValue("x"); }});
+		frozen(new Runnable() { public void run() { att.setName("x"); }});
+		frozen(new Runnable() { public void run() { doc.getDocType().setSystemID("x"); }});
+		frozen(new Runnable() { public void run() { doc.setProperty("x", "y"); }});
+		frozen(new Runnable() { public void run() { doc.setRootElement(new Element("x")); }});
+		frozen(new Runnable() { public void run() { kid.sortContent(null); }});
+		frozen(new Runnable() { public void run() {
+			Iterator<Content> it = kid.getContent().iterator();
+			it.next();
+			it.remove();
+		}});
+		frozen(new Runnable() { public void run() { root.getChildren().clear(); }});
+
+		// clones are not frozen.
+		final Document copy = doc.clone();
+		assertFalse(copy.isFrozen());
+		copy.getRootElement().getChild("kid").getChild("grand").setAttribute("c", "x");
+		copy.getRootElement().setName("x");
+		assertEquals("root", root.getName());
+		assertEquals(before, new XMLOutputter().outputString(doc));
+	}
+
+	@Test
+	public void testFreezeElement() {
+		final Element emt = new Element("e");
+		final Element kid = new Element("k");
+		emt.addContent(kid);
+		try {
+			kid.freeze();
+			fail("Should not be able to freeze an attached Element");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalStateException.class, e);
+		}
+		assertTrue(emt == emt.freeze());
+		assertTrue(kid.isFrozen());
+		assertTrue(kid == kid.freeze());
+		final Element other = new Element("other");
+		frozen(new Runnable() { public void run() { other.addContent(emt); }});
+		frozen(new Runnable() { public void run() { other.setContent(emt); }});
+		frozen(new Runnable() { public void run() { new Document(emt); }});
+		assertTrue(emt.getParent() == null);
+		assertTrue(other.getContent().isEmpty());
+	}
+
+	@Test
+	public void testFreezeWide() {
+		final Element emt = new Element("wide");
+		for (int i = 0; i < 100; i++) {
+			emt.addContent(new Element("k" + i));
+			emt.setAttribute("a" + i, "v" + i);
+		}
+		emt.freeze();
+		for (int i = 0; i < 100; i++) {
+			assertEquals("k" + i, emt.getChild("k" + i).getName());
+			assertEquals("v" + i, emt.getAttributeValue("a" + i));
+		}
+	}
+
+	@Test
+	public void testFreezeSort() {
+		final Element emt = new Element("e");
+		emt.addContent(new Element("b"));
+		emt.addContent(new Element("a"));
+		emt.freeze();
+		final Comparator<Content> ccmp = new Comparator<Content>() {
+			@Override
+			public int compare(final Content o1, final Content o2) {
+				return ((Element)o1).getName().compareTo(((Element)o2).getName());
+			}
+		};
+		final Comparator<Element> ecmp = new Comparator<Element>() {
+			@Override
+			public int compare(final Element o1, final Element o2) {
+				return o1.getName().compareTo(o2.getName());
+			}
+		};
+		frozen(new Runnable() { public void run() { emt.sortContent(ccmp); }});
+		frozen(new Runnable() { public void run() { emt.sortChildren(ecmp); }});
+		frozen(new Runnable() { public void run() { emt.sortContent(Filters.element(), ecmp); }});
+		assertEquals("b", emt.getChildren().get(0).getName());
+	}
+
+}
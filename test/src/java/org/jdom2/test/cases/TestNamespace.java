@@ -63,6 +63,7 @@ package org.jdom2.test.cases;
 import javax.xml.XMLConstants;
 
 import org.jdom2.*;
+import org.jdom2.internal.NamespaceCache;
 import org.junit.Test;
 import org.junit.runner.JUnitCore;
 import static org.junit.Assert.*;
@@ -353,6 +354,54 @@ public final class TestNamespace {
             fail("We expect IllegalNameException not " + e.getClass());
         }
     }
-    
-    
+
+	@Test
+	public void testRepeatedLookup() {
+		final NamespaceCache cache = new NamespaceCache();
+		final Namespace[] first = new Namespace[2000];
+		for (int loop = 0; loop < 3; loop++) {
+			for (int i = 0; i < first.length; i++) {
+				final String prefix = "p" + (i % 7);
+				final String uri = "urn:repeat:" + i;
+				final Namespace ns = Namespace.getNamespace(prefix, uri);
+				assertEquals(prefix, ns.getPrefix());
+				assertEquals(uri, ns.getURI());
+				if (loop == 0) {
+					first[i] = ns;
+				} else {
+					assertTrue(first[i] == ns);
+				}
+				// equal, but not identical, Strings find the same instance.
+				assertTrue(ns == Namespace.getNamespace(new String(prefix), new String(uri)));
+				assertTrue(ns == cache.getNamespace(prefix, uri));
+				assertTrue(ns == cache.getNamespace(new String(prefix), new String(uri)));
+			}
+		}
+		assertTrue(Namespace.NO_NAMESPACE == cache.getNamespace(null, null));
+		assertTrue(Namespace.NO_NAMESPACE == cache.getNamespace("", ""));
+		assertTrue(Namespace.XML_NAMESPACE == cache.getNamespace("xml", JDOMConstants.NS_URI_XML));
+		assertTrue(Namespace.getNamespace("urn:repeat:1") == cache.getNamespace(null, "urn:repeat:1"));
+		// illegal values are never cached.
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.getNamespace("p", "");
+				fail("Should not be able to bind a prefix to the empty URI");
+			} catch (IllegalNameException ine) {
+				// good
+			}
+			try {
+				Namespace.getNamespace("xml", "urn:repeat:1");
+				fail("Should not be able to rebind the xml prefix");
+			} catch (IllegalNameException ine) {
+				// good
+			}
+			try {
+				cache.getNamespace("a b", "urn:repeat:1");
+				fail("Should not be able to use an illegal prefix");
+			} catch (IllegalNameException ine) {
+				// good
+			}
+		}
+	}
+
 }
@@ -62,15 +62,20 @@ package org.jdom2.test.cases;
  */
 import static org.jdom2.test.util.UnitTestUtil.compare;
 import static org.jdom2.test.util.UnitTestUtil.deSerialize;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
 import java.util.Iterator;
 
 import org.junit.Test;
 import org.junit.runner.JUnitCore;
 
 import org.jdom2.Attribute;
+import org.jdom2.AttributeType;
 import org.jdom2.CDATA;
 import org.jdom2.Comment;
 import org.jdom2.Content;
@@ -82,6 +87,7 @@ import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
 import org.jdom2.filter.ElementFilter;
+import org.jdom2.output.XMLOutputter;
 
 @SuppressWarnings("javadoc")
 public final class TestSerialization {
@@ -170,4 +176,132 @@ public final class TestSerialization {
 	
 	
     
+	@Test
+	public void testDeepDocument() {
+		final Element root = new Element("root");
+		Element emt = root;
+		for (int i = 0; i < 10000; i++) {
+			final Element child = new Element("e", Namespace.getNamespace("p", "urn:p"));
+			child.setAttribute("depth", String.valueOf(i));
+			emt.addContent(new Text("t"));
+			emt.addContent(child);
+			emt = child;
+		}
+		emt.addContent(new Comment("bottom"));
+		final Document doc = new Document(root);
+		
+		final Document ser = deSerialize(doc);
+		// compare() resolves the namespaces in scope recursively, too deep here.
+		Element semt = ser.getRootElement();
+		assertEquals("root", semt.getName());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(2, semt.getContentSize());
+			assertEquals("t", semt.getContent(0).getValue());
+			semt = (Element)semt.getContent(1);
+			assertEquals("e", semt.getName());
+			assertEquals("urn:p", semt.getNamespaceURI());
+			assertEquals(String.valueOf(i), semt.getAttributeValue("depth"));
+		}
+		assertEquals(1, semt.getContentSize());
+		assertEquals("bottom", ((Comment)semt.getContent(0)).getText());
+		
+		final Element sroot = deSerialize(root);
+		assertTrue(sroot.getParent() == null);
+		assertEquals(20001, countDescendants(sroot));
+	}
+
+	/**
+	 * A Document serialized by JDOM 2.0, in the recursive form:
+	 * &lt;p:root xmlns:p="urn:p" xmlns:q="urn:q" a="1" q:b="2"&gt;&lt;kid&gt;text
+	 * &lt;p:leaf&gt;x&lt;/p:leaf&gt;&lt;/kid&gt;&lt;!--c--&gt;&lt;![CDATA[d]]&gt;&lt;?pi data?&gt;
+	 * &lt;/p:root&gt;
+	 */
+	private static final String JDOM20_DOCUMENT =
+			"aced0005737200126f72672e6a646f6d322e446f63756d656e74000000000000" +
+			"00c80300014c0007626173655552497400124c6a6176612f6c616e672f537472" +
+			"696e673b787070770400000001737200116f72672e6a646f6d322e456c656d65" +
+			"6e7400000000000000c80300024c00046e616d6571007e00014c00096e616d65" +
+			"73706163657400154c6f72672f6a646f6d322f4e616d6573706163653b787200" +
+			"116f72672e6a646f6d322e436f6e74656e7400000000000000c80200014c0005" +
+			"63747970657400194c6f72672f6a646f6d322f436f6e74656e74244354797065" +
+			"3b78707e7200176f72672e6a646f6d322e436f6e74656e742443547970650000" +
+			"0000000000001200007872000e6a6176612e6c616e672e456e756d0000000000" +
+			"0000001200007870740007456c656d656e74740004726f6f747372002f6f7267" +
+			"2e6a646f6d322e4e616d657370616365244e616d65737061636553657269616c" +
+			"697a6174696f6e50726f787900000000000000c80200024c0007707072656669" +
+			"7871007e00014c00047075726971007e000178707400017074000575726e3a70" +
+			"7704000000017371007e000d7400017174000575726e3a717704000000027372" +
+			"00136f72672e6a646f6d322e41747472696275746500000000000000c8020005" +
+			"5a00097370656369666965644c00046e616d6571007e00014c00096e616d6573" +
+			"7061636571007e00044c0004747970657400194c6f72672f6a646f6d322f4174" +
+			"74726962757465547970653b4c000576616c756571007e000178700174000161" +
+			"7371007e000d74000071007e00197e7200176f72672e6a646f6d322e41747472" +
+			"69627574655479706500000000000000001200007871007e000974000a554e44" +
+			"45434c41524544740001317371007e0014017400016271007e001171007e001b" +
+			"740001327704000000047371007e000371007e000a7400036b696471007e0018" +
+			"770c0000000000000000000000027372000e6f72672e6a646f6d322e54657874" +
+			"00000000000000c80200014c000576616c756571007e00017871007e00057e71" +
+			"007e000874000454657874740004746578747371007e000371007e000a740004" +
+			"6c65616671007e000e770c0000000000000000000000017371007e002371007e" +
+			"0025740001787878737200116f72672e6a646f6d322e436f6d6d656e74000000" +
+			"00000000c80200014c00047465787471007e00017871007e00057e71007e0008" +
+			"740007436f6d6d656e74740001637372000f6f72672e6a646f6d322e43444154" +
+			"4100000000000000c80200007871007e00237e71007e00087400054344415441" +
+			"740001647372001f6f72672e6a646f6d322e50726f63657373696e67496e7374" +
+			"72756374696f6e00000000000000c80200024c00077261774461746171007e00" +
+			"014c000674617267657471007e00017871007e00057e71007e00087400155072" +
+			"6f63657373696e67496e737472756374696f6e74000464617461740002706978" +
+			"78";
+
+	@Test
+	public void testReadJDOM20Stream() throws Exception {
+		assertEquals(200L, ObjectStreamClass.lookup(Element.class).getSerialVersionUID());
+		assertEquals(200L, ObjectStreamClass.lookup(Document.class).getSerialVersionUID());
+		final byte[] data = new byte[JDOM20_DOCUMENT.length() / 2];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte)Integer.parseInt(JDOM20_DOCUMENT.substring(i * 2, i * 2 + 2), 16);
+		}
+		final ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
+		final Document doc = (Document)ois.readObject();
+		ois.close();
+		final String expect = "<p:root xmlns:p=\"urn:p\" xmlns:q=\"urn:q\" a=\"1\" q:b=\"2\">" +
+				"<kid>text<p:leaf>x</p:leaf></kid><!--c--><![CDATA[d]]><?pi data?></p:root>";
+		final XMLOutputter out = new XMLOutputter();
+		assertEquals(expect, out.outputString(doc.getRootElement()));
+		// and it serializes in the current form.
+		compare(doc, deSerialize(doc));
+	}
+
+	private static int countDescendants(final Element emt) {
+		int cnt = 0;
+		final Iterator<Content> it = emt.getDescendants();
+		while (it.hasNext()) {
+			it.next();
+			cnt++;
+		}
+		return cnt;
+	}
+
+	@Test
+	public void testAttributeTypes() {
+		final Namespace ns = Namespace.getNamespace("ans", "attnamespace");
+		final Element root = new Element("root");
+		final Element child = new Element("child");
+		root.addContent(child);
+		child.setAttribute(new Attribute("id", "x", AttributeType.ID));
+		final Attribute def = new Attribute("def", "d", AttributeType.NMTOKEN, ns);
+		def.setSpecified(false);
+		child.setAttribute(def);
+		child.addNamespaceDeclaration(Namespace.getNamespace("other", "urn:other"));
+		
+		final Element ser = deSerialize(root).getChild("child");
+		assertEquals(AttributeType.ID, ser.getAttribute("id").getAttributeType());
+		assertTrue(ser.getAttribute("id").isSpecified());
+		assertEquals(AttributeType.NMTOKEN, ser.getAttribute("def", ns).getAttributeType());
+		assertFalse(ser.getAttribute("def", ns).isSpecified());
+		assertEquals("d", ser.getAttributeValue("def", ns));
+		assertEquals(1, ser.getAdditionalNamespaces().size());
+		assertEquals("urn:other", ser.getNamespace("other").getURI());
+	}
+
 }
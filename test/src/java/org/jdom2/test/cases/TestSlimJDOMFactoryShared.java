@@ -0,0 +1,51 @@
+package org.jdom2.test.cases;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import org.jdom2.JDOMFactory;
+import org.jdom2.SlimJDOMFactory;
+import org.jdom2.Text;
+
+@SuppressWarnings("javadoc")
+public class TestSlimJDOMFactoryShared extends AbstractTestJDOMFactory {
+
+	/**
+	 * @param located
+	 */
+	public TestSlimJDOMFactoryShared() {
+		super(false);
+	}
+
+	@Override
+	protected JDOMFactory buildFactory() {
+		return new SlimJDOMFactory(true, true);
+	}
+
+	@Test
+	public void testCaching() {
+		SlimJDOMFactory fac = new SlimJDOMFactory(true, true);
+		assertTrue(fac.isShared());
+		assertFalse(new SlimJDOMFactory().isShared());
+		Text ta = fac.text("shared");
+		String shared = ta.getText();
+		// we expect the StringBin to compact a string value... should no longer
+		// be the intern value.
+		assertTrue("shared" != shared);
+		
+		// a different shared factory uses the same cache.
+		SlimJDOMFactory other = new SlimJDOMFactory(true, true);
+		Text tb = other.text("shared");
+		assertTrue(shared == tb.getText());
+		assertTrue(shared == other.element("shared").getName());
+		
+		// a non-shared factory does not.
+		assertTrue(shared != new SlimJDOMFactory().text("shared").getText());
+		
+		fac.clearCache();
+		
+		Text tc = other.text("shared");
+		assertTrue(shared != tc.getText());
+		assertTrue(shared.equals(tc.getText()));
+	}
+}
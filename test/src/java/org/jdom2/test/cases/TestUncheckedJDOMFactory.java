@@ -1,7 +1,18 @@
 package org.jdom2.test.cases;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.jdom2.Comment;
+import org.jdom2.Content;
+import org.jdom2.Document;
+import org.jdom2.Element;
 import org.jdom2.JDOMFactory;
+import org.jdom2.Text;
 import org.jdom2.UncheckedJDOMFactory;
+import org.jdom2.internal.ContentStack;
 
 @SuppressWarnings("javadoc")
 public class TestUncheckedJDOMFactory extends AbstractTestJDOMFactory {
@@ -18,4 +29,63 @@ public class TestUncheckedJDOMFactory extends AbstractTestJDOMFactory {
 		return new UncheckedJDOMFactory();
 	}
 	
+	@Test
+	public void testAddContentBulk() {
+		UncheckedJDOMFactory fac = new UncheckedJDOMFactory();
+		Element root = fac.element("root");
+		fac.addContent(root, new Text("first"));
+		Content[] kids = new Content[] {
+				null, new Element("a"), new Text("b"), new Comment("c"), null};
+		fac.addContent(root, kids, 1, 3);
+		assertEquals(4, root.getContentSize());
+		for (int i = 1; i <= 3; i++) {
+			assertTrue(kids[i] == root.getContent(i));
+			assertTrue(root == kids[i].getParent());
+		}
+		fac.addContent(root, kids, 0, 0);
+		assertEquals(4, root.getContentSize());
+		root.addContent("more");
+		assertEquals("firstbmore", root.getText());
+		
+		Document doc = fac.document(null);
+		fac.addContent(doc, new Content[] {new Comment("x"), new Element("r")}, 0, 2);
+		assertEquals("r", doc.getRootElement().getName());
+		assertEquals(2, doc.getContentSize());
+	}
+
+	@Test
+	public void testContentStack() {
+		UncheckedJDOMFactory fac = new UncheckedJDOMFactory();
+		ContentStack stack = new ContentStack(fac);
+		Element root = new Element("root");
+		stack.push(root);
+		assertEquals(1, stack.getDepth());
+		Element kid = new Element("kid");
+		stack.add(new Text("a"));
+		stack.add(kid);
+		stack.push(kid);
+		stack.add(new Text("b"));
+		// nothing is added until the stack is popped, or flushed.
+		assertEquals(0, root.getContentSize());
+		stack.flush();
+		assertEquals(2, root.getContentSize());
+		assertEquals(1, kid.getContentSize());
+		assertTrue(root == kid.getParent());
+		for (int i = 0; i < 100; i++) {
+			stack.add(new Text("c"));
+		}
+		assertTrue(root == stack.pop());
+		assertEquals(101, kid.getContentSize());
+		stack.add(new Comment("d"));
+		assertEquals(null, stack.pop());
+		assertEquals(0, stack.getDepth());
+		assertEquals(3, root.getContentSize());
+		
+		stack.push(root);
+		stack.add(new Text("gone"));
+		stack.clear();
+		assertEquals(0, stack.getDepth());
+		assertEquals(3, root.getContentSize());
+	}
+
 }
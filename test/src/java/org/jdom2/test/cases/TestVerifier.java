@@ -60,6 +60,7 @@ package org.jdom2.test.cases;
  * @author unascribed
  * @version 0.1
  */
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -126,6 +127,33 @@ public final class TestVerifier {
 		assertNull("invalidated valid name with 0x0301", Verifier.checkElementName("test" + (char)0x0301));
 
 	}
+
+	@Test
+	public void testCheckNameRepeated() {
+		// verified names are cached, make sure that does not change anything.
+		for (int loop = 0; loop < 3; loop++) {
+			for (int i = 0; i < 5000; i++) {
+				final String name = "name" + i;
+				assertNull(Verifier.checkElementName(name));
+				assertNull(Verifier.checkAttributeName(name));
+				assertNull(Verifier.checkNamespacePrefix(name));
+				assertNotNull(Verifier.checkElementName(name + ":x"));
+				assertNotNull(Verifier.checkElementName("-" + name));
+			}
+		}
+		assertNull(Verifier.checkElementName("xmlns"));
+		assertNull(Verifier.checkElementName("xmlns"));
+		// an element may be called xmlns, but an attribute may not.
+		assertNotNull(Verifier.checkAttributeName("xmlns"));
+		final StringBuilder sb = new StringBuilder();
+		while (sb.length() < 200) {
+			sb.append("long");
+		}
+		assertNull(Verifier.checkElementName(sb.toString()));
+		assertNull(Verifier.checkElementName(sb.toString()));
+		sb.append(' ');
+		assertNotNull(Verifier.checkElementName(sb.toString()));
+	}
     
 	/**
 	 * Test for a valid Attribute name.  A valid Attribute name is
@@ -204,6 +232,57 @@ public final class TestVerifier {
 		assertNull("invalidated valid string with 0x4E01", Verifier.checkCharacterData("test" + (char)0x4E01));
 
 	}
+
+	@Test
+	public void testCheckCharacterDataLarge() {
+		// large text is checked in blocks, compare it with the char-at-a-time
+		// check used for short text, for every char.
+		final char[] pad = new char[100];
+		java.util.Arrays.fill(pad, 'a');
+		final String padding = new String(pad);
+		for (int c = 0; c <= Character.MAX_VALUE; c++) {
+			final boolean legal = Verifier.checkCharacterData("a" + (char)c) == null;
+			final String large = padding + (char)c + padding;
+			assertEquals("Char 0x" + Integer.toHexString(c), legal,
+					Verifier.checkCharacterData(large) == null);
+		}
+		
+		// surrogate pairs that straddle the blocks.
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2047; i++) {
+			sb.append(i % 50 == 0 ? '\n' : 'x');
+		}
+		sb.append((char)0xD800).append((char)0xDC00);
+		for (int i = 0; i < 3000; i++) {
+			sb.append('y');
+		}
+		final String pair = sb.toString();
+		assertNull(Verifier.checkCharacterData(pair));
+		// the same instance is not checked again, but an equal one is.
+		assertNull(Verifier.checkCharacterData(pair));
+		assertNull(Verifier.checkCharacterData(new String(pair)));
+		
+		sb.append((char)0xD800);
+		final String truncated = sb.toString();
+		assertNotNull(Verifier.checkCharacterData(truncated));
+		assertNotNull(Verifier.checkCharacterData(truncated));
+		sb.setLength(2048);
+		sb.append('z');
+		for (int i = 0; i < 3000; i++) {
+			sb.append('y');
+		}
+		final String illegal = sb.toString();
+		assertNotNull(Verifier.checkCharacterData(illegal));
+		assertNotNull(Verifier.checkCharacterData(illegal));
+		sb.setLength(0);
+		for (int i = 0; i < 5000; i++) {
+			sb.append('x');
+		}
+		sb.append((char)0x1F);
+		final String control = sb.toString();
+		assertNotNull(Verifier.checkCharacterData(control));
+		assertNotNull(Verifier.checkCharacterData(control));
+	}
     
 	/**
 	 * Test that checkCDATASection verifies CDATA excluding
@@ -0,0 +1,300 @@
+package org.jdom2.test.cases.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import org.jdom2.CDATA;
+import org.jdom2.Comment;
+import org.jdom2.DefaultJDOMFactory;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.EntityRef;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.ProcessingInstruction;
+import org.jdom2.Text;
+import org.jdom2.UncheckedJDOMFactory;
+import org.jdom2.input.DeferredBuilder;
+import org.jdom2.input.JDOMParseException;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.test.util.FidoFetch;
+import org.jdom2.test.util.UnitTestUtil;
+
+@SuppressWarnings("javadoc")
+public class TestDeferredBuilder {
+
+	private static final String NESTED = 
+			"<?xml version=\"1.0\"?>\n" +
+			"<!-- prolog -->\n" +
+			"<root xmlns=\"urn:a\" xmlns:b=\"urn:b\" att=\"v&amp;1\">\r\n" +
+			"  <b:child b:x='1' y=\"a\tb\">text &lt;&#65;&#x42;&gt;</b:child>\n" +
+			"  <child/>\n" +
+			"  <?pi data?>\n" +
+			"  <![CDATA[<cdata>]]>\n" +
+			"  <deep><deeper xml:lang=\"en\"><deepest b:y=\"/>\"/></deeper></deep>\n" +
+			"</root>\n" +
+			"<?epilog?>";
+
+	@Test
+	public void testDeferredBuilder() {
+		DeferredBuilder db = new DeferredBuilder();
+		assertNotNull(db);
+	}
+
+	@Test
+	public void testFactory() {
+		DeferredBuilder db = new DeferredBuilder();
+		assertTrue(db.getFactory() instanceof DefaultJDOMFactory);
+		DefaultJDOMFactory fac = new DefaultJDOMFactory();
+		db.setFactory(fac);
+		assertTrue(db.getFactory() == fac);
+	}
+
+	@Test
+	public void testSimpleDocument() {
+		checkDeferred("/DOMBuilder/simple.xml");
+	}
+
+	@Test
+	public void testAttributesDocument() {
+		checkDeferred("/DOMBuilder/attributes.xml");
+	}
+
+	@Test
+	public void testNamespaceDocument() {
+		checkDeferred("/DOMBuilder/namespaces.xml");
+	}
+
+	@Test
+	public void testComplexDocument() {
+		checkDeferred("/DOMBuilder/complex.xml");
+	}
+
+	@Test
+	public void testXSDDocument() {
+		checkDeferred("/xsdcomplex/input.xml");
+	}
+
+	@Test
+	public void testNested() throws Exception {
+		Document sax = new SAXBuilder().build(new StringReader(NESTED));
+		Document deferred = new DeferredBuilder().build(NESTED.toCharArray());
+		assertEquals(toString(sax), toString(deferred));
+		// a second pass, everything is now built.
+		assertEquals(toString(sax), toString(deferred));
+	}
+
+	@Test
+	public void testNestedUnchecked() throws Exception {
+		Document sax = new SAXBuilder().build(new StringReader(NESTED));
+		DeferredBuilder db = new DeferredBuilder();
+		db.setFactory(new UncheckedJDOMFactory());
+		Document deferred = db.build(new StringReader(NESTED));
+		assertEquals(toString(sax), toString(deferred));
+	}
+
+	@Test
+	public void testContent() throws JDOMException {
+		Document doc = new DeferredBuilder().build(NESTED.toCharArray());
+		assertTrue(doc.getContent(0) instanceof Comment);
+		assertTrue(doc.getContent(2) instanceof ProcessingInstruction);
+		Element root = doc.getRootElement();
+		Namespace a = Namespace.getNamespace("urn:a");
+		Namespace b = Namespace.getNamespace("b", "urn:b");
+		assertEquals(a, root.getNamespace());
+		assertEquals("v&1", root.getAttributeValue("att"));
+		assertEquals(1, root.getAdditionalNamespaces().size());
+		Element bchild = root.getChild("child", b);
+		assertNotNull(bchild);
+		assertEquals("1", bchild.getAttributeValue("x", b));
+		assertEquals("a b", bchild.getAttributeValue("y"));
+		assertEquals("text <AB>", bchild.getText());
+		assertTrue(root.getChild("child", a).getContent().isEmpty());
+		assertEquals("\n  ", ((Text)root.getContent(0)).getText());
+		assertEquals("<cdata>", ((CDATA)root.getContent(7)).getText());
+		Element deepest = root.getChild("deep", a).getChild("deeper", a)
+				.getChild("deepest", a);
+		assertEquals("/>", deepest.getAttributeValue("y", b));
+		assertEquals("en", deepest.getParentElement()
+				.getAttributeValue("lang", Namespace.XML_NAMESPACE));
+	}
+
+	@Test
+	public void testDetachAndModify() throws JDOMException {
+		Document doc = new DeferredBuilder().build(NESTED.toCharArray());
+		Element deep = doc.getRootElement().getChild("deep",
+				Namespace.getNamespace("urn:a"));
+		deep.detach();
+		// the content is built after it is detached.
+		assertEquals("deeper", deep.getChildren().get(0).getName());
+
+		Element deeper = new DeferredBuilder().build(NESTED.toCharArray())
+				.getRootElement().getChildren().get(2).getChildren().get(0);
+		deeper.addContent(0, new Element("first"));
+		assertEquals(2, deeper.getContentSize());
+		assertEquals("first", deeper.getChildren().get(0).getName());
+		assertEquals("deepest", deeper.getChildren().get(1).getName());
+	}
+
+	@Test
+	public void testCloneAndSerialize() throws JDOMException {
+		Document doc = new DeferredBuilder().build(NESTED.toCharArray());
+		Document sax = new DeferredBuilder().build(NESTED.toCharArray());
+		Element clone = doc.getRootElement().clone();
+		assertEquals(toString(sax.getRootElement()), toString(clone));
+		Document ser = UnitTestUtil.deSerialize(
+				new DeferredBuilder().build(NESTED.toCharArray()));
+		assertEquals(toString(sax), toString(ser));
+	}
+
+	@Test
+	public void testEntities() throws JDOMException, IOException {
+		String xml = "<!DOCTYPE root [<!ENTITY simple \"expanded\">" +
+				"<!ENTITY markup \"<a/>\">]><root>&simple; &markup; &ext;</root>";
+		Element root = new DeferredBuilder().build(xml.toCharArray())
+				.getRootElement();
+		assertEquals(4, root.getContentSize());
+		assertEquals("expanded ", root.getContent(0).getValue());
+		assertEquals("markup", ((EntityRef)root.getContent(1)).getName());
+		assertEquals(" ", root.getContent(2).getValue());
+		assertEquals("ext", ((EntityRef)root.getContent(3)).getName());
+		assertEquals("root", new DeferredBuilder().build(xml.toCharArray())
+				.getDocType().getElementName());
+	}
+
+	@Test
+	public void testEncoding() throws JDOMException, IOException {
+		String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><r>\u00e9</r>";
+		InputStream in = new ByteArrayInputStream(xml.getBytes("ISO-8859-1"));
+		assertEquals("\u00e9", new DeferredBuilder().build(in)
+				.getRootElement().getText());
+		in = new ByteArrayInputStream("<r>\u00e9</r>".getBytes("UTF-16"));
+		assertEquals("\u00e9", new DeferredBuilder().build(in)
+				.getRootElement().getText());
+		in = new ByteArrayInputStream(new byte[] {'<', 'r', '>', (byte)0xFF, '<', '/', 'r', '>'});
+		try {
+			new DeferredBuilder().build(in);
+			fail("Should not be able to decode the bad UTF-8");
+		} catch (JDOMException e) {
+			assertFalse(e instanceof JDOMParseException);
+		}
+	}
+
+	@Test
+	public void testEmptyRoot() throws JDOMException {
+		Document doc = new DeferredBuilder().build("<root/>".toCharArray());
+		assertEquals(0, doc.getRootElement().getContentSize());
+		assertNull(doc.getDocType());
+	}
+
+	@Test
+	public void testMalformed() {
+		checkMalformed("", 1, 1);
+		checkMalformed("<root>", 1, 7);
+		checkMalformed("<root></toor>", 1, 7);
+		checkMalformed("<root>\n<a></root>", 2, 4);
+		checkMalformed("<root a=\"<\"/>", 1, 10);
+		checkMalformed("<root a='1'b='2'/>", 1, 12);
+		checkMalformed("<root>&undeclared;</root>", 1, 7);
+		checkMalformed("<root>&#0;</root>", 1, 7);
+		checkMalformed("<p:root/>", 1, 2);
+		checkMalformed("<root><p:a xmlns:p='urn:p'/><p:b/></root>", 1, 30);
+		checkMalformed("<root/><root/>", 1, 8);
+		checkMalformed("text<root/>", 1, 1);
+		checkMalformed("<root><!-- comment </root>", 1, 27);
+		checkMalformed("<r a='1' a='2'/>", 1, 10);
+		checkMalformed("<r xmlns:p='u' xmlns:p='v'/>", 1, 16);
+		checkMalformed("<r xmlns:p='u' p:a='1' xmlns:q='u' q:a='2'/>", 1, 36);
+		checkMalformed("<r>]]></r>", 1, 4);
+		checkMalformed("<r><!-- a -- b --></r>", 1, 11);
+		checkMalformed("<!-- a --->\n<r/>", 1, 8);
+		checkMalformed("<r>\u0001</r>", 1, 4);
+		checkMalformed("<r>\uD800</r>", 1, 4);
+		checkMalformed("<r a='\u0001'/>", 1, 7);
+		checkMalformed("<r><![CDATA[\u0001]]></r>", 1, 13);
+		checkMalformed("<r><?pi \uFFFF?></r>", 1, 9);
+	}
+
+	@Test
+	public void testWellFormed() throws JDOMException, IOException {
+		final DeferredBuilder db = new DeferredBuilder();
+		Element root = db.build(("<r xmlns:p='u' p:a='1' xmlns:q='v' q:a='2' " +
+				"a='3'>]] ]&gt; \uD800\uDC00<![CDATA[]]]]><![CDATA[>]]></r>")
+				.toCharArray()).getRootElement();
+		assertEquals(3, root.getAttributes().size());
+		assertEquals("2", root.getAttributeValue("a", Namespace.getNamespace("v")));
+		assertEquals("]] ]> \uD800\uDC00]]>", root.getValue());
+		// the factory is not used for character checks.
+		db.setFactory(new UncheckedJDOMFactory());
+		checkMalformed(db, "<r>\u0001</r>", 1, 4);
+	}
+
+	private void checkMalformed(String xml, int line, int col) {
+		checkMalformed(new DeferredBuilder(), xml, line, col);
+	}
+
+	private void checkMalformed(DeferredBuilder db, String xml, int line, int col) {
+		try {
+			db.build(xml.toCharArray());
+			fail("Should not be able to build malformed XML: " + xml);
+		} catch (JDOMParseException e) {
+			assertEquals(xml, line, e.getLineNumber());
+			assertEquals(xml, col, e.getColumnNumber());
+		} catch (Exception e) {
+			UnitTestUtil.failException("Expected JDOMParseException for " + xml, e);
+		}
+	}
+
+	private void checkDeferred(String resname) {
+		try {
+			Document sax = new SAXBuilder().build(FidoFetch.getFido().getURL(resname));
+			Document deferred = new DeferredBuilder().build(
+					FidoFetch.getFido().getStream(resname));
+			assertEquals("ROOT SAX to Deferred", toString(sax.getRootElement()),
+					toString(deferred.getRootElement()));
+		} catch (Exception e) {
+			UnitTestUtil.failException("Could not parse file '" + resname + "': " + e.getMessage(), e);
+		}
+	}
+
+	private String toString(Document doc) {
+		UnitTestUtil.normalizeAttributes(doc.getRootElement());
+		XMLOutputter out = new XMLOutputter(Format.getRawFormat());
+		CharArrayWriter caw = new CharArrayWriter();
+		try {
+			out.output(doc, caw);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return caw.toString();
+	}
+
+	private String toString(Element emt) {
+		UnitTestUtil.normalizeAttributes(emt);
+		XMLOutputter out = new XMLOutputter(Format.getRawFormat());
+		CharArrayWriter caw = new CharArrayWriter();
+		try {
+			out.output(emt, caw);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return caw.toString();
+	}
+
+}
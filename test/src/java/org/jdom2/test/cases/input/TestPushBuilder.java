@@ -0,0 +1,247 @@
+package org.jdom2.test.cases.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.JDOMException;
+import org.jdom2.input.PushBuilder;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.XMLReaders;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.test.util.FidoFetch;
+
+@SuppressWarnings("javadoc")
+public class TestPushBuilder {
+
+	private static final String NSXML = 
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<!DOCTYPE root [<!ENTITY ent 'entity \u00e9'> <!-- ] ' \" -->]>\n" +
+			"<p:root xmlns:p=\"urn:p\" xmlns=\"urn:default\" a='&gt;'>\n" +
+			"  text &ent; \u4e2d\ud834\udd1e <child a=\"/>\"/>\n" +
+			"  <p:child><leaf>x</leaf><!-- <not/> --><![CDATA[<not/>]]></p:child>\n" +
+			"  <?pi <not/>?><empty/>\n" +
+			"  <deep><deep><deep>&ent;</deep></deep></deep>tail\n" +
+			"</p:root>\n" +
+			"<!-- epilog --><?epilog pi?>\n";
+
+	private static byte[] read(final String resource) throws Exception {
+		final URL url = FidoFetch.getFido().getURL(resource);
+		final InputStream in = url.openStream();
+		try {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final byte[] buf = new byte[1024];
+			int len = 0;
+			while ((len = in.read(buf)) >= 0) {
+				baos.write(buf, 0, len);
+			}
+			return baos.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static Document push(final byte[] data, final int chunk,
+			final PushBuilder.ElementHandler handler) throws JDOMException {
+		final PushBuilder pb = new PushBuilder(new SAXBuilder(), handler);
+		for (int i = 0; i < data.length; i += chunk) {
+			pb.feed(ByteBuffer.wrap(data, i, Math.min(chunk, data.length - i)));
+		}
+		return pb.endOfInput();
+	}
+
+	private static void checkPush(final byte[] data) throws Exception {
+		final XMLOutputter out = new XMLOutputter();
+		final String expect = out.outputString(
+				new SAXBuilder().build(new ByteArrayInputStream(data)));
+		for (int chunk = 1; chunk <= 17; chunk++) {
+			assertEquals("Chunk size " + chunk, expect,
+					out.outputString(push(data, chunk, null)));
+		}
+		assertEquals(expect, out.outputString(push(data, data.length, null)));
+		// random chunks, with the array variant.
+		final Random rand = new Random(data.length);
+		final PushBuilder pb = new PushBuilder();
+		int pos = 0;
+		while (pos < data.length) {
+			final int len = Math.min(data.length - pos, rand.nextInt(64));
+			pb.feed(data, pos, len);
+			pos += len;
+		}
+		assertEquals(expect, out.outputString(pb.endOfInput()));
+	}
+
+	@Test
+	public void testPushResources() throws Exception {
+		checkPush(read("/DOMBuilder/complex.xml"));
+		checkPush(read("/DOMBuilder/namespaces.xml"));
+		checkPush(read("/DOMBuilder/doctype.xml"));
+		checkPush(read("/DOMBuilder/simple.xml"));
+	}
+
+	@Test
+	public void testPushNamespacesEntities() throws Exception {
+		checkPush(NSXML.getBytes("UTF-8"));
+	}
+
+	@Test
+	public void testPushEncodings() throws Exception {
+		final String xml = NSXML.replace("UTF-8", "UTF-16");
+		checkPush(xml.getBytes("UTF-16"));
+		checkPush(NSXML.replace("UTF-8", "ISO-8859-1")
+				.replace("\u4e2d\ud834\udd1e", "").getBytes("ISO-8859-1"));
+		final byte[] utf8 = NSXML.getBytes("UTF-8");
+		final byte[] bom = new byte[utf8.length + 3];
+		bom[0] = (byte)0xEF;
+		bom[1] = (byte)0xBB;
+		bom[2] = (byte)0xBF;
+		System.arraycopy(utf8, 0, bom, 3, utf8.length);
+		checkPush(bom);
+		checkPush("<root>no declaration \u00e9</root>".getBytes("UTF-8"));
+	}
+
+	@Test
+	public void testEmptyRoot() throws Exception {
+		checkPush("<?xml version=\"1.0\"?><!--c--><root a='b'/><!--d-->".getBytes("UTF-8"));
+	}
+
+	@Test
+	public void testElementHandler() throws Exception {
+		final List<String> names = new ArrayList<String>();
+		final PushBuilder.ElementHandler handler = new PushBuilder.ElementHandler() {
+			@Override
+			public void elementComplete(final Element element) {
+				assertTrue(element.getParentElement().isRootElement());
+				names.add(element.getName());
+				// stream: discard the completed element.
+				element.detach();
+			}
+		};
+		final byte[] data = NSXML.getBytes("UTF-8");
+		for (int chunk = 1; chunk < 40; chunk += 7) {
+			names.clear();
+			final Document doc = push(data, chunk, handler);
+			assertEquals("[child, child, empty, deep]", names.toString());
+			assertTrue(doc.getRootElement().getChildren().isEmpty());
+			assertEquals("\n  text entity \u00e9 \u4e2d\ud834\udd1e \n  \n  \n  tail\n",
+					doc.getRootElement().getText());
+		}
+	}
+
+	@Test
+	public void testIncremental() throws Exception {
+		final PushBuilder pb = new PushBuilder();
+		pb.feed(ByteBuffer.wrap("<?xml version='1.0'?><root><a>".getBytes("UTF-8")));
+		assertEquals("root", pb.getDocument().getRootElement().getName());
+		assertTrue(pb.getDocument().getRootElement().getChildren().isEmpty());
+		pb.feed(ByteBuffer.wrap("x</a><b".getBytes("UTF-8")));
+		assertEquals("x", pb.getDocument().getRootElement().getChildText("a"));
+		assertFalse(pb.isRootComplete());
+		pb.feed(ByteBuffer.wrap("/></root>".getBytes("UTF-8")));
+		assertTrue(pb.isRootComplete());
+		assertEquals(2, pb.endOfInput().getRootElement().getChildren().size());
+	}
+
+	@Test
+	public void testManyChildrenInOneChunk() throws Exception {
+		final StringBuilder sb = new StringBuilder("<p:r xmlns:p='urn:p'>");
+		for (int i = 0; i < 20000; i++) {
+			sb.append("<c i='").append(i).append("'>x</c>");
+		}
+		sb.append("</p:r >");
+		final int[] count = new int[1];
+		final PushBuilder.ElementHandler handler = new PushBuilder.ElementHandler() {
+			@Override
+			public void elementComplete(final Element element) {
+				assertEquals(String.valueOf(count[0]++), element.getAttributeValue("i"));
+				element.detach();
+			}
+		};
+		final byte[] data = sb.toString().getBytes("UTF-8");
+		push(data, data.length, handler);
+		assertEquals(20000, count[0]);
+		count[0] = 0;
+		push(data, 1000, handler);
+		assertEquals(20000, count[0]);
+	}
+
+	@Test
+	public void testNoRootYet() throws Exception {
+		final PushBuilder pb = new PushBuilder();
+		pb.feed(ByteBuffer.wrap("<?xml version='1.0'?><!-- x".getBytes("UTF-8")));
+		assertNull(pb.getDocument());
+	}
+
+	@Test
+	public void testMalformed() throws Exception {
+		checkFail("<root><a></b></root>");
+		checkFail("<root><a>");
+		checkFail("<root/><second/>");
+		checkFail("<r><a/></x>");
+		checkFail("<r>text</x>");
+		checkFail("<p:r xmlns:p='urn:p'><a/></r>");
+		checkFail("");
+		checkFail("<root>\u00e9</root>".substring(0, 7));
+		final PushBuilder pb = new PushBuilder();
+		try {
+			pb.feed(ByteBuffer.wrap("<root><a></b>".getBytes("UTF-8")));
+			fail("Expected a JDOMException");
+		} catch (JDOMException e) {
+			// good
+		}
+		try {
+			pb.feed(ByteBuffer.wrap("</root>".getBytes("UTF-8")));
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testEnded() throws Exception {
+		final PushBuilder pb = new PushBuilder();
+		pb.feed(ByteBuffer.wrap("<root/>".getBytes("UTF-8")));
+		pb.endOfInput();
+		try {
+			pb.endOfInput();
+			fail("Expected an IllegalStateException");
+		} catch (IllegalStateException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testValidating() {
+		try {
+			new PushBuilder(new SAXBuilder(XMLReaders.DTDVALIDATING), null);
+			fail("Expected an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// good
+		}
+	}
+
+	private static void checkFail(final String xml) throws Exception {
+		try {
+			push(xml.getBytes("UTF-8"), 3, null);
+			fail("Expected a JDOMException for " + xml);
+		} catch (JDOMException e) {
+			// good
+		}
+	}
+
+}
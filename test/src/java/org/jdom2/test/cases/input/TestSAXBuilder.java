@@ -75,13 +75,16 @@ import java.io.ByteArrayInputStream;
 import java.io.CharArrayReader;
 import java.io.CharArrayWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.CharBuffer;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Ignore;
@@ -322,6 +325,31 @@ public final class TestSAXBuilder {
 		assertTrue(sb.buildEngine().getJDOMFactory() == fac);
 	}
 
+	@Test
+	public void testUncheckedBulkBuild() throws Exception {
+		final String[] sources = new String[] {"/DOMBuilder/complex.xml",
+				"/DOMBuilder/namespaces.xml", "/SAXBuilderTestEntity.xml"};
+		final XMLOutputter out = new XMLOutputter();
+		for (String source : sources) {
+			for (boolean expand : new boolean[] {true, false}) {
+				SAXBuilder checked = new SAXBuilder();
+				checked.setExpandEntities(expand);
+				SAXBuilder unchecked = new SAXBuilder();
+				unchecked.setExpandEntities(expand);
+				unchecked.setJDOMFactory(new UncheckedJDOMFactory());
+				final URL url = FidoFetch.getFido().getURL(source);
+				final Document expect = checked.build(url);
+				final Document doc = unchecked.build(url);
+				assertEquals(out.outputString(expect), out.outputString(doc));
+				final Iterator<Content> it = doc.getDescendants();
+				while (it.hasNext()) {
+					final Content c = it.next();
+					assertTrue(c.getParent().indexOf(c) >= 0);
+				}
+			}
+		}
+	}
+
 	@Test
 	public void testGetSAXHandlerFactory() {
 		SAXBuilder sb = new SAXBuilder();
@@ -944,6 +972,39 @@ public final class TestSAXBuilder {
 		}
 	}
 
+	@Test
+	public void testBuildFileChannel() throws Exception {
+		final String[] encodings = new String[] {"UTF-8", "ISO-8859-1", "UTF-16"};
+		final String body = "<root att=\"\u00e9\">text \u00e8<child/></root>";
+		final XMLOutputter out = new XMLOutputter();
+		for (String encoding : encodings) {
+			final File tmp = File.createTempFile("tst", ".xml");
+			tmp.deleteOnExit();
+			try {
+				final FileOutputStream fos = new FileOutputStream(tmp);
+				fos.write(("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>"
+						+ body).getBytes(encoding));
+				fos.close();
+				final SAXBuilder sb = new SAXBuilder();
+				final Document expect = sb.build(tmp);
+				final RandomAccessFile raf = new RandomAccessFile(tmp, "r");
+				try {
+					final Document doc = sb.build(raf.getChannel(),
+							tmp.toURI().toString());
+					assertEquals(out.outputString(expect), out.outputString(doc));
+					assertEquals("\u00e9", doc.getRootElement().getAttributeValue("att"));
+					assertEquals(tmp.toURI().toString(), doc.getBaseURI());
+					assertEquals(out.outputString(expect),
+							out.outputString(sb.build(raf.getChannel())));
+				} finally {
+					raf.close();
+				}
+			} finally {
+				tmp.delete();
+			}
+		}
+	}
+
 	@Test
 	public void testBuildURL() {
 		File tmp = null;
@@ -28,6 +28,7 @@ import org.jdom2.EntityRef;
 import org.jdom2.JDOMFactory;
 import org.jdom2.Namespace;
 import org.jdom2.ProcessingInstruction;
+import org.jdom2.SlimJDOMFactory;
 import org.jdom2.filter.ContentFilter;
 import org.jdom2.input.sax.SAXHandler;
 
@@ -381,6 +382,20 @@ public class TestSAXHandler {
 		assertTrue(handler.getIgnoringBoundaryWhitespace());
 	}
 
+	@Test
+	public void testInterningText() {
+		SAXHandler handler = new SAXHandler();
+		assertFalse(handler.getInterningText());
+		handler.setInterningText(true);
+		assertTrue(handler.getInterningText());
+		handler.reset();
+		assertTrue(handler.getInterningText());
+		handler.setInterningText(false);
+		assertFalse(handler.getInterningText());
+		assertTrue(new SAXHandler(new SlimJDOMFactory()).getInterningText());
+		assertFalse(new SAXHandler(new SlimJDOMFactory(false)).getInterningText());
+	}
+
 
 	/* **********************************
 	 * LexicalHandler method tests.
@@ -3,13 +3,22 @@ package org.jdom2.test.cases.input;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.CharArrayWriter;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.junit.Ignore;
@@ -20,6 +29,8 @@ import org.jdom2.DefaultJDOMFactory;
 import org.jdom2.DocType;
 import org.jdom2.Document;
 import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.UncheckedJDOMFactory;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.input.StAXStreamBuilder;
 import org.jdom2.input.stax.DefaultStAXFilter;
@@ -46,6 +57,94 @@ public class TestStAXStreamBuilder {
 		db.setFactory(fac);
 		assertTrue(db.getFactory() == fac);
 	}
+
+	@Test
+	public void testBuildFileChannel() throws Exception {
+		final String[] encodings = new String[] {"UTF-8", "ISO-8859-1"};
+		final String body = "<root att=\"\u00e9\">text \u00e8<child/></root>";
+		final XMLInputFactory inputfactory = XMLInputFactory.newInstance();
+		final StAXStreamBuilder builder = new StAXStreamBuilder();
+		final XMLOutputter out = new XMLOutputter();
+		for (String encoding : encodings) {
+			final String xml = "<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>"
+					+ body;
+			final File tmp = File.createTempFile("tst", ".xml");
+			tmp.deleteOnExit();
+			try {
+				final FileOutputStream fos = new FileOutputStream(tmp);
+				fos.write(xml.getBytes(encoding));
+				fos.close();
+				final Document expect = new SAXBuilder().build(new StringReader(xml));
+				final RandomAccessFile raf = new RandomAccessFile(tmp, "r");
+				try {
+					final Document doc = builder.build(inputfactory,
+							raf.getChannel(), tmp.toURI().toString());
+					assertEquals(out.outputString(expect.getRootElement()),
+							out.outputString(doc.getRootElement()));
+					assertEquals(0, raf.getChannel().position());
+				} finally {
+					raf.close();
+				}
+			} finally {
+				tmp.delete();
+			}
+		}
+	}
+
+	@Test
+	public void testUncheckedBulkBuild() throws Exception {
+		final String xml = "<root xmlns:p='urn:p'><a>x<b p:c='d'/>y<!--z--></a>" +
+				"<?pi data?><p:e><f><g/></f>text</p:e>tail</root>";
+		StAXStreamBuilder db = new StAXStreamBuilder();
+		final Document expect = db.build(XMLInputFactory.newInstance()
+				.createXMLStreamReader(new StringReader(xml)));
+		db.setFactory(new UncheckedJDOMFactory());
+		final Document doc = db.build(XMLInputFactory.newInstance()
+				.createXMLStreamReader(new StringReader(xml)));
+		final XMLOutputter out = new XMLOutputter();
+		assertEquals(out.outputString(expect), out.outputString(doc));
+		final Element g = doc.getRootElement().getChild("e", Namespace.getNamespace("urn:p"))
+				.getChild("f").getChild("g");
+		assertEquals("root", g.getParentElement().getParentElement()
+				.getParentElement().getName());
+		assertEquals(4, doc.getRootElement().getContentSize());
+	}
+
+	@Test
+	public void testIgnoringBoundaryWhitespace() throws Exception {
+		final String xml = "<root>\n  <a>x</a>\n  <b> y <!--c-->  </b>\n" +
+				"  <c>  </c>\n  text \n  <d>&#x20;&#x20;z</d><e>\n\n</e></root>";
+		StAXStreamBuilder db = new StAXStreamBuilder();
+		assertFalse(db.getIgnoringBoundaryWhitespace());
+		assertFalse(db.getIgnoringElementContentWhitespace());
+		final String full = new XMLOutputter().outputString(
+				db.build(XMLInputFactory.newInstance().createXMLStreamReader(
+						new StringReader(xml))));
+		
+		db.setIgnoringBoundaryWhitespace(true);
+		assertTrue(db.getIgnoringBoundaryWhitespace());
+		SAXBuilder sb = new SAXBuilder();
+		sb.setIgnoringBoundaryWhitespace(true);
+		final Document expect = sb.build(new StringReader(xml));
+		final Document doc = db.build(XMLInputFactory.newInstance()
+				.createXMLStreamReader(new StringReader(xml)));
+		final XMLOutputter out = new XMLOutputter();
+		assertEquals(out.outputString(expect), out.outputString(doc));
+		assertEquals(0, doc.getRootElement().getChild("c").getContentSize());
+		assertEquals(2, doc.getRootElement().getChild("b").getContentSize());
+		assertEquals(" y ", doc.getRootElement().getChild("b").getText());
+		assertEquals("\n  text \n  ", doc.getRootElement().getText());
+		
+		db.setIgnoringBoundaryWhitespace(false);
+		assertEquals(full, new XMLOutputter().outputString(
+				db.build(XMLInputFactory.newInstance().createXMLStreamReader(
+						new StringReader(xml)))));
+		
+		db.setIgnoringElementContentWhitespace(true);
+		assertTrue(db.getIgnoringElementContentWhitespace());
+		db.setIgnoringElementContentWhitespace(false);
+		assertFalse(db.getIgnoringElementContentWhitespace());
+	}
 	
 	@Test
 	public void testSimpleDocumentExpand() {
@@ -119,6 +218,122 @@ public class TestStAXStreamBuilder {
 		checkStAX("/xsdcomplex/input.xml", false);
 	}
 	
+	private static final String RECORDS = 
+			"<?xml version=\"1.0\"?>\n" +
+			"<feed xmlns:r=\"urn:r\"><!-- header -->\n" +
+			"  <head><r:record id=\"h\"/></head>\n" +
+			"  <r:record id=\"1\"><v>one</v><!-- c --><note>x</note></r:record>\n" +
+			"  <r:record id=\"2\"><v>two</v><r:record id=\"nested\"/></r:record>\n" +
+			"  <other/>\n" +
+			"  <r:record id=\"3\"/>\n" +
+			"</feed>";
+
+	private static final class RecordFilter extends DefaultStAXFilter {
+		@Override
+		public boolean includeElement(int depth, String name, Namespace ns) {
+			return "record".equals(name) && "urn:r".equals(ns.getURI());
+		}
+		
+		@Override
+		public boolean pruneElement(int depth, String name, Namespace ns) {
+			return "note".equals(name);
+		}
+
+		@Override
+		public String pruneComment(int depth, String comment) {
+			return null;
+		}
+	}
+
+	private static XMLStreamReader records() throws XMLStreamException {
+		return XMLInputFactory.newInstance().createXMLStreamReader(
+				new StringReader(RECORDS));
+	}
+
+	@Test
+	public void testBuildElements() throws XMLStreamException {
+		StAXStreamBuilder sb = new StAXStreamBuilder();
+		Iterator<Element> it = sb.buildElements(records(), new RecordFilter());
+		String[] ids = new String[] {"h", "1", "2", "3"};
+		for (String id : ids) {
+			assertTrue(it.hasNext());
+			assertTrue(it.hasNext());
+			Element record = it.next();
+			assertNull(record.getParent());
+			assertEquals(id, record.getAttributeValue("id"));
+			if ("1".equals(id)) {
+				// pruned the note and the comment.
+				assertEquals(1, record.getContentSize());
+				assertEquals("one", record.getChildText("v"));
+			}
+			if ("2".equals(id)) {
+				// the nested record is part of the outer one.
+				assertEquals(2, record.getChildren().size());
+			}
+		}
+		assertFalse(it.hasNext());
+		try {
+			it.next();
+			fail("Should not be able to get more Elements");
+		} catch (NoSuchElementException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testBuildElementsLazy() throws XMLStreamException {
+		XMLStreamReader reader = records();
+		Iterator<Element> it = new StAXStreamBuilder().buildElements(reader, 
+				new RecordFilter());
+		assertTrue(it.hasNext());
+		it.next();
+		assertTrue(it.hasNext());
+		// the reader is at the second record, which is not yet built.
+		assertEquals(XMLStreamReader.START_ELEMENT, reader.getEventType());
+		assertEquals("1", reader.getAttributeValue(null, "id"));
+		assertEquals("1", it.next().getAttributeValue("id"));
+		assertEquals(XMLStreamReader.END_ELEMENT, reader.getEventType());
+		try {
+			it.remove();
+			fail("Should not be able to remove");
+		} catch (UnsupportedOperationException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testBuildElementsInside() throws XMLStreamException {
+		XMLStreamReader reader = records();
+		// move in to the head element.
+		while (!(reader.isStartElement() && "head".equals(reader.getLocalName()))) {
+			reader.next();
+		}
+		reader.next();
+		Iterator<Element> it = new StAXStreamBuilder().buildElements(reader, 
+				new DefaultStAXFilter());
+		assertTrue(it.hasNext());
+		assertEquals("h", it.next().getAttributeValue("id"));
+		// the iteration stops at the end of head.
+		assertFalse(it.hasNext());
+		assertEquals("head", reader.getLocalName());
+	}
+
+	@Test
+	public void testBuildElementsBroken() throws XMLStreamException {
+		XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(
+				new StringReader("<feed><record></feed>"));
+		Iterator<Element> it = new StAXStreamBuilder().buildElements(reader, 
+				new DefaultStAXFilter());
+		try {
+			while (it.hasNext()) {
+				it.next();
+			}
+			fail("Should not be able to parse broken XML");
+		} catch (IllegalStateException e) {
+			assertTrue(e.getCause() instanceof XMLStreamException);
+		}
+	}
+
 	private void checkStAX(String resname, boolean expand) {
 		try {
 			StAXStreamBuilder stxb = new StAXStreamBuilder();
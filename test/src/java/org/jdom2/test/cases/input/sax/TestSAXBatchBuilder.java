@@ -0,0 +1,223 @@
+package org.jdom2.test.cases.input.sax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xml.sax.InputSource;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.SlimJDOMFactory;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.SAXBatchBuilder;
+import org.jdom2.test.util.UnitTestUtil;
+
+@SuppressWarnings("javadoc")
+public class TestSAXBatchBuilder {
+
+	private static final class Recorder implements SAXBatchBuilder.Handler {
+		private final List<Integer> order = new ArrayList<Integer>();
+		private final List<Integer> failed = new ArrayList<Integer>();
+
+		@Override
+		public void built(int index, InputSource source, Document document) {
+			assertEquals(String.valueOf(index), 
+					document.getRootElement().getAttributeValue("id"));
+			order.add(Integer.valueOf(index));
+		}
+
+		@Override
+		public void failed(int index, InputSource source, Throwable cause) {
+			assertTrue(cause instanceof JDOMException);
+			order.add(Integer.valueOf(index));
+			failed.add(Integer.valueOf(index));
+		}
+	}
+
+	private ExecutorService exec = null;
+
+	@Before
+	public void setUp() {
+		exec = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown() {
+		exec.shutdownNow();
+	}
+
+	private static InputSource source(int i) {
+		if (i % 10 == 7) {
+			return new InputSource(new StringReader("<root id=\"" + i + "\">"));
+		}
+		return new InputSource(new StringReader("<root id=\"" + i + "\"><c/></root>"));
+	}
+
+	private static List<InputSource> sources(int count) {
+		List<InputSource> ret = new ArrayList<InputSource>();
+		for (int i = 0; i < count; i++) {
+			ret.add(source(i));
+		}
+		return ret;
+	}
+
+	private static SAXBuilder sharedBuilder() {
+		SAXBuilder sb = new SAXBuilder();
+		sb.setJDOMFactory(new SlimJDOMFactory(true, true));
+		return sb;
+	}
+
+	@Test
+	public void testIllegalArguments() throws JDOMException {
+		try {
+			new SAXBatchBuilder(new SAXBuilder(), null, 2);
+			fail("Should not be able to use a null executor");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(NullPointerException.class, e);
+		}
+		try {
+			new SAXBatchBuilder(new SAXBuilder(), exec, 2, 0);
+			fail("Should not be able to have no pending parses");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+		SAXBuilder sb = new SAXBuilder();
+		sb.setJDOMFactory(new SlimJDOMFactory());
+		try {
+			new SAXBatchBuilder(sb, exec, 2);
+			fail("Should not be able to use an unshared SlimJDOMFactory");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+	}
+
+	@Test
+	public void testSubmit() throws Exception {
+		SAXBatchBuilder batch = new SAXBatchBuilder(sharedBuilder(), exec, 4);
+		List<Future<Document>> results = batch.submit(sources(50));
+		assertEquals(50, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				Document doc = results.get(i).get();
+				assertTrue(i % 10 != 7);
+				assertEquals(String.valueOf(i), 
+						doc.getRootElement().getAttributeValue("id"));
+			} catch (ExecutionException ee) {
+				assertTrue(i % 10 == 7);
+				assertTrue(ee.getCause() instanceof JDOMException);
+			}
+		}
+		assertEquals(0, batch.getEnginePool().getBorrowedCount());
+		assertTrue(batch.getEnginePool().getCreatedCount() <= 4);
+	}
+
+	@Test
+	public void testBuildOrdered() throws Exception {
+		SAXBatchBuilder batch = new SAXBatchBuilder(sharedBuilder(), exec, 4, 3);
+		Recorder rec = new Recorder();
+		batch.build(sources(100), rec, true);
+		assertEquals(100, rec.order.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, rec.order.get(i).intValue());
+		}
+		assertEquals(10, rec.failed.size());
+	}
+
+	@Test
+	public void testBuildUnordered() throws Exception {
+		SAXBatchBuilder batch = new SAXBatchBuilder(sharedBuilder(), exec, 4);
+		Recorder rec = new Recorder();
+		batch.build(sources(100), rec, false);
+		assertEquals(100, rec.order.size());
+		boolean[] seen = new boolean[100];
+		for (Integer i : rec.order) {
+			assertTrue(!seen[i.intValue()]);
+			seen[i.intValue()] = true;
+		}
+		assertEquals(10, rec.failed.size());
+	}
+
+	@Test
+	public void testBackPressure() throws Exception {
+		final int count = 200;
+		final int limit = 5;
+		final AtomicInteger taken = new AtomicInteger();
+		final AtomicInteger handled = new AtomicInteger();
+		final AtomicInteger maxAhead = new AtomicInteger();
+		Iterable<InputSource> lazy = new Iterable<InputSource>() {
+			@Override
+			public Iterator<InputSource> iterator() {
+				return new Iterator<InputSource>() {
+					@Override
+					public boolean hasNext() {
+						return taken.get() < count;
+					}
+					@Override
+					public InputSource next() {
+						int ahead = taken.get() - handled.get();
+						if (ahead > maxAhead.get()) {
+							maxAhead.set(ahead);
+						}
+						return source(taken.getAndIncrement());
+					}
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+		SAXBatchBuilder batch = new SAXBatchBuilder(sharedBuilder(), exec, 4, limit);
+		batch.build(lazy, new SAXBatchBuilder.Handler() {
+			@Override
+			public void built(int index, InputSource source, Document document) {
+				handled.incrementAndGet();
+			}
+			@Override
+			public void failed(int index, InputSource source, Throwable cause) {
+				handled.incrementAndGet();
+			}
+		}, false);
+		assertEquals(count, handled.get());
+		assertTrue("Too many pending: " + maxAhead.get(), maxAhead.get() < limit);
+	}
+
+	@Test
+	public void testHandlerException() throws Exception {
+		SAXBatchBuilder batch = new SAXBatchBuilder(sharedBuilder(), exec, 2);
+		final AtomicInteger handled = new AtomicInteger();
+		try {
+			batch.build(sources(100), new SAXBatchBuilder.Handler() {
+				@Override
+				public void built(int index, InputSource source, Document document) {
+					if (handled.incrementAndGet() == 3) {
+						throw new IllegalStateException("stop");
+					}
+				}
+				@Override
+				public void failed(int index, InputSource source, Throwable cause) {
+					handled.incrementAndGet();
+				}
+			}, true);
+			fail("Handler exception should be thrown");
+		} catch (IllegalStateException ise) {
+			assertEquals("stop", ise.getMessage());
+		}
+		assertEquals(3, handled.get());
+	}
+
+}
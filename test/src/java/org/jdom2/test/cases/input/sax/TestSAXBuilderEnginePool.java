@@ -0,0 +1,142 @@
+package org.jdom2.test.cases.input.sax;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.SlimJDOMFactory;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.SAXBuilderEnginePool;
+import org.jdom2.input.sax.SAXEngine;
+import org.jdom2.test.util.UnitTestUtil;
+
+@SuppressWarnings("javadoc")
+public class TestSAXBuilderEnginePool {
+
+	@Test
+	public void testIllegalArguments() throws JDOMException {
+		try {
+			new SAXBuilderEnginePool(null, 1);
+			fail("Should not be able to use a null builder");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(NullPointerException.class, e);
+		}
+		try {
+			new SAXBuilderEnginePool(new SAXBuilder(), 0);
+			fail("Should not be able to have an empty pool");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+	}
+
+	@Test
+	public void testConfiguration() throws JDOMException {
+		SAXBuilder sb = new SAXBuilder();
+		sb.setExpandEntities(false);
+		sb.setIgnoringBoundaryWhitespace(true);
+		SAXBuilderEnginePool pool = new SAXBuilderEnginePool(sb, 2);
+		assertEquals(2, pool.getMaxEngines());
+		assertEquals(1, pool.getCreatedCount());
+		assertFalse(pool.getExpandEntities());
+		assertTrue(pool.getIgnoringBoundaryWhitespace());
+		assertFalse(pool.getIgnoringElementContentWhitespace());
+		assertFalse(pool.isValidating());
+		assertTrue(sb.getJDOMFactory() == pool.getJDOMFactory());
+		assertNotNull(pool.toString());
+	}
+
+	@Test
+	public void testBorrowReturn() throws Exception {
+		SAXBuilderEnginePool pool = new SAXBuilderEnginePool(new SAXBuilder(), 2);
+		SAXEngine a = pool.borrowEngine();
+		SAXEngine b = pool.borrowEngine();
+		assertTrue(a != b);
+		assertEquals(2, pool.getCreatedCount());
+		assertEquals(2, pool.getBorrowedCount());
+		assertNull(pool.borrowEngine(10, TimeUnit.MILLISECONDS));
+		assertEquals(1, pool.getWaitCount());
+		assertTrue(pool.getTotalWaitTime(TimeUnit.NANOSECONDS) > 0);
+		assertTrue(pool.getMaxWaitTime(TimeUnit.NANOSECONDS) > 0);
+		pool.returnEngine(a);
+		try {
+			pool.returnEngine(a);
+			fail("Should not be able to return an engine twice");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+		try {
+			pool.returnEngine(new SAXBuilder().buildEngine());
+			fail("Should not be able to return a foreign engine");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+		assertTrue(a == pool.borrowEngine(10, TimeUnit.MILLISECONDS));
+		pool.returnEngine(a);
+		pool.returnEngine(b);
+		assertEquals(0, pool.getBorrowedCount());
+		assertEquals(3, pool.getBorrowCount());
+		pool.resetStatistics();
+		assertEquals(0, pool.getBorrowCount());
+		assertEquals(0, pool.getWaitCount());
+		assertEquals(0, pool.getMaxWaitTime(TimeUnit.NANOSECONDS));
+	}
+
+	@Test
+	public void testBuildFailureReturnsEngine() throws JDOMException {
+		SAXBuilderEnginePool pool = new SAXBuilderEnginePool(new SAXBuilder(), 1);
+		try {
+			pool.build(new StringReader("<root>"));
+			fail("Should not be able to parse broken XML");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(JDOMException.class, e);
+		}
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	@Test
+	public void testConcurrentBuild() throws Exception {
+		SAXBuilder sb = new SAXBuilder();
+		sb.setJDOMFactory(new SlimJDOMFactory(true, true));
+		final SAXBuilderEnginePool pool = new SAXBuilderEnginePool(sb, 3);
+		ExecutorService exec = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Document>> results = new ArrayList<Future<Document>>();
+			for (int i = 0; i < 200; i++) {
+				final String xml = "<root><child id=\"" + i + "\">text</child></root>";
+				results.add(exec.submit(new Callable<Document>() {
+					@Override
+					public Document call() throws Exception {
+						return pool.build(new StringReader(xml));
+					}
+				}));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				Document doc = results.get(i).get();
+				assertEquals(String.valueOf(i), 
+						doc.getRootElement().getChild("child").getAttributeValue("id"));
+			}
+		} finally {
+			exec.shutdown();
+		}
+		assertTrue(pool.getCreatedCount() <= 3);
+		assertEquals(200, pool.getBorrowCount());
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+}
@@ -1280,6 +1280,60 @@ public abstract class AbstractTestOutputter {
 		checkOutput(doc, raw.toString(), raw.toString(), pretty.toString(), pretty.toString(), pretty.toString()); 
 	}
 	
+	@Test
+	public void testOutputElementNestedDeep() {
+		// deeper than the initial size of the processors' Element stacks.
+		final int depth = 200;
+		Element root = new Element("e").setText("t");
+		String raw = "<e>t</e>";
+		String pretty = raw;
+		for (int i = depth - 2; i >= 0; i--) {
+			final Element parent = new Element("e");
+			parent.addContent(new Comment("c"));
+			parent.addContent(root);
+			parent.addContent(new Element("leaf"));
+			root = parent;
+			final StringBuilder ind = new StringBuilder("\n");
+			for (int j = 0; j <= i; j++) {
+				ind.append("  ");
+			}
+			final String in = ind.toString();
+			final String out = in.substring(0, in.length() - 2);
+			raw = "<e><!--c-->" + raw + "<leaf/></e>";
+			pretty = "<e>" + in + "<!--c-->" + in + pretty + in + "<leaf/>" 
+					+ out + "</e>";
+		}
+		checkOutput(root, raw, raw, pretty, pretty, pretty);
+	}
+
+	/**
+	 * Build an Element nested <code>depth</code> levels deep, from the
+	 * bottom up (so adding content does not walk the ancestors).
+	 */
+	protected static Element buildDeepElement(final int depth) {
+		Element emt = new Element("e");
+		for (int i = 1; i < depth; i++) {
+			emt = new Element("e").addContent(emt);
+		}
+		return emt;
+	}
+
+	@Test
+	public void testOutputElementVeryDeep() {
+		// far deeper than a recursive outputter can handle on a normal stack.
+		final int depth = 10000;
+		final StringBuilder sb = new StringBuilder(depth * 8);
+		for (int i = 1; i < depth; i++) {
+			sb.append("<e>");
+		}
+		sb.append("<e/>");
+		for (int i = 1; i < depth; i++) {
+			sb.append("</e>");
+		}
+		assertEquals(expect(sb.toString()), 
+				outputElementAsString(fraw, buildDeepElement(depth)));
+	}
+
 	@Test
 	public void testOutputElementContent() {
 		Element root = new Element("root");
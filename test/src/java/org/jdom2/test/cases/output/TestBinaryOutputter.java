@@ -0,0 +1,237 @@
+package org.jdom2.test.cases.output;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import org.jdom2.Attribute;
+import org.jdom2.AttributeType;
+import org.jdom2.CDATA;
+import org.jdom2.Comment;
+import org.jdom2.DocType;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.EntityRef;
+import org.jdom2.JDOMException;
+import org.jdom2.Namespace;
+import org.jdom2.ProcessingInstruction;
+import org.jdom2.Text;
+import org.jdom2.UncheckedJDOMFactory;
+import org.jdom2.input.BinaryBuilder;
+import org.jdom2.output.BinaryOutputter;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.test.util.UnitTestUtil;
+
+@SuppressWarnings("javadoc")
+public class TestBinaryOutputter extends AbstractTestRoundTrip {
+
+	@Override
+	Document prepare(Document doc) {
+		return doc;
+	}
+
+	@Override
+	Document roundTrip(final Document doc) {
+		try {
+			return new BinaryBuilder().build(new BinaryOutputter().outputBytes(doc));
+		} catch (JDOMException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Document buildAll() {
+		final Namespace ns = Namespace.getNamespace("p", "urn:p");
+		final Element root = new Element("root", "urn:default");
+		root.addNamespaceDeclaration(ns);
+		root.addNamespaceDeclaration(Namespace.getNamespace("q", "urn:unused"));
+		final Attribute id = new Attribute("id", "x1", AttributeType.ID);
+		root.setAttribute(id);
+		final Attribute def = new Attribute("def", "d", AttributeType.CDATA, ns);
+		def.setSpecified(false);
+		root.setAttribute(def);
+		root.setAttribute(new Attribute("enum", "a", AttributeType.ENUMERATION));
+		root.addContent(new Text("text \u00e9\u4e2d\ud834\udd1e"));
+		root.addContent(new CDATA("<cdata>"));
+		root.addContent(new Comment("comment"));
+		root.addContent(new ProcessingInstruction("pi", "data"));
+		root.addContent(new ProcessingInstruction("empty"));
+		root.addContent(new EntityRef("ent", "pub", "sys"));
+		root.addContent(new EntityRef("ent2"));
+		for (int i = 0; i < 5; i++) {
+			final Element child = new Element("child", ns);
+			child.setAttribute("n", String.valueOf(i), ns);
+			child.addContent(new Element("leaf").setText("v" + i));
+			root.addContent(child);
+		}
+		final Document doc = new Document();
+		doc.addContent(new DocType("root", "-//pub", "sys.dtd"));
+		doc.getDocType().setInternalSubset("<!ENTITY ent 'x'>");
+		doc.addContent(new Comment("before"));
+		doc.addContent(root);
+		doc.addContent(new ProcessingInstruction("after", "x"));
+		doc.setBaseURI("http://example.com/base");
+		return doc;
+	}
+
+	private static void checkAll(final Document doc) {
+		final Document expect = buildAll();
+		UnitTestUtil.compare(expect, doc);
+		assertEquals(expect.getBaseURI(), doc.getBaseURI());
+		assertEquals("<!ENTITY ent 'x'>", doc.getDocType().getInternalSubset());
+		final Element root = doc.getRootElement();
+		assertEquals(AttributeType.ID, root.getAttribute("id").getAttributeType());
+		assertEquals(AttributeType.ENUMERATION,
+				root.getAttribute("enum").getAttributeType());
+		assertTrue(root.getAttribute("id").isSpecified());
+		assertFalse(root.getAttribute("def", Namespace.getNamespace("urn:p"))
+				.isSpecified());
+		assertEquals(2, root.getAdditionalNamespaces().size());
+		assertEquals(Namespace.getNamespace("q", "urn:unused"),
+				root.getAdditionalNamespaces().get(1));
+		final EntityRef ent = (EntityRef)root.getContent(5);
+		assertEquals("pub", ent.getPublicID());
+		assertEquals("sys", ent.getSystemID());
+		assertNull(((EntityRef)root.getContent(6)).getSystemID());
+		assertEquals(new XMLOutputter().outputString(expect),
+				new XMLOutputter().outputString(doc));
+	}
+
+	@Test
+	public void testAllContent() throws JDOMException {
+		final byte[] data = new BinaryOutputter().outputBytes(buildAll());
+		checkAll(new BinaryBuilder().build(data));
+	}
+
+	@Test
+	public void testCompressed() throws JDOMException {
+		final Document doc = buildAll();
+		final BinaryOutputter out = new BinaryOutputter(true);
+		assertTrue(out.isCompressing());
+		assertFalse(new BinaryOutputter().isCompressing());
+		checkAll(new BinaryBuilder().build(out.outputBytes(doc)));
+	}
+
+	@Test
+	public void testUnchecked() throws JDOMException {
+		final BinaryBuilder bb = new BinaryBuilder();
+		bb.setFactory(new UncheckedJDOMFactory());
+		assertTrue(bb.getFactory() instanceof UncheckedJDOMFactory);
+		checkAll(bb.build(new BinaryOutputter().outputBytes(buildAll())));
+	}
+
+	@Test
+	public void testStreams() throws JDOMException, IOException {
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		new BinaryOutputter(true).output(buildAll(), baos);
+		checkAll(new BinaryBuilder().build(
+				new ByteArrayInputStream(baos.toByteArray())));
+	}
+
+	@Test
+	public void testElement() throws JDOMException {
+		final Element root = buildAll().getRootElement();
+		final BinaryOutputter out = new BinaryOutputter();
+		final Element emt = new BinaryBuilder().buildElement(out.outputBytes(root));
+		assertNull(emt.getParent());
+		UnitTestUtil.compare(root, emt);
+		try {
+			new BinaryBuilder().buildElement(out.outputBytes(new Document(emt)));
+			fail("Should not be able to build an Element from a Document");
+		} catch (JDOMException e) {
+			// good
+		}
+		try {
+			new BinaryBuilder().build(out.outputBytes(root));
+			fail("Should not be able to build a Document from an Element");
+		} catch (JDOMException e) {
+			// good
+		}
+	}
+
+	@Test
+	public void testSymbolsShared() {
+		final Element root = new Element("root", "urn:a-rather-long-namespace-uri");
+		for (int i = 0; i < 100; i++) {
+			root.addContent(new Element("a-rather-long-element-name",
+					"urn:a-rather-long-namespace-uri"));
+		}
+		final byte[] data = new BinaryOutputter().outputBytes(root);
+		// names and URIs are written once, so each child is only a few bytes.
+		assertTrue("Binary form is " + data.length + " bytes", data.length < 100 * 7);
+	}
+
+	@Test
+	public void testDeep() throws JDOMException {
+		final Element root = new Element("root");
+		Element emt = root;
+		for (int i = 0; i < 10000; i++) {
+			final Element child = new Element("e");
+			emt.addContent(child);
+			emt = child;
+		}
+		emt.setText("bottom");
+		final Element rt = new BinaryBuilder().buildElement(
+				new BinaryOutputter().outputBytes(root));
+		int depth = 0;
+		emt = rt;
+		while (emt.getChild("e") != null) {
+			emt = emt.getChild("e");
+			depth++;
+		}
+		assertEquals(10000, depth);
+		assertEquals("bottom", emt.getText());
+	}
+
+	@Test
+	public void testLargeText() throws JDOMException {
+		final char[] chars = new char[100000];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char)(0x20 + i % 0x3000);
+		}
+		final String text = new String(chars);
+		final Element root = new Element("root").setText(text);
+		final Element rt = new BinaryBuilder().buildElement(
+				new BinaryOutputter().outputBytes(root));
+		assertEquals(text, rt.getText());
+	}
+
+	@Test
+	public void testBadStreams() {
+		final byte[] data = new BinaryOutputter().outputBytes(buildAll());
+		final byte[] badmagic = data.clone();
+		badmagic[0] = 'X';
+		checkBad(badmagic);
+		final byte[] badversion = data.clone();
+		badversion[4] = 99;
+		checkBad(badversion);
+		final byte[] badtag = data.clone();
+		badtag[6] = 99;
+		checkBad(badtag);
+		checkBad(Arrays.copyOf(data, data.length - 3));
+		checkBad(new byte[0]);
+		// a huge, and a negative, base URI length.
+		checkBad(new byte[] {'J', 'D', 'O', 'M', 1, 0, 1,
+				(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x07});
+		checkBad(new byte[] {'J', 'D', 'O', 'M', 1, 0, 1,
+				(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x0F});
+	}
+
+	private static void checkBad(final byte[] data) {
+		try {
+			new BinaryBuilder().build(data);
+			fail("Should not be able to build bad data");
+		} catch (JDOMException e) {
+			// good
+		}
+	}
+
+}
@@ -41,6 +41,8 @@ import org.jdom2.output.LineSeparator;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.output.support.AbstractDOMOutputProcessor;
 import org.jdom2.output.support.DOMOutputProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
 import org.jdom2.test.util.UnitTestUtil;
 
 @SuppressWarnings("javadoc")
@@ -274,6 +276,30 @@ public final class TestDOMOutputter extends AbstractTestOutputter {
     	assertEquals(def, dout.getDOMOutputProcessor());
     }
     
+    @Test
+    public void testOverridePrintElement() throws JDOMException {
+    	DOMOutputProcessor dop = new AbstractDOMOutputProcessor() {
+    		@Override
+    		protected org.w3c.dom.Element printElement(FormatStack fstack,
+    				NamespaceStack nstack, org.w3c.dom.Document basedoc,
+    				Element element) {
+    			if ("secret".equals(element.getName())) {
+    				return basedoc.createElement("redacted");
+    			}
+    			return super.printElement(fstack, nstack, basedoc, element);
+    		}
+		};
+		Element root = new Element("r");
+		root.addContent(new Element("b").addContent(
+				new Element("secret").setText("pw")));
+		DOMOutputter dout = new DOMOutputter(dop);
+		org.w3c.dom.Element droot = dout.output(root);
+		org.w3c.dom.Node b = droot.getFirstChild();
+		assertEquals("b", b.getNodeName());
+		assertEquals("redacted", b.getFirstChild().getNodeName());
+		assertEquals(null, b.getFirstChild().getFirstChild());
+    }
+    
     @Test
     public void testGetSetDOMAdapter() {
     	DOMAdapter dop = new JAXPDOMAdapter();
@@ -402,6 +428,29 @@ public final class TestDOMOutputter extends AbstractTestOutputter {
     	
     }
     
+	@Override
+	@Test
+	public void testOutputElementVeryDeep() {
+		// DOMBuilder (used by nodeToString) recurses, so walk the DOM instead.
+		final int depth = 10000;
+		final Element root = buildDeepElement(depth);
+		final DOMOutputter out = getOutputter(fraw);
+		org.w3c.dom.Document doc = null;
+		try {
+			doc = out.output(new Document(root));
+		} catch (JDOMException e) {
+			UnitTestUtil.failException("Unexpected JDOMException", e);
+		}
+		org.w3c.dom.Node node = doc.getDocumentElement();
+		for (int i = 1; i < depth; i++) {
+			assertEquals("e", node.getNodeName());
+			assertEquals(1, node.getChildNodes().getLength());
+			node = node.getFirstChild();
+		}
+		assertEquals("e", node.getNodeName());
+		assertTrue(node.getFirstChild() == null);
+	}
+
     private final DOMOutputter getOutputter(Format format) {
     	DOMOutputter outputter = new DOMOutputter();
     	outputter.setFormat(format);
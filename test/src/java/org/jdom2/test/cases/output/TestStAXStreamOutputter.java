@@ -49,6 +49,8 @@ import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.SAXOutputter;
 import org.jdom2.output.StAXStreamOutputter;
 import org.jdom2.output.support.AbstractStAXStreamProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
 import org.jdom2.output.support.StAXStreamProcessor;
 import org.jdom2.test.util.UnitTestUtil;
 
@@ -526,6 +528,30 @@ public final class TestStAXStreamOutputter extends AbstractTestOutputter {
 		assertEquals("<root> x </root>", sw.toString());
 	}
 
+	@Test
+	public void testOverridePrintElement() throws XMLStreamException {
+		StAXStreamProcessor xoutp = new AbstractStAXStreamProcessor() {
+			@Override
+			protected void printElement(XMLStreamWriter out, FormatStack fstack,
+					NamespaceStack nstack, Element element)
+					throws XMLStreamException {
+				if ("secret".equals(element.getName())) {
+					printComment(out, fstack, new Comment("redacted"));
+				} else {
+					super.printElement(out, fstack, nstack, element);
+				}
+			}
+		};
+		Element root = new Element("r");
+		root.addContent(new Element("b").addContent(
+				new Element("secret").setText("pw")));
+		StAXStreamOutputter xout = new StAXStreamOutputter(xoutp);
+		StringWriter sw = new StringWriter();
+		XMLStreamWriter xsw = soutfactory.createXMLStreamWriter(sw);
+		xout.output(root, xsw);
+		assertEquals("<r><b><!--redacted--></b></r>", sw.toString());
+	}
+
 	@Test
 	public void testClone() {
 		StAXStreamOutputter xo = new StAXStreamOutputter();
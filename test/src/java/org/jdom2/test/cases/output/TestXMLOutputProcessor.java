@@ -1,8 +1,10 @@
 package org.jdom2.test.cases.output;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 
 import org.jdom2.IllegalDataException;
@@ -232,6 +234,27 @@ public class TestXMLOutputProcessor extends AbstractXMLOutputProcessor {
 		cw.close();
 	}
 
+	@Test
+	public void testEscapeMatchesFormat() throws IOException {
+		String[] values = new String[] {
+				"", "plain", "<&>", "a\u00e9b\u0153c\u20ac", "\r\n\t\"'",
+				"tail \uD834\uDD1E", "\uD834\uDD1E head", "mid\u00ff\u0100mid"};
+		for (String enc : new String[] {"UTF-8", "US-ASCII", "ISO-8859-1", "UTF-16", "Big5"}) {
+			Format fmt = Format.getRawFormat().setEncoding(enc);
+			FormatStack fs = new FormatStack(fmt);
+			for (String v : values) {
+				StringWriter sw = new StringWriter();
+				printText(sw, fs, new Text(v));
+				assertEquals(enc + " text " + v, Format.escapeText(
+						fmt.getEscapeStrategy(), fmt.getLineSeparator(), v), sw.toString());
+				sw = new StringWriter();
+				attributeEscapedEntitiesFilter(sw, fs, v);
+				assertEquals(enc + " attribute " + v, Format.escapeAttribute(
+						fmt.getEscapeStrategy(), v), sw.toString());
+			}
+		}
+	}
+
 	@Test
 	public void testTextEscapeRawEmpty() throws IOException {
 		CheckWriter cw = new CheckWriter("");
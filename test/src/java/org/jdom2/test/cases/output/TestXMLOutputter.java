@@ -20,6 +20,8 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -42,9 +44,12 @@ import org.jdom2.ProcessingInstruction;
 import org.jdom2.Text;
 import org.jdom2.UncheckedJDOMFactory;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.EscapeStrategy;
 import org.jdom2.output.Format;
 import org.jdom2.output.Format.TextMode;
 import org.jdom2.output.support.AbstractXMLOutputProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
 import org.jdom2.output.support.XMLOutputProcessor;
 import org.jdom2.output.XMLOutputter;
 
@@ -246,6 +251,33 @@ public final class TestXMLOutputter extends AbstractTestOutputter {
     }
     
     
+	@Test
+	public void testDirectByteEncodings() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			// mix single, double, triple, and quad byte UTF-8 characters
+			sb.append("ab\u00e9\u20ac\uD834\uDD1E&<>");
+		}
+		Element root = new Element("root");
+		root.setAttribute("att", "x\u00e9y\u20ac\"");
+		root.addContent(sb.toString());
+		root.addContent(new Comment(" \u00e9 \u20ac \uD834\uDD1E "));
+		root.addContent(new Element("empty"));
+		Document doc = new Document(root);
+		for (String enc : new String[] {"UTF-8", "US-ASCII", "ISO-8859-1", "UTF-16"}) {
+			XMLOutputter out = new XMLOutputter(Format.getRawFormat().setEncoding(enc));
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			out.output(doc, baos);
+			String expect = out.outputString(doc);
+			assertTrue(enc, Arrays.equals(expect.getBytes(enc), baos.toByteArray()));
+			
+			baos.reset();
+			out.output(root, Channels.newChannel(baos));
+			assertTrue(enc, Arrays.equals(
+					out.outputString(root).getBytes(enc), baos.toByteArray()));
+		}
+	}
+
 	@Test
 	public void testXMLOutputter() {
 		XMLOutputter out = new XMLOutputter();
@@ -283,6 +315,58 @@ public final class TestXMLOutputter extends AbstractTestOutputter {
 		assertTrue(xoutp == out.getXMLOutputProcessor());
 	}
 
+	@Test
+	public void testOverridePrintElement() throws IOException {
+		XMLOutputProcessor xoutp = new AbstractXMLOutputProcessor() {
+			@Override
+			protected void printElement(Writer out, FormatStack fstack,
+					NamespaceStack nstack, Element element) throws IOException {
+				if ("secret".equals(element.getName())) {
+					printComment(out, fstack, new Comment("redacted"));
+				} else {
+					super.printElement(out, fstack, nstack, element);
+				}
+			}
+		};
+		Element root = new Element("r");
+		root.addContent(new Element("b").addContent(
+				new Element("secret").setText("pw")));
+		XMLOutputter out = new XMLOutputter(xoutp);
+		assertEquals("<r><b><!--redacted--></b></r>", out.outputString(root));
+		assertEquals("<b><!--redacted--></b>", 
+				out.outputElementContentString(root));
+	}
+
+	@Test
+	public void testOverrideTextRaw() {
+		XMLOutputProcessor xoutp = new AbstractXMLOutputProcessor() {
+			@Override
+			protected void textRaw(Writer out, String str) throws IOException {
+				super.textRaw(out, str == null ? null : str.toUpperCase());
+			}
+		};
+		Element emt = new Element("e").setText("a<b");
+		emt.setAttribute("a", "c<d");
+		XMLOutputter out = new XMLOutputter(xoutp);
+		// the escaped runs of Text come through textRaw, Attributes do not.
+		assertEquals("<e a=\"c&lt;d\">A&LT;B</e>", out.outputString(emt));
+	}
+
+	@Test
+	public void testOverrideWrite() {
+		XMLOutputProcessor xoutp = new AbstractXMLOutputProcessor() {
+			@Override
+			protected void write(Writer out, String str) throws IOException {
+				super.write(out, str == null ? null : str.replace('x', 'y'));
+			}
+		};
+		Element emt = new Element("e").setText("x&x");
+		emt.setAttribute("a", "x<x");
+		XMLOutputter out = new XMLOutputter(xoutp);
+		// the escaped runs of Text and Attributes all come through write.
+		assertEquals("<e a=\"y&lt;y\">y&amp;y</e>", out.outputString(emt));
+	}
+
 	@Test
 	public void testFormat() {
 		Format mine = Format.getCompactFormat();
@@ -335,6 +419,30 @@ public final class TestXMLOutputter extends AbstractTestOutputter {
 		}
 	}
 
+	@Test
+	public void testCustomEscapeQuote() {
+		final EscapeStrategy quotes = new EscapeStrategy() {
+			@Override
+			public boolean shouldEscape(char ch) {
+				return ch == '"' || ch == '\t' || ch > 127;
+			}
+		};
+		final Format fmt = Format.getRawFormat();
+		fmt.setEscapeStrategy(quotes);
+		final XMLOutputter out = new XMLOutputter(fmt);
+		final String value = "a\"b\tc\u00e9";
+		final Element emt = new Element("e");
+		emt.setAttribute("a", value);
+		emt.setText(value);
+		// only an Attribute value uses the &quot; entity.
+		assertEquals("<e a=\"a&quot;b&#x9;c&#xe9;\">a&#x22;b&#x9;c&#xe9;</e>",
+				out.outputString(emt));
+		// and the same as the Format escape methods.
+		assertEquals("<e a=\"" + Format.escapeAttribute(quotes, value) + "\">" +
+				Format.escapeText(quotes, "\r\n", value) + "</e>",
+				out.outputString(emt));
+	}
+
 	@Test
 	public void testEscapeElementEntities() {
 		Map<String,String> totest = new LinkedHashMap<String,String>();
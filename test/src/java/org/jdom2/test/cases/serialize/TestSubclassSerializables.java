@@ -1,9 +1,14 @@
 package org.jdom2.test.cases.serialize;
 
 import static org.jdom2.test.util.UnitTestUtil.deSerialize;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import org.jdom2.Document;
+import org.jdom2.Element;
+
 @SuppressWarnings("javadoc")
 public class TestSubclassSerializables {
 
@@ -52,4 +57,37 @@ public class TestSubclassSerializables {
 		deSerialize(new SText());
 	}
 
+	@Test
+	public void testNestedSubclasses() {
+		final Element root = new Element("root");
+		final SElement child = new SElement();
+		child.setName("child");
+		child.setNamespace(null);
+		final SAttribute att = new SAttribute();
+		att.setName("att");
+		att.setNamespace(null);
+		att.setValue("val");
+		child.setAttribute(att);
+		child.addContent(new SText());
+		final SElement grandchild = new SElement();
+		grandchild.setName("grandchild");
+		grandchild.setNamespace(null);
+		child.addContent(grandchild);
+		root.addContent(child);
+		root.addContent(new Element("child"));
+		
+		final Document doc = deSerialize(new Document(root));
+		final Element sroot = doc.getRootElement();
+		assertEquals(Element.class, sroot.getClass());
+		assertEquals(2, sroot.getContentSize());
+		final Element schild = (Element)sroot.getContent(0);
+		assertEquals(SElement.class, schild.getClass());
+		assertEquals(SAttribute.class, schild.getAttribute("att").getClass());
+		assertEquals("val", schild.getAttributeValue("att"));
+		assertEquals(SText.class, schild.getContent(0).getClass());
+		assertEquals(SElement.class, schild.getContent(1).getClass());
+		assertTrue(schild.getChild("grandchild").getParent() == schild);
+		assertEquals(Element.class, sroot.getContent(1).getClass());
+	}
+
 }
@@ -0,0 +1,115 @@
+package org.jdom2.test.cases.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.test.util.UnitTestUtil;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+import org.jdom2.xpath.jaxen.JaxenXPathFactory;
+import org.jdom2.xpath.util.CachingXPathFactory;
+
+/**
+ * Runs all the compiled-XPath tests through a (small) cache, and then some
+ * cache-specific tests.
+ */
+@SuppressWarnings({"javadoc"})
+public class TestCachingXPathFactory extends TestJaxenCompiled {
+
+	private final CachingXPathFactory myfac = new JaxenXPathFactory().withCache(4);
+
+	@Override
+	XPathFactory getFactory() {
+		return myfac;
+	}
+
+	@Test
+	public void testIllegalArguments() {
+		try {
+			new CachingXPathFactory(null, 4);
+			fail("Should not be able to cache a null factory");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(NullPointerException.class, e);
+		}
+		try {
+			new CachingXPathFactory(new JaxenXPathFactory(), 0);
+			fail("Should not be able to have an empty cache");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+	}
+
+	@Test
+	public void testHitsAndMisses() {
+		CachingXPathFactory fac = new JaxenXPathFactory().withCache(2);
+		XPathExpression<Element> a = fac.compile("//x", Filters.element());
+		XPathExpression<Element> b = fac.compile("//x", Filters.element());
+		assertTrue(a != b);
+		assertEquals(1, fac.getHitCount());
+		assertEquals(1, fac.getMissCount());
+		// different filter.
+		fac.compile("//x");
+		assertEquals(2, fac.getMissCount());
+		// evicts the least-recently-used "//x" element expression.
+		fac.compile("//y");
+		assertEquals(2, fac.getSize());
+		fac.compile("//x", Filters.element());
+		assertEquals(4, fac.getMissCount());
+		assertEquals(1, fac.getHitCount());
+		fac.clearCache();
+		assertEquals(0, fac.getSize());
+		fac.resetStatistics();
+		assertEquals(0, fac.getHitCount());
+		assertEquals(0, fac.getMissCount());
+		assertTrue(fac.toString().indexOf("CachingXPathFactory") >= 0);
+	}
+
+	@Test
+	public void testNamespacePrefixesAndVariables() {
+		CachingXPathFactory fac = new JaxenXPathFactory().withCache(8);
+		Namespace nsa = Namespace.getNamespace("a", "urn:x");
+		Namespace nsb = Namespace.getNamespace("b", "urn:x");
+		fac.compile("//a:x", Filters.element(), null, nsa);
+		// same URI, different prefix, so it is a different expression.
+		XPathExpression<Element> xb = 
+				fac.compile("//a:x", Filters.element(), null, nsb);
+		assertEquals("urn:x", xb.getNamespace("b").getURI());
+		assertEquals(2, fac.getMissCount());
+		XPathExpression<Object> v1 = fac.compile("$v", Filters.fpassthrough(), 
+				Collections.singletonMap("v", (Object)"one"));
+		XPathExpression<Object> v2 = fac.compile("$v", Filters.fpassthrough(), 
+				Collections.singletonMap("v", (Object)"two"));
+		assertEquals("one", v1.evaluateFirst(new Element("root")));
+		assertEquals("two", v2.evaluateFirst(new Element("root")));
+		// changing the variable on a returned expression does not affect the cache.
+		v1.setVariable("v", "changed");
+		XPathExpression<Object> v3 = fac.compile("$v", Filters.fpassthrough(), 
+				Collections.singletonMap("v", (Object)"one"));
+		assertEquals("one", v3.evaluateFirst(new Element("root")));
+		assertEquals(1, fac.getHitCount());
+	}
+
+	@Test
+	public void testBadExpressionNotCached() {
+		CachingXPathFactory fac = new JaxenXPathFactory().withCache(8);
+		for (int i = 0; i < 2; i++) {
+			try {
+				fac.compile("//[");
+				fail("Should not compile a broken expression");
+			} catch (Exception e) {
+				UnitTestUtil.checkException(IllegalArgumentException.class, e);
+			}
+		}
+		assertEquals(0, fac.getSize());
+		assertEquals(2, fac.getMissCount());
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.jdom2.test.cases.xpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.test.util.UnitTestUtil;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+import org.jdom2.xpath.direct.DirectXPathFactory;
+import org.jdom2.xpath.jaxen.JaxenXPathFactory;
+
+/**
+ * Compare the direct evaluation of expressions with the Jaxen evaluation.
+ */
+@SuppressWarnings("javadoc")
+public class TestDirectXPathFactory {
+
+	private static final String XML = 
+			"<a xmlns:n='urn:n'>" +
+			"<b id='x' k='1'><c>one</c><c>two</c><b id='y'><c>three</c></b>text</b>" +
+			"<b id='z'><c>four</c><d>dee</d><n:c n:att='na'>ns</n:c></b>" +
+			"<n:e><b><c>five</c></b></n:e>" +
+			"tail</a>";
+
+	private static final Namespace NS = Namespace.getNamespace("p", "urn:n");
+
+	private static final String[] DIRECT = {
+		"/", "/a", "a", "/a/b", "/a/b[@id='x']/c", "/a/b[@id=\"z\"]/c",
+		"//c", "//b/c", "//b//c", "/a/b/b/c", "//b[1]", "//b[last()]", 
+		"//c[2]", "/a/b[2]/*", "/a/*/b", "/a/p:e/b", "//p:c", "//p:*", 
+		"//p:c/@p:att", "//b/@id", "//b/@*", "//@id", "/a/b[c='two']/@id", 
+		"/a/b[d]", "/a/b[@k]", "/a/b[@k][1]", "/a/b[1][@k]", "/a/b[2][@k]",
+		"//b[c]/c[1]", "descendant::c", "child::b/descendant::c[1]", 
+		"/a/text()", "//text()", "//b/text()", "./b", "b/./c", 
+		"/a/b[@id = 'x']/c[ 2 ]", "//b//b", "//b//c[1]",
+	};
+
+	private static final String[] FALLBACK = {
+		"count(//b)", "//b | //c", "/a/b[@id!='x']", "//b/..", "../b",
+		"//b[position()=1]", "//c[1.5]", "//q:c", "$var", "//b[@id='x' or @id='y']",
+		"preceding::b", "//comment()", "//c[0]", "//b/descendant::c[1]", "//c[.]", "//@id[1]",
+		"//node()", "/a/b[@id='x']/c + 1", "string(/a)", "//.",
+	};
+
+	private static Document doc() throws Exception {
+		return new SAXBuilder().build(new StringReader(XML));
+	}
+
+	private static void compare(Object context, String xpath, 
+			XPathFactory direct, XPathFactory jaxen) {
+		List<Object> de = direct.compile(xpath, Filters.fpassthrough(), null, NS)
+				.evaluate(context);
+		List<Object> je = jaxen.compile(xpath, Filters.fpassthrough(), null, NS)
+				.evaluate(context);
+		assertEquals(xpath, je.size(), de.size());
+		for (int i = 0; i < je.size(); i++) {
+			assertTrue(xpath + " at " + i + " " + je + " vs " + de, 
+					je.get(i) == de.get(i) || (je.get(i) instanceof Number
+							&& je.get(i).equals(de.get(i))));
+		}
+	}
+
+	@Test
+	public void testDirectMatchesJaxen() throws Exception {
+		final Document doc = doc();
+		final XPathFactory direct = new DirectXPathFactory();
+		final XPathFactory jaxen = new JaxenXPathFactory();
+		final Element b = doc.getRootElement().getChild("b");
+		for (String xp : DIRECT) {
+			assertTrue(xp, DirectXPathFactory.isDirect(
+					direct.compile(xp, Filters.fpassthrough(), null, NS)));
+			compare(doc, xp, direct, jaxen);
+			compare(doc.getRootElement(), xp, direct, jaxen);
+			compare(b, xp, direct, jaxen);
+			compare(b.getAttribute("id"), xp, direct, jaxen);
+		}
+	}
+
+	@Test
+	public void testFallback() throws Exception {
+		final XPathFactory direct = new DirectXPathFactory();
+		for (String xp : FALLBACK) {
+			try {
+				assertFalse(xp, DirectXPathFactory.isDirect(
+						direct.compile(xp, Filters.fpassthrough(), null, NS)));
+			} catch (IllegalArgumentException iae) {
+				// Jaxen could not compile it either.
+			}
+		}
+		final Document doc = doc();
+		compare(doc, "count(//b)", direct, new JaxenXPathFactory());
+		compare(doc, "//b | //c", direct, new JaxenXPathFactory());
+	}
+
+	@Test
+	public void testListContext() throws Exception {
+		final Document doc = doc();
+		final XPathExpression<Element> xp = 
+				new DirectXPathFactory().compile("c", Filters.element());
+		assertTrue(DirectXPathFactory.isDirect(xp));
+		final List<Element> bs = doc.getRootElement().getChildren("b");
+		assertEquals(3, xp.evaluate(bs).size());
+		assertEquals("one", xp.evaluateFirst(bs).getText());
+		final XPathExpression<Element> cl = xp.clone();
+		assertTrue(DirectXPathFactory.isDirect(cl));
+		assertEquals(Arrays.asList(bs.get(0).getChildren("c").toArray()), 
+				Arrays.asList(cl.evaluate(bs.get(0)).toArray()));
+	}
+
+	@Test
+	public void testDetached() {
+		final Element root = new Element("root");
+		root.addContent(new Element("kid"));
+		final XPathFactory direct = new DirectXPathFactory();
+		assertTrue(direct.compile("/root/kid").evaluate(root).isEmpty());
+		assertEquals(1, direct.compile("kid").evaluate(root).size());
+		assertEquals(1, direct.compile("//kid").evaluate(new Document(root)).size());
+	}
+
+	@Test
+	public void testIllegalArguments() {
+		try {
+			new DirectXPathFactory(null);
+			fail("Should not be able to have a null fallback");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(NullPointerException.class, e);
+		}
+		try {
+			new DirectXPathFactory().compile("/a", Filters.element(), null, 
+					Namespace.getNamespace("p", "urn:a"), 
+					Namespace.getNamespace("p", "urn:b"));
+			fail("Should not be able to have duplicate prefixes");
+		} catch (Exception e) {
+			UnitTestUtil.checkException(IllegalArgumentException.class, e);
+		}
+	}
+
+}